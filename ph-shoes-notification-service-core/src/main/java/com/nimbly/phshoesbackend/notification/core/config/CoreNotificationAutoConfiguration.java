@@ -1,21 +1,62 @@
 package com.nimbly.phshoesbackend.notification.core.config;
 
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationAttachmentCacheProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationCompositionProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationDispatchProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationDomainShapingProps;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationExecutionProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationFailoverProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationIdempotencyProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationOutboxProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationScheduleProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationRateLimitProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationRetryProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationRoutingProps;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTransportProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTemplateProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationRenderCacheProps;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.execution.NotificationExecutor;
+import com.nimbly.phshoesbackend.notification.core.execution.PriorityDispatcher;
+import com.nimbly.phshoesbackend.notification.core.failover.FailoverEmailTransport;
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
+import com.nimbly.phshoesbackend.notification.core.idempotency.IdempotencyGuard;
+import com.nimbly.phshoesbackend.notification.core.idempotency.IdempotencyStore;
+import com.nimbly.phshoesbackend.notification.core.idempotency.InMemoryIdempotencyStore;
+import com.nimbly.phshoesbackend.notification.core.outbox.NotificationOutbox;
+import com.nimbly.phshoesbackend.notification.core.outbox.OutboxJournal;
+import com.nimbly.phshoesbackend.notification.core.schedule.ScheduledNotificationService;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.AdaptiveRateLimiter;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.DomainShaper;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryBudget;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryExecutor;
+import com.nimbly.phshoesbackend.notification.core.routing.WeightedTransportRouter;
 import com.nimbly.phshoesbackend.notification.core.ses.SesWebhookController;
 import com.nimbly.phshoesbackend.notification.core.ses.SesWebhookProcessor;
 import com.nimbly.phshoesbackend.notification.core.ses.config.SesWebhookProperties;
 import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationTransportChain;
 import com.nimbly.phshoesbackend.notification.core.service.impl.CoreNotificationServiceImpl;
 import com.nimbly.phshoesbackend.notification.core.service.impl.DefaultEmailCompositionServiceImpl;
+import com.nimbly.phshoesbackend.notification.core.service.impl.ParallelBatchComposer;
+import com.nimbly.phshoesbackend.notification.core.service.impl.DomainShapedNotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.impl.PrioritizedNotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.impl.RateLimitedEmailTransport;
+import com.nimbly.phshoesbackend.notification.core.service.impl.RetryingEmailTransport;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
+import com.nimbly.phshoesbackend.notification.core.template.RenderedTemplateCache;
 import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EncodedAttachmentCache;
 import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
 import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
 import com.nimbly.phshoesbackend.commons.core.repository.SuppressionRepository;
 import com.nimbly.phshoesbackend.commons.core.security.EmailCrypto;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -23,10 +64,36 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ResourceLoader;
 
-@AutoConfiguration
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@AutoConfiguration(afterName = {
+        "com.nimbly.phshoesbackend.notification.email.providers.ses.config.SesNotificationAutoConfiguration",
+        "com.nimbly.phshoesbackend.notification.email.providers.smtp.config.SmtpTransportAutoConfiguration"
+})
 @EnableConfigurationProperties({
         NotificationEmailProps.class,
+        NotificationAttachmentCacheProps.class,
+        NotificationTemplateProps.class,
+        NotificationRenderCacheProps.class,
+        NotificationCompositionProps.class,
+        NotificationExecutionProps.class,
+        NotificationDispatchProps.class,
+        NotificationDomainShapingProps.class,
+        NotificationOutboxProps.class,
+        NotificationScheduleProps.class,
+        NotificationIdempotencyProps.class,
+        NotificationRateLimitProps.class,
+        NotificationRetryProps.class,
+        NotificationFailoverProps.class,
+        NotificationRoutingProps.class,
         NotificationTransportProps.class,
         SesWebhookProperties.class
 })
@@ -45,8 +112,50 @@ public class CoreNotificationAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public RawMimeBuilder rawMimeBuilder(NotificationEmailProps emailProps, EmailAddressFormatter formatter) {
-        return new RawMimeBuilder(emailProps, formatter);
+    @ConditionalOnProperty(prefix = "notification.email.attachment-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public EncodedAttachmentCache encodedAttachmentCache(NotificationAttachmentCacheProps props,
+                                                         ObjectProvider<MeterRegistry> meterRegistry) {
+        EncodedAttachmentCache cache = new EncodedAttachmentCache(
+                props.getMaxSize().toBytes(),
+                props.getMaxEntrySize().toBytes());
+        meterRegistry.ifAvailable(cache::bindTo);
+        return cache;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.templates.render-cache", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RenderedTemplateCache renderedTemplateCache(NotificationRenderCacheProps props,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        RenderedTemplateCache cache = new RenderedTemplateCache(
+                props.getMaxSize().toBytes(),
+                props.getMaxEntrySize().toBytes());
+        meterRegistry.ifAvailable(cache::bindTo);
+        return cache;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RawMimeBuilder rawMimeBuilder(NotificationEmailProps emailProps,
+                                         EmailAddressFormatter formatter,
+                                         ObjectProvider<EncodedAttachmentCache> attachmentCache,
+                                         ObjectProvider<RenderedTemplateCache> renderCache) {
+        return new RawMimeBuilder(emailProps, formatter, attachmentCache.getIfAvailable(), renderCache.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.templates", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public LocalTemplateEngine localTemplateEngine(ResourceLoader resourceLoader, NotificationTemplateProps props) {
+        LocalTemplateEngine engine = new LocalTemplateEngine(resourceLoader, props);
+        engine.loadAll();
+        return engine;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public ParallelBatchComposer parallelBatchComposer(NotificationCompositionProps props) {
+        return new ParallelBatchComposer(props);
     }
 
     @Bean
@@ -54,16 +163,220 @@ public class CoreNotificationAutoConfiguration {
     public EmailCompositionService emailCompositionService(NotificationEmailProps emailProps,
                                                            EmailSubjectFormatter subjectFormatter,
                                                            EmailAddressFormatter addressFormatter,
-                                                           RawMimeBuilder rawMimeBuilder) {
-        return new DefaultEmailCompositionServiceImpl(emailProps, subjectFormatter, addressFormatter, rawMimeBuilder);
+                                                           RawMimeBuilder rawMimeBuilder,
+                                                           ObjectProvider<LocalTemplateEngine> templateEngine,
+                                                           ObjectProvider<ParallelBatchComposer> batchComposer) {
+        return new DefaultEmailCompositionServiceImpl(emailProps, subjectFormatter, addressFormatter, rawMimeBuilder,
+                templateEngine.getIfAvailable(), batchComposer.getIfAvailable());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.execution", name = "virtual-threads", havingValue = "true")
+    public NotificationExecutor notificationExecutor(NotificationExecutionProps props,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        NotificationExecutor executor = NotificationExecutor.virtualThreads(props.getMaxConcurrency(), props.getAcquireTimeout());
+        meterRegistry.ifAvailable(executor::bindTo);
+        return executor;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.dispatch", name = "enabled", havingValue = "true")
+    public PriorityDispatcher priorityDispatcher(NotificationDispatchProps props,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        PriorityDispatcher dispatcher = PriorityDispatcher.virtualThreads(
+                props.getMaxConcurrency(), props.getLaneCapacity(), props.getWeights());
+        meterRegistry.ifAvailable(dispatcher::bindTo);
+        return dispatcher;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.domain-shaping", name = "enabled", havingValue = "true")
+    public DomainShaper domainShaper(NotificationDomainShapingProps props, ObjectProvider<MeterRegistry> meterRegistry) {
+        DomainShaper.Limits defaults = new DomainShaper.Limits(props.getMaxConcurrency(), props.getRate(), props.getBurst());
+        Map<String, DomainShaper.Limits> overrides = new HashMap<>();
+        props.getDomains().forEach((domain, limits) -> overrides.put(domain, new DomainShaper.Limits(
+                limits.getMaxConcurrency() == null ? defaults.maxConcurrency() : limits.getMaxConcurrency(),
+                limits.getRate() == null ? defaults.rate() : limits.getRate(),
+                limits.getBurst() == null ? defaults.burst() : limits.getBurst())));
+        DomainShaper shaper = new DomainShaper(defaults, overrides, props.getMaxWait(), props.getIdleTimeout());
+        meterRegistry.ifAvailable(shaper::bindTo);
+        return shaper;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.outbox", name = "enabled", havingValue = "true")
+    public NotificationOutbox notificationOutbox(NotificationOutboxProps props,
+                                                 ObjectMapper objectMapper,
+                                                 ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        OutboxJournal journal = OutboxJournal.open(Path.of(props.getDirectory()), (int) props.getSegmentSize().toBytes());
+        meterRegistry.ifAvailable(journal::bindTo);
+        return new NotificationOutbox(journal, objectMapper, props);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.idempotency", name = "enabled", havingValue = "true")
+    public IdempotencyStore idempotencyStore(NotificationIdempotencyProps props) {
+        return new InMemoryIdempotencyStore(props.getMaxEntries());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(IdempotencyStore.class)
+    public IdempotencyGuard idempotencyGuard(IdempotencyStore store, NotificationIdempotencyProps props) {
+        return new IdempotencyGuard(store, props.getTtl());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.rate-limit", name = "enabled", havingValue = "true")
+    public AdaptiveRateLimiter adaptiveRateLimiter(NotificationRateLimitProps props,
+                                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(
+                props.getInitialRate(),
+                props.getMinRate(),
+                props.getMaxRate(),
+                props.getIncreasePerSecond(),
+                props.getDecreaseFactor(),
+                props.getCooldown(),
+                props.getMaxWait());
+        meterRegistry.ifAvailable(limiter::bindTo);
+        return limiter;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.retry", name = "enabled", havingValue = "true")
+    public RetryExecutor retryExecutor(NotificationRetryProps props, ObjectProvider<MeterRegistry> meterRegistry) {
+        RetryExecutor retryExecutor = new RetryExecutor(
+                props.getMaxAttempts(),
+                props.getBaseDelay(),
+                props.getMaxDelay(),
+                new RetryBudget(props.getRetryRatio(), props.getBudgetCapacity()));
+        meterRegistry.ifAvailable(retryExecutor::bindTo);
+        return retryExecutor;
+    }
+
+    /**
+     * The transport is layered failover (or weighted routing), then rate limit, then retry: retries go through
+     * the rate limiter like first attempts, so a retry storm still waits its turn, and each attempt goes to a
+     * healthy transport.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(EmailTransportService.class)
+    public NotificationTransportChain notificationTransportChain(EmailTransportService transportService,
+                                                                 NotificationTransportProps transportProps,
+                                                                 NotificationFailoverProps failoverProps,
+                                                                 NotificationRoutingProps routingProps,
+                                                                 ObjectProvider<NamedEmailTransport> fallbacks,
+                                                                 ObjectProvider<MeterRegistry> meterRegistry,
+                                                                 ObjectProvider<AdaptiveRateLimiter> rateLimiter,
+                                                                 ObjectProvider<RetryExecutor> retryExecutor) {
+        EmailTransportService transport = routingProps.isEnabled()
+                ? route(transportService, transportProps, routingProps, fallbacks, meterRegistry)
+                : failover(transportService, transportProps, failoverProps, fallbacks, meterRegistry);
+        AdaptiveRateLimiter limiter = rateLimiter.getIfAvailable();
+        if (limiter != null) transport = new RateLimitedEmailTransport(transport, limiter);
+        RetryExecutor retries = retryExecutor.getIfAvailable();
+        if (retries != null) transport = new RetryingEmailTransport(transport, retries);
+        return new NotificationTransportChain(transport);
+    }
+
+    /**
+     * Sends through the {@link NotificationTransportChain}. The service itself sits behind the priority lanes,
+     * domain shaping and the outbox, in that order, when those are enabled: shaping waits happen before a send
+     * takes a lane slot, so a throttled domain cannot hold slots other domains' sends are queued for.
+     */
     @Bean
     @ConditionalOnMissingBean(NotificationService.class)
     @ConditionalOnBean(EmailTransportService.class)
     public NotificationService notificationService(EmailCompositionService compositionService,
-                                                   EmailTransportService transportService) {
-        return new CoreNotificationServiceImpl(compositionService, transportService);
+                                                   NotificationTransportChain transportChain,
+                                                   ObjectProvider<NotificationExecutor> executor,
+                                                   ObjectProvider<DomainShaper> domainShaper,
+                                                   ObjectProvider<PriorityDispatcher> dispatcher,
+                                                   ObjectProvider<NotificationOutbox> outbox,
+                                                   ObjectProvider<IdempotencyGuard> idempotency) {
+        NotificationService service = new CoreNotificationServiceImpl(compositionService, transportChain.transport(),
+                executor.getIfAvailable(), idempotency.getIfAvailable());
+        PriorityDispatcher lanes = dispatcher.getIfAvailable();
+        if (lanes != null) service = new PrioritizedNotificationService(service, lanes);
+        DomainShaper shaper = domainShaper.getIfAvailable();
+        if (shaper != null) service = new DomainShapedNotificationService(service, shaper);
+        NotificationOutbox journaled = outbox.getIfAvailable();
+        return journaled == null ? service : journaled.wrap(service);
+    }
+
+    /**
+     * Scheduled sends go through the notification service bean, whichever module provided it.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "notification.schedule", name = "enabled", havingValue = "true")
+    @ConditionalOnBean(NotificationService.class)
+    public ScheduledNotificationService scheduledNotificationService(NotificationService notificationService,
+                                                                     NotificationScheduleProps props,
+                                                                     ObjectMapper objectMapper,
+                                                                     ObjectProvider<MeterRegistry> meterRegistry) throws IOException {
+        OutboxJournal journal = props.getDirectory() == null || props.getDirectory().isBlank()
+                ? null
+                : OutboxJournal.open(Path.of(props.getDirectory()), (int) props.getSegmentSize().toBytes());
+        ScheduledNotificationService scheduler = new ScheduledNotificationService(notificationService, journal, objectMapper, props);
+        meterRegistry.ifAvailable(scheduler::bindTo);
+        return scheduler.start();
+    }
+
+    private static EmailTransportService failover(EmailTransportService primary,
+                                                  NotificationTransportProps transportProps,
+                                                  NotificationFailoverProps props,
+                                                  ObjectProvider<NamedEmailTransport> fallbacks,
+                                                  ObjectProvider<MeterRegistry> meterRegistry) {
+        if (props.getFallbacks().isEmpty()) return primary;
+        List<NamedEmailTransport> available = fallbacks.orderedStream().toList();
+        List<NamedEmailTransport> chain = new ArrayList<>();
+        chain.add(new NamedEmailTransport(transportProps.getTransport(), primary));
+        for (String name : props.getFallbacks()) {
+            available.stream().filter(fallback -> fallback.name().equals(name)).findFirst()
+                    .ifPresentOrElse(chain::add, () -> log.warn("failover.fallback.missing transport={}", name));
+        }
+        if (chain.size() == 1) return primary;
+        FailoverEmailTransport failover = new FailoverEmailTransport(chain, new FailoverEmailTransport.BreakerSettings(
+                props.getWindowSize(),
+                props.getMinimumCalls(),
+                props.getFailureRateThreshold(),
+                props.getOpenDuration(),
+                props.getHalfOpenProbes()));
+        meterRegistry.ifAvailable(failover::bindTo);
+        log.info("failover.enabled transports={}", chain.stream().map(NamedEmailTransport::name).toList());
+        return failover;
+    }
+
+    private static EmailTransportService route(EmailTransportService primary,
+                                               NotificationTransportProps transportProps,
+                                               NotificationRoutingProps props,
+                                               ObjectProvider<NamedEmailTransport> transports,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        List<NamedEmailTransport> available = transports.orderedStream().toList();
+        List<WeightedTransportRouter.Route> routes = new ArrayList<>();
+        props.getWeights().forEach((name, weight) -> {
+            if (name.equals(transportProps.getTransport())) {
+                routes.add(new WeightedTransportRouter.Route(name, primary, weight));
+                return;
+            }
+            available.stream().filter(transport -> transport.name().equals(name)).findFirst()
+                    .ifPresentOrElse(transport -> routes.add(new WeightedTransportRouter.Route(name, transport.transport(), weight)),
+                            () -> log.warn("routing.transport.missing transport={}", name));
+        });
+        if (routes.isEmpty()) return primary;
+        WeightedTransportRouter router = new WeightedTransportRouter(routes, props.getSmoothing(), props.getErrorPenalty());
+        meterRegistry.ifAvailable(router::bindTo);
+        log.info("routing.enabled weights={}", props.getWeights());
+        return router;
     }
 
     @Bean
@@ -79,7 +392,8 @@ public class CoreNotificationAutoConfiguration {
     @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
     @ConditionalOnProperty(prefix = "notification.ses.webhook", name = "enabled", havingValue = "true")
     @ConditionalOnMissingBean
-    public SesWebhookController sesWebhookController(SesWebhookProcessor sesWebhookProcessor) {
-        return new SesWebhookController(sesWebhookProcessor);
+    public SesWebhookController sesWebhookController(SesWebhookProcessor sesWebhookProcessor,
+                                                     ObjectProvider<NotificationExecutor> executor) {
+        return new SesWebhookController(sesWebhookProcessor, executor.getIfAvailable());
     }
 }
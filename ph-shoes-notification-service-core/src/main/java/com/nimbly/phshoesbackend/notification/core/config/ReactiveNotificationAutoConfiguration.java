@@ -0,0 +1,30 @@
+package com.nimbly.phshoesbackend.notification.core.config;
+
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationReactiveProps;
+import com.nimbly.phshoesbackend.notification.core.reactive.ReactiveNotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import reactor.core.publisher.Flux;
+
+/**
+ * Adds {@link ReactiveNotificationService} when Reactor is on the classpath. Provider auto-configurations that
+ * define their own {@link NotificationService} must run before this one.
+ */
+@AutoConfiguration(after = CoreNotificationAutoConfiguration.class)
+@ConditionalOnClass(Flux.class)
+@EnableConfigurationProperties(NotificationReactiveProps.class)
+public class ReactiveNotificationAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(NotificationService.class)
+    public ReactiveNotificationService reactiveNotificationService(NotificationService notificationService,
+                                                                   NotificationReactiveProps props) {
+        return new ReactiveNotificationService(notificationService, props.getConcurrency());
+    }
+}
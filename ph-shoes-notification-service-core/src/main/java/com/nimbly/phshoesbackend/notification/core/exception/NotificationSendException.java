@@ -1,11 +1,40 @@
 package com.nimbly.phshoesbackend.notification.core.exception;
 
 public class NotificationSendException extends RuntimeException {
-    public NotificationSendException(String message, Throwable cause) {
+
+    /**
+     * Why a send failed, as far as the provider let us tell.
+     */
+    public enum Reason {
+        /** The provider refused because we are over its send rate. */
+        THROTTLED,
+        /** Network errors and provider-side faults; the same send may succeed later. */
+        TRANSIENT,
+        /** The provider rejected the request itself; sending it again will not help. */
+        PERMANENT,
+        UNKNOWN
+    }
+
+    private final Reason reason;
+
+    public NotificationSendException(String message, Throwable cause, Reason reason) {
         super(message, cause);
+        this.reason = reason == null ? Reason.UNKNOWN : reason;
+    }
+
+    public NotificationSendException(String message, Throwable cause) {
+        this(message, cause, Reason.UNKNOWN);
     }
 
     public NotificationSendException(String message) {
-        super(message);
+        this(message, null, Reason.UNKNOWN);
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public boolean isThrottled() {
+        return reason == Reason.THROTTLED;
     }
 }
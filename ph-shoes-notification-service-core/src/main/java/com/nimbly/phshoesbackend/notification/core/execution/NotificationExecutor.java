@@ -0,0 +1,96 @@
+package com.nimbly.phshoesbackend.notification.core.execution;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking notification work (SDK and JavaMail calls, SNS certificate fetches) on an executor with an
+ * explicit concurrency limit. With virtual threads every task gets its own thread, so the limit is the only
+ * sizing knob; the semaphore is acquired on the submitting thread, so a full executor slows the producer down
+ * rather than growing a queue.
+ */
+public class NotificationExecutor implements MeterBinder, AutoCloseable {
+
+    public static final String IN_FLIGHT_METRIC = "notification.execution.in-flight";
+
+    private final ExecutorService executor;
+    private final int maxConcurrency;
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    public NotificationExecutor(ExecutorService executor, int maxConcurrency, Duration acquireTimeout) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be positive");
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.permits = new Semaphore(maxConcurrency);
+        this.acquireTimeoutNanos = acquireTimeout == null ? 0 : acquireTimeout.toNanos();
+    }
+
+    public static NotificationExecutor virtualThreads(int maxConcurrency, Duration acquireTimeout) {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("notification-", 0).factory());
+        return new NotificationExecutor(executor, maxConcurrency, acquireTimeout);
+    }
+
+    /**
+     * Runs {@code task} on the executor once a slot is free.
+     *
+     * @throws RejectedExecutionException when no slot frees up within the acquire timeout
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        acquire();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw e;
+        }
+        return result;
+    }
+
+    public int inFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(IN_FLIGHT_METRIC, this, NotificationExecutor::inFlight)
+                .description("Notification tasks running or waiting on I/O")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+
+    private void acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("notification executor saturated: " + maxConcurrency + " in flight");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("interrupted waiting for a notification executor slot", e);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.nimbly.phshoesbackend.notification.core.execution;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailPriority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Runs sends in one bounded lane per {@link EmailPriority}, at most {@code maxConcurrency} at a time. Whenever a
+ * slot frees up the next task is picked by smooth weighted round robin over the lanes that have work: a lane
+ * with weight 16 next to one with weight 1 gets 16 of every 17 slots, so a high-priority send waiting behind a
+ * bulk campaign goes out at the next free slot while the campaign still makes progress. An idle lane earns no
+ * credit, so it cannot burst ahead when it fills again.
+ * <p>
+ * Each lane rejects new tasks once it holds {@code laneCapacity} of them. Metrics per lane:
+ * {@code notification.dispatch.queue-depth}, {@code notification.dispatch.wait} (queue wait, with percentiles)
+ * and {@code notification.dispatch.rejected}.
+ */
+public class PriorityDispatcher implements MeterBinder, AutoCloseable {
+
+    public static final String QUEUE_DEPTH_METRIC = "notification.dispatch.queue-depth";
+    public static final String WAIT_METRIC = "notification.dispatch.wait";
+    public static final String REJECTED_METRIC = "notification.dispatch.rejected";
+
+    private static final EmailPriority[] PRIORITIES = EmailPriority.values();
+
+    private final Executor executor;
+    private final int maxConcurrency;
+    private final int laneCapacity;
+    private final LongSupplier nanoTime;
+    private final Lane[] lanes = new Lane[PRIORITIES.length];
+    private int running;
+
+    public PriorityDispatcher(Executor executor, int maxConcurrency, int laneCapacity, Map<EmailPriority, Integer> weights) {
+        this(executor, maxConcurrency, laneCapacity, weights, System::nanoTime);
+    }
+
+    PriorityDispatcher(Executor executor, int maxConcurrency, int laneCapacity, Map<EmailPriority, Integer> weights,
+                       LongSupplier nanoTime) {
+        if (maxConcurrency < 1) throw new IllegalArgumentException("maxConcurrency must be positive");
+        if (laneCapacity < 1) throw new IllegalArgumentException("laneCapacity must be positive");
+        this.executor = executor;
+        this.maxConcurrency = maxConcurrency;
+        this.laneCapacity = laneCapacity;
+        this.nanoTime = nanoTime;
+        for (EmailPriority priority : PRIORITIES) {
+            int weight = weights.getOrDefault(priority, 1);
+            if (weight < 1) throw new IllegalArgumentException("weight must be positive: " + priority);
+            lanes[priority.ordinal()] = new Lane(priority, weight);
+        }
+    }
+
+    public static PriorityDispatcher virtualThreads(int maxConcurrency, int laneCapacity, Map<EmailPriority, Integer> weights) {
+        ExecutorService executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("notification-dispatch-", 0).factory());
+        return new PriorityDispatcher(executor, maxConcurrency, laneCapacity, weights);
+    }
+
+    public static Map<EmailPriority, Integer> defaultWeights() {
+        Map<EmailPriority, Integer> weights = new EnumMap<>(EmailPriority.class);
+        weights.put(EmailPriority.HIGH, 16);
+        weights.put(EmailPriority.NORMAL, 4);
+        weights.put(EmailPriority.BULK, 1);
+        return weights;
+    }
+
+    /**
+     * Queues {@code task} in the lane for {@code priority} ({@code null} meaning {@link EmailPriority#NORMAL}).
+     *
+     * @throws RejectedExecutionException when that lane is full
+     */
+    public <T> CompletableFuture<T> submit(EmailPriority priority, Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(priority, result, release -> {
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                release.run();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Like {@link #submit}, for a task that starts asynchronous work: its slot is held until the future the task
+     * returns completes, not just while the task runs.
+     *
+     * @throws RejectedExecutionException when that lane is full
+     */
+    public <T> CompletableFuture<T> submitAsync(EmailPriority priority, Supplier<CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        enqueue(priority, result, release -> {
+            CompletableFuture<T> started;
+            try {
+                started = task.get();
+            } catch (Throwable e) {
+                release.run();
+                result.completeExceptionally(e);
+                return;
+            }
+            started.whenComplete((value, error) -> {
+                release.run();
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error);
+                }
+            });
+        });
+        return result;
+    }
+
+    private void enqueue(EmailPriority priority, CompletableFuture<?> result, Consumer<Runnable> body) {
+        Lane lane = lanes[(priority == null ? EmailPriority.NORMAL : priority).ordinal()];
+        Task queued = new Task(lane, nanoTime.getAsLong(), body, result::completeExceptionally);
+        synchronized (this) {
+            if (lane.queue.size() >= laneCapacity) {
+                Counter rejected = lane.rejected;
+                if (rejected != null) rejected.increment();
+                throw new RejectedExecutionException(lane.name + " lane full: " + laneCapacity + " queued");
+            }
+            lane.queue.add(queued);
+        }
+        dispatch();
+    }
+
+    public synchronized int queueDepth(EmailPriority priority) {
+        return lanes[priority.ordinal()].queue.size();
+    }
+
+    public synchronized int running() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Lane lane : lanes) {
+            Gauge.builder(QUEUE_DEPTH_METRIC, this, dispatcher -> dispatcher.queueDepth(lane.priority))
+                    .tag("lane", lane.name)
+                    .description("Sends waiting in each priority lane")
+                    .register(registry);
+            lane.wait = Timer.builder(WAIT_METRIC)
+                    .tag("lane", lane.name)
+                    .description("Time sends spend queued in each priority lane")
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry);
+            lane.rejected = Counter.builder(REJECTED_METRIC)
+                    .tag("lane", lane.name)
+                    .description("Sends rejected because their lane was full")
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor instanceof ExecutorService service) service.close();
+    }
+
+    /**
+     * Starts queued tasks while slots are free. Called after every submit and every completion. A task the
+     * executor refuses (it was shut down) fails with the {@link RejectedExecutionException} and frees its slot.
+     */
+    private void dispatch() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                if (running >= maxConcurrency) return;
+                task = next();
+                if (task == null) return;
+                running++;
+            }
+            Timer wait = task.lane.wait;
+            if (wait != null) wait.record(nanoTime.getAsLong() - task.enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                executor.execute(() -> task.body.accept(this::finished));
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    running--;
+                }
+                task.abort.accept(e);
+            }
+        }
+    }
+
+    private void finished() {
+        synchronized (this) {
+            running--;
+        }
+        dispatch();
+    }
+
+    /**
+     * Smooth weighted round robin over non-empty lanes; must hold the monitor.
+     */
+    private Task next() {
+        int activeWeight = 0;
+        Lane best = null;
+        for (Lane lane : lanes) {
+            if (lane.queue.isEmpty()) {
+                lane.credit = 0;
+                continue;
+            }
+            lane.credit += lane.weight;
+            activeWeight += lane.weight;
+            if (best == null || lane.credit > best.credit) best = lane;
+        }
+        if (best == null) return null;
+        best.credit -= activeWeight;
+        return best.queue.poll();
+    }
+
+    private static final class Lane {
+        final EmailPriority priority;
+        final String name;
+        final int weight;
+        final ArrayDeque<Task> queue = new ArrayDeque<>();
+        int credit;
+        volatile Timer wait;
+        volatile Counter rejected;
+
+        Lane(EmailPriority priority, int weight) {
+            this.priority = priority;
+            this.name = priority.name().toLowerCase();
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * {@code body} runs on the executor and must call the release callback it is given exactly once.
+     */
+    private record Task(Lane lane, long enqueuedAt, Consumer<Runnable> body, Consumer<Throwable> abort) {
+    }
+}
@@ -0,0 +1,153 @@
+package com.nimbly.phshoesbackend.notification.core.failover;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. While CLOSED it records the outcome of the last {@code windowSize} calls and
+ * opens once at least {@code minimumCalls} of them have been recorded and the failure rate reaches
+ * {@code failureRateThreshold}. An OPEN breaker rejects calls for {@code openDuration}, then lets
+ * {@code halfOpenProbes} calls through (HALF_OPEN): a failed probe opens it again, and once every probe has
+ * succeeded it closes with a fresh window.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, HALF_OPEN, OPEN }
+
+    @FunctionalInterface
+    public interface TransitionListener {
+        void onTransition(State from, State to);
+    }
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenProbes;
+    private final LongSupplier nanoTime;
+    private final TransitionListener listener;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openUntil;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public CircuitBreaker(int windowSize,
+                          int minimumCalls,
+                          double failureRateThreshold,
+                          Duration openDuration,
+                          int halfOpenProbes,
+                          TransitionListener listener) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenProbes, listener, System::nanoTime);
+    }
+
+    CircuitBreaker(int windowSize,
+                   int minimumCalls,
+                   double failureRateThreshold,
+                   Duration openDuration,
+                   int halfOpenProbes,
+                   TransitionListener listener,
+                   LongSupplier nanoTime) {
+        if (windowSize < 1 || halfOpenProbes < 1) throw new IllegalArgumentException("windowSize and halfOpenProbes must be positive");
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenProbes = halfOpenProbes;
+        this.listener = listener == null ? (from, to) -> { } : listener;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Whether a call may go out now. Every permitted call must be followed by {@link #onSuccess},
+     * {@link #onFailure} or {@link #release}.
+     */
+    public boolean tryAcquire() {
+        State from;
+        synchronized (this) {
+            switch (state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (nanoTime.getAsLong() - openUntil < 0) return false;
+                    from = transition(State.HALF_OPEN);
+                    probesStarted = 1;
+                    probesSucceeded = 0;
+                    break;
+                default:
+                    if (probesStarted >= halfOpenProbes) return false;
+                    probesStarted++;
+                    return true;
+            }
+        }
+        listener.onTransition(from, State.HALF_OPEN);
+        return true;
+    }
+
+    public void onSuccess() {
+        State from = null;
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                record(false);
+            } else if (state == State.HALF_OPEN && ++probesSucceeded >= halfOpenProbes) {
+                from = transition(State.CLOSED);
+                resetWindow();
+            }
+        }
+        if (from != null) listener.onTransition(from, State.CLOSED);
+    }
+
+    public void onFailure() {
+        State from = null;
+        synchronized (this) {
+            boolean trip = state == State.HALF_OPEN;
+            if (state == State.CLOSED) {
+                record(true);
+                trip = recorded >= minimumCalls && (double) failures / recorded >= failureRateThreshold;
+            }
+            if (trip) {
+                from = transition(State.OPEN);
+                openUntil = nanoTime.getAsLong() + openNanos;
+            }
+        }
+        if (from != null) listener.onTransition(from, State.OPEN);
+    }
+
+    /**
+     * Gives back a permit whose call ended without an outcome, e.g. because it threw an {@link Error}, so a
+     * HALF_OPEN breaker can start another probe instead of waiting for one that will never report.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && probesStarted > probesSucceeded) probesStarted--;
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (recorded == window.length) {
+            if (window[next]) failures--;
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) failures++;
+        next = (next + 1) % window.length;
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+
+    private State transition(State to) {
+        State from = state;
+        state = to;
+        return from;
+    }
+}
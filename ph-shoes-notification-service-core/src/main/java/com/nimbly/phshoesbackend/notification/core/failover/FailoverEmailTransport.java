@@ -0,0 +1,238 @@
+package com.nimbly.phshoesbackend.notification.core.failover;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Sends through the first of several transports whose {@link CircuitBreaker} lets the call through, moving on
+ * to the next one when a send fails. An open breaker is skipped without a call, so failover costs a lock and a
+ * clock read. Failures with a {@link NotificationSendException.Reason#PERMANENT PERMANENT} reason are about the
+ * message, not the transport: they neither count against the breaker nor fail over. Transports that cannot
+ * {@linkplain EmailTransportService#canSend send} an email, such as SMTP for an SES-side template, are never
+ * tried for it; when none of them can, the send fails with a {@code PERMANENT} reason.
+ * <p>
+ * Metrics: {@code notification.failover.sends{transport}} per send attempt, {@code notification.failover.state{transport}}
+ * (0 closed, 1 half-open, 2 open) and {@code notification.failover.transitions{transport,to}}.
+ */
+@Slf4j
+public class FailoverEmailTransport implements EmailTransportService, MeterBinder {
+
+    public static final String SENDS_METRIC = "notification.failover.sends";
+    public static final String STATE_METRIC = "notification.failover.state";
+    public static final String TRANSITIONS_METRIC = "notification.failover.transitions";
+
+    /**
+     * Breaker settings shared by every member.
+     */
+    public record BreakerSettings(int windowSize, int minimumCalls, double failureRateThreshold,
+                                  Duration openDuration, int halfOpenProbes) {
+    }
+
+    private final List<Member> members;
+    private volatile MeterRegistry registry;
+
+    public FailoverEmailTransport(List<NamedEmailTransport> transports, BreakerSettings settings) {
+        if (transports.isEmpty()) throw new IllegalArgumentException("at least one transport is required");
+        List<Member> list = new ArrayList<>(transports.size());
+        for (NamedEmailTransport transport : transports) {
+            list.add(new Member(transport.name(), transport.transport(), settings));
+        }
+        this.members = List.copyOf(list);
+    }
+
+    @Override
+    public SendResult send(ComposedEmail email) throws NotificationSendException {
+        return call(member -> member.transport.canSend(email), member -> member.transport.send(email), result -> false);
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(ComposedEmail email) {
+        if (members.stream().noneMatch(member -> member.transport.canSend(email))) {
+            return CompletableFuture.failedFuture(unsendable());
+        }
+        return sendAsync(email, 0, null);
+    }
+
+    /**
+     * The whole batch goes to one transport that can send every email in it; it fails over when the call throws
+     * or no entry was accepted. If no transport accepts any entry, the last transport's results are returned.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<ComposedEmail> emails) {
+        return call(member -> emails.stream().allMatch(member.transport::canSend),
+                member -> member.transport.sendBatch(emails),
+                results -> !results.isEmpty() && results.stream().noneMatch(SendResult::isAccepted));
+    }
+
+    public CircuitBreaker.State state(String transport) {
+        return members.stream().filter(m -> m.name.equals(transport)).findFirst()
+                .map(m -> m.breaker.state())
+                .orElseThrow(() -> new IllegalArgumentException("unknown transport: " + transport));
+    }
+
+    @Override
+    public boolean canSend(ComposedEmail email) {
+        return members.stream().anyMatch(member -> member.transport.canSend(email));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        for (Member member : members) {
+            member.sends = Counter.builder(SENDS_METRIC)
+                    .tag("transport", member.name)
+                    .description("Send attempts per failover transport")
+                    .register(registry);
+            Gauge.builder(STATE_METRIC, member.breaker, breaker -> breaker.state().ordinal())
+                    .tag("transport", member.name)
+                    .description("Circuit breaker state: 0 closed, 1 half-open, 2 open")
+                    .register(registry);
+        }
+    }
+
+    private <T> T call(Predicate<Member> eligible, Attempt<T> attempt, Predicate<T> rejected) {
+        NotificationSendException last = null;
+        T lastRejected = null;
+        boolean anyEligible = false;
+        for (Member member : members) {
+            if (!eligible.test(member)) continue;
+            anyEligible = true;
+            if (!member.breaker.tryAcquire()) continue;
+            member.attempted();
+            boolean reported = false;
+            try {
+                T result = attempt.run(member);
+                reported = true;
+                if (rejected.test(result)) {
+                    member.breaker.onFailure();
+                    lastRejected = result;
+                    continue;
+                }
+                member.breaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                reported = true;
+                NotificationSendException failure = asSendFailure(e);
+                if (failure.getReason() == NotificationSendException.Reason.PERMANENT) {
+                    member.breaker.onSuccess();
+                    throw failure;
+                }
+                member.breaker.onFailure();
+                last = failure;
+            } finally {
+                if (!reported) member.breaker.release();
+            }
+        }
+        if (!anyEligible) throw unsendable();
+        if (lastRejected != null) return lastRejected;
+        throw unavailable(last);
+    }
+
+    private CompletableFuture<SendResult> sendAsync(ComposedEmail email, int from, NotificationSendException last) {
+        for (int i = from; i < members.size(); i++) {
+            Member member = members.get(i);
+            if (!member.transport.canSend(email) || !member.breaker.tryAcquire()) continue;
+            member.attempted();
+            int index = i;
+            return start(member, () -> member.transport.sendAsync(email)).handle((result, error) -> {
+                if (error == null) {
+                    member.breaker.onSuccess();
+                    return CompletableFuture.completedFuture(result);
+                }
+                NotificationSendException failure = asSendFailure(error);
+                if (failure.getReason() == NotificationSendException.Reason.PERMANENT) {
+                    member.breaker.onSuccess();
+                    return CompletableFuture.<SendResult>failedFuture(failure);
+                }
+                member.breaker.onFailure();
+                return sendAsync(email, index + 1, failure);
+            }).thenCompose(future -> future);
+        }
+        return CompletableFuture.failedFuture(unavailable(last));
+    }
+
+    private static CompletableFuture<SendResult> start(Member member, Supplier<CompletableFuture<SendResult>> send) {
+        boolean started = false;
+        try {
+            CompletableFuture<SendResult> future = send.get();
+            started = true;
+            return future;
+        } catch (RuntimeException e) {
+            started = true;
+            return CompletableFuture.failedFuture(e);
+        } finally {
+            if (!started) member.breaker.release();
+        }
+    }
+
+    private static NotificationSendException asSendFailure(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        if (error instanceof NotificationSendException nse) return nse;
+        return new NotificationSendException("Send failed: " + error.getMessage(), error);
+    }
+
+    private static NotificationSendException unavailable(NotificationSendException last) {
+        return last != null ? last
+                : new NotificationSendException("No email transport available: all circuit breakers open", null,
+                NotificationSendException.Reason.TRANSIENT);
+    }
+
+    private static NotificationSendException unsendable() {
+        return new NotificationSendException("No email transport can send this email: it needs a provider-side "
+                + "template that no configured transport renders", null, NotificationSendException.Reason.PERMANENT);
+    }
+
+    @FunctionalInterface
+    private interface Attempt<T> {
+        T run(Member member);
+    }
+
+    private final class Member {
+        final String name;
+        final EmailTransportService transport;
+        final CircuitBreaker breaker;
+        volatile Counter sends;
+
+        Member(String name, EmailTransportService transport, BreakerSettings settings) {
+            this.name = name;
+            this.transport = transport;
+            this.breaker = new CircuitBreaker(settings.windowSize(), settings.minimumCalls(),
+                    settings.failureRateThreshold(), settings.openDuration(), settings.halfOpenProbes(),
+                    this::onTransition);
+        }
+
+        void attempted() {
+            Counter counter = sends;
+            if (counter != null) counter.increment();
+        }
+
+        void onTransition(CircuitBreaker.State from, CircuitBreaker.State to) {
+            log.info("failover.breaker.transition transport={} from={} to={}", name, from, to);
+            MeterRegistry meters = registry;
+            if (meters != null) {
+                Counter.builder(TRANSITIONS_METRIC)
+                        .tag("transport", name)
+                        .tag("to", to.name().toLowerCase())
+                        .description("Circuit breaker state transitions")
+                        .register(meters)
+                        .increment();
+            }
+        }
+    }
+}
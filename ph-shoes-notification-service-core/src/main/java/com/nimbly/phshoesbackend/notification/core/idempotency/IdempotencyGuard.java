@@ -0,0 +1,96 @@
+package com.nimbly.phshoesbackend.notification.core.idempotency;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Makes sends idempotent per key: a key whose send succeeded within the ttl returns the stored result, and
+ * concurrent sends of the same key share one in-flight send (single-flight). Only successful results are
+ * stored, so a failed send can be retried with the same key. Requests without a key are sent as is.
+ * <p>
+ * Coalescing of in-flight sends is per node; the {@link IdempotencyStore} decides how far completed results
+ * are shared.
+ */
+public class IdempotencyGuard {
+
+    private final IdempotencyStore store;
+    private final Duration ttl;
+    private final ConcurrentHashMap<String, CompletableFuture<SendResult>> inFlight = new ConcurrentHashMap<>();
+
+    public IdempotencyGuard(IdempotencyStore store, Duration ttl) {
+        this.store = store;
+        this.ttl = ttl;
+    }
+
+    public CompletableFuture<SendResult> execute(String key, Supplier<CompletableFuture<SendResult>> send) {
+        if (key == null || key.isBlank()) return send.get();
+
+        Optional<SendResult> stored = store.get(key);
+        if (stored.isPresent()) return CompletableFuture.completedFuture(stored.get());
+
+        CompletableFuture<SendResult> mine = new CompletableFuture<>();
+        CompletableFuture<SendResult> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) return existing.thenApply(result -> result);
+
+        // The previous owner stores its result before leaving inFlight, so this re-check closes the gap
+        // between the first lookup and claiming the key.
+        stored = store.get(key);
+        if (stored.isPresent()) {
+            inFlight.remove(key, mine);
+            mine.complete(stored.get());
+            return mine;
+        }
+
+        CompletableFuture<SendResult> sent;
+        try {
+            sent = send.get();
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((result, error) -> {
+            if (error == null) remember(key, result);
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            } else {
+                mine.complete(result);
+            }
+        });
+        return mine.thenApply(result -> result);
+    }
+
+    /**
+     * Stored result for {@code key}, for callers that send in bulk and check keys up front.
+     */
+    public Optional<SendResult> replay(String key) {
+        if (key == null || key.isBlank()) return Optional.empty();
+        return store.get(key);
+    }
+
+    /**
+     * Stores {@code result} under {@code key} if the send was accepted; the bulk counterpart of {@link #execute}.
+     */
+    public void remember(String key, SendResult result) {
+        if (key == null || key.isBlank() || result == null || !result.isAccepted()) return;
+        store.put(key, result, ttl);
+    }
+
+    /**
+     * Blocking form of {@link #execute}; rethrows the send's own exception.
+     */
+    public SendResult call(String key, Supplier<SendResult> send) {
+        try {
+            return execute(key, () -> CompletableFuture.completedFuture(send.get())).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.nimbly.phshoesbackend.notification.core.idempotency;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Remembers the result of a completed send per idempotency key. Implementations may be local (the default
+ * {@link InMemoryIdempotencyStore}) or shared across nodes; they only need to be safe for concurrent use and to
+ * stop returning an entry once its ttl has passed.
+ */
+public interface IdempotencyStore {
+
+    Optional<SendResult> get(String key);
+
+    void put(String key, SendResult result, Duration ttl);
+}
@@ -0,0 +1,69 @@
+package com.nimbly.phshoesbackend.notification.core.idempotency;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Heap-backed {@link IdempotencyStore} bounded by entry count. Entries are kept in insertion order, so expired
+ * entries are dropped from the head as new ones arrive and, past {@code maxEntries}, the oldest go first.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final int maxEntries;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public InMemoryIdempotencyStore(int maxEntries) {
+        this(maxEntries, Clock.systemUTC());
+    }
+
+    InMemoryIdempotencyStore(int maxEntries, Clock clock) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive");
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    @Override
+    public Optional<SendResult> get(String key) {
+        long now = clock.millis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) return Optional.empty();
+            if (entry.expiresAt <= now) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+            return Optional.of(entry.result);
+        }
+    }
+
+    @Override
+    public void put(String key, SendResult result, Duration ttl) {
+        long now = clock.millis();
+        synchronized (entries) {
+            entries.remove(key);
+            entries.put(key, new Entry(result, now + ttl.toMillis()));
+            Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+            while (eldest.hasNext()) {
+                Map.Entry<String, Entry> head = eldest.next();
+                if (entries.size() <= maxEntries && head.getValue().expiresAt > now) break;
+                eldest.remove();
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Entry(SendResult result, long expiresAt) {
+    }
+}
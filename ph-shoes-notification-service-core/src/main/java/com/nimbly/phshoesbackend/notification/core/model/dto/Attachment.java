@@ -1,11 +1,18 @@
 package com.nimbly.phshoesbackend.notification.core.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
 import lombok.Value;
 import lombok.extern.jackson.Jacksonized;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
 @Value
 @Builder
 @Jacksonized
@@ -20,9 +27,50 @@ public class Attachment {
      */
     byte[] content;
 
+    /**
+     * Streaming alternative to {@link #content} for large files; takes precedence when set. In-process only,
+     * never (de)serialized, so a JSON payload cannot point the service at a local file.
+     */
+    @JsonIgnore
+    AttachmentSource source;
+
     /**
      * Example: "application/pdf", "image/png", "text/plain".
      */
     @NotBlank
     String mimeType;
-}
\ No newline at end of file
+
+    /**
+     * Opens the attachment body, whichever way it was supplied.
+     */
+    public InputStream openStream() throws IOException {
+        if (source != null) return source.openStream();
+        return new ByteArrayInputStream(content == null ? new byte[0] : content);
+    }
+
+    /**
+     * Body size in bytes, or -1 when a streaming source cannot tell up front.
+     */
+    public long contentLength() {
+        if (source != null) return source.size();
+        return content == null ? 0 : content.length;
+    }
+
+    public static class AttachmentBuilder {
+        @JsonIgnore
+        public AttachmentBuilder source(AttachmentSource source) {
+            this.source = source;
+            return this;
+        }
+
+        @JsonIgnore
+        public AttachmentBuilder path(Path path) {
+            return source(AttachmentSource.ofPath(path));
+        }
+
+        @JsonIgnore
+        public AttachmentBuilder mapped(ByteBuffer region) {
+            return source(AttachmentSource.ofMapped(region));
+        }
+    }
+}
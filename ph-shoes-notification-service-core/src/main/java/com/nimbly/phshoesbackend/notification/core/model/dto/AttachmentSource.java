@@ -0,0 +1,142 @@
+package com.nimbly.phshoesbackend.notification.core.model.dto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Supplies attachment bytes without holding them on the heap. Each call to {@link #openStream()} must return
+ * a fresh stream positioned at the start of the content, since a message may be rendered more than once
+ * (e.g. on retry). Any {@code () -> InputStream} lambda works as a source.
+ */
+@FunctionalInterface
+public interface AttachmentSource {
+
+    InputStream openStream() throws IOException;
+
+    /**
+     * Content length in bytes, or -1 when unknown. Only used to presize buffers.
+     */
+    default long size() {
+        return -1;
+    }
+
+    /**
+     * Identifies the current content without reading it, so encoded bodies can be cached; null when the source
+     * cannot tell. Must change whenever the content does.
+     */
+    default String cacheKey() {
+        return null;
+    }
+
+    static AttachmentSource ofPath(Path path) {
+        return new AttachmentSource() {
+            @Override
+            public InputStream openStream() throws IOException {
+                return Files.newInputStream(path);
+            }
+
+            @Override
+            public long size() {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public String cacheKey() {
+                return fileKey(path);
+            }
+        };
+    }
+
+    /**
+     * Wraps an already mapped (or otherwise direct) region. The buffer's position and limit are left untouched.
+     */
+    static AttachmentSource ofMapped(ByteBuffer region) {
+        return new AttachmentSource() {
+            @Override
+            public InputStream openStream() {
+                return new ByteBufferInputStream(region.duplicate());
+            }
+
+            @Override
+            public long size() {
+                return region.remaining();
+            }
+        };
+    }
+
+    /**
+     * Maps {@code path} read-only. The mapping stays valid after the channel is closed and is released by GC.
+     */
+    static AttachmentSource ofMappedFile(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new AttachmentSource() {
+                @Override
+                public InputStream openStream() {
+                    return new ByteBufferInputStream(region.duplicate());
+                }
+
+                @Override
+                public long size() {
+                    return region.remaining();
+                }
+
+                @Override
+                public String cacheKey() {
+                    return fileKey(path);
+                }
+            };
+        }
+    }
+
+    /**
+     * Path, size and modification time: enough to tell a file changed without reading it.
+     */
+    private static String fileKey(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return "file:" + path.toAbsolutePath().normalize() + ':' + attributes.size() + ':'
+                    + attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) return 0;
+            if (!buffer.hasRemaining()) return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
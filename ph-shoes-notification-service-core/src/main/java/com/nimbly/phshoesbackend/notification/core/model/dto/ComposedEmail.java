@@ -1,20 +1,130 @@
 package com.nimbly.phshoesbackend.notification.core.model.dto;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @Data
-@AllArgsConstructor
 public class ComposedEmail {
     private EmailRequest request;
-    private String rawMime;
+
+    /**
+     * Renders the message on first access. Cleared once {@link #rawMimeBytes} is memoised.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Supplier<byte[]> rawMimeRenderer;
+
+    /**
+     * Encoded message (UTF-8). Transports should send these bytes directly instead of going through
+     * {@link #getRawMime()}, which decodes a fresh String on every call.
+     */
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private volatile byte[] rawMimeBytes;
+
     private String from;
     private List<String> to;
     private List<String> cc;
     private List<String> bcc;
     private String subject;
     private Map<String, String> tags;
+
+    /**
+     * Extra headers (List-Unsubscribe etc.) already resolved against the defaults, in the order they appear in
+     * the raw message. Lets a transport send the message without rendering MIME.
+     */
+    private Map<String, String> headers = Map.of();
+
+    /**
+     * True when {@code request.templateId} was rendered by the local template engine. The bodies then exist
+     * only in the raw message, and transports must not hand the templateId to the provider again.
+     */
+    private boolean templateRendered;
+
+    public ComposedEmail(EmailRequest request,
+                         String rawMime,
+                         String from,
+                         List<String> to,
+                         List<String> cc,
+                         List<String> bcc,
+                         String subject,
+                         Map<String, String> tags) {
+        this.request = request;
+        this.rawMimeBytes = rawMime == null ? null : rawMime.getBytes(StandardCharsets.UTF_8);
+        this.from = from;
+        this.to = to;
+        this.cc = cc;
+        this.bcc = bcc;
+        this.subject = subject;
+        this.tags = tags;
+    }
+
+    /**
+     * Defers MIME rendering until a transport asks for the raw message; SES template sends never do.
+     */
+    public static ComposedEmail lazy(EmailRequest request,
+                                     Supplier<byte[]> rawMimeRenderer,
+                                     String from,
+                                     List<String> to,
+                                     List<String> cc,
+                                     List<String> bcc,
+                                     String subject,
+                                     Map<String, String> tags) {
+        ComposedEmail email = new ComposedEmail(request, null, from, to, cc, bcc, subject, tags);
+        email.rawMimeRenderer = rawMimeRenderer;
+        return email;
+    }
+
+    /**
+     * Renders the message on first call and returns the same bytes afterwards, so a retry resends
+     * exactly what was composed.
+     */
+    public byte[] getRawMimeBytes() {
+        byte[] bytes = rawMimeBytes;
+        if (bytes == null && rawMimeRenderer != null) {
+            synchronized (this) {
+                bytes = rawMimeBytes;
+                if (bytes == null && rawMimeRenderer != null) {
+                    bytes = rawMimeRenderer.get();
+                    rawMimeBytes = bytes;
+                    rawMimeRenderer = null;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * True when the email names a template only the provider can render: {@code request.templateId} is set and
+     * was not rendered locally, so there are no bodies to put in a raw message.
+     */
+    public boolean requiresProviderTemplate() {
+        return request != null && request.getTemplateId() != null && !templateRendered;
+    }
+
+    public boolean isRawMimeMaterialized() {
+        return rawMimeBytes != null;
+    }
+
+    public String getRawMime() {
+        byte[] bytes = getRawMimeBytes();
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public synchronized void setRawMime(String rawMime) {
+        rawMimeBytes = rawMime == null ? null : rawMime.getBytes(StandardCharsets.UTF_8);
+        rawMimeRenderer = null;
+    }
 }
@@ -0,0 +1,17 @@
+package com.nimbly.phshoesbackend.notification.core.model.dto;
+
+/**
+ * Scheduling class of a request when sends are dispatched through priority lanes. Requests without one are
+ * {@link #NORMAL}.
+ */
+public enum EmailPriority {
+    /**
+     * Transactional mail a user is waiting on, such as email verification.
+     */
+    HIGH,
+    NORMAL,
+    /**
+     * Campaigns and other mail that can wait.
+     */
+    BULK
+}
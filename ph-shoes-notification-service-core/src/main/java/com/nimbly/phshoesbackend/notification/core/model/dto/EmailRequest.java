@@ -1,6 +1,7 @@
 package com.nimbly.phshoesbackend.notification.core.model.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Builder;
@@ -12,7 +13,7 @@ import java.util.List;
 import java.util.Map;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 @Jacksonized
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class EmailRequest {
@@ -20,13 +21,17 @@ public class EmailRequest {
     @Valid
     EmailAddress from;
 
+    // @JsonProperty points Jackson at the builder's collection setter rather than the same-named singular adder.
     @Singular("to")
+    @JsonProperty("to")
     List<@Valid EmailAddress> to;
 
     @Singular("cc")
+    @JsonProperty("cc")
     List<@Valid EmailAddress> cc;
 
     @Singular("bcc")
+    @JsonProperty("bcc")
     List<@Valid EmailAddress> bcc;
 
     @NotBlank
@@ -54,4 +59,11 @@ public class EmailRequest {
      * if a retry happens.
      */
     String requestIdHint;
+
+    /**
+     * Lane the request is dispatched in when priority lanes are enabled; {@code null} means
+     * {@link EmailPriority#HIGH} for a single send and {@link EmailPriority#NORMAL} within a batch. Senders
+     * of non-urgent mail should set {@link EmailPriority#BULK}.
+     */
+    EmailPriority priority;
 }
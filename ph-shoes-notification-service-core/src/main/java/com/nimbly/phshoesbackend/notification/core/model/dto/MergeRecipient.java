@@ -0,0 +1,40 @@
+package com.nimbly.phshoesbackend.notification.core.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+import java.util.Map;
+
+/**
+ * One recipient of a mail merge: the To address plus the template variables personal to them.
+ */
+@Value
+@Builder
+@Jacksonized
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MergeRecipient {
+
+    @Valid
+    @NotNull
+    EmailAddress to;
+
+    @Singular("var")
+    Map<String, Object> vars;
+
+    /**
+     * The equivalent stand-alone request: {@code shared} sent to this recipient only, with {@link #vars}
+     * overriding the shared templateVars.
+     */
+    public EmailRequest applyTo(EmailRequest shared) {
+        return shared.toBuilder()
+                .clearTo()
+                .to(to)
+                .templateVars(vars == null ? Map.of() : vars)
+                .build();
+    }
+}
@@ -1,6 +1,8 @@
 package com.nimbly.phshoesbackend.notification.core.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
 import lombok.Builder;
 import lombok.Value;
 import lombok.extern.jackson.Jacksonized;
@@ -8,10 +10,16 @@ import lombok.extern.jackson.Jacksonized;
 import java.time.Instant;
 
 @Value
-@Builder
+@Builder(toBuilder = true)
 @Jacksonized
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class SendResult {
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";
+    public static final String THROTTLED = "THROTTLED";
+    public static final String QUEUED = "QUEUED";
+    public static final String TRANSIENT = "TRANSIENT";
+
     /**
      * Provider-assigned message identifier (e.g., SES MessageId, SMTP queue id).
      */
@@ -31,4 +39,56 @@ public class SendResult {
      * Optional idempotency/request correlation id.
      */
     String requestId;
+
+    /**
+     * Per-request outcome of a batch send, e.g. {@code SUCCESS} or an SES bulk status such as
+     * {@code MESSAGE_REJECTED}. Single sends leave it unset and throw on failure instead.
+     */
+    String status;
+
+    /**
+     * Provider error message when a batch entry was not accepted.
+     */
+    String error;
+
+    /**
+     * True unless this is a batch entry the provider did not accept. {@code QUEUED} results, accepted into the
+     * outbox for a later send, count as accepted.
+     */
+    @JsonIgnore
+    public boolean isAccepted() {
+        return status == null || SUCCESS.equals(status) || QUEUED.equals(status);
+    }
+
+    /**
+     * True for a batch entry the provider refused because we were over its send rate.
+     */
+    @JsonIgnore
+    public boolean isThrottled() {
+        return THROTTLED.equals(status);
+    }
+
+    /**
+     * True for a batch entry that may go through on a later attempt: {@code THROTTLED} or {@code TRANSIENT}.
+     */
+    @JsonIgnore
+    public boolean isRetryable() {
+        return THROTTLED.equals(status) || TRANSIENT.equals(status);
+    }
+
+    /**
+     * Batch entry for a request whose send threw. A {@link NotificationSendException} reason of
+     * {@code THROTTLED} or {@code TRANSIENT} carries over into the status, so the entry can still be retried.
+     */
+    public static SendResult failed(String provider, Exception error) {
+        String status = FAILED;
+        if (error instanceof NotificationSendException nse) {
+            status = switch (nse.getReason()) {
+                case THROTTLED -> THROTTLED;
+                case TRANSIENT -> TRANSIENT;
+                default -> FAILED;
+            };
+        }
+        return SendResult.builder().provider(provider).status(status).error(error.getMessage()).build();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "notification.email.attachment-cache")
+@Data
+public class NotificationAttachmentCacheProps {
+    /**
+     * Reuse base64-encoded attachment bodies across sends, keyed by SHA-256 of in-memory content
+     * and by path, size and modification time of file sources.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on the encoded bytes held by the cache.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(32);
+
+    /**
+     * Attachments larger than this (raw size) are encoded per send and never cached.
+     */
+    private DataSize maxEntrySize = DataSize.ofMegabytes(4);
+}
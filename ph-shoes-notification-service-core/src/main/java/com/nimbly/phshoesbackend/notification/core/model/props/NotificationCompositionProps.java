@@ -0,0 +1,28 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Batch composition ({@code EmailCompositionService.composeAll}).
+ */
+@ConfigurationProperties(prefix = "notification.composition")
+@Data
+public class NotificationCompositionProps {
+    /**
+     * Worker threads composing a batch; zero or negative uses the common ForkJoin pool.
+     */
+    private int parallelism = 0;
+
+    /**
+     * Requests composed per window. At most two windows of composed emails are held at once: the one being
+     * handed to the consumer and the next one being composed.
+     */
+    private int windowSize = 256;
+
+    /**
+     * Render the raw MIME on the workers. Leave on when the transport sends raw messages; SES template and
+     * simple sends never read it.
+     */
+    private boolean renderMime = true;
+}
@@ -0,0 +1,33 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import com.nimbly.phshoesbackend.notification.core.execution.PriorityDispatcher;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailPriority;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+/**
+ * Priority lanes in front of the notification service, so transactional mail ({@link EmailPriority#HIGH}) is
+ * not stuck behind bulk sends competing for the same provider connections.
+ */
+@ConfigurationProperties(prefix = "notification.dispatch")
+@Data
+public class NotificationDispatchProps {
+    private boolean enabled = false;
+
+    /**
+     * Sends running at once across all lanes; match it to the provider's connection pool.
+     */
+    private int maxConcurrency = 50;
+
+    /**
+     * Sends each lane holds before new ones are rejected.
+     */
+    private int laneCapacity = 10_000;
+
+    /**
+     * Share of free slots each lane gets while several have work waiting.
+     */
+    private Map<EmailPriority, Integer> weights = PriorityDispatcher.defaultWeights();
+}
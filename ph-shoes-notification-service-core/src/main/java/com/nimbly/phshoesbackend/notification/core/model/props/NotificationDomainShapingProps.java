@@ -0,0 +1,57 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-recipient-domain shaping in front of the notification service, so bursts to one mailbox provider are
+ * spread out before it starts deferring us. Every domain gets its own limits, from {@code domains} when listed
+ * there and from the defaults otherwise.
+ */
+@ConfigurationProperties(prefix = "notification.domain-shaping")
+@Data
+public class NotificationDomainShapingProps {
+    private boolean enabled = false;
+
+    /**
+     * Sends in flight at once to one domain.
+     */
+    private int maxConcurrency = 10;
+
+    /**
+     * Sustained sends per second to one domain.
+     */
+    private double rate = 10;
+
+    /**
+     * Sends allowed back to back to a domain that has been quiet.
+     */
+    private int burst = 20;
+
+    /**
+     * Limits for specific domains; unset fields fall back to the defaults above. Keys contain dots, so bind them
+     * in brackets: {@code notification.domain-shaping.domains[gmail.com].rate=5}.
+     */
+    private Map<String, Domain> domains = new LinkedHashMap<>();
+
+    /**
+     * Longest a sender waits for a domain before the send fails as throttled.
+     */
+    private Duration maxWait = Duration.ofSeconds(30);
+
+    /**
+     * How long a domain's state is kept after its last send.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    @Data
+    public static class Domain {
+        private Integer maxConcurrency;
+        private Double rate;
+        private Integer burst;
+    }
+}
@@ -0,0 +1,28 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Where blocking work runs: async sends ({@code NotificationService.sendEmailVerificationAsync}) and SES webhook
+ * processing. By default it stays on the calling thread; with {@code virtual-threads} each task gets its own
+ * virtual thread, bounded by {@code max-concurrency}.
+ */
+@ConfigurationProperties(prefix = "notification.execution")
+@Data
+public class NotificationExecutionProps {
+    private boolean virtualThreads = false;
+
+    /**
+     * Tasks allowed in flight at once. Submitters wait for a free slot, which pushes back on the producer
+     * instead of queueing without bound.
+     */
+    private int maxConcurrency = 1000;
+
+    /**
+     * How long a submitter waits for a free slot before the task is rejected.
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(10);
+}
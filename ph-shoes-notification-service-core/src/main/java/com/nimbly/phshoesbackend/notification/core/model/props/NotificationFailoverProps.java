@@ -0,0 +1,46 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Failover from the configured {@code notification.transport} to fallback transports, each behind its own
+ * circuit breaker. Empty {@code fallbacks} disables failover.
+ */
+@ConfigurationProperties(prefix = "notification.failover")
+@Data
+public class NotificationFailoverProps {
+
+    /**
+     * Fallback transports ({@code ses}, {@code smtp}) in the order they are tried after the primary. Give them as
+     * one comma-separated value, e.g. {@code notification.failover.fallbacks=smtp}: providers read the raw value
+     * to decide whether to register their fallback.
+     */
+    private List<String> fallbacks = new ArrayList<>();
+
+    /**
+     * Number of recent calls the failure rate is computed over.
+     */
+    private int windowSize = 20;
+
+    /**
+     * Calls that must be recorded before the breaker can open.
+     */
+    private int minimumCalls = 10;
+
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * How long an open breaker skips its transport before letting probes through.
+     */
+    private Duration openDuration = Duration.ofSeconds(30);
+
+    /**
+     * Probe calls a half-open breaker lets through; all must succeed to close it.
+     */
+    private int halfOpenProbes = 1;
+}
@@ -0,0 +1,27 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Deduplication of sends by {@code EmailRequest.requestIdHint}. Off unless enabled: once on, a repeated key
+ * returns the stored result instead of sending, which callers that reuse keys on purpose must know about.
+ */
+@ConfigurationProperties(prefix = "notification.idempotency")
+@Data
+public class NotificationIdempotencyProps {
+    private boolean enabled;
+
+    /**
+     * How long a successful send is remembered; a repeat of its key within this window returns the original
+     * result instead of sending again.
+     */
+    private Duration ttl = Duration.ofHours(1);
+
+    /**
+     * Upper bound on remembered keys in the in-memory store; the oldest are dropped first.
+     */
+    private int maxEntries = 100_000;
+}
@@ -0,0 +1,47 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Durable outbox in front of the notification service: requests are acknowledged once journaled on local disk
+ * and sent in the background, surviving a crash mid-send.
+ */
+@ConfigurationProperties(prefix = "notification.outbox")
+@Data
+public class NotificationOutboxProps {
+    private boolean enabled = false;
+
+    /**
+     * Directory holding the journal segments; must be on a persistent volume.
+     */
+    private String directory = "data/outbox";
+
+    /**
+     * Size of each preallocated segment file, which also caps the size of one serialized request.
+     */
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Background senders draining the journal.
+     */
+    private int dispatchers = 8;
+
+    /**
+     * Delay before a throttled or transiently failed entry is sent again.
+     */
+    private Duration retryDelay = Duration.ofSeconds(5);
+
+    /**
+     * Sends of one entry before a throttled or transient failure is given up on and the entry dropped.
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * Queued entries a dispatcher hands to the notification service in one {@code sendBatch} call.
+     */
+    private int maxBatch = 50;
+}
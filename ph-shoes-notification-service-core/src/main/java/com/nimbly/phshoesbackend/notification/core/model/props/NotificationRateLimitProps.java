@@ -0,0 +1,48 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Adaptive send-rate limit in front of the email transport. The rate climbs additively while sends are accepted
+ * and is cut multiplicatively when the provider throttles, so it settles just under the provider's quota.
+ */
+@ConfigurationProperties(prefix = "notification.rate-limit")
+@Data
+public class NotificationRateLimitProps {
+    private boolean enabled = false;
+
+    /**
+     * Sends per second allowed at startup.
+     */
+    private double initialRate = 10;
+
+    private double minRate = 1;
+
+    /**
+     * Ceiling for the rate; set it to the provider quota (e.g. the SES max send rate).
+     */
+    private double maxRate = 50;
+
+    /**
+     * How fast the rate climbs while sends are accepted, in sends per second per second.
+     */
+    private double increasePerSecond = 1;
+
+    /**
+     * Multiplier applied to the rate on throttling.
+     */
+    private double decreaseFactor = 0.7;
+
+    /**
+     * Minimum time between two rate cuts.
+     */
+    private Duration cooldown = Duration.ofSeconds(1);
+
+    /**
+     * Longest a sender waits for a permit before the send fails as throttled.
+     */
+    private Duration maxWait = Duration.ofSeconds(30);
+}
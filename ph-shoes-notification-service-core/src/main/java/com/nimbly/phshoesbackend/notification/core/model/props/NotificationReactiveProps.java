@@ -0,0 +1,16 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Streaming sends through {@code ReactiveNotificationService}.
+ */
+@ConfigurationProperties(prefix = "notification.reactive")
+@Data
+public class NotificationReactiveProps {
+    /**
+     * Default number of sends in flight per stream.
+     */
+    private int concurrency = 64;
+}
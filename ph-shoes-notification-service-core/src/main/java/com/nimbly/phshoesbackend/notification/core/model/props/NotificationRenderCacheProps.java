@@ -0,0 +1,24 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@ConfigurationProperties(prefix = "notification.templates.render-cache")
+@Data
+public class NotificationRenderCacheProps {
+    /**
+     * Reuse rendered template bodies across sends with identical templateVars.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Upper bound on the rendered bytes held by the cache.
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Renders larger than this (text + html) are used once and never cached.
+     */
+    private DataSize maxEntrySize = DataSize.ofKilobytes(256);
+}
@@ -0,0 +1,36 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Retries of throttled and transient send failures. Waits use decorrelated jitter between {@code base-delay}
+ * and {@code max-delay}; retries are capped by a budget of {@code retry-ratio} retries per first attempt.
+ * Off unless enabled, since retries add latency and send traffic that existing callers have not planned for.
+ */
+@ConfigurationProperties(prefix = "notification.retry")
+@Data
+public class NotificationRetryProps {
+    private boolean enabled;
+
+    /**
+     * Attempts per send, the first one included.
+     */
+    private int maxAttempts = 3;
+
+    private Duration baseDelay = Duration.ofMillis(100);
+
+    private Duration maxDelay = Duration.ofSeconds(5);
+
+    /**
+     * Retries earned per first attempt; 0.2 keeps retry traffic to at most a fifth of normal load.
+     */
+    private double retryRatio = 0.2;
+
+    /**
+     * Most retries that can be saved up, and the budget available at startup.
+     */
+    private int budgetCapacity = 100;
+}
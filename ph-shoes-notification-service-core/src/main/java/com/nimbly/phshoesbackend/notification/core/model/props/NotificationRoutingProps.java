@@ -0,0 +1,34 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Steady-state load spreading over several transports. Each key of {@code weights} names a transport: the
+ * configured {@code notification.transport}, a provider transport such as {@code smtp}, or any
+ * {@code NamedEmailTransport} bean.
+ */
+@ConfigurationProperties(prefix = "notification.routing")
+@Data
+public class NotificationRoutingProps {
+    private boolean enabled = false;
+
+    /**
+     * Relative share of sends per transport, e.g. {@code sesv2: 3, smtp: 1}. Latency and errors shift the
+     * actual split away from slow or failing transports.
+     */
+    private Map<String, Double> weights = new LinkedHashMap<>();
+
+    /**
+     * Weight of the newest observation in the latency and error-rate moving averages.
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * How much a transport's error rate inflates its cost; 10 makes a 10% error rate double it.
+     */
+    private double errorPenalty = 10;
+}
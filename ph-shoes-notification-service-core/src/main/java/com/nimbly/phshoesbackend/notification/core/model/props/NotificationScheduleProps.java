@@ -0,0 +1,52 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Scheduled sends ("send at"): requests held in a timing wheel until their time comes, then handed to the
+ * notification service.
+ */
+@ConfigurationProperties(prefix = "notification.schedule")
+@Data
+public class NotificationScheduleProps {
+    private boolean enabled = false;
+
+    /**
+     * Wheel resolution; a send fires at most this long after its time.
+     */
+    private Duration tick = Duration.ofMillis(100);
+
+    /**
+     * Buckets per wheel level, a power of two. With the default tick, 256 buckets over 4 levels covers
+     * about 13 years before entries need re-placing.
+     */
+    private int wheelSize = 256;
+
+    private int levels = 4;
+
+    /**
+     * Journal directory for pending sends so they survive restarts; unset keeps them in memory only.
+     */
+    private String directory;
+
+    private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+    /**
+     * Virtual threads handing due sends to the notification service.
+     */
+    private int senders = 8;
+
+    /**
+     * Delay before a throttled or transiently failed send is tried again.
+     */
+    private Duration retryDelay = Duration.ofSeconds(30);
+
+    /**
+     * Tries per scheduled send, the first included; after the last the send is logged as failed and dropped.
+     */
+    private int maxAttempts = 5;
+}
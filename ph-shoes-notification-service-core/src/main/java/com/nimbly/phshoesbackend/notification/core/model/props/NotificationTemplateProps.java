@@ -0,0 +1,30 @@
+package com.nimbly.phshoesbackend.notification.core.model.props;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Local templates: {@code <location><templateId>.subject|.txt|.html}. A templateId found here is rendered in
+ * process; other ids are left to the provider (e.g. SES server-side templates).
+ */
+@ConfigurationProperties(prefix = "notification.templates")
+@Data
+public class NotificationTemplateProps {
+    public static final String DEFAULT_LOCATION = "classpath:/templates/email/";
+
+    private boolean enabled = true;
+
+    /**
+     * Spring resource location of the template directory, e.g. {@code classpath:/templates/email/} or
+     * {@code file:/etc/ph-shoes/templates/}. When the default location does not exist every id is left to the
+     * provider without a warning.
+     */
+    private String location = DEFAULT_LOCATION;
+
+    /**
+     * How often a template's files are checked for changes; zero or negative disables reloading.
+     */
+    private Duration reloadInterval = Duration.ofSeconds(2);
+}
@@ -0,0 +1,139 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+/**
+ * One preallocated, memory-mapped journal file. Records are laid out back to back as
+ * {@code length:int crc:int type:byte sequence:long payload:byte[length]}, the CRC32C covering type, sequence
+ * and payload. The file starts zero-filled, so a zero type byte marks the end of the written records.
+ * <p>
+ * Not thread-safe for writes: {@link OutboxJournal} serialises them. {@link #force()} and {@link #delete()}
+ * may run concurrently with each other.
+ */
+final class JournalSegment {
+
+    static final int HEADER = 4 + 4 + 1 + 8;
+    static final byte APPEND = 1;
+    static final byte COMPLETE = 2;
+
+    interface RecordVisitor {
+        void visit(byte type, long sequence, byte[] payload);
+    }
+
+    final long index;
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32C crc = new CRC32C();
+    private int position;
+    private boolean closed;
+
+    /**
+     * Appends not yet completed; guarded by the journal.
+     */
+    int live;
+
+    private JournalSegment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.index = index;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment open(Path directory, long index, int size) throws IOException {
+        Path path = directory.resolve(fileName(index));
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int mapped = (int) Math.max(size, channel.size());
+            return new JournalSegment(index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, mapped));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static String fileName(long index) {
+        return String.format("%020d.journal", index);
+    }
+
+    static long parseIndex(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.endsWith(".journal")) return -1;
+        try {
+            return Long.parseLong(name.substring(0, name.length() - ".journal".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    boolean fits(int payloadLength) {
+        return position + HEADER + payloadLength <= buffer.capacity();
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    void write(byte type, long sequence, byte[] payload) {
+        buffer.putInt(position, payload.length)
+                .putLong(position + 9, sequence)
+                .put(position + HEADER, payload);
+        buffer.put(position + 8, type);
+        buffer.putInt(position + 4, checksum(position, payload.length));
+        position += HEADER + payload.length;
+    }
+
+    /**
+     * Visits every intact record from the start and leaves the write position after the last one. A torn or
+     * corrupt record ends the scan; whatever follows it is zeroed so it cannot be mistaken for a record later.
+     */
+    void scan(RecordVisitor visitor) {
+        int pos = 0;
+        while (pos + HEADER <= buffer.capacity()) {
+            byte type = buffer.get(pos + 8);
+            if (type == 0) break;
+            int length = buffer.getInt(pos);
+            if (length < 0 || pos + HEADER + length > buffer.capacity()) break;
+            if (checksum(pos, length) != buffer.getInt(pos + 4)) break;
+            byte[] payload = new byte[length];
+            buffer.get(pos + HEADER, payload);
+            visitor.visit(type, buffer.getLong(pos + 9), payload);
+            pos += HEADER + length;
+        }
+        position = pos;
+        if (pos + HEADER <= buffer.capacity() && buffer.get(pos + 8) != 0) {
+            for (int i = pos; i < buffer.capacity(); i++) buffer.put(i, (byte) 0);
+        }
+    }
+
+    private int checksum(int recordStart, int payloadLength) {
+        crc.reset();
+        crc.update(buffer.slice(recordStart + 8, HEADER - 8 + payloadLength));
+        return (int) crc.getValue();
+    }
+
+    synchronized void force() {
+        if (!closed) buffer.force();
+    }
+
+    synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        channel.close();
+    }
+
+    /**
+     * Closes and removes the file. The mapping itself is released once the buffer is garbage collected.
+     */
+    synchronized void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,44 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationOutboxProps;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The configured outbox: a journal plus how to drain it. Provider auto-configurations hand their
+ * {@link NotificationService} to {@link #wrap} so callers are acknowledged from the journal.
+ */
+public class NotificationOutbox implements AutoCloseable {
+
+    private final OutboxJournal journal;
+    private final ObjectMapper mapper;
+    private final NotificationOutboxProps props;
+    private final AtomicBoolean wrapped = new AtomicBoolean();
+
+    public NotificationOutbox(OutboxJournal journal, ObjectMapper mapper, NotificationOutboxProps props) {
+        this.journal = journal;
+        this.mapper = mapper;
+        this.props = props;
+    }
+
+    /**
+     * Returns a started {@link OutboxNotificationService} draining into {@code delegate}. Only one service may
+     * drain a journal, or replayed entries would be sent twice.
+     */
+    public OutboxNotificationService wrap(NotificationService delegate) {
+        if (!wrapped.compareAndSet(false, true)) throw new IllegalStateException("outbox journal is already drained");
+        return new OutboxNotificationService(delegate, journal, mapper, props).start();
+    }
+
+    public OutboxJournal journal() {
+        return journal;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+}
@@ -0,0 +1,311 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of pending work, split into fixed-size memory-mapped segments.
+ * <p>
+ * {@link #append} copies the record into the active segment and waits until it is on disk. A single flusher
+ * thread forces every segment written since its last pass, so appends that arrive while a force is running
+ * share the next one (group commit): at high rates one fsync covers many appends. {@link #appendAll} writes a
+ * whole batch before waiting, so the batch costs one force rather than one per record. {@link #complete} records
+ * that an entry is done without waiting for disk; losing it in a crash only means the entry is replayed.
+ * <p>
+ * Segments are deleted oldest first once none of their entries is pending, which keeps every completion record
+ * alive as long as the entry it refers to. {@link #open} replays the directory and hands what was still
+ * pending to the first caller of {@link #unfinished()}.
+ * <p>
+ * Metrics: {@code notification.outbox.append} (time until durable), {@code notification.outbox.fsync},
+ * {@code notification.outbox.pending} and {@code notification.outbox.segments}.
+ */
+@Slf4j
+public class OutboxJournal implements MeterBinder, AutoCloseable {
+
+    public static final String APPEND_METRIC = "notification.outbox.append";
+    public static final String FSYNC_METRIC = "notification.outbox.fsync";
+    public static final String PENDING_METRIC = "notification.outbox.pending";
+    public static final String SEGMENTS_METRIC = "notification.outbox.segments";
+
+    public record Entry(long sequence, byte[] payload) {
+    }
+
+    private static final byte[] NO_PAYLOAD = new byte[0];
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ArrayDeque<JournalSegment> segments = new ArrayDeque<>();
+    private final Map<Long, JournalSegment> pending = new HashMap<>();
+    private final Set<JournalSegment> dirty = new LinkedHashSet<>();
+    private List<Entry> unfinished;
+    private final Thread flusher;
+    private JournalSegment active;
+    private long nextSequence;
+    private CompletableFuture<Void> nextFlush = new CompletableFuture<>();
+    private boolean closed;
+    private volatile Timer appendTimer;
+    private volatile Timer fsyncTimer;
+
+    private OutboxJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.unfinished = replay();
+        this.flusher = Thread.ofPlatform().name("notification-outbox-flush").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Opens (or creates) the journal in {@code directory} and replays it.
+     *
+     * @param segmentSize bytes per segment file; also caps the size of a single record
+     */
+    public static OutboxJournal open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize < JournalSegment.HEADER * 2) throw new IllegalArgumentException("segmentSize too small");
+        Files.createDirectories(directory);
+        return new OutboxJournal(directory, segmentSize);
+    }
+
+    /**
+     * Entries appended before the last shutdown or crash that were never completed, oldest first. Handed out
+     * once: later calls return an empty list, so the journal does not keep the replayed payloads alive.
+     */
+    public synchronized List<Entry> unfinished() {
+        List<Entry> entries = unfinished;
+        unfinished = List.of();
+        return entries;
+    }
+
+    /**
+     * Largest payload a single record can carry.
+     */
+    public int maxPayloadSize() {
+        return segmentSize - JournalSegment.HEADER;
+    }
+
+    /**
+     * Appends {@code payload} and returns its sequence once it is durable.
+     *
+     * @throws UncheckedIOException when the segment cannot be created or forced
+     */
+    public long append(byte[] payload) {
+        return appendAll(List.of(payload))[0];
+    }
+
+    /**
+     * Appends every payload, in order, and returns their sequences once all of them are durable. Nothing is
+     * written when one of them exceeds {@link #maxPayloadSize()}.
+     *
+     * @throws UncheckedIOException when a segment cannot be created or forced
+     */
+    public long[] appendAll(List<byte[]> payloads) {
+        for (byte[] payload : payloads) {
+            if (payload.length > maxPayloadSize()) {
+                throw new IllegalArgumentException("record of " + payload.length + " bytes exceeds the segment size");
+            }
+        }
+        long start = System.nanoTime();
+        long[] sequences = new long[payloads.size()];
+        CompletableFuture<Void> flush = null;
+        synchronized (this) {
+            if (closed) throw new IllegalStateException("outbox journal is closed");
+            for (int i = 0; i < sequences.length; i++) {
+                byte[] payload = payloads.get(i);
+                long sequence = nextSequence++;
+                JournalSegment segment = writable(payload.length);
+                segment.write(JournalSegment.APPEND, sequence, payload);
+                segment.live++;
+                pending.put(sequence, segment);
+                flush = markDirty(segment);
+                sequences[i] = sequence;
+            }
+        }
+        if (flush == null) return sequences;
+        try {
+            flush.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? new UncheckedIOException(io) : e;
+        }
+        Timer timer = appendTimer;
+        if (timer != null) timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return sequences;
+    }
+
+    /**
+     * Marks {@code sequence} done. Unknown or already completed sequences are ignored.
+     */
+    public synchronized void complete(long sequence) {
+        if (closed) return;
+        JournalSegment segment = pending.remove(sequence);
+        if (segment == null) return;
+        JournalSegment target = writable(0);
+        target.write(JournalSegment.COMPLETE, sequence, NO_PAYLOAD);
+        markDirty(target);
+        segment.live--;
+        compact();
+    }
+
+    public synchronized int pending() {
+        return pending.size();
+    }
+
+    public synchronized int segments() {
+        return segments.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        appendTimer = Timer.builder(APPEND_METRIC)
+                .description("Time for an outbox append to become durable")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        fsyncTimer = Timer.builder(FSYNC_METRIC)
+                .description("Time spent forcing outbox segments to disk")
+                .register(registry);
+        Gauge.builder(PENDING_METRIC, this, OutboxJournal::pending)
+                .description("Outbox entries not yet completed")
+                .register(registry);
+        Gauge.builder(SEGMENTS_METRIC, this, OutboxJournal::segments)
+                .description("Outbox segment files on disk")
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (JournalSegment segment : segments) {
+            segment.force();
+            segment.close();
+        }
+    }
+
+    private List<Entry> replay() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> JournalSegment.parseIndex(path) >= 0).sorted().toList();
+        }
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        for (Path file : files) {
+            JournalSegment segment = JournalSegment.open(directory, JournalSegment.parseIndex(file), segmentSize);
+            segment.scan((type, sequence, payload) -> {
+                if (type == JournalSegment.APPEND) {
+                    entries.put(sequence, new Entry(sequence, payload));
+                    pending.put(sequence, segment);
+                    segment.live++;
+                    nextSequence = Math.max(nextSequence, sequence + 1);
+                } else if (type == JournalSegment.COMPLETE) {
+                    entries.remove(sequence);
+                    JournalSegment owner = pending.remove(sequence);
+                    if (owner != null) owner.live--;
+                }
+            });
+            segments.addLast(segment);
+        }
+        active = segments.peekLast();
+        compact();
+        if (!entries.isEmpty()) {
+            log.info("outbox.replay pending={} segments={} directory={}", entries.size(), segments.size(), directory);
+        }
+        return List.copyOf(entries.values());
+    }
+
+    /**
+     * The active segment, rolled over to a new one when the record would not fit; must hold the monitor.
+     */
+    private JournalSegment writable(int payloadLength) {
+        if (JournalSegment.HEADER + payloadLength > segmentSize) {
+            throw new IllegalArgumentException("record of " + payloadLength + " bytes exceeds the segment size");
+        }
+        if (active != null && active.fits(payloadLength)) return active;
+        long index = active == null ? 0 : active.index + 1;
+        try {
+            active = JournalSegment.open(directory, index, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segments.addLast(active);
+        return active;
+    }
+
+    private CompletableFuture<Void> markDirty(JournalSegment segment) {
+        if (dirty.add(segment) && dirty.size() == 1) notifyAll();
+        return nextFlush;
+    }
+
+    /**
+     * Deletes leading segments with nothing pending; must hold the monitor.
+     */
+    private void compact() {
+        while (segments.size() > 1 && segments.peekFirst().live == 0) {
+            JournalSegment segment = segments.pollFirst();
+            dirty.remove(segment);
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                log.warn("outbox.segment.delete.failed path={} error={}", segment.path, e.getMessage());
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            List<JournalSegment> toForce;
+            CompletableFuture<Void> flush;
+            synchronized (this) {
+                while (dirty.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (dirty.isEmpty()) {
+                    nextFlush.complete(null);
+                    return;
+                }
+                toForce = new ArrayList<>(dirty);
+                dirty.clear();
+                flush = nextFlush;
+                nextFlush = new CompletableFuture<>();
+            }
+            long start = System.nanoTime();
+            try {
+                for (JournalSegment segment : toForce) segment.force();
+                flush.complete(null);
+            } catch (RuntimeException e) {
+                log.error("outbox.fsync.failed error={}", e.getMessage());
+                flush.completeExceptionally(e);
+            }
+            Timer timer = fsyncTimer;
+            if (timer != null) timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
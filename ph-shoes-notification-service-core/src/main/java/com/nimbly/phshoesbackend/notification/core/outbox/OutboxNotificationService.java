@@ -0,0 +1,269 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationOutboxProps;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryExecutor;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Acknowledges a request as soon as it is durable in the {@link OutboxJournal} and sends it in the background.
+ * Callers get a {@link SendResult#QUEUED} result whose {@code messageId} is the journal sequence; the provider's
+ * own message id is only logged. {@code dispatchers} virtual threads drain up to {@code maxBatch} queued entries
+ * at a time through the wrapped service's {@code sendBatch}, completing each entry once it was sent or failed for
+ * good; throttled and transient failures go back on the queue after {@code retryDelay}, until an entry has been
+ * tried {@code maxAttempts} times. Entries left unfinished by a crash are queued again by {@link #start()}.
+ * <p>
+ * Requests with streaming attachments, or too large for one journal segment, are sent straight through.
+ */
+@Slf4j
+public class OutboxNotificationService implements NotificationService, AutoCloseable {
+
+    private final NotificationService delegate;
+    private final OutboxJournal journal;
+    private final ObjectMapper mapper;
+    private final int dispatchers;
+    private final int maxBatch;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final LinkedBlockingQueue<Queued> queue = new LinkedBlockingQueue<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public OutboxNotificationService(NotificationService delegate,
+                                     OutboxJournal journal,
+                                     ObjectMapper mapper,
+                                     NotificationOutboxProps props) {
+        if (props.getDispatchers() < 1) throw new IllegalArgumentException("dispatchers must be positive");
+        if (props.getMaxBatch() < 1) throw new IllegalArgumentException("maxBatch must be positive");
+        this.delegate = delegate;
+        this.journal = journal;
+        this.mapper = mapper;
+        this.dispatchers = props.getDispatchers();
+        this.maxBatch = props.getMaxBatch();
+        this.maxAttempts = props.getMaxAttempts();
+        this.retryDelay = props.getRetryDelay();
+    }
+
+    /**
+     * Queues the entries the journal replayed and starts the dispatchers.
+     */
+    public synchronized OutboxNotificationService start() {
+        if (running) return this;
+        running = true;
+        for (OutboxJournal.Entry entry : journal.unfinished()) {
+            try {
+                queue.add(new Queued(entry.sequence(), mapper.readValue(entry.payload(), EmailRequest.class), 0));
+            } catch (IOException e) {
+                log.error("outbox.replay.unreadable sequence={} error={}", entry.sequence(), e.getMessage());
+                journal.complete(entry.sequence());
+            }
+        }
+        for (int i = 0; i < dispatchers; i++) {
+            threads.add(Thread.ofVirtual().name("notification-outbox-", i).start(this::drain));
+        }
+        return this;
+    }
+
+    @Override
+    public SendResult sendEmailVerification(EmailRequest req) throws NotificationSendException {
+        if (!journalable(req)) return delegate.sendEmailVerification(req);
+        long sequence;
+        try {
+            byte[] payload = mapper.writeValueAsBytes(req);
+            if (oversized(payload)) return delegate.sendEmailVerification(req);
+            sequence = journal.append(payload);
+        } catch (IOException | UncheckedIOException e) {
+            throw new NotificationSendException("Outbox append failed: " + e.getMessage(), e);
+        }
+        queue.add(new Queued(sequence, req, 0));
+        return queued(sequence, req);
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendEmailVerificationAsync(EmailRequest req) {
+        try {
+            return CompletableFuture.completedFuture(sendEmailVerification(req));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Journals every request of the batch with one {@link OutboxJournal#appendAll} call, so the whole batch waits
+     * for a single flush instead of one per request. Requests that cannot be journaled are sent straight through.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<EmailRequest> requests) {
+        SendResult[] results = new SendResult[requests.size()];
+        List<byte[]> payloads = new ArrayList<>(requests.size());
+        List<Integer> positions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            EmailRequest req = requests.get(i);
+            try {
+                byte[] payload = journalable(req) ? mapper.writeValueAsBytes(req) : null;
+                if (payload == null || oversized(payload)) {
+                    results[i] = sendDirect(req);
+                    continue;
+                }
+                payloads.add(payload);
+                positions.add(i);
+            } catch (IOException e) {
+                results[i] = SendResult.failed("outbox", new NotificationSendException("Outbox append failed: " + e.getMessage(), e));
+            }
+        }
+        if (!payloads.isEmpty()) {
+            long[] sequences;
+            try {
+                sequences = journal.appendAll(payloads);
+            } catch (UncheckedIOException e) {
+                SendResult failed = SendResult.failed("outbox", new NotificationSendException("Outbox append failed: " + e.getMessage(), e));
+                for (int position : positions) results[position] = failed;
+                return List.of(results);
+            }
+            for (int i = 0; i < sequences.length; i++) {
+                EmailRequest req = requests.get(positions.get(i));
+                queue.add(new Queued(sequences[i], req, 0));
+                results[positions.get(i)] = queued(sequences[i], req);
+            }
+        }
+        return List.of(results);
+    }
+
+    /**
+     * Entries waiting to be sent or retried.
+     */
+    public int backlog() {
+        return journal.pending();
+    }
+
+    /**
+     * Stops the dispatchers. Entries still queued stay in the journal and are replayed on the next start.
+     */
+    @Override
+    public synchronized void close() {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        threads.clear();
+    }
+
+    private void drain() {
+        List<Queued> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, maxBatch - 1);
+            if (batch.size() == 1) {
+                deliver(batch.get(0));
+            } else {
+                deliver(batch);
+            }
+            batch.clear();
+        }
+    }
+
+    private void deliver(Queued queued) {
+        try {
+            SendResult result = delegate.sendEmailVerification(queued.request());
+            sent(queued, result);
+        } catch (RuntimeException e) {
+            // Shutting down: leave the entry in the journal for the next start.
+            if (!running) return;
+            failed(queued, RetryExecutor.isRetryable(e), e.getMessage());
+        }
+    }
+
+    private void deliver(List<Queued> batch) {
+        List<SendResult> results;
+        try {
+            results = delegate.sendBatch(batch.stream().map(Queued::request).toList());
+        } catch (RuntimeException e) {
+            if (!running) return;
+            for (Queued queued : batch) failed(queued, RetryExecutor.isRetryable(e), e.getMessage());
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            SendResult result = results.get(i);
+            if (result.isAccepted()) {
+                sent(batch.get(i), result);
+            } else {
+                failed(batch.get(i), result.isRetryable(), result.getError());
+            }
+        }
+    }
+
+    private void sent(Queued queued, SendResult result) {
+        journal.complete(queued.sequence());
+        log.debug("outbox.sent sequence={} provider={} messageId={}",
+                queued.sequence(), result.getProvider(), result.getMessageId());
+    }
+
+    private void failed(Queued queued, boolean retryable, String error) {
+        int attempts = queued.attempts() + 1;
+        if (retryable && attempts < maxAttempts) {
+            log.warn("outbox.send.retry sequence={} attempts={} error={}", queued.sequence(), attempts, error);
+            Queued retry = new Queued(queued.sequence(), queued.request(), attempts);
+            CompletableFuture.delayedExecutor(retryDelay.toNanos(), TimeUnit.NANOSECONDS)
+                    .execute(() -> queue.add(retry));
+            return;
+        }
+        log.error("outbox.send.failed sequence={} attempts={} error={}", queued.sequence(), attempts, error);
+        journal.complete(queued.sequence());
+    }
+
+    private SendResult sendDirect(EmailRequest req) {
+        try {
+            return delegate.sendEmailVerification(req);
+        } catch (NotificationSendException e) {
+            return SendResult.failed("outbox", e);
+        }
+    }
+
+    private boolean oversized(byte[] payload) {
+        if (payload.length <= journal.maxPayloadSize()) return false;
+        log.warn("outbox.append.oversized bytes={} max={}", payload.length, journal.maxPayloadSize());
+        return true;
+    }
+
+    private static SendResult queued(long sequence, EmailRequest req) {
+        return SendResult.builder()
+                .messageId(Long.toString(sequence))
+                .provider("outbox")
+                .acceptedAt(Instant.now())
+                .requestId(req.getRequestIdHint())
+                .status(SendResult.QUEUED)
+                .build();
+    }
+
+    private static boolean journalable(EmailRequest req) {
+        return req.getAttachments() == null
+                || req.getAttachments().stream().allMatch(attachment -> attachment.getSource() == null);
+    }
+
+    private record Queued(long sequence, EmailRequest request, int attempts) {
+    }
+}
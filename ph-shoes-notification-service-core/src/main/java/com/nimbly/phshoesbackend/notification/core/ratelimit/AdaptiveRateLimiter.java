@@ -0,0 +1,187 @@
+package com.nimbly.phshoesbackend.notification.core.ratelimit;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Send-rate governor with additive-increase / multiplicative-decrease tuning. Every accepted send raises the
+ * rate by {@code increasePerSecond / rate}, about {@code increasePerSecond} per second at full speed, up to
+ * {@code maxRate}; a throttled send multiplies it by {@code decreaseFactor}, at most once per cooldown so a
+ * burst of throttles from sends already in flight counts as one.
+ * <p>
+ * Permits are handed out as reservations on a timeline spaced {@code 1 / rate} apart: each caller takes the
+ * next free slot and then sleeps (or, for {@link #acquireAsync}, is scheduled) until it comes round, so waiters
+ * are served in arrival order and nobody spins.
+ */
+public class AdaptiveRateLimiter implements MeterBinder {
+
+    public static final String RATE_METRIC = "notification.rate-limit.rate";
+    public static final String WAIT_METRIC = "notification.rate-limit.wait";
+    public static final String THROTTLED_METRIC = "notification.rate-limit.throttled";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increasePerSecond;
+    private final double decreaseFactor;
+    private final long cooldownNanos;
+    private final long maxWaitNanos;
+    private final LongSupplier nanoTime;
+
+    private volatile double rate;
+    private long nextFreeNanos;
+    private long lastDecreaseNanos;
+    private boolean decreased;
+
+    private volatile Timer waitTimer;
+    private volatile Counter throttledCounter;
+
+    public AdaptiveRateLimiter(double initialRate,
+                               double minRate,
+                               double maxRate,
+                               double increasePerSecond,
+                               double decreaseFactor,
+                               Duration cooldown,
+                               Duration maxWait) {
+        this(initialRate, minRate, maxRate, increasePerSecond, decreaseFactor, cooldown, maxWait, System::nanoTime);
+    }
+
+    AdaptiveRateLimiter(double initialRate,
+                        double minRate,
+                        double maxRate,
+                        double increasePerSecond,
+                        double decreaseFactor,
+                        Duration cooldown,
+                        Duration maxWait,
+                        LongSupplier nanoTime) {
+        if (minRate <= 0 || maxRate < minRate) throw new IllegalArgumentException("need 0 < minRate <= maxRate");
+        if (decreaseFactor <= 0 || decreaseFactor >= 1) throw new IllegalArgumentException("decreaseFactor must be in (0, 1)");
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increasePerSecond = increasePerSecond;
+        this.decreaseFactor = decreaseFactor;
+        this.cooldownNanos = cooldown == null ? 0 : cooldown.toNanos();
+        this.maxWaitNanos = maxWait == null ? Long.MAX_VALUE : maxWait.toNanos();
+        this.nanoTime = nanoTime;
+        this.rate = Math.max(minRate, Math.min(maxRate, initialRate));
+        this.nextFreeNanos = nanoTime.getAsLong();
+    }
+
+    /**
+     * Blocks until {@code permits} sends may go out.
+     *
+     * @throws NotificationSendException with reason {@code THROTTLED} when the wait would exceed {@code maxWait}
+     */
+    public void acquire(int permits) {
+        long wait = reserve(permits);
+        if (wait <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NotificationSendException("Interrupted waiting for a send permit", e);
+        }
+    }
+
+    /**
+     * Completes once {@code permits} sends may go out, without holding a thread meanwhile. Fails like
+     * {@link #acquire} when the wait would exceed {@code maxWait}.
+     */
+    public CompletableFuture<Void> acquireAsync(int permits) {
+        long wait;
+        try {
+            wait = reserve(permits);
+        } catch (NotificationSendException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (wait <= 0) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Takes a permit, runs {@code send} and feeds its outcome back into the rate.
+     */
+    public <T> T execute(Supplier<T> send) {
+        acquire(1);
+        try {
+            T result = send.get();
+            onSuccess(1);
+            return result;
+        } catch (NotificationSendException e) {
+            if (e.isThrottled()) onThrottled();
+            throw e;
+        }
+    }
+
+    public void onSuccess(int sends) {
+        if (sends <= 0) return;
+        synchronized (this) {
+            double current = rate;
+            for (int i = 0; i < sends && current < maxRate; i++) {
+                current += increasePerSecond / current;
+            }
+            rate = Math.min(maxRate, current);
+        }
+    }
+
+    public void onThrottled() {
+        if (throttledCounter != null) throttledCounter.increment();
+        long now = nanoTime.getAsLong();
+        synchronized (this) {
+            if (decreased && now - lastDecreaseNanos < cooldownNanos) return;
+            rate = Math.max(minRate, rate * decreaseFactor);
+            lastDecreaseNanos = now;
+            decreased = true;
+        }
+    }
+
+    /**
+     * Current permitted sends per second.
+     */
+    public double rate() {
+        return rate;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(RATE_METRIC, this, AdaptiveRateLimiter::rate)
+                .description("Permitted sends per second")
+                .register(registry);
+        waitTimer = Timer.builder(WAIT_METRIC)
+                .description("Time senders wait for a send permit")
+                .register(registry);
+        throttledCounter = Counter.builder(THROTTLED_METRIC)
+                .description("Sends the provider throttled")
+                .register(registry);
+    }
+
+    /**
+     * Books the next {@code permits} slots and returns how long the caller has to wait for the first of them.
+     */
+    private long reserve(int permits) {
+        long now = nanoTime.getAsLong();
+        long wait;
+        synchronized (this) {
+            long start = Math.max(now, nextFreeNanos);
+            wait = start - now;
+            if (wait > maxWaitNanos) {
+                throw new NotificationSendException("Send rate limit wait exceeded: rate=" + String.format("%.2f", rate) + "/s",
+                        null, NotificationSendException.Reason.THROTTLED);
+            }
+            nextFreeNanos = start + (long) (Math.max(1, permits) * NANOS_PER_SECOND / rate);
+        }
+        if (waitTimer != null) waitTimer.record(wait, TimeUnit.NANOSECONDS);
+        return wait;
+    }
+}
@@ -0,0 +1,278 @@
+package com.nimbly.phshoesbackend.notification.core.ratelimit;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-recipient-domain send shaping: each domain gets its own concurrency limit and token bucket, so a burst to
+ * gmail.com is spread out without holding back sends to anyone else. Domains listed in {@code overrides} use
+ * their own {@link Limits}; all others share the same defaults, each with a bucket of its own.
+ * <p>
+ * Domain state lives in a {@link ConcurrentHashMap} and the bucket is a single CAS'd theoretical-arrival time
+ * (GCRA), so senders to different domains never contend. A domain with nothing in flight for
+ * {@code idleTimeout} is evicted by whichever sender next notices the sweep is due.
+ * <p>
+ * Metrics: {@code notification.domain-shaping.domains}, {@code notification.domain-shaping.wait} and
+ * {@code notification.domain-shaping.throttled}.
+ */
+public class DomainShaper implements MeterBinder {
+
+    public static final String DOMAINS_METRIC = "notification.domain-shaping.domains";
+    public static final String WAIT_METRIC = "notification.domain-shaping.wait";
+    public static final String THROTTLED_METRIC = "notification.domain-shaping.throttled";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * @param maxConcurrency sends to the domain in flight at once
+     * @param rate           sustained sends per second
+     * @param burst          sends allowed back to back after an idle spell
+     */
+    public record Limits(int maxConcurrency, double rate, int burst) {
+        public Limits {
+            if (maxConcurrency < 1 || rate <= 0 || burst < 1) {
+                throw new IllegalArgumentException("need maxConcurrency >= 1, rate > 0 and burst >= 1");
+            }
+        }
+    }
+
+    private final Limits defaults;
+    private final Map<String, Limits> overrides;
+    private final long maxWaitNanos;
+    private final long idleNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentHashMap<String, Domain> domains = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep;
+
+    private volatile Timer waitTimer;
+    private volatile Counter throttledCounter;
+
+    public DomainShaper(Limits defaults, Map<String, Limits> overrides, Duration maxWait, Duration idleTimeout) {
+        this(defaults, overrides, maxWait, idleTimeout, System::nanoTime);
+    }
+
+    DomainShaper(Limits defaults, Map<String, Limits> overrides, Duration maxWait, Duration idleTimeout,
+                 LongSupplier nanoTime) {
+        this.defaults = defaults;
+        this.overrides = new ConcurrentHashMap<>();
+        overrides.forEach((domain, limits) -> this.overrides.put(domain.toLowerCase(Locale.ROOT), limits));
+        this.maxWaitNanos = maxWait == null ? Long.MAX_VALUE : maxWait.toNanos();
+        this.idleNanos = idleTimeout.toNanos();
+        this.nanoTime = nanoTime;
+        this.nextSweep = new AtomicLong(nanoTime.getAsLong() + idleNanos);
+    }
+
+    /**
+     * Lower-cased domain of {@code address}, or {@code null} when it has none.
+     */
+    public static String domainOf(String address) {
+        if (address == null) return null;
+        int at = address.lastIndexOf('@');
+        if (at < 0 || at == address.length() - 1) return null;
+        return address.substring(at + 1).strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Messages {@code domain} may take back to back, i.e. the largest chunk of a batch worth reserving at once.
+     */
+    public int burstFor(String domain) {
+        return overrides.getOrDefault(domain, defaults).burst();
+    }
+
+    /**
+     * {@link #acquire(Map)} for one message to each of {@code domains}.
+     */
+    public Lease acquire(Collection<String> domains) {
+        Map<String, Integer> messages = new TreeMap<>();
+        for (String domain : domains) messages.put(domain, 1);
+        return acquire(messages);
+    }
+
+    /**
+     * Blocks until the given number of messages to each domain may go out, holding one concurrency slot per
+     * domain until the returned lease is closed. Domains are taken in sorted order, so overlapping callers cannot
+     * deadlock.
+     *
+     * @throws NotificationSendException with reason {@code THROTTLED} when the wait would exceed {@code maxWait}
+     */
+    public Lease acquire(Map<String, Integer> messagesPerDomain) {
+        sweepIfDue();
+        long start = nanoTime.getAsLong();
+        long deadline = maxWaitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + maxWaitNanos;
+        Map<String, Integer> sorted = messagesPerDomain instanceof TreeMap<String, Integer> tree ? tree : new TreeMap<>(messagesPerDomain);
+        Lease lease = new Lease();
+        try {
+            for (String name : sorted.keySet()) {
+                Domain domain = pin(name);
+                lease.pinned.add(domain);
+                if (!domain.slots.tryAcquire(Math.max(0, deadline - nanoTime.getAsLong()), TimeUnit.NANOSECONDS)) {
+                    throw throttled("Domain concurrency wait exceeded: domain=" + name);
+                }
+                lease.held.add(domain);
+            }
+            long wait = 0;
+            long now = nanoTime.getAsLong();
+            for (Domain domain : lease.held) {
+                long reserved = domain.reserve(Math.max(1, sorted.get(domain.name)), now, deadline);
+                if (reserved < 0) throw throttled("Domain rate wait exceeded: domain=" + domain.name);
+                wait = Math.max(wait, reserved);
+            }
+            if (wait > 0) TimeUnit.NANOSECONDS.sleep(wait);
+            if (waitTimer != null) waitTimer.record(nanoTime.getAsLong() - start, TimeUnit.NANOSECONDS);
+            return lease;
+        } catch (InterruptedException e) {
+            lease.close();
+            Thread.currentThread().interrupt();
+            throw new NotificationSendException("Interrupted waiting for a domain send permit", e);
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Domains currently tracked.
+     */
+    public int domains() {
+        return domains.size();
+    }
+
+    /**
+     * Evicts every domain idle for {@code idleTimeout}; returns how many.
+     */
+    public int sweep() {
+        long now = nanoTime.getAsLong();
+        int evicted = 0;
+        for (Domain domain : domains.values()) {
+            if (domain.retireIfIdle(now, idleNanos)) {
+                domains.remove(domain.name, domain);
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(DOMAINS_METRIC, this, DomainShaper::domains)
+                .description("Recipient domains with shaping state")
+                .register(registry);
+        waitTimer = Timer.builder(WAIT_METRIC)
+                .description("Time senders wait for their recipient domains")
+                .register(registry);
+        throttledCounter = Counter.builder(THROTTLED_METRIC)
+                .description("Sends failed because a recipient domain's wait would exceed max-wait")
+                .register(registry);
+    }
+
+    private Domain pin(String name) {
+        while (true) {
+            Domain domain = domains.computeIfAbsent(name, key -> new Domain(key, overrides.getOrDefault(key, defaults),
+                    nanoTime.getAsLong()));
+            if (domain.pin()) return domain;
+            // Retired by a sweep between lookup and pin; it is on its way out of the map.
+            domains.remove(name, domain);
+        }
+    }
+
+    private void sweepIfDue() {
+        long due = nextSweep.get();
+        long now = nanoTime.getAsLong();
+        if (now - due >= 0 && nextSweep.compareAndSet(due, now + idleNanos)) sweep();
+    }
+
+    private NotificationSendException throttled(String message) {
+        if (throttledCounter != null) throttledCounter.increment();
+        return new NotificationSendException(message, null, NotificationSendException.Reason.THROTTLED);
+    }
+
+    /**
+     * Slots and reservations held for one send; closing it gives the slots back.
+     */
+    public final class Lease implements AutoCloseable {
+        private final List<Domain> pinned = new ArrayList<>(1);
+        private final List<Domain> held = new ArrayList<>(1);
+
+        private Lease() {
+        }
+
+        @Override
+        public void close() {
+            long now = nanoTime.getAsLong();
+            for (Domain domain : held) domain.slots.release();
+            for (Domain domain : pinned) domain.unpin(now);
+            held.clear();
+            pinned.clear();
+        }
+    }
+
+    private static final class Domain {
+        final String name;
+        final Semaphore slots;
+        final long intervalNanos;
+        final long toleranceNanos;
+        final AtomicLong theoreticalArrival;
+        /** Senders holding or waiting on this domain; -1 once retired. */
+        final AtomicInteger users = new AtomicInteger();
+        volatile long lastUsed;
+
+        Domain(String name, Limits limits, long now) {
+            this.name = name;
+            this.slots = new Semaphore(limits.maxConcurrency());
+            this.intervalNanos = (long) (NANOS_PER_SECOND / limits.rate());
+            this.toleranceNanos = intervalNanos * (limits.burst() - 1);
+            this.theoreticalArrival = new AtomicLong(now);
+            this.lastUsed = now;
+        }
+
+        boolean pin() {
+            int current;
+            do {
+                current = users.get();
+                if (current < 0) return false;
+            } while (!users.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void unpin(long now) {
+            lastUsed = now;
+            users.decrementAndGet();
+        }
+
+        boolean retireIfIdle(long now, long idleNanos) {
+            return now - lastUsed >= idleNanos && users.compareAndSet(0, -1);
+        }
+
+        /**
+         * Books {@code messages} tokens and returns how long to wait until the last one conforms, or -1 without
+         * booking anything when that would be past {@code deadline}.
+         */
+        long reserve(int messages, long now, long deadline) {
+            while (true) {
+                long arrival = theoreticalArrival.get();
+                long start = Math.max(arrival, now);
+                long wait = Math.max(0, start + (messages - 1) * intervalNanos - toleranceNanos - now);
+                if (wait > 0 && deadline != Long.MAX_VALUE && now + wait - deadline > 0) return -1;
+                if (theoreticalArrival.compareAndSet(arrival, start + messages * intervalNanos)) return wait;
+            }
+        }
+    }
+}
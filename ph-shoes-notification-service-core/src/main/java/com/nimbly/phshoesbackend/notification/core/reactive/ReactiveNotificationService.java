@@ -0,0 +1,64 @@
+package com.nimbly.phshoesbackend.notification.core.reactive;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive facade over {@link NotificationService#sendEmailVerificationAsync}. Requests are pulled from the
+ * source only as sends complete and downstream demand allows, with at most {@code concurrency} in flight, so
+ * a slow provider or a slow consumer throttles the source instead of buffering it.
+ * <p>
+ * A failed send does not terminate the stream: it is emitted as a {@link SendResult} that is not
+ * {@link SendResult#isAccepted() accepted}. Every result carries the request's {@code requestIdHint} as its
+ * requestId, which is how unordered results are correlated.
+ * <p>
+ * Sends only overlap when the service's async path does not block the caller, i.e. with the SES async client
+ * or {@code notification.execution.virtual-threads}.
+ */
+public class ReactiveNotificationService {
+
+    private final NotificationService notificationService;
+    private final int concurrency;
+
+    public ReactiveNotificationService(NotificationService notificationService, int concurrency) {
+        if (concurrency < 1) throw new IllegalArgumentException("concurrency must be positive");
+        this.notificationService = notificationService;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Results in request order. A send that finishes early is held until the ones before it complete, which
+     * never exceeds {@code concurrency} results.
+     */
+    public Flux<SendResult> send(Publisher<? extends EmailRequest> requests) {
+        return send(requests, concurrency);
+    }
+
+    public Flux<SendResult> send(Publisher<? extends EmailRequest> requests, int concurrency) {
+        return Flux.from(requests).flatMapSequential(this::sendOne, concurrency, 1);
+    }
+
+    /**
+     * Results in completion order, so one slow send does not hold back the others.
+     */
+    public Flux<SendResult> sendUnordered(Publisher<? extends EmailRequest> requests) {
+        return sendUnordered(requests, concurrency);
+    }
+
+    public Flux<SendResult> sendUnordered(Publisher<? extends EmailRequest> requests, int concurrency) {
+        return Flux.from(requests).flatMap(this::sendOne, concurrency, 1);
+    }
+
+    private Mono<SendResult> sendOne(EmailRequest request) {
+        return Mono.fromFuture(() -> notificationService.sendEmailVerificationAsync(request))
+                .map(result -> result.getRequestId() != null
+                        ? result
+                        : result.toBuilder().requestId(request.getRequestIdHint()).build())
+                .onErrorResume(Exception.class, e -> Mono.just(
+                        SendResult.failed(null, e).toBuilder().requestId(request.getRequestIdHint()).build()));
+    }
+}
@@ -0,0 +1,52 @@
+package com.nimbly.phshoesbackend.notification.core.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that caps retries to a share of first attempts: each first attempt deposits {@code retryRatio}
+ * of a token, each retry withdraws a whole one, and the bucket never holds more than {@code capacity}. During
+ * an outage the bucket drains after {@code capacity} retries and from then on the provider sees at most
+ * {@code 1 + retryRatio} times the normal load.
+ */
+public class RetryBudget {
+
+    private static final long SCALE = 1000;
+
+    private final long depositPerAttempt;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    public RetryBudget(double retryRatio, int capacity) {
+        if (retryRatio < 0) throw new IllegalArgumentException("retryRatio must not be negative");
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative");
+        this.depositPerAttempt = Math.round(retryRatio * SCALE);
+        this.capacity = capacity * SCALE;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    /**
+     * Records a first attempt.
+     */
+    public void deposit() {
+        balance.accumulateAndGet(depositPerAttempt, (current, amount) -> Math.min(capacity, current + amount));
+    }
+
+    /**
+     * Takes the token for one retry; false when the budget is spent.
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) return false;
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * Retries currently affordable.
+     */
+    public double available() {
+        return (double) balance.get() / SCALE;
+    }
+}
@@ -0,0 +1,186 @@
+package com.nimbly.phshoesbackend.notification.core.retry;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Retries sends that failed with a {@link NotificationSendException.Reason#THROTTLED THROTTLED} or
+ * {@link NotificationSendException.Reason#TRANSIENT TRANSIENT} reason, up to {@code maxAttempts} in total.
+ * Waits follow decorrelated jitter, {@code min(maxDelay, random(baseDelay, 3 * previous))}, so clients that
+ * failed together spread out instead of retrying in lockstep. Every retry needs a token from the
+ * {@link RetryBudget}; when it is spent the failure is returned as is.
+ */
+public class RetryExecutor implements MeterBinder {
+
+    public static final String RETRIES_METRIC = "notification.retry.retries";
+    public static final String EXHAUSTED_METRIC = "notification.retry.budget-exhausted";
+    public static final String BUDGET_METRIC = "notification.retry.budget";
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final RetryBudget budget;
+
+    private volatile Counter retries;
+    private volatile Counter exhausted;
+
+    public RetryExecutor(int maxAttempts, Duration baseDelay, Duration maxDelay, RetryBudget budget) {
+        if (maxAttempts < 1) throw new IllegalArgumentException("maxAttempts must be positive");
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = Math.max(baseDelayNanos, maxDelay.toNanos());
+        this.budget = budget;
+    }
+
+    public static boolean isRetryable(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) error = error.getCause();
+        return error instanceof NotificationSendException nse
+                && (nse.getReason() == NotificationSendException.Reason.THROTTLED
+                || nse.getReason() == NotificationSendException.Reason.TRANSIENT);
+    }
+
+    /**
+     * Runs {@code attempt}, sleeping on the calling thread between tries.
+     */
+    public <T> T execute(Supplier<T> attempt) {
+        budget.deposit();
+        long delay = baseDelayNanos;
+        for (int tries = 1; ; tries++) {
+            try {
+                return attempt.get();
+            } catch (NotificationSendException e) {
+                if (!retry(e, tries)) throw e;
+                delay = nextDelay(delay);
+                sleep(delay, e);
+            }
+        }
+    }
+
+    /**
+     * Async form of {@link #execute}; waits are scheduled rather than slept.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> attempt) {
+        budget.deposit();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(attempt, 1, baseDelayNanos, result);
+        return result;
+    }
+
+    /**
+     * Sends {@code items} through {@code send}, one result per item in order, then re-sends the
+     * {@linkplain SendResult#isRetryable() retryable} entries as one smaller batch per retry, sleeping on the
+     * calling thread between tries, while attempts and budget last.
+     */
+    public <E> List<SendResult> executeBatch(List<E> items, Function<List<E>, List<SendResult>> send) {
+        for (int i = 0; i < items.size(); i++) budget.deposit();
+        List<SendResult> results = new ArrayList<>(send.apply(items));
+        NotificationSendException throttled =
+                new NotificationSendException("Batch entry throttled", null, NotificationSendException.Reason.THROTTLED);
+        NotificationSendException transientFailure =
+                new NotificationSendException("Batch entry failed", null, NotificationSendException.Reason.TRANSIENT);
+        long delay = baseDelayNanos;
+        for (int tries = 1; ; tries++) {
+            List<Integer> positions = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                SendResult result = results.get(i);
+                if (result.isRetryable() && retry(result.isThrottled() ? throttled : transientFailure, tries)) {
+                    positions.add(i);
+                }
+            }
+            if (positions.isEmpty()) return results;
+
+            delay = nextDelay(delay);
+            try {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return results;
+            }
+            List<E> again = new ArrayList<>(positions.size());
+            for (int position : positions) again.add(items.get(position));
+            List<SendResult> retried = send.apply(again);
+            for (int i = 0; i < retried.size(); i++) results.set(positions.get(i), retried.get(i));
+        }
+    }
+
+    /**
+     * Whether the failed {@code tries}-th attempt may be retried; takes a budget token when it may.
+     */
+    public boolean retry(Throwable error, int tries) {
+        if (tries >= maxAttempts || !isRetryable(error)) return false;
+        if (!budget.tryWithdraw()) {
+            if (exhausted != null) exhausted.increment();
+            return false;
+        }
+        if (retries != null) retries.increment();
+        return true;
+    }
+
+    /**
+     * Next decorrelated-jitter wait after one of {@code previousNanos}.
+     */
+    public long nextDelay(long previousNanos) {
+        long upper = Math.min(maxDelayNanos, Math.max(baseDelayNanos, previousNanos) * 3);
+        if (upper <= baseDelayNanos) return baseDelayNanos;
+        return ThreadLocalRandom.current().nextLong(baseDelayNanos, upper + 1);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        retries = Counter.builder(RETRIES_METRIC)
+                .description("Send retries")
+                .register(registry);
+        exhausted = Counter.builder(EXHAUSTED_METRIC)
+                .description("Retryable failures not retried because the retry budget was spent")
+                .register(registry);
+        Gauge.builder(BUDGET_METRIC, budget, RetryBudget::available)
+                .description("Retries the budget can currently afford")
+                .register(registry);
+    }
+
+    private <T> void attemptAsync(Supplier<CompletableFuture<T>> attempt, int tries, long delay, CompletableFuture<T> result) {
+        CompletableFuture<T> future;
+        try {
+            future = attempt.get();
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        future.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!retry(cause, tries)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long next = nextDelay(delay);
+            CompletableFuture.delayedExecutor(next, TimeUnit.NANOSECONDS)
+                    .execute(() -> attemptAsync(attempt, tries + 1, next, result));
+        });
+    }
+
+    private static void sleep(long nanos, NotificationSendException failure) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.nimbly.phshoesbackend.notification.core.routing;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Spreads sends over several transports with power-of-two-choices: two backends are drawn at random in
+ * proportion to their weights and the one with the lower cost gets the send, where
+ * {@code cost = latency EWMA * (in flight + 1) * (1 + errorPenalty * error-rate EWMA)}. A send that fails for
+ * a reason other than a {@link NotificationSendException.Reason#PERMANENT PERMANENT} one is tried once more on
+ * the other candidate. Only backends that {@linkplain EmailTransportService#canSend can send} the email are
+ * drawn, and only throttled, transient and unknown failures count towards a backend's error rate: a permanent
+ * failure is the request's fault, not the provider's.
+ * <p>
+ * Selection reads immutable weight tables and per-backend atomics only, so concurrent senders never contend
+ * on a lock. Metrics per transport: {@code notification.routing.sends}, {@code notification.routing.latency}
+ * (EWMA, ms) and {@code notification.routing.error-rate}.
+ */
+public class WeightedTransportRouter implements EmailTransportService, MeterBinder {
+
+    public static final String SENDS_METRIC = "notification.routing.sends";
+    public static final String LATENCY_METRIC = "notification.routing.latency";
+    public static final String ERROR_RATE_METRIC = "notification.routing.error-rate";
+
+    public record Route(String name, EmailTransportService transport, double weight) {
+    }
+
+    private final Backend[] backends;
+    private final double[] cumulativeWeights;
+    private final double smoothing;
+    private final double errorPenalty;
+
+    /**
+     * @param smoothing    weight of the newest observation in the EWMAs, in (0, 1]
+     * @param errorPenalty how strongly the error rate inflates a backend's cost
+     */
+    public WeightedTransportRouter(List<Route> routes, double smoothing, double errorPenalty) {
+        if (routes.isEmpty()) throw new IllegalArgumentException("at least one route is required");
+        if (smoothing <= 0 || smoothing > 1) throw new IllegalArgumentException("smoothing must be in (0, 1]");
+        this.backends = new Backend[routes.size()];
+        this.cumulativeWeights = new double[routes.size()];
+        double total = 0;
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            if (!(route.weight() > 0)) throw new IllegalArgumentException("weight must be positive: " + route.name());
+            backends[i] = new Backend(route.name(), route.transport());
+            total += route.weight();
+            cumulativeWeights[i] = total;
+        }
+        this.smoothing = smoothing;
+        this.errorPenalty = errorPenalty;
+    }
+
+    @Override
+    public boolean canSend(ComposedEmail email) {
+        for (Backend backend : backends) {
+            if (backend.transport.canSend(email)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public SendResult send(ComposedEmail email) throws NotificationSendException {
+        int[] choice = choose(email);
+        try {
+            return sendOn(backends[choice[0]], () -> backends[choice[0]].transport.send(email));
+        } catch (NotificationSendException e) {
+            if (choice[1] < 0 || e.getReason() == NotificationSendException.Reason.PERMANENT) throw e;
+            return sendOn(backends[choice[1]], () -> backends[choice[1]].transport.send(email));
+        }
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(ComposedEmail email) {
+        int[] choice;
+        try {
+            choice = choose(email);
+        } catch (NotificationSendException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return sendAsyncOn(backends[choice[0]], email).handle((result, error) -> {
+            if (error == null) return CompletableFuture.completedFuture(result);
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            boolean permanent = cause instanceof NotificationSendException nse
+                    && nse.getReason() == NotificationSendException.Reason.PERMANENT;
+            if (choice[1] < 0 || permanent) return CompletableFuture.<SendResult>failedFuture(cause);
+            return sendAsyncOn(backends[choice[1]], email);
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * The whole batch goes to one backend that can send all of it; its latency is recorded per email. When no
+     * backend can send every email, each one is routed on its own.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<ComposedEmail> emails) {
+        if (emails.isEmpty()) return List.of();
+        boolean[] eligible = new boolean[backends.length];
+        int count = 0;
+        for (int i = 0; i < backends.length; i++) {
+            eligible[i] = emails.stream().allMatch(backends[i].transport::canSend);
+            if (eligible[i]) count++;
+        }
+        if (count == 0) {
+            List<SendResult> results = new ArrayList<>(emails.size());
+            for (ComposedEmail email : emails) {
+                try {
+                    results.add(send(email));
+                } catch (NotificationSendException e) {
+                    results.add(SendResult.failed(null, e));
+                }
+            }
+            return results;
+        }
+        Backend backend = backends[count == backends.length ? choose()[0] : choose(eligible, count)[0]];
+        backend.begin();
+        long start = System.nanoTime();
+        try {
+            List<SendResult> results = backend.transport.sendBatch(emails);
+            long perEmail = (System.nanoTime() - start) / emails.size();
+            for (SendResult result : results) backend.record(perEmail, result.isRetryable(), smoothing);
+            return results;
+        } catch (RuntimeException e) {
+            backend.record(System.nanoTime() - start, countsAsError(e), smoothing);
+            throw e;
+        } finally {
+            backend.end();
+        }
+    }
+
+    /**
+     * Picks the backend for one send: the cheaper of two weighted random draws first, the other second
+     * ({@code -1} with a single backend).
+     */
+    int[] choose() {
+        if (backends.length == 1) return new int[]{0, -1};
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = draw(random);
+        int b = draw(random);
+        if (a == b) b = (a + 1 + random.nextInt(backends.length - 1)) % backends.length;
+        return cost(backends[a]) <= cost(backends[b]) ? new int[]{a, b} : new int[]{b, a};
+    }
+
+    /**
+     * {@link #choose()} over the backends that can send {@code email}.
+     *
+     * @throws NotificationSendException {@code PERMANENT} when none can
+     */
+    int[] choose(ComposedEmail email) {
+        boolean[] eligible = null;
+        int count = backends.length;
+        for (int i = 0; i < backends.length; i++) {
+            if (backends[i].transport.canSend(email)) continue;
+            if (eligible == null) {
+                eligible = new boolean[backends.length];
+                Arrays.fill(eligible, true);
+            }
+            eligible[i] = false;
+            count--;
+        }
+        if (eligible == null) return choose();
+        if (count == 0) {
+            throw new NotificationSendException("No routed transport can send this email: it needs a provider-side "
+                    + "template that no configured transport renders", null, NotificationSendException.Reason.PERMANENT);
+        }
+        return choose(eligible, count);
+    }
+
+    private int[] choose(boolean[] eligible, int count) {
+        int[] candidates = new int[count];
+        for (int i = 0, n = 0; i < backends.length; i++) {
+            if (eligible[i]) candidates[n++] = i;
+        }
+        if (count == 1) return new int[]{candidates[0], -1};
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = draw(random, candidates);
+        int b = draw(random, candidates);
+        if (a == b) {
+            int other = random.nextInt(count - 1);
+            b = candidates[other >= indexOf(candidates, a) ? other + 1 : other];
+        }
+        return cost(backends[a]) <= cost(backends[b]) ? new int[]{a, b} : new int[]{b, a};
+    }
+
+    double cost(String transport) {
+        return Arrays.stream(backends).filter(b -> b.name.equals(transport)).findFirst()
+                .map(this::cost)
+                .orElseThrow(() -> new IllegalArgumentException("unknown transport: " + transport));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Backend backend : backends) {
+            backend.sends = Counter.builder(SENDS_METRIC)
+                    .tag("transport", backend.name)
+                    .description("Sends routed to each transport")
+                    .register(registry);
+            Gauge.builder(LATENCY_METRIC, backend, b -> b.latencyNanos() / TimeUnit.MILLISECONDS.toNanos(1))
+                    .tag("transport", backend.name)
+                    .description("Smoothed send latency in milliseconds")
+                    .register(registry);
+            Gauge.builder(ERROR_RATE_METRIC, backend, Backend::errorRate)
+                    .tag("transport", backend.name)
+                    .description("Smoothed share of failed sends")
+                    .register(registry);
+        }
+    }
+
+    private int draw(ThreadLocalRandom random) {
+        double point = random.nextDouble(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = Arrays.binarySearch(cumulativeWeights, point);
+        index = index >= 0 ? index + 1 : -index - 1;
+        return Math.min(index, backends.length - 1);
+    }
+
+    private int draw(ThreadLocalRandom random, int[] candidates) {
+        double total = 0;
+        for (int i : candidates) total += weight(i);
+        double point = random.nextDouble(total);
+        for (int i : candidates) {
+            point -= weight(i);
+            if (point < 0) return i;
+        }
+        return candidates[candidates.length - 1];
+    }
+
+    private double weight(int index) {
+        return cumulativeWeights[index] - (index == 0 ? 0 : cumulativeWeights[index - 1]);
+    }
+
+    private static int indexOf(int[] values, int value) {
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Permanent failures are caused by the request (a bad address, a rejected template) and say nothing about the
+     * backend's health.
+     */
+    private static boolean countsAsError(Throwable error) {
+        return !(error instanceof NotificationSendException nse
+                && nse.getReason() == NotificationSendException.Reason.PERMANENT);
+    }
+
+    private double cost(Backend backend) {
+        return (backend.latencyNanos() + 1) * (backend.inFlight.get() + 1) * (1 + errorPenalty * backend.errorRate());
+    }
+
+    private SendResult sendOn(Backend backend, Supplier<SendResult> send) {
+        backend.begin();
+        long start = System.nanoTime();
+        try {
+            SendResult result = send.get();
+            backend.record(System.nanoTime() - start, false, smoothing);
+            return result;
+        } catch (RuntimeException e) {
+            backend.record(System.nanoTime() - start, countsAsError(e), smoothing);
+            throw e;
+        } finally {
+            backend.end();
+        }
+    }
+
+    private CompletableFuture<SendResult> sendAsyncOn(Backend backend, ComposedEmail email) {
+        backend.begin();
+        long start = System.nanoTime();
+        CompletableFuture<SendResult> future;
+        try {
+            future = backend.transport.sendAsync(email);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, error) -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            backend.record(System.nanoTime() - start, cause != null && countsAsError(cause), smoothing);
+            backend.end();
+        });
+    }
+
+    private static final class Backend {
+        final String name;
+        final EmailTransportService transport;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicLong latencyBits = new AtomicLong(Double.doubleToRawLongBits(0));
+        final AtomicLong errorBits = new AtomicLong(Double.doubleToRawLongBits(0));
+        volatile Counter sends;
+
+        Backend(String name, EmailTransportService transport) {
+            this.name = name;
+            this.transport = transport;
+        }
+
+        void begin() {
+            inFlight.incrementAndGet();
+            Counter counter = sends;
+            if (counter != null) counter.increment();
+        }
+
+        void end() {
+            inFlight.decrementAndGet();
+        }
+
+        void record(long latencyNanos, boolean failed, double smoothing) {
+            ewma(latencyBits, latencyNanos, smoothing);
+            ewma(errorBits, failed ? 1 : 0, smoothing);
+        }
+
+        double latencyNanos() {
+            return Double.longBitsToDouble(latencyBits.get());
+        }
+
+        double errorRate() {
+            return Double.longBitsToDouble(errorBits.get());
+        }
+
+        private static void ewma(AtomicLong bits, double sample, double smoothing) {
+            bits.updateAndGet(current -> {
+                double value = Double.longBitsToDouble(current);
+                return Double.doubleToRawLongBits(value + smoothing * (sample - value));
+            });
+        }
+    }
+}
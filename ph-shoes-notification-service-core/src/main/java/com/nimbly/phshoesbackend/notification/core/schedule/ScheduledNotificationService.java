@@ -0,0 +1,431 @@
+package com.nimbly.phshoesbackend.notification.core.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationScheduleProps;
+import com.nimbly.phshoesbackend.notification.core.outbox.OutboxJournal;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryExecutor;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * "Send at" on top of a {@link NotificationService}: {@link #schedule} parks a request in a {@link TimingWheel}
+ * and a ticker thread hands it to {@code senders} virtual threads once its time has come. Throttled and
+ * transient failures are scheduled again after {@code retryDelay}, up to {@code maxAttempts} tries in all.
+ * <p>
+ * With a journal, every scheduled request is appended before {@link #schedule} returns and completed once it
+ * was sent, failed for good or was cancelled; {@link #start()} puts what a restart left behind back on the wheel,
+ * firing overdue entries right away. The journal compacts oldest segment first, so one far-future entry keeps
+ * the segments written after it on disk until it fires.
+ * <p>
+ * Each entry is held as one {@code byte[]} record, {@code [sendAt][id][request JSON]}, which is also what the
+ * journal stores, so a replayed entry goes on the wheel as is; the request is only deserialized when it fires.
+ * Ids index a slot table ({@code generation << 32 | slot}) holding the wheel handle and journal sequence, so
+ * cancelling needs no per-entry map entry and a stale id from a reused slot is rejected by its generation.
+ * <p>
+ * Metrics: {@code notification.schedule.pending}, {@code notification.schedule.fired},
+ * {@code notification.schedule.failed}, {@code notification.schedule.cancelled} and
+ * {@code notification.schedule.lateness}.
+ */
+@Slf4j
+public class ScheduledNotificationService implements MeterBinder, AutoCloseable {
+
+    public static final String PENDING_METRIC = "notification.schedule.pending";
+    public static final String FIRED_METRIC = "notification.schedule.fired";
+    public static final String FAILED_METRIC = "notification.schedule.failed";
+    public static final String CANCELLED_METRIC = "notification.schedule.cancelled";
+    public static final String LATENESS_METRIC = "notification.schedule.lateness";
+
+    private static final int HEADER = 2 * Long.BYTES;
+    private static final long FREE = -1;
+    private static final long IN_MEMORY = 0;
+
+    private final NotificationService delegate;
+    private final OutboxJournal journal;
+    private final ObjectMapper mapper;
+    private final NotificationScheduleProps props;
+    private final LongSupplier clock;
+    private final TimingWheel<byte[]> wheel;
+    private final LinkedBlockingQueue<byte[]> due = new LinkedBlockingQueue<>();
+    // Slot table, guarded by the wheel: the live wheel handle (null while due or sending), the journal sequence
+    // (FREE when the slot is unused) and the generation that makes up the upper half of the id.
+    private TimingWheel.Timeout<byte[]>[] timeouts;
+    private long[] sequences;
+    private int[] generations;
+    private int[] attempts;
+    private int[] free;
+    private int freeCount;
+    private int used;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+    private volatile Counter fired;
+    private volatile Counter failed;
+    private volatile Counter cancelled;
+    private volatile Timer lateness;
+
+    public ScheduledNotificationService(NotificationService delegate,
+                                        OutboxJournal journal,
+                                        ObjectMapper mapper,
+                                        NotificationScheduleProps props) {
+        this(delegate, journal, mapper, props, System::currentTimeMillis);
+    }
+
+    /**
+     * @param journal where pending sends are kept across restarts, or {@code null} to keep them in memory
+     */
+    public ScheduledNotificationService(NotificationService delegate,
+                                        OutboxJournal journal,
+                                        ObjectMapper mapper,
+                                        NotificationScheduleProps props,
+                                        LongSupplier clock) {
+        if (Integer.bitCount(props.getWheelSize()) != 1) {
+            throw new IllegalArgumentException("notification.schedule.wheel-size must be a power of two");
+        }
+        this.delegate = delegate;
+        this.journal = journal;
+        this.mapper = mapper;
+        this.props = props;
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(props.getTick().toMillis(), Integer.numberOfTrailingZeros(props.getWheelSize()),
+                props.getLevels(), clock.getAsLong());
+        grow(16);
+    }
+
+    /**
+     * Replays the journal onto the wheel and starts the ticker and senders.
+     */
+    public synchronized ScheduledNotificationService start() {
+        if (running) return this;
+        running = true;
+        if (journal != null) {
+            // A slot is only reused once its entry completed, but completes are not flushed: after a crash an entry
+            // that was already sent can still be in the journal next to the newer one reusing its slot. The higher
+            // generation (then sequence) is the live one; the other is completed without being sent again.
+            Map<Integer, byte[]> restored = new LinkedHashMap<>();
+            for (OutboxJournal.Entry entry : journal.unfinished()) {
+                byte[] record = entry.payload();
+                if (record.length <= HEADER || slotOf(idOf(record)) < 0 || generationOf(idOf(record)) < 0) {
+                    log.error("schedule.replay.unreadable sequence={}", entry.sequence());
+                    journal.complete(entry.sequence());
+                    continue;
+                }
+                long superseded = restore(idOf(record), entry.sequence());
+                if (superseded != FREE) {
+                    log.warn("schedule.replay.superseded sequence={}", superseded);
+                    journal.complete(superseded);
+                }
+                if (superseded != entry.sequence()) restored.put(slotOf(idOf(record)), record);
+            }
+            synchronized (wheel) {
+                rebuildFreeList();
+            }
+            restored.values().forEach(this::enqueue);
+            log.info("schedule.replayed pending={}", pending());
+        }
+        threads.add(Thread.ofVirtual().name("notification-schedule-ticker").start(this::tick));
+        for (int i = 0; i < props.getSenders(); i++) {
+            threads.add(Thread.ofVirtual().name("notification-schedule-", i).start(this::drain));
+        }
+        return this;
+    }
+
+    /**
+     * Sends {@code req} at {@code sendAt}, or on the next tick if that has passed. The result is
+     * {@link SendResult#QUEUED} with the id {@link #cancel} takes as its {@code messageId}.
+     */
+    public SendResult schedule(EmailRequest req, Instant sendAt) throws NotificationSendException {
+        if (req.getAttachments() != null && req.getAttachments().stream().anyMatch(a -> a.getSource() != null)) {
+            throw new NotificationSendException("Scheduled requests cannot carry streaming attachments",
+                    null, NotificationSendException.Reason.PERMANENT);
+        }
+        byte[] json;
+        try {
+            json = mapper.writeValueAsBytes(req);
+        } catch (IOException e) {
+            throw new NotificationSendException("Schedule serialization failed: " + e.getMessage(), e,
+                    NotificationSendException.Reason.PERMANENT);
+        }
+        long id;
+        synchronized (wheel) {
+            id = allocate();
+        }
+        byte[] record = ByteBuffer.allocate(HEADER + json.length)
+                .putLong(sendAt.toEpochMilli())
+                .putLong(id)
+                .put(json)
+                .array();
+        if (journal != null) {
+            try {
+                long sequence = journal.append(record);
+                synchronized (wheel) {
+                    sequences[slotOf(id)] = sequence;
+                }
+            } catch (UncheckedIOException | IllegalArgumentException e) {
+                synchronized (wheel) {
+                    release(slotOf(id));
+                }
+                throw new NotificationSendException("Schedule append failed: " + e.getMessage(), e);
+            }
+        }
+        enqueue(record);
+        return SendResult.builder()
+                .messageId(Long.toString(id))
+                .provider("scheduler")
+                .acceptedAt(Instant.ofEpochMilli(clock.getAsLong()))
+                .requestId(req.getRequestIdHint())
+                .status(SendResult.QUEUED)
+                .build();
+    }
+
+    /**
+     * Cancels a scheduled send; false when it is unknown or already handed to the notification service.
+     */
+    public boolean cancel(long id) {
+        long sequence;
+        synchronized (wheel) {
+            int slot = slotOf(id);
+            if (slot < 0 || slot >= used || generations[slot] != generationOf(id)) return false;
+            TimingWheel.Timeout<byte[]> timeout = timeouts[slot];
+            if (timeout == null || !wheel.cancel(timeout)) return false;
+            sequence = release(slot);
+        }
+        if (journal != null) journal.complete(sequence);
+        if (cancelled != null) cancelled.increment();
+        return true;
+    }
+
+    /**
+     * Sends waiting for their time or for a sender.
+     */
+    public int pending() {
+        synchronized (wheel) {
+            return wheel.size() + due.size();
+        }
+    }
+
+    /**
+     * Moves every send whose time has come to the senders; returns how many. The ticker calls this every tick.
+     */
+    public int fireDue() {
+        long now = clock.getAsLong();
+        synchronized (wheel) {
+            return wheel.advanceTo(now, record -> {
+                timeouts[slotOf(idOf(record))] = null;
+                due.add(record);
+                if (lateness != null) lateness.record(Math.max(0, now - sendAtOf(record)), TimeUnit.MILLISECONDS);
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(PENDING_METRIC, this, ScheduledNotificationService::pending)
+                .description("Scheduled sends not yet handed to the notification service")
+                .register(registry);
+        fired = Counter.builder(FIRED_METRIC).description("Scheduled sends handed to the notification service")
+                .register(registry);
+        failed = Counter.builder(FAILED_METRIC)
+                .description("Scheduled sends given up after a permanent failure or their last attempt")
+                .register(registry);
+        cancelled = Counter.builder(CANCELLED_METRIC).description("Scheduled sends cancelled").register(registry);
+        lateness = Timer.builder(LATENESS_METRIC)
+                .description("How long after its time a scheduled send came due")
+                .register(registry);
+    }
+
+    /**
+     * Stops the ticker and senders, then closes the journal; pending sends stay in it for the next start.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        running = false;
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+        if (journal != null) journal.close();
+    }
+
+    private void enqueue(byte[] record) {
+        synchronized (wheel) {
+            timeouts[slotOf(idOf(record))] = wheel.schedule(sendAtOf(record), record);
+        }
+    }
+
+    private void finish(long id) {
+        long sequence;
+        synchronized (wheel) {
+            sequence = release(slotOf(id));
+        }
+        if (journal != null) journal.complete(sequence);
+    }
+
+    /** Takes a free slot and returns its id. Callers hold the wheel lock. */
+    private long allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (used == sequences.length) grow(used * 2);
+            slot = used++;
+        }
+        sequences[slot] = IN_MEMORY;
+        attempts[slot] = 0;
+        return ((long) generations[slot] << 32) | slot;
+    }
+
+    /** Frees {@code slot} and returns the journal sequence it held. Callers hold the wheel lock. */
+    private long release(int slot) {
+        long sequence = sequences[slot];
+        timeouts[slot] = null;
+        sequences[slot] = FREE;
+        generations[slot] = (generations[slot] + 1) & Integer.MAX_VALUE;
+        if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+        free[freeCount++] = slot;
+        return sequence;
+    }
+
+    /**
+     * Claims the slot a journaled id names on replay. Returns the journal sequence that lost the slot to a newer
+     * entry (this one's own when an entry already holding it is newer), or {@code FREE} when it was unclaimed.
+     */
+    private long restore(long id, long sequence) {
+        int slot = slotOf(id);
+        int generation = generationOf(id);
+        synchronized (wheel) {
+            if (slot >= sequences.length) grow(Integer.highestOneBit(slot) << 1);
+            long held = sequences[slot];
+            if (held != FREE && (generations[slot] > generation || (generations[slot] == generation && held > sequence))) {
+                return sequence;
+            }
+            sequences[slot] = sequence;
+            generations[slot] = generation;
+            attempts[slot] = 0;
+            used = Math.max(used, slot + 1);
+            return held;
+        }
+    }
+
+    /** After a replay, everything below the highest restored slot that is still unused becomes free. */
+    private void rebuildFreeList() {
+        freeCount = 0;
+        for (int slot = used - 1; slot >= 0; slot--) {
+            if (sequences[slot] != FREE) continue;
+            // Move past whatever generation this slot may have had before the restart.
+            generations[slot] = (generations[slot] + 1) & Integer.MAX_VALUE;
+            if (freeCount == free.length) free = Arrays.copyOf(free, free.length * 2);
+            free[freeCount++] = slot;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow(int capacity) {
+        int from = sequences == null ? 0 : sequences.length;
+        timeouts = timeouts == null ? new TimingWheel.Timeout[capacity] : Arrays.copyOf(timeouts, capacity);
+        sequences = sequences == null ? new long[capacity] : Arrays.copyOf(sequences, capacity);
+        generations = generations == null ? new int[capacity] : Arrays.copyOf(generations, capacity);
+        attempts = attempts == null ? new int[capacity] : Arrays.copyOf(attempts, capacity);
+        if (free == null) free = new int[capacity];
+        Arrays.fill(sequences, from, capacity, FREE);
+    }
+
+    private static long sendAtOf(byte[] record) {
+        return ByteBuffer.wrap(record).getLong(0);
+    }
+
+    private static long idOf(byte[] record) {
+        return ByteBuffer.wrap(record).getLong(Long.BYTES);
+    }
+
+    private static int slotOf(long id) {
+        return (int) id;
+    }
+
+    private static int generationOf(long id) {
+        return (int) (id >>> 32);
+    }
+
+    private void tick() {
+        long tickMillis = wheel.tickMillis();
+        while (running) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            fireDue();
+        }
+    }
+
+    private void drain() {
+        while (running) {
+            byte[] next;
+            try {
+                next = due.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            deliver(next);
+        }
+    }
+
+    private void deliver(byte[] record) {
+        if (fired != null) fired.increment();
+        long id = idOf(record);
+        EmailRequest request;
+        try {
+            request = mapper.readValue(record, HEADER, record.length - HEADER, EmailRequest.class);
+        } catch (IOException e) {
+            log.error("schedule.unreadable id={} error={}", id, e.getMessage());
+            finish(id);
+            return;
+        }
+        try {
+            SendResult result = delegate.sendEmailVerification(request);
+            finish(id);
+            log.debug("schedule.sent id={} provider={} messageId={}", id, result.getProvider(), result.getMessageId());
+        } catch (RuntimeException e) {
+            // Shutting down: a journaled entry is replayed on the next start.
+            if (!running) return;
+            int tries;
+            synchronized (wheel) {
+                tries = ++attempts[slotOf(id)];
+            }
+            if (RetryExecutor.isRetryable(e) && tries < props.getMaxAttempts()) {
+                log.warn("schedule.send.retry id={} attempt={} error={}", id, tries, e.getMessage());
+                ByteBuffer.wrap(record).putLong(0, clock.getAsLong() + props.getRetryDelay().toMillis());
+                enqueue(record);
+                return;
+            }
+            log.error("schedule.send.failed id={} attempts={} error={}", id, tries, e.getMessage());
+            if (failed != null) failed.increment();
+            finish(id);
+        }
+    }
+}
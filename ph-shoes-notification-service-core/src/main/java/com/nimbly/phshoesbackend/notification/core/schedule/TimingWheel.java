@@ -0,0 +1,190 @@
+package com.nimbly.phshoesbackend.notification.core.schedule;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@code levels} wheels of {@code 2^wheelBits} buckets, where a bucket on level
+ * {@code n} spans {@code 2^(wheelBits * n)} ticks. Entries go into the coarsest level their delay needs and
+ * move down a level each time the wheel above turns over, so scheduling and cancelling are O(1) and a tick only
+ * touches the buckets that are due. Each bucket is an intrusive doubly-linked list, so an entry costs one small
+ * node and no per-entry timer or task object.
+ * <p>
+ * Deadlines are absolute epoch milliseconds rounded up to the next tick, so nothing fires early; delays beyond
+ * the wheel's range park in the top level and are re-placed until they fit. Not thread-safe: callers guard
+ * the wheel with their own lock.
+ */
+public final class TimingWheel<T> {
+
+    private final long tickMillis;
+    private final int wheelBits;
+    private final int levels;
+    private final int mask;
+    private final Timeout<T>[][] buckets;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelBits, int levels, long startMillis) {
+        if (tickMillis < 1) throw new IllegalArgumentException("tickMillis must be positive");
+        if (wheelBits < 1 || levels < 1 || (long) wheelBits * levels > 62) {
+            throw new IllegalArgumentException("wheelBits * levels must be between 1 and 62");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelBits = wheelBits;
+        this.levels = levels;
+        this.mask = (1 << wheelBits) - 1;
+        this.buckets = new Timeout[levels][1 << wheelBits];
+        for (Timeout<T>[] level : buckets) {
+            for (int i = 0; i < level.length; i++) level[i] = Timeout.sentinel();
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    /**
+     * Schedules {@code payload} for {@code deadlineMillis}; a deadline already past fires on the next tick.
+     */
+    public Timeout<T> schedule(long deadlineMillis, T payload) {
+        Timeout<T> timeout = new Timeout<>(deadlineMillis, payload);
+        place(timeout, Math.max(tickOf(deadlineMillis), currentTick + 1));
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Removes {@code timeout}; false when it already fired or was cancelled.
+     */
+    public boolean cancel(Timeout<T> timeout) {
+        if (timeout.next == null) return false;
+        timeout.unlink();
+        size--;
+        return true;
+    }
+
+    /**
+     * Turns the wheel up to {@code nowMillis}, passing every payload that came due to {@code expired} in
+     * deadline order (to tick precision). Returns how many fired.
+     */
+    public int advanceTo(long nowMillis, Consumer<? super T> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        if (size == 0) {
+            currentTick = Math.max(currentTick, target);
+            return 0;
+        }
+        int fired = 0;
+        while (currentTick < target && size > 0) {
+            currentTick++;
+            for (int level = 1; level < levels; level++) {
+                if ((currentTick & ((1L << (wheelBits * level)) - 1)) != 0) break;
+                Timeout<T> bucket = buckets[level][index(currentTick, level)];
+                for (Timeout<T> timeout = bucket.detachAll(); timeout != null; ) {
+                    Timeout<T> next = timeout.next;
+                    timeout.next = null;
+                    place(timeout, Math.max(tickOf(timeout.deadline), currentTick));
+                    timeout = next;
+                }
+            }
+            Timeout<T> bucket = buckets[0][index(currentTick, 0)];
+            for (Timeout<T> timeout = bucket.detachAll(); timeout != null; ) {
+                Timeout<T> next = timeout.next;
+                timeout.next = null;
+                if (tickOf(timeout.deadline) > currentTick) {
+                    place(timeout, tickOf(timeout.deadline));
+                } else {
+                    size--;
+                    fired++;
+                    expired.accept(timeout.payload);
+                }
+                timeout = next;
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+        return fired;
+    }
+
+    /**
+     * Entries scheduled and not yet fired or cancelled.
+     */
+    public int size() {
+        return size;
+    }
+
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    private void place(Timeout<T> timeout, long tick) {
+        long delta = tick - currentTick;
+        int level = 0;
+        while (level < levels - 1 && delta >= 1L << (wheelBits * (level + 1))) level++;
+        long range = 1L << (wheelBits * (level + 1));
+        // Beyond the top level's range: park in its last bucket and re-place when that bucket turns over.
+        long placed = delta >= range ? currentTick + range - 1 : tick;
+        buckets[level][index(placed, level)].linkLast(timeout);
+    }
+
+    private int index(long tick, int level) {
+        return (int) ((tick >>> (wheelBits * level)) & mask);
+    }
+
+    private long tickOf(long millis) {
+        return Math.ceilDiv(millis, tickMillis);
+    }
+
+    /**
+     * A scheduled entry, and the handle to cancel it with.
+     */
+    public static final class Timeout<T> {
+        private final long deadline;
+        private final T payload;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+
+        private Timeout(long deadline, T payload) {
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        public T payload() {
+            return payload;
+        }
+
+        private static <T> Timeout<T> sentinel() {
+            Timeout<T> sentinel = new Timeout<>(0, null);
+            sentinel.prev = sentinel;
+            sentinel.next = sentinel;
+            return sentinel;
+        }
+
+        private void linkLast(Timeout<T> timeout) {
+            timeout.prev = prev;
+            timeout.next = this;
+            prev.next = timeout;
+            prev = timeout;
+        }
+
+        private void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = null;
+            next = null;
+        }
+
+        /**
+         * Empties this sentinel's list and returns its first entry; the chain is null-terminated and its
+         * entries are marked unlinked except for {@code next}, which the caller clears as it walks.
+         */
+        private Timeout<T> detachAll() {
+            if (next == this) return null;
+            Timeout<T> first = next;
+            prev.next = null;
+            for (Timeout<T> timeout = first; timeout != null; timeout = timeout.next) timeout.prev = null;
+            prev = this;
+            next = this;
+            return first;
+        }
+    }
+}
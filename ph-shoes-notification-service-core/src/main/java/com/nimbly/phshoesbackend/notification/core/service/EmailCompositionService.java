@@ -4,6 +4,26 @@ package com.nimbly.phshoesbackend.notification.core.service;
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 
+import java.util.function.Consumer;
+
 public interface EmailCompositionService {
     ComposedEmail compose(EmailRequest request);
-}
\ No newline at end of file
+
+    /**
+     * Composes every request and passes the results to {@code sink} in input order, without collecting them.
+     * Implementations may compose in parallel; {@code sink} is always called from the calling thread.
+     */
+    default void composeAll(Iterable<EmailRequest> requests, Consumer<? super ComposedEmail> sink) {
+        for (EmailRequest request : requests) {
+            sink.accept(compose(request));
+        }
+    }
+
+    /**
+     * Prepares {@code shared} for fan-out to many recipients. Each recipient's email is equivalent to composing
+     * {@code recipient.applyTo(shared)}; implementations may share work across recipients.
+     */
+    default MailMerge prepareMerge(EmailRequest shared) {
+        return recipient -> compose(recipient.applyTo(shared));
+    }
+}
@@ -4,6 +4,50 @@ import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendExc
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface EmailTransportService {
     SendResult send(ComposedEmail email) throws NotificationSendException;
+
+    /**
+     * Sends without waiting for the provider. Failures complete the future with a
+     * {@link NotificationSendException}. The default sends synchronously on the calling thread; transports with
+     * a non-blocking client override it.
+     */
+    default CompletableFuture<SendResult> sendAsync(ComposedEmail email) {
+        try {
+            return CompletableFuture.completedFuture(send(email));
+        } catch (NotificationSendException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Whether this transport can deliver {@code email} as composed. The default refuses emails that
+     * {@linkplain ComposedEmail#requiresProviderTemplate() need a provider-side template}: a transport that sends
+     * raw MIME would deliver them without a body. Transports that hand the template to their provider override it.
+     */
+    default boolean canSend(ComposedEmail email) {
+        return !email.requiresProviderTemplate();
+    }
+
+    /**
+     * Sends every email and returns one result per email, in order. Failures do not abort the batch; they come
+     * back as results with {@link SendResult#isAccepted()} false. The default sends one by one; providers with a
+     * bulk API group compatible emails.
+     */
+    default List<SendResult> sendBatch(List<ComposedEmail> emails) {
+        List<SendResult> results = new ArrayList<>(emails.size());
+        for (ComposedEmail email : emails) {
+            try {
+                SendResult result = send(email);
+                results.add(result.toBuilder().status(SendResult.SUCCESS).build());
+            } catch (NotificationSendException e) {
+                results.add(SendResult.failed(null, e));
+            }
+        }
+        return results;
+    }
 }
@@ -0,0 +1,22 @@
+package com.nimbly.phshoesbackend.notification.core.service;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.MergeRecipient;
+
+import java.util.function.Consumer;
+
+/**
+ * A shared {@code EmailRequest} prepared once for many recipients; see
+ * {@link EmailCompositionService#prepareMerge}.
+ */
+@FunctionalInterface
+public interface MailMerge {
+
+    ComposedEmail compose(MergeRecipient recipient);
+
+    default void composeAll(Iterable<MergeRecipient> recipients, Consumer<? super ComposedEmail> sink) {
+        for (MergeRecipient recipient : recipients) {
+            sink.accept(compose(recipient));
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.nimbly.phshoesbackend.notification.core.service;
+
+/**
+ * A transport registered under a name, for failover ({@code notification.failover.fallbacks}) and weighted
+ * routing ({@code notification.routing.weights}). It is a separate bean type so that providers can contribute
+ * transports without competing for the single {@link EmailTransportService} bean.
+ */
+public record NamedEmailTransport(String name, EmailTransportService transport) {
+}
@@ -1,8 +1,41 @@
 package com.nimbly.phshoesbackend.notification.core.service;
 
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface NotificationService {
     SendResult sendEmailVerification(EmailRequest req);
+
+    /**
+     * Async variant of {@link #sendEmailVerification}; failures complete the future with a
+     * {@link NotificationSendException}.
+     */
+    default CompletableFuture<SendResult> sendEmailVerificationAsync(EmailRequest req) {
+        try {
+            return CompletableFuture.completedFuture(sendEmailVerification(req));
+        } catch (NotificationSendException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Sends every request and returns one result per request, in order; see
+     * {@link EmailTransportService#sendBatch}.
+     */
+    default List<SendResult> sendBatch(List<EmailRequest> requests) {
+        List<SendResult> results = new ArrayList<>(requests.size());
+        for (EmailRequest req : requests) {
+            try {
+                results.add(sendEmailVerification(req).toBuilder().status(SendResult.SUCCESS).build());
+            } catch (NotificationSendException e) {
+                results.add(SendResult.failed(null, e));
+            }
+        }
+        return results;
+    }
 }
@@ -0,0 +1,10 @@
+package com.nimbly.phshoesbackend.notification.core.service;
+
+/**
+ * The {@link EmailTransportService} bean as the notification service sends through it: behind failover or
+ * weighted routing, the rate limiter and retries, whichever are enabled. Anything else that sends composed
+ * emails takes this rather than the raw transport, so it shares the same send-rate budget. Like
+ * {@link NamedEmailTransport}, it is a separate bean type so it never competes with the transport bean.
+ */
+public record NotificationTransportChain(EmailTransportService transport) {
+}
@@ -1,6 +1,8 @@
 package com.nimbly.phshoesbackend.notification.core.service.impl;
 
 import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.execution.NotificationExecutor;
+import com.nimbly.phshoesbackend.notification.core.idempotency.IdempotencyGuard;
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
@@ -9,20 +11,127 @@ import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService
 import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 @Service
 public class CoreNotificationServiceImpl implements NotificationService {
 
     private final EmailCompositionService composer;
     private final EmailTransportService emailTransport;
+    private final NotificationExecutor executor;
+    private final IdempotencyGuard idempotency;
 
     public CoreNotificationServiceImpl(EmailCompositionService composer, EmailTransportService emailTransport) {
+        this(composer, emailTransport, null);
+    }
+
+    public CoreNotificationServiceImpl(EmailCompositionService composer,
+                                       EmailTransportService emailTransport,
+                                       NotificationExecutor executor) {
+        this(composer, emailTransport, executor, null);
+    }
+
+    public CoreNotificationServiceImpl(EmailCompositionService composer,
+                                       EmailTransportService emailTransport,
+                                       NotificationExecutor executor,
+                                       IdempotencyGuard idempotency) {
         this.composer = composer;
         this.emailTransport = emailTransport;
+        this.executor = executor;
+        this.idempotency = idempotency;
     }
 
+    /**
+     * With an {@link IdempotencyGuard}, a request carrying a {@code requestIdHint} that was already sent
+     * returns the original result, and concurrent duplicates wait for the one send in flight.
+     */
     @Override
     public SendResult sendEmailVerification(EmailRequest req) throws NotificationSendException {
+        if (idempotency == null) return send(req);
+        return idempotency.call(req.getRequestIdHint(), () -> send(req));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendEmailVerificationAsync(EmailRequest req) {
+        if (idempotency == null) return sendAsync(req);
+        return idempotency.execute(req.getRequestIdHint(), () -> sendAsync(req));
+    }
+
+    private SendResult send(EmailRequest req) {
         ComposedEmail email = composer.compose(req);
         return emailTransport.send(email);
     }
-}
\ No newline at end of file
+
+    /**
+     * With a {@link NotificationExecutor}, composition and the blocking send run on one of its threads;
+     * otherwise the email is composed here and handed to the transport's own async send.
+     */
+    private CompletableFuture<SendResult> sendAsync(EmailRequest req) {
+        if (executor != null) {
+            try {
+                return executor.submit(() -> send(req));
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(new NotificationSendException("Send rejected: " + e.getMessage(), e));
+            }
+        }
+        ComposedEmail email;
+        try {
+            email = composer.compose(req);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return emailTransport.sendAsync(email);
+    }
+
+    /**
+     * Composes the whole batch and hands it to the transport in one call, so providers with a bulk API can
+     * group it. A request that fails to compose gets a failed result without holding back the others. With an
+     * {@link IdempotencyGuard}, keys already sent are replayed and a key repeated within the batch is sent once.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<EmailRequest> requests) {
+        SendResult[] results = new SendResult[requests.size()];
+        int[] sameAs = new int[requests.size()];
+        Map<String, Integer> firstByKey = new HashMap<>();
+        List<ComposedEmail> emails = new ArrayList<>(requests.size());
+        List<Integer> positions = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            sameAs[i] = -1;
+            String key = requests.get(i).getRequestIdHint();
+            if (idempotency != null && key != null && !key.isBlank()) {
+                Optional<SendResult> stored = idempotency.replay(key);
+                if (stored.isPresent()) {
+                    results[i] = stored.get();
+                    continue;
+                }
+                Integer first = firstByKey.putIfAbsent(key, i);
+                if (first != null) {
+                    sameAs[i] = first;
+                    continue;
+                }
+            }
+            try {
+                emails.add(composer.compose(requests.get(i)));
+                positions.add(i);
+            } catch (RuntimeException e) {
+                results[i] = SendResult.failed(null, e);
+            }
+        }
+        List<SendResult> sent = emails.isEmpty() ? List.of() : emailTransport.sendBatch(emails);
+        for (int i = 0; i < sent.size(); i++) {
+            int position = positions.get(i);
+            results[position] = sent.get(i);
+            if (idempotency != null) idempotency.remember(requests.get(position).getRequestIdHint(), sent.get(i));
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (sameAs[i] >= 0) results[i] = results[sameAs[i]];
+        }
+        return List.of(results);
+    }
+}
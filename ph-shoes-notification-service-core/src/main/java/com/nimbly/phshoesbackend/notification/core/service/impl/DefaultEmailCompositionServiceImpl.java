@@ -4,11 +4,16 @@ import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
 import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
+import com.nimbly.phshoesbackend.notification.core.service.MailMerge;
+import com.nimbly.phshoesbackend.notification.core.template.EmailTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
 import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
 import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
 import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
 import org.springframework.stereotype.Service;
 
+import java.util.function.Consumer;
+
 @Service
 public class DefaultEmailCompositionServiceImpl implements EmailCompositionService {
 
@@ -16,26 +21,55 @@ public class DefaultEmailCompositionServiceImpl implements EmailCompositionServi
     private final EmailSubjectFormatter subjectFormatter;
     private final EmailAddressFormatter addressFormatter;
     private final RawMimeBuilder rawMimeBuilder;
+    private final LocalTemplateEngine templateEngine;
+    private final ParallelBatchComposer batchComposer;
 
     public DefaultEmailCompositionServiceImpl(NotificationEmailProps emailProps,
                                               EmailSubjectFormatter subjectFormatter,
                                               EmailAddressFormatter addressFormatter,
                                               RawMimeBuilder rawMimeBuilder) {
+        this(emailProps, subjectFormatter, addressFormatter, rawMimeBuilder, null);
+    }
+
+    public DefaultEmailCompositionServiceImpl(NotificationEmailProps emailProps,
+                                              EmailSubjectFormatter subjectFormatter,
+                                              EmailAddressFormatter addressFormatter,
+                                              RawMimeBuilder rawMimeBuilder,
+                                              LocalTemplateEngine templateEngine) {
+        this(emailProps, subjectFormatter, addressFormatter, rawMimeBuilder, templateEngine, null);
+    }
+
+    public DefaultEmailCompositionServiceImpl(NotificationEmailProps emailProps,
+                                              EmailSubjectFormatter subjectFormatter,
+                                              EmailAddressFormatter addressFormatter,
+                                              RawMimeBuilder rawMimeBuilder,
+                                              LocalTemplateEngine templateEngine,
+                                              ParallelBatchComposer batchComposer) {
         this.emailProps = emailProps;
         this.subjectFormatter = subjectFormatter;
         this.addressFormatter = addressFormatter;
         this.rawMimeBuilder = rawMimeBuilder;
+        this.templateEngine = templateEngine;
+        this.batchComposer = batchComposer;
     }
 
+    /**
+     * When the templateId names a local template, its bodies replace the request's text/html bodies and its
+     * subject is used if the request has none.
+     */
     @Override
     public ComposedEmail compose(EmailRequest request) {
-        String subject = subjectFormatter.withPrefix(request.getSubject(), emailProps.getSubjectPrefix());
-        String raw = rawMimeBuilder.build(request, subject);
+        EmailTemplate template = localTemplate(request);
+        String baseSubject = request.getSubject();
+        if (template != null && template.subject() != null && (baseSubject == null || baseSubject.isBlank())) {
+            baseSubject = template.subject().render(request.getTemplateVars());
+        }
+        String subject = subjectFormatter.withPrefix(baseSubject, emailProps.getSubjectPrefix());
         String from = (request.getFrom() != null) ? addressFormatter.format(request.getFrom()) : emailProps.getFrom();
 
-        return new ComposedEmail(
+        ComposedEmail composed = ComposedEmail.lazy(
                 request,
-                raw,
+                () -> rawMimeBuilder.buildBytes(request, subject, template),
                 from,
                 addressFormatter.formatAll(request.getTo()),
                 addressFormatter.formatAll(request.getCc()),
@@ -43,5 +77,53 @@ public class DefaultEmailCompositionServiceImpl implements EmailCompositionServi
                 subject,
                 request.getTags()
         );
+        composed.setHeaders(rawMimeBuilder.extraHeaders(request));
+        composed.setTemplateRendered(template != null);
+        return composed;
+    }
+
+    /**
+     * Spreads the batch over the {@link ParallelBatchComposer} when one is configured.
+     */
+    @Override
+    public void composeAll(Iterable<EmailRequest> requests, Consumer<? super ComposedEmail> sink) {
+        if (batchComposer == null) {
+            EmailCompositionService.super.composeAll(requests, sink);
+            return;
+        }
+        batchComposer.composeAll(requests, this::compose, sink);
+    }
+
+    /**
+     * Renders the shared message once and splices each recipient's To, subject and template fields into it.
+     * A templateId that only the provider knows needs per-recipient templateVars on the request itself, so
+     * that case falls back to composing each recipient separately.
+     */
+    @Override
+    public MailMerge prepareMerge(EmailRequest shared) {
+        EmailTemplate template = localTemplate(shared);
+        if (shared.getTemplateId() != null && template == null) {
+            return EmailCompositionService.super.prepareMerge(shared);
+        }
+        boolean subjectFromTemplate = template != null && template.subject() != null
+                && (shared.getSubject() == null || shared.getSubject().isBlank());
+        String from = (shared.getFrom() != null) ? addressFormatter.format(shared.getFrom()) : emailProps.getFrom();
+        return new SplicedMailMerge(
+                shared,
+                rawMimeBuilder.compileSkeleton(shared, template),
+                subjectFromTemplate ? template.subject() : null,
+                subjectFromTemplate ? null : subjectFormatter.withPrefix(shared.getSubject(), emailProps.getSubjectPrefix()),
+                emailProps.getSubjectPrefix(),
+                from,
+                rawMimeBuilder.extraHeaders(shared),
+                template != null,
+                subjectFormatter,
+                addressFormatter
+        );
+    }
+
+    private EmailTemplate localTemplate(EmailRequest request) {
+        if (templateEngine == null || request.getTemplateId() == null) return null;
+        return templateEngine.find(request.getTemplateId()).orElse(null);
     }
 }
@@ -0,0 +1,134 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.DomainShaper;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds every send until each of its recipient domains (to, cc and bcc, by {@link EmailAddress#getAddress()})
+ * has a free slot and a token in its {@link DomainShaper} bucket. A batch is shaped per domain group, one token
+ * per request addressed to the domain; see {@link #sendBatch(List)}.
+ */
+public class DomainShapedNotificationService implements NotificationService {
+
+    private static final String PROVIDER = "domain-shaping";
+
+    private final NotificationService delegate;
+    private final DomainShaper shaper;
+
+    public DomainShapedNotificationService(NotificationService delegate, DomainShaper shaper) {
+        this.delegate = delegate;
+        this.shaper = shaper;
+    }
+
+    @Override
+    public SendResult sendEmailVerification(EmailRequest req) throws NotificationSendException {
+        try (DomainShaper.Lease ignored = shaper.acquire(domains(req))) {
+            return delegate.sendEmailVerification(req);
+        }
+    }
+
+    /**
+     * Waits for the domains on the calling thread, then keeps their slots until the send completes.
+     */
+    @Override
+    public CompletableFuture<SendResult> sendEmailVerificationAsync(EmailRequest req) {
+        DomainShaper.Lease lease;
+        try {
+            lease = shaper.acquire(domains(req));
+        } catch (NotificationSendException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            return delegate.sendEmailVerificationAsync(req).whenComplete((result, error) -> lease.close());
+        } catch (RuntimeException e) {
+            lease.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Splits the batch by the set of domains each request goes to and lets every group through at its own pace:
+     * a group goes to the delegate in chunks of its smallest domain burst, each chunk waiting for its own tokens,
+     * so 1,000 gmail.com recipients are spread out while the yahoo.com ones in the same batch go straight out.
+     * Groups run on virtual threads of their own and hold only their own domains' slots. When a chunk's wait would
+     * exceed {@code maxWait}, it and the rest of its group come back {@code THROTTLED}; other groups are unaffected.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<EmailRequest> requests) {
+        if (requests.isEmpty()) return List.of();
+        Map<Set<String>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            groups.computeIfAbsent(domains(requests.get(i)), key -> new ArrayList<>()).add(i);
+        }
+        SendResult[] results = new SendResult[requests.size()];
+        if (groups.size() == 1) {
+            groups.forEach((domains, indexes) -> sendGroup(domains, indexes, requests, results));
+        } else {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                groups.forEach((domains, indexes) -> executor.execute(() -> sendGroup(domains, indexes, requests, results)));
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void sendGroup(Set<String> domains, List<Integer> indexes, List<EmailRequest> requests,
+                           SendResult[] results) {
+        int chunk = indexes.size();
+        for (String domain : domains) chunk = Math.min(chunk, shaper.burstFor(domain));
+        for (int from = 0; from < indexes.size(); from += chunk) {
+            List<Integer> slice = indexes.subList(from, Math.min(from + chunk, indexes.size()));
+            Map<String, Integer> messages = new TreeMap<>();
+            for (String domain : domains) messages.put(domain, slice.size());
+            DomainShaper.Lease lease;
+            try {
+                lease = shaper.acquire(messages);
+            } catch (NotificationSendException e) {
+                // Later chunks would only queue up behind this one.
+                SendResult result = SendResult.failed(PROVIDER, e);
+                for (int index : indexes.subList(from, indexes.size())) results[index] = result;
+                return;
+            }
+            List<EmailRequest> batch = new ArrayList<>(slice.size());
+            for (int index : slice) batch.add(requests.get(index));
+            try (lease) {
+                List<SendResult> sent = delegate.sendBatch(batch);
+                for (int i = 0; i < slice.size(); i++) results[slice.get(i)] = sent.get(i);
+            } catch (RuntimeException e) {
+                SendResult failed = SendResult.failed(PROVIDER, e);
+                for (int index : slice) results[index] = failed;
+            }
+        }
+    }
+
+    private static Set<String> domains(EmailRequest req) {
+        Set<String> domains = new HashSet<>(2);
+        addDomains(req.getTo(), domains);
+        addDomains(req.getCc(), domains);
+        addDomains(req.getBcc(), domains);
+        return domains;
+    }
+
+    private static void addDomains(List<EmailAddress> addresses, Set<String> domains) {
+        if (addresses == null) return;
+        for (EmailAddress address : addresses) {
+            String domain = address == null ? null : DomainShaper.domainOf(address.getAddress());
+            if (domain != null) domains.add(domain);
+        }
+    }
+}
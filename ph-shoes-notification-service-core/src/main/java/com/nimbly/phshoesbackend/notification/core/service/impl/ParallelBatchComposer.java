@@ -0,0 +1,130 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationCompositionProps;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Composes a stream of inputs on a ForkJoin pool in fixed-size windows. While the caller hands one window's
+ * results to the consumer, in input order, the next window is already being composed; nothing beyond those
+ * two windows is read from the input or kept in memory. The consumer always runs on the calling thread.
+ */
+public class ParallelBatchComposer implements AutoCloseable {
+
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+    private final int windowSize;
+    private final boolean renderMime;
+
+    public ParallelBatchComposer(NotificationCompositionProps props) {
+        this(props.getParallelism() > 0 ? new ForkJoinPool(props.getParallelism()) : ForkJoinPool.commonPool(),
+                props.getParallelism() > 0, props.getWindowSize(), props.isRenderMime());
+    }
+
+    public ParallelBatchComposer(ForkJoinPool pool, int windowSize, boolean renderMime) {
+        this(pool, false, windowSize, renderMime);
+    }
+
+    private ParallelBatchComposer(ForkJoinPool pool, boolean ownsPool, int windowSize, boolean renderMime) {
+        if (windowSize < 1) throw new IllegalArgumentException("windowSize must be positive");
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.windowSize = windowSize;
+        this.renderMime = renderMime;
+    }
+
+    /**
+     * Composes every input and passes the results to {@code sink} in input order. The first failure, from
+     * {@code compose} or from {@code sink}, cancels the window in flight and is rethrown; inputs after it are
+     * never consumed.
+     */
+    public <T> void composeAll(Iterable<? extends T> inputs,
+                               Function<? super T, ComposedEmail> compose,
+                               Consumer<? super ComposedEmail> sink) {
+        Iterator<? extends T> source = inputs.iterator();
+        Window<T> current = submit(source, compose);
+        while (current != null) {
+            ComposedEmail[] composed = current.await();
+            Window<T> next = submit(source, compose);
+            try {
+                for (ComposedEmail email : composed) sink.accept(email);
+            } catch (RuntimeException | Error e) {
+                if (next != null) next.cancel(true);
+                throw e;
+            }
+            current = next;
+        }
+    }
+
+    private <T> Window<T> submit(Iterator<? extends T> source, Function<? super T, ComposedEmail> compose) {
+        if (!source.hasNext()) return null;
+        List<T> inputs = new ArrayList<>(windowSize);
+        while (inputs.size() < windowSize && source.hasNext()) inputs.add(source.next());
+        Window<T> window = new Window<>(inputs, compose, renderMime, Math.max(1, inputs.size() / (pool.getParallelism() * 4)));
+        pool.execute(window);
+        return window;
+    }
+
+    @Override
+    public void close() {
+        if (ownsPool) pool.shutdown();
+    }
+
+    private static final class Window<T> extends RecursiveAction {
+        private final List<T> inputs;
+        private final Function<? super T, ComposedEmail> compose;
+        private final boolean renderMime;
+        private final int threshold;
+        private final ComposedEmail[] results;
+
+        Window(List<T> inputs, Function<? super T, ComposedEmail> compose, boolean renderMime, int threshold) {
+            this.inputs = inputs;
+            this.compose = compose;
+            this.renderMime = renderMime;
+            this.threshold = threshold;
+            this.results = new ComposedEmail[inputs.size()];
+        }
+
+        @Override
+        protected void compute() {
+            new Range(0, inputs.size()).compute();
+        }
+
+        ComposedEmail[] await() {
+            join();
+            return results;
+        }
+
+        private final class Range extends RecursiveAction {
+            private final int from;
+            private final int to;
+
+            Range(int from, int to) {
+                this.from = from;
+                this.to = to;
+            }
+
+            @Override
+            protected void compute() {
+                if (to - from <= threshold) {
+                    for (int i = from; i < to; i++) {
+                        ComposedEmail email = compose.apply(inputs.get(i));
+                        if (renderMime && email != null) email.getRawMimeBytes();
+                        results[i] = email;
+                    }
+                    return;
+                }
+                int mid = (from + to) >>> 1;
+                ForkJoinTask.invokeAll(new Range(from, mid), new Range(mid, to));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.execution.PriorityDispatcher;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailPriority;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Sends every request through a {@link PriorityDispatcher} lane chosen by {@link EmailRequest#getPriority()}.
+ * Blocking sends wait for their turn; a batch is split by priority and each part runs as one task in its own
+ * lane, so a few urgent entries do not carry a bulk campaign into the high lane. A single send without a priority is a verification email someone is waiting on, so it goes in the
+ * {@link EmailPriority#HIGH} lane; batch entries without one count as {@link EmailPriority#NORMAL}.
+ */
+public class PrioritizedNotificationService implements NotificationService {
+
+    private final NotificationService delegate;
+    private final PriorityDispatcher dispatcher;
+
+    public PrioritizedNotificationService(NotificationService delegate, PriorityDispatcher dispatcher) {
+        this.delegate = delegate;
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    public SendResult sendEmailVerification(EmailRequest req) throws NotificationSendException {
+        try {
+            return submit(singlePriority(req), () -> delegate.sendEmailVerification(req)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Holds a lane slot until the delegate's async send completes, without blocking a dispatch thread on it.
+     */
+    @Override
+    public CompletableFuture<SendResult> sendEmailVerificationAsync(EmailRequest req) {
+        try {
+            return dispatcher.submitAsync(singlePriority(req), () -> delegate.sendEmailVerificationAsync(req));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new NotificationSendException("Send rejected: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * Submits every lane's part before waiting on any of them. A part that fails as a whole, for example because
+     * its lane is full, fails each of its entries.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<EmailRequest> requests) {
+        if (requests.isEmpty()) return List.of();
+        Map<EmailPriority, List<Integer>> positions = new EnumMap<>(EmailPriority.class);
+        for (int i = 0; i < requests.size(); i++) {
+            EmailPriority priority = requests.get(i).getPriority() == null ? EmailPriority.NORMAL : requests.get(i).getPriority();
+            positions.computeIfAbsent(priority, ignored -> new ArrayList<>()).add(i);
+        }
+        if (positions.size() == 1) {
+            try {
+                return submit(positions.keySet().iterator().next(), () -> delegate.sendBatch(requests)).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+        Map<EmailPriority, CompletableFuture<List<SendResult>>> parts = new EnumMap<>(EmailPriority.class);
+        positions.forEach((priority, indexes) -> {
+            List<EmailRequest> part = indexes.stream().map(requests::get).toList();
+            parts.put(priority, submit(priority, () -> delegate.sendBatch(part)));
+        });
+        SendResult[] results = new SendResult[requests.size()];
+        parts.forEach((priority, future) -> {
+            List<Integer> indexes = positions.get(priority);
+            try {
+                List<SendResult> sent = future.join();
+                for (int i = 0; i < indexes.size(); i++) results[indexes.get(i)] = sent.get(i);
+            } catch (CompletionException e) {
+                Exception cause = e.getCause() instanceof Exception c ? c : e;
+                for (int index : indexes) results[index] = SendResult.failed(null, cause);
+            }
+        });
+        return List.of(results);
+    }
+
+    private static EmailPriority singlePriority(EmailRequest req) {
+        return req.getPriority() == null ? EmailPriority.HIGH : req.getPriority();
+    }
+
+    private <T> CompletableFuture<T> submit(EmailPriority priority, Supplier<T> task) {
+        try {
+            return dispatcher.submit(priority, task);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new NotificationSendException("Send rejected: " + e.getMessage(), e));
+        }
+    }
+}
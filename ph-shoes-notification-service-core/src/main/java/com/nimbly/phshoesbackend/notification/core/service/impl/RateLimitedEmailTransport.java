@@ -0,0 +1,87 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.AdaptiveRateLimiter;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends through {@code delegate} at the rate an {@link AdaptiveRateLimiter} permits, reporting accepted and
+ * throttled sends back to it.
+ */
+public class RateLimitedEmailTransport implements EmailTransportService {
+
+    /** Permits taken at a time by {@link #sendBatch(List)}; matches the SES {@code SendBulkEmail} entry limit. */
+    static final int MAX_CHUNK = 50;
+
+    private final EmailTransportService delegate;
+    private final AdaptiveRateLimiter limiter;
+
+    public RateLimitedEmailTransport(EmailTransportService delegate, AdaptiveRateLimiter limiter) {
+        this.delegate = delegate;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean canSend(ComposedEmail email) {
+        return delegate.canSend(email);
+    }
+
+    @Override
+    public SendResult send(ComposedEmail email) throws NotificationSendException {
+        return limiter.execute(() -> delegate.send(email));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(ComposedEmail email) {
+        return limiter.acquireAsync(1)
+                .thenCompose(ignored -> delegate.sendAsync(email))
+                .whenComplete((result, error) -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause == null) {
+                        limiter.onSuccess(1);
+                    } else if (cause instanceof NotificationSendException nse && nse.isThrottled()) {
+                        limiter.onThrottled();
+                    }
+                });
+    }
+
+    /**
+     * Sends in chunks of at most {@value #MAX_CHUNK}, each taking its own permits right before it goes out, the
+     * way a {@code SendBulkEmail} call takes one per entry; a large batch is paced rather than sent as one burst.
+     * Throttled entries in a chunk's results cut the rate before the next chunk. When the wait for a chunk would
+     * exceed {@code maxWait}, it and every chunk after it come back {@code THROTTLED}.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<ComposedEmail> emails) {
+        if (emails.isEmpty()) return List.of();
+        List<SendResult> results = new ArrayList<>(emails.size());
+        for (int from = 0; from < emails.size(); from += MAX_CHUNK) {
+            List<ComposedEmail> chunk = emails.subList(from, Math.min(from + MAX_CHUNK, emails.size()));
+            try {
+                limiter.acquire(chunk.size());
+            } catch (NotificationSendException e) {
+                SendResult throttled = SendResult.builder().status(SendResult.THROTTLED).error(e.getMessage()).build();
+                for (int i = from; i < emails.size(); i++) results.add(throttled);
+                return results;
+            }
+            List<SendResult> sent = delegate.sendBatch(chunk);
+            int accepted = 0;
+            boolean throttled = false;
+            for (SendResult result : sent) {
+                if (result.isAccepted()) accepted++;
+                throttled |= result.isThrottled();
+            }
+            limiter.onSuccess(accepted);
+            if (throttled) limiter.onThrottled();
+            results.addAll(sent);
+        }
+        return results;
+    }
+}
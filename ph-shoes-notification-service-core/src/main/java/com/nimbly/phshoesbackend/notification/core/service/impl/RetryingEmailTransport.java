@@ -0,0 +1,49 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryExecutor;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Retries failed sends through {@code delegate} under a {@link RetryExecutor}. Every attempt sends the same
+ * {@link ComposedEmail}, whose MIME bytes are rendered once and memoised, so a retry never composes again.
+ */
+public class RetryingEmailTransport implements EmailTransportService {
+
+    private final EmailTransportService delegate;
+    private final RetryExecutor retryExecutor;
+
+    public RetryingEmailTransport(EmailTransportService delegate, RetryExecutor retryExecutor) {
+        this.delegate = delegate;
+        this.retryExecutor = retryExecutor;
+    }
+
+    @Override
+    public boolean canSend(ComposedEmail email) {
+        return delegate.canSend(email);
+    }
+
+    @Override
+    public SendResult send(ComposedEmail email) throws NotificationSendException {
+        return retryExecutor.execute(() -> delegate.send(email));
+    }
+
+    @Override
+    public CompletableFuture<SendResult> sendAsync(ComposedEmail email) {
+        return retryExecutor.executeAsync(() -> delegate.sendAsync(email));
+    }
+
+    /**
+     * Re-sends the throttled and transiently failed entries of a batch, as one smaller batch per retry, while
+     * attempts and budget last.
+     */
+    @Override
+    public List<SendResult> sendBatch(List<ComposedEmail> emails) {
+        return List.copyOf(retryExecutor.executeBatch(emails, delegate::sendBatch));
+    }
+}
@@ -0,0 +1,108 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.MergeRecipient;
+import com.nimbly.phshoesbackend.notification.core.service.MailMerge;
+import com.nimbly.phshoesbackend.notification.core.template.CompiledTemplate;
+import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.MimeOutputBuffer;
+import com.nimbly.phshoesbackend.notification.core.util.MimeSkeleton;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mail merge over a {@link MimeSkeleton}: the shared request is rendered once, and each recipient's message
+ * is spliced from the skeleton with their To line, subject and template fields. Recipient vars override the
+ * shared templateVars, exactly as {@link MergeRecipient#applyTo} would.
+ */
+public class SplicedMailMerge implements MailMerge {
+
+    private final EmailRequest shared;
+    private final MimeSkeleton skeleton;
+    private final CompiledTemplate subjectTemplate;
+    private final String subject;
+    private final String subjectPrefix;
+    private final String from;
+    private final List<String> cc;
+    private final List<String> bcc;
+    private final Map<String, String> headers;
+    private final boolean templateRendered;
+    private final EmailSubjectFormatter subjectFormatter;
+    private final EmailAddressFormatter addressFormatter;
+
+    SplicedMailMerge(EmailRequest shared,
+                     MimeSkeleton skeleton,
+                     CompiledTemplate subjectTemplate,
+                     String subject,
+                     String subjectPrefix,
+                     String from,
+                     Map<String, String> headers,
+                     boolean templateRendered,
+                     EmailSubjectFormatter subjectFormatter,
+                     EmailAddressFormatter addressFormatter) {
+        this.shared = shared;
+        this.skeleton = skeleton;
+        this.subjectTemplate = subjectTemplate;
+        this.subject = subject;
+        this.subjectPrefix = subjectPrefix;
+        this.from = from;
+        this.cc = addressFormatter.formatAll(shared.getCc());
+        this.bcc = addressFormatter.formatAll(shared.getBcc());
+        this.headers = headers;
+        this.templateRendered = templateRendered;
+        this.subjectFormatter = subjectFormatter;
+        this.addressFormatter = addressFormatter;
+    }
+
+    @Override
+    public ComposedEmail compose(MergeRecipient recipient) {
+        String to = addressFormatter.format(recipient.getTo());
+        String finalSubject = subjectFor(recipient);
+        Map<String, Object> vars = recipient.getVars();
+        ComposedEmail composed = ComposedEmail.lazy(
+                shared,
+                () -> skeleton.render(to, finalSubject, vars, shared.getTemplateVars()),
+                from,
+                List.of(to),
+                cc,
+                bcc,
+                finalSubject,
+                shared.getTags()
+        );
+        composed.setHeaders(headers);
+        composed.setTemplateRendered(templateRendered);
+        return composed;
+    }
+
+    /**
+     * Streams {@code recipient}'s message into {@code out} without materialising it.
+     */
+    public void writeTo(MergeRecipient recipient, OutputStream out) throws IOException {
+        skeleton.writeTo(out, addressFormatter.format(recipient.getTo()), subjectFor(recipient),
+                recipient.getVars(), shared.getTemplateVars());
+    }
+
+    public MimeSkeleton getSkeleton() {
+        return skeleton;
+    }
+
+    private String subjectFor(MergeRecipient recipient) {
+        if (subjectTemplate == null) return subject;
+        Map<String, ?> defaults = shared.getTemplateVars();
+        MimeOutputBuffer out = new MimeOutputBuffer(subjectTemplate.literalBytes() + 64);
+        try {
+            subjectTemplate.render(recipient.getVars(), out,
+                    (name, escape, sink) -> CompiledTemplate.writeValue(defaults == null ? null : defaults.get(name), escape, sink));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return subjectFormatter.withPrefix(new String(out.toByteArray(), StandardCharsets.UTF_8), subjectPrefix);
+    }
+}
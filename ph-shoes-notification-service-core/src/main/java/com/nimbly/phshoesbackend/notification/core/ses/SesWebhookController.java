@@ -1,6 +1,7 @@
 package com.nimbly.phshoesbackend.notification.core.ses;
 
-import lombok.RequiredArgsConstructor;
+import com.nimbly.phshoesbackend.notification.core.execution.NotificationExecutor;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -8,23 +9,48 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * HTTP adapter that hands SES SNS payloads to {@link SesWebhookProcessor}.
+ * HTTP adapter that hands SES SNS payloads to {@link SesWebhookProcessor}. With a {@link NotificationExecutor}
+ * the processing (including the signing certificate fetch) runs there and the servlet thread is released
+ * while it waits; a saturated executor answers 503 so SNS retries later.
  */
 @RestController
-@RequiredArgsConstructor
 @RequestMapping("${notification.ses.webhook.path:/internal/webhooks/ses}")
 public class SesWebhookController {
 
     private static final String HEADER_SNS_MESSAGE_TYPE = "x-amz-sns-message-type";
     private final SesWebhookProcessor sesWebhookProcessor;
+    private final NotificationExecutor executor;
+
+    public SesWebhookController(SesWebhookProcessor sesWebhookProcessor) {
+        this(sesWebhookProcessor, null);
+    }
+
+    public SesWebhookController(SesWebhookProcessor sesWebhookProcessor, NotificationExecutor executor) {
+        this.sesWebhookProcessor = sesWebhookProcessor;
+        this.executor = executor;
+    }
 
     @PostMapping(consumes = MediaType.ALL_VALUE)
-    public ResponseEntity<Void> handleWebhook(
+    public CompletableFuture<ResponseEntity<Void>> handleWebhook(
             @RequestBody(required = false) String body,
             @RequestHeader(value = HEADER_SNS_MESSAGE_TYPE, required = false) String messageType) {
-        sesWebhookProcessor.process(body, messageType);
-        return ResponseEntity.noContent().build();
+        if (executor == null) {
+            sesWebhookProcessor.process(body, messageType);
+            return CompletableFuture.completedFuture(ResponseEntity.noContent().build());
+        }
+        try {
+            return executor.submit(() -> {
+                sesWebhookProcessor.process(body, messageType);
+                return ResponseEntity.noContent().build();
+            });
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Webhook processing saturated", e);
+        }
     }
 }
@@ -0,0 +1,202 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+import com.nimbly.phshoesbackend.notification.core.util.MimeOutputBuffer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A template compiled into alternating literal byte segments and variable slots:
+ * {@code literal[0] slot[0] literal[1] ... slot[n-1] literal[n]}.
+ * <p>
+ * Syntax: {@code {{name}}} inserts a variable, HTML-escaped when the template was compiled as HTML;
+ * {@code {{{name}}}} always inserts it verbatim. Missing variables render as nothing. Rendering copies
+ * the pre-encoded literals and encodes variable values straight into the output, so rendering into a
+ * {@link MimeOutputBuffer} allocates nothing for String values.
+ */
+public final class CompiledTemplate {
+
+    private static final byte[] AMP = utf8("&amp;");
+    private static final byte[] LT = utf8("&lt;");
+    private static final byte[] GT = utf8("&gt;");
+    private static final byte[] QUOT = utf8("&quot;");
+    private static final byte[] APOS = utf8("&#39;");
+
+    private final String name;
+    private final byte[][] literals;
+    private final String[] slots;
+    private final boolean[] escaped;
+    private final int literalBytes;
+
+    private CompiledTemplate(String name, byte[][] literals, String[] slots, boolean[] escaped) {
+        this.name = name;
+        this.literals = literals;
+        this.slots = slots;
+        this.escaped = escaped;
+        int total = 0;
+        for (byte[] literal : literals) total += literal.length;
+        this.literalBytes = total;
+    }
+
+    /**
+     * Compiles {@code source}. Unterminated tags are kept as literal text.
+     *
+     * @param html whether {@code {{name}}} values are HTML-escaped
+     */
+    public static CompiledTemplate compile(String name, String source, boolean html) {
+        List<byte[]> literals = new ArrayList<>();
+        List<String> slots = new ArrayList<>();
+        List<Boolean> escaped = new ArrayList<>();
+
+        int literalStart = 0;
+        int pos = 0;
+        while ((pos = source.indexOf("{{", pos)) >= 0) {
+            boolean triple = source.startsWith("{{{", pos);
+            String close = triple ? "}}}" : "}}";
+            int nameStart = pos + (triple ? 3 : 2);
+            int end = source.indexOf(close, nameStart);
+            if (end < 0) break;
+            String slot = source.substring(nameStart, end).trim();
+            if (slot.isEmpty()) {
+                pos = end + close.length();
+                continue;
+            }
+            literals.add(utf8(source.substring(literalStart, pos)));
+            slots.add(slot);
+            escaped.add(html && !triple);
+            pos = end + close.length();
+            literalStart = pos;
+        }
+        literals.add(utf8(source.substring(literalStart)));
+
+        boolean[] escapeFlags = new boolean[escaped.size()];
+        for (int i = 0; i < escapeFlags.length; i++) escapeFlags[i] = escaped.get(i);
+        return new CompiledTemplate(name, literals.toArray(byte[][]::new), slots.toArray(String[]::new), escapeFlags);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Encoded size of the literal segments; a lower bound on the rendered size.
+     */
+    public int literalBytes() {
+        return literalBytes;
+    }
+
+    public void render(Map<String, ?> vars, OutputStream out) throws IOException {
+        render(vars, out, null);
+    }
+
+    /**
+     * Renders with {@code unresolved} handling every slot that {@code vars} has no value for, instead of
+     * leaving it empty. Mail merge uses this to leave per-recipient fields open in a shared body.
+     */
+    public void render(Map<String, ?> vars, OutputStream out, SlotWriter unresolved) throws IOException {
+        for (int i = 0; i < slots.length; i++) {
+            out.write(literals[i]);
+            Object value = vars == null ? null : vars.get(slots[i]);
+            if (value != null) {
+                writeValue(value, escaped[i], out);
+            } else if (unresolved != null) {
+                unresolved.write(slots[i], escaped[i], out);
+            }
+        }
+        out.write(literals[slots.length]);
+    }
+
+    /**
+     * Writes a variable value the way a slot does: {@code String.valueOf}, UTF-8, HTML-escaped if requested.
+     * A {@code null} value writes nothing.
+     */
+    public static void writeValue(Object value, boolean escape, OutputStream out) throws IOException {
+        if (value == null) return;
+        CharSequence text = value instanceof CharSequence cs ? cs : String.valueOf(value);
+        if (escape) {
+            writeEscaped(text, out);
+        } else {
+            write(text, 0, text.length(), out);
+        }
+    }
+
+    public String render(Map<String, ?> vars) {
+        MimeOutputBuffer out = new MimeOutputBuffer(literalBytes + 16 * slots.length);
+        try {
+            render(vars, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Number of bytes {@link #writeValue} writes for {@code value}.
+     */
+    public static int encodedLength(Object value, boolean escape) {
+        if (value == null) return 0;
+        CharSequence text = value instanceof CharSequence cs ? cs : String.valueOf(value);
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                byte[] entity = escape ? entity(c) : null;
+                length += entity == null ? 1 : entity.length;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+
+    private static void writeEscaped(CharSequence text, OutputStream out) throws IOException {
+        int runStart = 0;
+        for (int i = 0; i < text.length(); i++) {
+            byte[] entity = entity(text.charAt(i));
+            if (entity == null) continue;
+            write(text, runStart, i, out);
+            out.write(entity);
+            runStart = i + 1;
+        }
+        write(text, runStart, text.length(), out);
+    }
+
+    private static void write(CharSequence text, int start, int end, OutputStream out) throws IOException {
+        if (start == end) return;
+        if (out instanceof MimeOutputBuffer buffer) {
+            buffer.writeUtf8(text, start, end);
+        } else {
+            out.write(text.subSequence(start, end).toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static byte[] entity(char c) {
+        return switch (c) {
+            case '&' -> AMP;
+            case '<' -> LT;
+            case '>' -> GT;
+            case '"' -> QUOT;
+            case '\'' -> APOS;
+            default -> null;
+        };
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    public interface SlotWriter {
+        void write(String name, boolean escape, OutputStream out) throws IOException;
+    }
+}
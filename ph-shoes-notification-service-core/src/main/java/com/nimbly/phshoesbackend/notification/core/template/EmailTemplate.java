@@ -0,0 +1,15 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+/**
+ * The compiled parts of one local template. Any part may be {@code null} when its file does not exist,
+ * but a template always has at least a text or an html body.
+ */
+public record EmailTemplate(String id, CompiledTemplate subject, CompiledTemplate text, CompiledTemplate html) {
+
+    /**
+     * Encoded size of the body literals, used to presize MIME buffers.
+     */
+    public int estimatedBodyBytes() {
+        return (text == null ? 0 : text.literalBytes()) + (html == null ? 0 : html.literalBytes());
+    }
+}
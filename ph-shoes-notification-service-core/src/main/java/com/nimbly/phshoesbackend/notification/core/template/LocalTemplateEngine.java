@@ -0,0 +1,174 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTemplateProps;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Loads {@code <id>.subject}, {@code <id>.txt} and {@code <id>.html} from a classpath or file location and
+ * compiles them into {@link EmailTemplate}s. Templates present at startup are loaded by {@link #loadAll()};
+ * others are looked up on first use. When reloading is enabled, a template's files are re-checked at most
+ * once per interval and recompiled when any of them changed, appeared or disappeared.
+ */
+@Slf4j
+public class LocalTemplateEngine {
+
+    static final String SUBJECT = ".subject";
+    static final String TEXT = ".txt";
+    static final String HTML = ".html";
+
+    /**
+     * Ids come from requests, so they are restricted to plain file names before touching the location.
+     */
+    private static final Pattern TEMPLATE_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]{0,127}");
+
+    /**
+     * Bounds how many unknown ids (e.g. SES-only templates) are remembered as missing.
+     */
+    private static final int MAX_ENTRIES = 1024;
+
+    private final ResourcePatternResolver resources;
+    private final String location;
+    private final boolean defaultLocation;
+    private final long reloadIntervalNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public LocalTemplateEngine(ResourceLoader resourceLoader, NotificationTemplateProps props) {
+        this.resources = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
+        this.location = props.getLocation().endsWith("/") ? props.getLocation() : props.getLocation() + "/";
+        this.defaultLocation = NotificationTemplateProps.DEFAULT_LOCATION.equals(location);
+        this.reloadIntervalNanos = props.getReloadInterval() == null ? 0 : props.getReloadInterval().toNanos();
+    }
+
+    /**
+     * Compiles every template found at the location and returns how many were loaded. A missing location loads
+     * nothing; it is only worth a warning when it was configured rather than left at the default.
+     */
+    public int loadAll() {
+        if (!resources.getResource(location).exists()) {
+            if (defaultLocation) {
+                log.debug("templates.location.missing location={}", location);
+            } else {
+                log.warn("templates.location.missing location={}", location);
+            }
+            return 0;
+        }
+        Set<String> ids = new TreeSet<>();
+        for (String extension : new String[]{HTML, TEXT}) {
+            try {
+                for (Resource resource : resources.getResources(location + "*" + extension)) {
+                    String filename = resource.getFilename();
+                    if (filename == null) continue;
+                    String id = filename.substring(0, filename.length() - extension.length());
+                    if (TEMPLATE_ID.matcher(id).matches()) ids.add(id);
+                }
+            } catch (IOException e) {
+                log.warn("templates.scan.failed location={} error={}", location, e.getMessage());
+            }
+        }
+        int loaded = 0;
+        for (String id : ids) {
+            Entry entry = load(id);
+            entries.put(id, entry);
+            if (entry.template != null) loaded++;
+        }
+        log.info("templates.loaded count={} location={}", loaded, location);
+        return loaded;
+    }
+
+    /**
+     * Returns the compiled template for {@code templateId}, or empty when the location has no such template.
+     */
+    public Optional<EmailTemplate> find(String templateId) {
+        if (templateId == null || !TEMPLATE_ID.matcher(templateId).matches()) return Optional.empty();
+
+        Entry entry = entries.get(templateId);
+        if (entry == null) {
+            entry = load(templateId);
+            if (entry.template != null || entries.size() < MAX_ENTRIES) {
+                Entry raced = entries.putIfAbsent(templateId, entry);
+                if (raced != null) entry = raced;
+            }
+        } else if (reloadIntervalNanos > 0 && entry.claimCheck(System.nanoTime(), reloadIntervalNanos)) {
+            entry = refresh(templateId, entry);
+        }
+        return Optional.ofNullable(entry.template);
+    }
+
+    private Entry refresh(String id, Entry current) {
+        if (Arrays.equals(current.stamps, stamps(id))) return current;
+        Entry fresh = load(id);
+        entries.put(id, fresh);
+        log.info("templates.reloaded id={} present={}", id, fresh.template != null);
+        return fresh;
+    }
+
+    private Entry load(String id) {
+        long[] stamps = stamps(id);
+        try {
+            CompiledTemplate subject = compile(id, SUBJECT, false);
+            CompiledTemplate text = compile(id, TEXT, false);
+            CompiledTemplate html = compile(id, HTML, true);
+            EmailTemplate template = (text == null && html == null) ? null : new EmailTemplate(id, subject, text, html);
+            return new Entry(template, stamps, System.nanoTime() + reloadIntervalNanos);
+        } catch (IOException e) {
+            log.warn("templates.load.failed id={} error={}", id, e.getMessage());
+            return new Entry(null, stamps, System.nanoTime() + reloadIntervalNanos);
+        }
+    }
+
+    private CompiledTemplate compile(String id, String extension, boolean html) throws IOException {
+        Resource resource = resources.getResource(location + id + extension);
+        if (!resource.exists()) return null;
+        String source = resource.getContentAsString(StandardCharsets.UTF_8);
+        if (SUBJECT.equals(extension)) source = source.strip();
+        return CompiledTemplate.compile(id + extension, source, html);
+    }
+
+    private long[] stamps(String id) {
+        return new long[]{stamp(id + SUBJECT), stamp(id + TEXT), stamp(id + HTML)};
+    }
+
+    private long stamp(String filename) {
+        Resource resource = resources.getResource(location + filename);
+        if (!resource.exists()) return -1;
+        try {
+            return resource.lastModified();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static final class Entry {
+        final EmailTemplate template;
+        final long[] stamps;
+        final AtomicLong nextCheck;
+
+        Entry(EmailTemplate template, long[] stamps, long nextCheck) {
+            this.template = template;
+            this.stamps = stamps;
+            this.nextCheck = new AtomicLong(nextCheck);
+        }
+
+        /**
+         * True for exactly one caller once the check interval has elapsed; the others keep using this entry.
+         */
+        boolean claimCheck(long now, long interval) {
+            long due = nextCheck.get();
+            return now - due >= 0 && nextCheck.compareAndSet(due, now + interval);
+        }
+    }
+}
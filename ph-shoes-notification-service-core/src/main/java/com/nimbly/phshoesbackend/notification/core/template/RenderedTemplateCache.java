@@ -0,0 +1,122 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+import com.nimbly.phshoesbackend.notification.core.util.MimeOutputBuffer;
+import com.nimbly.phshoesbackend.notification.core.util.SizeBoundedLruCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Memoises rendered text/html bodies per template version and templateVars, so a campaign that sends the same
+ * template with the same variables to many recipients renders it once. Keys hold the {@link EmailTemplate}
+ * instance (a reload produces a new one, so stale renders are never served and simply age out) and a SHA-256
+ * digest of the variables in key order, so map ordering does not matter.
+ */
+public class RenderedTemplateCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "notification.templates.rendered";
+
+    private final SizeBoundedLruCache<Key, RenderedBodies> cache;
+    private final long maxEntryBytes;
+
+    public RenderedTemplateCache(long maxBytes, long maxEntryBytes) {
+        this.cache = new SizeBoundedLruCache<>(maxBytes, RenderedBodies::weight);
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * Returns the rendered bodies of {@code template}; a part is {@code null} when the template has no such part.
+     */
+    public RenderedBodies render(EmailTemplate template, Map<String, ?> vars) {
+        Key key = new Key(template, digest(vars));
+        RenderedBodies bodies = cache.get(key);
+        if (bodies == null) {
+            bodies = new RenderedBodies(render(template.text(), vars), render(template.html(), vars));
+            if (bodies.weight() <= maxEntryBytes) cache.put(key, bodies);
+        }
+        return bodies;
+    }
+
+    public SizeBoundedLruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, CACHE_NAME);
+    }
+
+    private static byte[] render(CompiledTemplate part, Map<String, ?> vars) {
+        if (part == null) return null;
+        MimeOutputBuffer out = new MimeOutputBuffer(part.literalBytes() + 64);
+        try {
+            part.render(vars, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Length-prefixed key/value pairs in key order; values are hashed as {@code String.valueOf}, which is how
+     * they are rendered.
+     */
+    private static byte[] digest(Map<String, ?> vars) {
+        MessageDigest sha256 = sha256();
+        if (vars != null && !vars.isEmpty()) {
+            for (Map.Entry<String, ?> entry : new TreeMap<>(vars).entrySet()) {
+                update(sha256, entry.getKey());
+                update(sha256, entry.getValue() == null ? null : String.valueOf(entry.getValue()));
+            }
+        }
+        return sha256.digest();
+    }
+
+    private static void update(MessageDigest digest, String s) {
+        if (s == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) 1);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record RenderedBodies(byte[] text, byte[] html) {
+        long weight() {
+            return (text == null ? 0 : text.length) + (html == null ? 0 : html.length);
+        }
+    }
+
+    private record Key(EmailTemplate template, byte[] varsDigest) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && template == other.template && Arrays.equals(varsDigest, other.varsDigest);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(template) + Arrays.hashCode(varsDigest);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import java.net.URI;
+
+/**
+ * Region and endpoint resolution shared by the AWS client auto-configurations (SES, SQS).
+ */
+public final class AwsEndpoints {
+
+    private AwsEndpoints() {
+    }
+
+    /**
+     * The configured region, else {@code AWS_REGION} from system properties or the environment, else
+     * {@code ap-southeast-1}.
+     */
+    public static String regionName(String configured) {
+        return (configured != null && !configured.isBlank())
+                ? configured
+                : System.getProperty("AWS_REGION",
+                System.getenv().getOrDefault("AWS_REGION", "ap-southeast-1"));
+    }
+
+    /**
+     * Turns an endpoint override such as {@code localhost} or {@code localstack:4566} into a URI, adding
+     * {@code http://} when no scheme is given and LocalStack's port 4566 for a bare {@code localhost} or
+     * {@code localstack}. Returns null for a blank value, meaning the real AWS endpoint.
+     */
+    public static URI normalizeEndpoint(String rawEndpoint) {
+        if (rawEndpoint == null || rawEndpoint.isBlank()) return null;
+
+        String urlWithScheme = rawEndpoint.matches("^[a-zA-Z]+://.*") ? rawEndpoint : "http://" + rawEndpoint;
+        URI initialUri = URI.create(urlWithScheme);
+
+        boolean needsDefaultPort = initialUri.getPort() == -1
+                && ("localhost".equalsIgnoreCase(initialUri.getHost()) || "localstack".equalsIgnoreCase(initialUri.getHost()));
+
+        if (needsDefaultPort) {
+            urlWithScheme = urlWithScheme.replaceFirst("^(http://[^/:]+)", "$1:4566");
+        }
+
+        return URI.create(urlWithScheme);
+    }
+}
@@ -5,7 +5,16 @@ import org.springframework.stereotype.Component;
 @Component
 public class EmailSubjectFormatter  {
     public String withPrefix(String subject, String prefix) {
-        if (prefix == null || prefix.isBlank()) return subject == null ? "" : subject;
-        return (subject == null || subject.isBlank()) ? prefix : prefix + " " + subject;
+        if (prefix == null || prefix.isBlank()) return subject == null ? "" : singleLine(subject);
+        return (subject == null || subject.isBlank()) ? singleLine(prefix) : singleLine(prefix + " " + subject);
+    }
+
+    /**
+     * Replaces every CR and LF with a space, so a subject built from template vars cannot end the
+     * {@code Subject:} header and start another. Same length as the input, so encoded sizes still hold.
+     */
+    public static String singleLine(String subject) {
+        if (subject == null || (subject.indexOf('\r') < 0 && subject.indexOf('\n') < 0)) return subject;
+        return subject.replace('\r', ' ').replace('\n', ' ');
     }
 }
@@ -0,0 +1,77 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Cache of base64-encoded, line-wrapped attachment bodies. The same terms PDF sent to thousands of recipients
+ * is encoded once; later sends look it up and copy the cached bytes. In-memory content is keyed by its SHA-256;
+ * file sources by {@link com.nimbly.phshoesbackend.notification.core.model.dto.AttachmentSource#cacheKey()}
+ * (path, size and modification time), so a send never reads the file just to find its key.
+ * Attachments larger than {@code maxEntryBytes}, and streams with no cache key, bypass the cache.
+ */
+public class EncodedAttachmentCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "notification.attachments";
+
+    private final SizeBoundedLruCache<String, byte[]> cache;
+    private final long maxEntryBytes;
+
+    public EncodedAttachmentCache(long maxBytes, long maxEntryBytes) {
+        this.cache = new SizeBoundedLruCache<>(maxBytes, encoded -> encoded.length);
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    /**
+     * Writes the encoded body of {@code attachment} to {@code out}, from the cache when possible.
+     */
+    public void encode(Attachment attachment, OutputStream out) throws IOException {
+        long length = attachment.contentLength();
+        if (length <= 0 || length > maxEntryBytes) {
+            MimeBase64.encode(attachment, out);
+            return;
+        }
+        String key = key(attachment);
+        if (key == null) {
+            MimeBase64.encode(attachment, out);
+            return;
+        }
+        byte[] encoded = cache.get(key);
+        if (encoded == null) {
+            MimeOutputBuffer buffer = new MimeOutputBuffer((int) MimeBase64.encodedLength(length));
+            MimeBase64.encode(attachment, buffer);
+            encoded = buffer.toByteArray();
+            cache.put(key, encoded);
+        }
+        out.write(encoded);
+    }
+
+    public SizeBoundedLruCache.Stats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cache.bindTo(registry, CACHE_NAME);
+    }
+
+    private static String key(Attachment attachment) {
+        if (attachment.getSource() != null) return attachment.getSource().cacheKey();
+        return "sha256:" + HexFormat.of().formatHex(sha256().digest(attachment.getContent()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+
+/**
+ * RFC 2045 base64 for attachment bodies: 76-character lines separated by CRLF, encoded in fixed-size chunks
+ * so memory use does not depend on the attachment size.
+ */
+public final class MimeBase64 {
+
+    public static final int LINE_LENGTH = 76;
+
+    /**
+     * 57 input bytes make one full output line; reading whole lines keeps chunk boundaries aligned.
+     */
+    static final int CHUNK_SIZE = 57 * 144;
+
+    private static final Base64.Encoder ENCODER = Base64.getMimeEncoder();
+
+    private MimeBase64() {
+    }
+
+    public static void encode(Attachment attachment, OutputStream out) throws IOException {
+        if (attachment.getSource() == null) {
+            encode(attachment.getContent(), out);
+            return;
+        }
+        try (InputStream in = attachment.openStream()) {
+            encode(in, out);
+        }
+    }
+
+    public static void encode(byte[] content, OutputStream out) throws IOException {
+        if (content == null || content.length == 0) return;
+        try (OutputStream encoder = ENCODER.wrap(StreamUtils.nonClosing(out))) {
+            for (int off = 0; off < content.length; off += CHUNK_SIZE) {
+                encoder.write(content, off, Math.min(CHUNK_SIZE, content.length - off));
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code in} until EOF. The input stream is not closed.
+     */
+    public static void encode(InputStream in, OutputStream out) throws IOException {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (OutputStream encoder = ENCODER.wrap(StreamUtils.nonClosing(out))) {
+            int n;
+            while ((n = in.readNBytes(chunk, 0, chunk.length)) > 0) {
+                encoder.write(chunk, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Exact encoded size of {@code rawLength} bytes, line breaks included (no trailing CRLF).
+     */
+    public static long encodedLength(long rawLength) {
+        if (rawLength <= 0) return 0;
+        long chars = 4 * ((rawLength + 2) / 3);
+        return chars + 2 * ((chars - 1) / LINE_LENGTH);
+    }
+}
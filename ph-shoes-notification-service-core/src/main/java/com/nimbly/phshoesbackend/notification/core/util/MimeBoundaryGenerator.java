@@ -0,0 +1,30 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Unique MIME boundary tokens without a clock read or a random draw per message: a random prefix chosen once
+ * per generator plus an atomic counter. Tokens start with {@code "=_"}, which cannot occur in base64 or
+ * quoted-printable output, so a boundary never collides with an encoded body.
+ */
+public class MimeBoundaryGenerator {
+
+    private final String prefix;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public MimeBoundaryGenerator() {
+        byte[] seed = new byte[8];
+        new SecureRandom().nextBytes(seed);
+        this.prefix = "=_" + HexFormat.of().formatHex(seed) + "_";
+    }
+
+    /**
+     * Returns a token unique to this generator; callers derive the per-part boundaries from it
+     * (e.g. {@code "mixed" + token}, {@code "alt" + token}).
+     */
+    public String next() {
+        return prefix + Long.toHexString(sequence.incrementAndGet());
+    }
+}
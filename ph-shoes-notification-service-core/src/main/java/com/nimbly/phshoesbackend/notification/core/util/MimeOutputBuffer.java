@@ -0,0 +1,121 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable byte sink for rendered MIME messages.
+ * <p>
+ * Unlike {@link java.io.ByteArrayOutputStream} it is unsynchronized, encodes strings as UTF-8 straight into
+ * its backing array, and hands that array out without a copy when it is exactly full. Presizing it with a
+ * good estimate therefore leaves a single copy of the encoded message on the heap.
+ */
+public class MimeOutputBuffer extends OutputStream {
+
+    private static final int DEFAULT_CAPACITY = 4096;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private byte[] buf;
+    private int count;
+
+    public MimeOutputBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MimeOutputBuffer(int initialCapacity) {
+        this.buf = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    @Override
+    public void write(int b) {
+        ensureCapacity(count + 1);
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len == 0) return;
+        ensureCapacity(count + len);
+        System.arraycopy(b, off, buf, count, len);
+        count += len;
+    }
+
+    /**
+     * Appends {@code s} encoded as UTF-8 without allocating an intermediate byte array.
+     * Unpaired surrogates are replaced with {@code '?'}, matching {@link String#getBytes(java.nio.charset.Charset)}.
+     */
+    public void writeUtf8(String s) {
+        writeUtf8(s, 0, s.length());
+    }
+
+    /**
+     * Appends {@code s[start, end)} encoded as UTF-8; see {@link #writeUtf8(String)}.
+     */
+    public void writeUtf8(CharSequence s, int start, int end) {
+        ensureCapacity(count + (end - start));
+        int n = count;
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                buf[n++] = (byte) c;
+                continue;
+            }
+            ensureCapacity(n + (end - i) + 3);
+            if (c < 0x800) {
+                buf[n++] = (byte) (0xC0 | (c >> 6));
+                buf[n++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buf[n++] = (byte) (0xF0 | (cp >> 18));
+                buf[n++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buf[n++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buf[n++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buf[n++] = '?';
+            } else {
+                buf[n++] = (byte) (0xE0 | (c >> 12));
+                buf[n++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buf[n++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        count = n;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * Returns the written bytes. The backing array is returned as-is when it is exactly full, so callers
+     * must treat the result as read-only and stop writing to this buffer afterwards.
+     */
+    public byte[] toByteArray() {
+        return count == buf.length ? buf : Arrays.copyOf(buf, count);
+    }
+
+    /**
+     * Read-only view over the written bytes; no copy is made.
+     */
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(buf, 0, count).asReadOnlyBuffer();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buf, 0, count);
+    }
+
+    private void ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) {
+            throw new OutOfMemoryError("MIME message too large");
+        }
+        if (minCapacity <= buf.length) return;
+        int newCapacity = Math.max(minCapacity, buf.length + (buf.length >> 1));
+        buf = Arrays.copyOf(buf, (int) Math.min(newCapacity, (long) MAX_CAPACITY));
+    }
+}
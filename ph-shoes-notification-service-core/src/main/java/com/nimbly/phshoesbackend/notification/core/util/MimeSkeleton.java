@@ -0,0 +1,137 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import com.nimbly.phshoesbackend.notification.core.template.CompiledTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A MIME message rendered once with its per-recipient parts left open: the To line, the Subject value and
+ * the template fields. It keeps the shared bytes in one array plus the
+ * offsets of those slots, so emitting a recipient's message copies the shared ranges and encodes only the
+ * slot values in between.
+ */
+public final class MimeSkeleton {
+
+    private static final byte[] TO = "To: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CRLF = "\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final Slot[] slots;
+
+    private MimeSkeleton(byte[] bytes, int[] offsets, Slot[] slots) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.slots = slots;
+    }
+
+    /**
+     * Bytes shared by every message built from this skeleton.
+     */
+    public int sharedBytes() {
+        return bytes.length;
+    }
+
+    /**
+     * Field names left open for recipients, in the order they appear.
+     */
+    public List<String> fieldNames() {
+        return Arrays.stream(slots).filter(slot -> slot.kind() == Kind.FIELD).map(Slot::name).distinct().toList();
+    }
+
+    /**
+     * Writes one recipient's message. {@code to} is the formatted To header value (omitted when blank) and
+     * {@code subject} the final subject, with CR and LF written as spaces. Fields take their value from {@code vars}, then from {@code defaults}.
+     */
+    public void writeTo(OutputStream out, String to, String subject,
+                        Map<String, ?> vars, Map<String, ?> defaults) throws IOException {
+        int pos = 0;
+        for (int i = 0; i < slots.length; i++) {
+            out.write(bytes, pos, offsets[i] - pos);
+            pos = offsets[i];
+            Slot slot = slots[i];
+            switch (slot.kind()) {
+                case TO -> {
+                    if (to != null && !to.isBlank()) {
+                        out.write(TO);
+                        CompiledTemplate.writeValue(to, false, out);
+                        out.write(CRLF);
+                    }
+                }
+                case SUBJECT -> CompiledTemplate.writeValue(subject == null ? "" : EmailSubjectFormatter.singleLine(subject), false, out);
+                case FIELD -> CompiledTemplate.writeValue(lookup(slot.name(), vars, defaults), slot.escape(), out);
+            }
+        }
+        out.write(bytes, pos, bytes.length - pos);
+    }
+
+    /**
+     * Renders one recipient's message into an exactly sized array.
+     */
+    public byte[] render(String to, String subject, Map<String, ?> vars, Map<String, ?> defaults) {
+        MimeOutputBuffer out = new MimeOutputBuffer(renderedLength(to, subject, vars, defaults));
+        try {
+            writeTo(out, to, subject, vars, defaults);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private int renderedLength(String to, String subject, Map<String, ?> vars, Map<String, ?> defaults) {
+        long length = bytes.length;
+        for (Slot slot : slots) {
+            length += switch (slot.kind()) {
+                case TO -> to == null || to.isBlank() ? 0 : TO.length + CompiledTemplate.encodedLength(to, false) + CRLF.length;
+                case SUBJECT -> CompiledTemplate.encodedLength(subject, false);
+                case FIELD -> CompiledTemplate.encodedLength(lookup(slot.name(), vars, defaults), slot.escape());
+            };
+        }
+        return (int) Math.min(length, Integer.MAX_VALUE - 8);
+    }
+
+    private static Object lookup(String name, Map<String, ?> vars, Map<String, ?> defaults) {
+        Object value = vars == null ? null : vars.get(name);
+        return value != null || defaults == null ? value : defaults.get(name);
+    }
+
+    enum Kind { TO, SUBJECT, FIELD }
+
+    record Slot(Kind kind, String name, boolean escape) {
+        static final Slot TO = new Slot(Kind.TO, null, false);
+        static final Slot SUBJECT = new Slot(Kind.SUBJECT, null, false);
+    }
+
+    /**
+     * Buffer that {@link RawMimeBuilder} renders the shared message into; each slot marks the current offset.
+     */
+    static final class Recorder extends MimeOutputBuffer {
+        private final List<Integer> offsets = new ArrayList<>();
+        private final List<Slot> slots = new ArrayList<>();
+
+        Recorder(int initialCapacity) {
+            super(initialCapacity);
+        }
+
+        void slot(Slot slot) {
+            offsets.add(size());
+            slots.add(slot);
+        }
+
+        void field(String name, boolean escape, OutputStream out) {
+            slot(new Slot(Kind.FIELD, name, escape));
+        }
+
+        MimeSkeleton finish() {
+            int[] marks = offsets.stream().mapToInt(Integer::intValue).toArray();
+            return new MimeSkeleton(toByteArray(), marks, slots.toArray(Slot[]::new));
+        }
+    }
+}
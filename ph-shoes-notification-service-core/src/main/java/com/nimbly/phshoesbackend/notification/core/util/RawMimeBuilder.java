@@ -3,82 +3,283 @@ package com.nimbly.phshoesbackend.notification.core.util;
 import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.template.CompiledTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.EmailTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.RenderedTemplateCache;
 import org.springframework.stereotype.Component;
 
-import java.util.Base64;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Component
 public class RawMimeBuilder{
 
+    private static final int HEADER_ALLOWANCE = 1024;
+    private static final int PART_ALLOWANCE = 256;
+    private static final long SKELETON_CACHE_BYTES = 256 * 1024;
+
+    private static final byte[] CRLF = ascii("\r\n");
+    private static final byte[] BLANK_LINE = ascii("\r\n\r\n");
+    private static final byte[] DASHES = ascii("--");
+    private static final byte[] QUOTE_BLANK_LINE = ascii("\"\r\n\r\n");
+    private static final byte[] MULTIPART_MIXED = ascii("Content-Type: multipart/mixed; boundary=\"");
+    private static final byte[] MULTIPART_ALTERNATIVE = ascii("Content-Type: multipart/alternative; boundary=\"");
+    private static final byte[] TEXT_PLAIN = ascii("Content-Type: text/plain; charset=UTF-8\r\n\r\n");
+    private static final byte[] TEXT_HTML = ascii("Content-Type: text/html; charset=UTF-8\r\n\r\n");
+    private static final byte[] BASE64_ENCODING = ascii("Content-Transfer-Encoding: base64\r\n\r\n");
+
     private final NotificationEmailProps emailProps;
     private final EmailAddressFormatter addressFormatter;
+    private final EncodedAttachmentCache attachmentCache;
+    private final RenderedTemplateCache renderCache;
+    private final MimeBoundaryGenerator boundaries = new MimeBoundaryGenerator();
+    private final SizeBoundedLruCache<SkeletonKey, HeaderSkeleton> skeletons =
+            new SizeBoundedLruCache<>(SKELETON_CACHE_BYTES, HeaderSkeleton::weight);
 
     public RawMimeBuilder(NotificationEmailProps emailProps, EmailAddressFormatter addressFormatter) {
+        this(emailProps, addressFormatter, null);
+    }
+
+    public RawMimeBuilder(NotificationEmailProps emailProps,
+                          EmailAddressFormatter addressFormatter,
+                          EncodedAttachmentCache attachmentCache) {
+        this(emailProps, addressFormatter, attachmentCache, null);
+    }
+
+    public RawMimeBuilder(NotificationEmailProps emailProps,
+                          EmailAddressFormatter addressFormatter,
+                          EncodedAttachmentCache attachmentCache,
+                          RenderedTemplateCache renderCache) {
         this.emailProps = emailProps;
         this.addressFormatter = addressFormatter;
+        this.attachmentCache = attachmentCache;
+        this.renderCache = renderCache;
     }
 
+    /**
+     * Renders the message as a String. Kept for callers that need text; transports should use
+     * {@link #buildBytes} or {@link #writeTo} to avoid the extra String and re-encoding copies.
+     */
     public String build(EmailRequest request, String finalSubject) {
-        String boundary = "mixed_" + System.currentTimeMillis();
-        String altBoundary = "alt_" + System.currentTimeMillis();
+        return new String(buildBytes(request, finalSubject), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Renders the message as UTF-8 bytes into a buffer presized from the request, so the result is
+     * normally the only copy of the encoded message.
+     */
+    public byte[] buildBytes(EmailRequest request, String finalSubject) {
+        return buildBytes(request, finalSubject, null);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        String from = (request.getFrom() != null) ? addressFormatter.format(request.getFrom()) : emailProps.getFrom();
+    /**
+     * Like {@link #buildBytes(EmailRequest, String)}, with the text and html parts rendered from
+     * {@code template} instead of the request bodies.
+     */
+    public byte[] buildBytes(EmailRequest request, String finalSubject, EmailTemplate template) {
+        MimeOutputBuffer out = new MimeOutputBuffer(estimateSize(request, finalSubject, template));
+        try {
+            writeTo(request, finalSubject, template, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
 
-        sb.append("From: ").append(from).append("\r\n");
-        if (request.getTo() != null && !request.getTo().isEmpty())
-            sb.append("To: ").append(String.join(", ", addressFormatter.formatAll(request.getTo()))).append("\r\n");
-        if (request.getCc() != null && !request.getCc().isEmpty())
-            sb.append("Cc: ").append(String.join(", ", addressFormatter.formatAll(request.getCc()))).append("\r\n");
-        sb.append("Subject: ").append(finalSubject == null ? "" : finalSubject).append("\r\n");
-        sb.append("MIME-Version: 1.0\r\n");
+    /**
+     * Streams the message into {@code out}: headers and bodies are encoded as UTF-8 and attachments are
+     * base64-encoded on the fly in fixed-size chunks, without building the message in memory first. The stream is not closed.
+     */
+    public void writeTo(EmailRequest request, String finalSubject, OutputStream out) throws IOException {
+        writeTo(request, finalSubject, null, out);
+    }
+
+    /**
+     * Streams the message with the text and html parts rendered from {@code template} (when not null) straight
+     * into {@code out}, using the request's templateVars.
+     */
+    public void writeTo(EmailRequest request, String finalSubject, EmailTemplate template, OutputStream out) throws IOException {
+        String token = boundaries.next();
+        byte[] boundary = ascii("mixed" + token);
+        byte[] altBoundary = ascii("alt" + token);
 
-        appendHeader(sb, request, "List-Unsubscribe", emailProps.getListUnsubscribe());
-        appendHeader(sb, request, "List-Unsubscribe-Post", emailProps.getListUnsubscribePost());
+        HeaderSkeleton headers = headerSkeleton(request);
+        MimeSkeleton.Recorder recorder = out instanceof MimeSkeleton.Recorder r ? r : null;
+
+        out.write(headers.fromLine());
+        if (recorder != null)
+            recorder.slot(MimeSkeleton.Slot.TO);
+        else if (request.getTo() != null && !request.getTo().isEmpty())
+            text(out, "To: ", String.join(", ", addressFormatter.formatAll(request.getTo())), "\r\n");
+        if (request.getCc() != null && !request.getCc().isEmpty())
+            text(out, "Cc: ", String.join(", ", addressFormatter.formatAll(request.getCc())), "\r\n");
+        text(out, "Subject: ");
+        if (recorder != null)
+            recorder.slot(MimeSkeleton.Slot.SUBJECT);
+        else
+            text(out, finalSubject == null ? "" : EmailSubjectFormatter.singleLine(finalSubject));
+        out.write(CRLF);
+        out.write(headers.envelopeTail());
 
         boolean withAttachments = request.getAttachments() != null && !request.getAttachments().isEmpty();
-        if (!withAttachments) {
-            sb.append("Content-Type: multipart/alternative; boundary=\"").append(altBoundary).append("\"\r\n\r\n");
-        } else {
-            sb.append("Content-Type: multipart/mixed; boundary=\"").append(boundary).append("\"\r\n\r\n");
-            sb.append("--").append(boundary).append("\r\n");
-            sb.append("Content-Type: multipart/alternative; boundary=\"").append(altBoundary).append("\"\r\n\r\n");
+        if (withAttachments) {
+            bytes(out, MULTIPART_MIXED, boundary, QUOTE_BLANK_LINE);
+            delimiter(out, boundary);
         }
+        bytes(out, MULTIPART_ALTERNATIVE, altBoundary, QUOTE_BLANK_LINE);
 
-        if (request.getTextBody() != null) {
-            sb.append("--").append(altBoundary).append("\r\n");
-            sb.append("Content-Type: text/plain; charset=UTF-8\r\n\r\n");
-            sb.append(request.getTextBody()).append("\r\n\r\n");
-        }
-        if (request.getHtmlBody() != null) {
-            sb.append("--").append(altBoundary).append("\r\n");
-            sb.append("Content-Type: text/html; charset=UTF-8\r\n\r\n");
-            sb.append(request.getHtmlBody()).append("\r\n\r\n");
+        if (template != null && renderCache != null && recorder == null) {
+            RenderedTemplateCache.RenderedBodies bodies = renderCache.render(template, request.getTemplateVars());
+            writePart(out, altBoundary, TEXT_PLAIN, bodies.text());
+            writePart(out, altBoundary, TEXT_HTML, bodies.html());
+        } else if (template != null) {
+            CompiledTemplate.SlotWriter unresolved = recorder == null ? null : recorder::field;
+            writePart(out, altBoundary, TEXT_PLAIN, template.text(), request.getTemplateVars(), unresolved);
+            writePart(out, altBoundary, TEXT_HTML, template.html(), request.getTemplateVars(), unresolved);
+        } else {
+            writePart(out, altBoundary, TEXT_PLAIN, request.getTextBody());
+            writePart(out, altBoundary, TEXT_HTML, request.getHtmlBody());
         }
-        sb.append("--").append(altBoundary).append("--\r\n");
+        closeDelimiter(out, altBoundary);
 
         if (withAttachments) {
             for (Attachment att : request.getAttachments()) {
-                sb.append("--").append(boundary).append("\r\n");
-                sb.append("Content-Type: ").append(att.getMimeType()).append("\r\n");
-                sb.append("Content-Disposition: attachment; filename=\"").append(att.getFilename()).append("\"\r\n");
-                sb.append("Content-Transfer-Encoding: base64\r\n\r\n");
-                sb.append(Base64.getEncoder().encodeToString(att.getContent())).append("\r\n\r\n");
+                delimiter(out, boundary);
+                text(out, "Content-Type: ", att.getMimeType(), "\r\n");
+                text(out, "Content-Disposition: attachment; filename=\"", att.getFilename(), "\"\r\n");
+                out.write(BASE64_ENCODING);
+                if (attachmentCache != null) {
+                    attachmentCache.encode(att, out);
+                } else {
+                    MimeBase64.encode(att, out);
+                }
+                out.write(BLANK_LINE);
             }
-            sb.append("--").append(boundary).append("--\r\n");
+            closeDelimiter(out, boundary);
+        }
+    }
+
+    /**
+     * Renders {@code shared} once as a {@link MimeSkeleton} for mail merge: To, Subject and every template field
+     * are left open. Bodies and attachments are encoded into the skeleton, so every message spliced from it
+     * shares one boundary pair.
+     */
+    public MimeSkeleton compileSkeleton(EmailRequest shared, EmailTemplate template) {
+        MimeSkeleton.Recorder recorder = new MimeSkeleton.Recorder(estimateSize(shared, null, template));
+        try {
+            writeTo(shared.toBuilder().clearTemplateVars().build(), null, template, recorder);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return recorder.finish();
+    }
+
+    /**
+     * Returns the precompiled From line and the MIME-Version/List-* block for the request's sender and
+     * unsubscribe settings. Only To, Cc, Subject and the boundaries are encoded per message.
+     */
+    private HeaderSkeleton headerSkeleton(EmailRequest request) {
+        SkeletonKey key = new SkeletonKey(
+                (request.getFrom() != null) ? addressFormatter.format(request.getFrom()) : emailProps.getFrom(),
+                resolveHeader(request.getHeaders(), "List-Unsubscribe", emailProps.getListUnsubscribe()),
+                resolveHeader(request.getHeaders(), "List-Unsubscribe-Post", emailProps.getListUnsubscribePost()));
+        return skeletons.computeIfAbsent(key, HeaderSkeleton::compile);
+    }
+
+    private static void writePart(OutputStream out, byte[] boundary, byte[] partHeader, String body) throws IOException {
+        if (body == null) return;
+        delimiter(out, boundary);
+        out.write(partHeader);
+        text(out, body);
+        out.write(BLANK_LINE);
+    }
+
+    private static void writePart(OutputStream out, byte[] boundary, byte[] partHeader, byte[] body) throws IOException {
+        if (body == null) return;
+        bytes(out, DASHES, boundary, CRLF, partHeader, body, BLANK_LINE);
+    }
+
+    private static void writePart(OutputStream out, byte[] boundary, byte[] partHeader,
+                                  CompiledTemplate body, Map<String, ?> vars,
+                                  CompiledTemplate.SlotWriter unresolved) throws IOException {
+        if (body == null) return;
+        delimiter(out, boundary);
+        out.write(partHeader);
+        body.render(vars, out, unresolved);
+        out.write(BLANK_LINE);
+    }
+
+    private static void delimiter(OutputStream out, byte[] boundary) throws IOException {
+        bytes(out, DASHES, boundary, CRLF);
+    }
+
+    private static void closeDelimiter(OutputStream out, byte[] boundary) throws IOException {
+        bytes(out, DASHES, boundary, DASHES, CRLF);
+    }
+
+    private static void bytes(OutputStream out, byte[]... parts) throws IOException {
+        for (byte[] part : parts) {
+            out.write(part);
         }
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Headers written after the standard envelope headers: List-Unsubscribe and List-Unsubscribe-Post, taken
+     * from the request when set and from {@link NotificationEmailProps} otherwise. Blank values are omitted.
+     */
+    public Map<String, String> extraHeaders(EmailRequest request) {
+        return extraHeaders(
+                resolveHeader(request.getHeaders(), "List-Unsubscribe", emailProps.getListUnsubscribe()),
+                resolveHeader(request.getHeaders(), "List-Unsubscribe-Post", emailProps.getListUnsubscribePost()));
+    }
 
-        return sb.toString();
+    private static Map<String, String> extraHeaders(String listUnsubscribe, String listUnsubscribePost) {
+        Map<String, String> headers = new LinkedHashMap<>(4);
+        if (listUnsubscribe != null && !listUnsubscribe.isBlank()) {
+            headers.put("List-Unsubscribe", listUnsubscribe);
+        }
+        if (listUnsubscribePost != null && !listUnsubscribePost.isBlank()) {
+            headers.put("List-Unsubscribe-Post", listUnsubscribePost);
+        }
+        return headers;
     }
 
-    private static void appendHeader(StringBuilder sb, EmailRequest request, String headerName, String fallback) {
-        String value = resolveHeader(request.getHeaders(), headerName, fallback);
-        if (value != null && !value.isBlank()) {
-            sb.append(headerName).append(": ").append(value).append("\r\n");
+    private static void text(OutputStream out, String... parts) throws IOException {
+        for (String part : parts) {
+            String s = String.valueOf(part);
+            if (out instanceof MimeOutputBuffer buffer) {
+                buffer.writeUtf8(s);
+            } else {
+                out.write(s.getBytes(StandardCharsets.UTF_8));
+            }
         }
     }
 
+    private static int estimateSize(EmailRequest request, String finalSubject, EmailTemplate template) {
+        long size = HEADER_ALLOWANCE + length(finalSubject) + (template != null
+                ? template.estimatedBodyBytes() + PART_ALLOWANCE
+                : length(request.getTextBody()) + length(request.getHtmlBody()));
+        if (request.getAttachments() != null) {
+            for (Attachment att : request.getAttachments()) {
+                size += PART_ALLOWANCE + length(att.getFilename()) + length(att.getMimeType())
+                        + MimeBase64.encodedLength(att.contentLength());
+            }
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE - 8);
+    }
+
+    private static int length(String s) {
+        return s == null ? 0 : s.length();
+    }
+
     private static String resolveHeader(Map<String, String> headers, String headerName, String fallback) {
         if (headers != null) {
             for (Map.Entry<String, String> entry : headers.entrySet()) {
@@ -92,4 +293,26 @@ public class RawMimeBuilder{
         }
         return fallback;
     }
+
+    private record SkeletonKey(String from, String listUnsubscribe, String listUnsubscribePost) {
+    }
+
+    /**
+     * Encoded header lines that depend only on the sender and configuration, not on the recipient.
+     */
+    private record HeaderSkeleton(byte[] fromLine, byte[] envelopeTail) {
+
+        static HeaderSkeleton compile(SkeletonKey key) {
+            StringBuilder tail = new StringBuilder("MIME-Version: 1.0\r\n");
+            extraHeaders(key.listUnsubscribe(), key.listUnsubscribePost())
+                    .forEach((name, value) -> tail.append(name).append(": ").append(value).append("\r\n"));
+            return new HeaderSkeleton(
+                    ("From: " + key.from() + "\r\n").getBytes(StandardCharsets.UTF_8),
+                    tail.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        long weight() {
+            return fromLine.length + envelopeTail.length;
+        }
+    }
 }
@@ -0,0 +1,153 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * LRU cache bounded by the total weight (bytes) of its values rather than by entry count.
+ * Loaders run outside the lock, so two threads missing on the same key may both compute; the later
+ * value wins, which is harmless for the deterministic content this cache holds.
+ */
+public class SizeBoundedLruCache<K, V> {
+
+    private final long maxWeight;
+    private final ToLongFunction<V> weigher;
+    private final LinkedHashMap<K, V> entries = new LinkedHashMap<>(64, 0.75f, true);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long residentWeight;
+
+    public SizeBoundedLruCache(long maxWeight, ToLongFunction<V> weigher) {
+        if (maxWeight <= 0) throw new IllegalArgumentException("maxWeight must be positive");
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+    }
+
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> loader) {
+        V cached = get(key);
+        if (cached != null) return cached;
+        V loaded = loader.apply(key);
+        if (loaded != null) put(key, loaded);
+        return loaded;
+    }
+
+    /**
+     * Stores {@code value} and evicts least-recently-used entries until the cache fits. Values heavier than
+     * the whole cache are not stored.
+     */
+    public void put(K key, V value) {
+        long weight = weigher.applyAsLong(value);
+        if (weight > maxWeight) return;
+        synchronized (entries) {
+            V previous = entries.put(key, value);
+            if (previous != null) residentWeight -= weigher.applyAsLong(previous);
+            residentWeight += weight;
+            Iterator<Map.Entry<K, V>> eldest = entries.entrySet().iterator();
+            while (residentWeight > maxWeight && eldest.hasNext()) {
+                Map.Entry<K, V> entry = eldest.next();
+                if (entry.getKey().equals(key)) continue;
+                residentWeight -= weigher.applyAsLong(entry.getValue());
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        puts.increment();
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            residentWeight = 0;
+        }
+    }
+
+    public Stats stats() {
+        synchronized (entries) {
+            return new Stats(hits.sum(), misses.sum(), evictions.sum(), residentWeight, entries.size(), maxWeight);
+        }
+    }
+
+    /**
+     * Registers the standard {@code cache.*} meters (gets, puts, evictions, size) plus
+     * {@code cache.resident.bytes} under the given cache name.
+     */
+    public void bindTo(MeterRegistry registry, String cacheName) {
+        new Metrics(this, cacheName).bindTo(registry);
+    }
+
+    public record Stats(long hitCount, long missCount, long evictionCount, long residentBytes, int entryCount,
+                        long maxBytes) {
+        public double hitRatio() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 0d : (double) hitCount / requests;
+        }
+    }
+
+    private static final class Metrics extends CacheMeterBinder<SizeBoundedLruCache<?, ?>> {
+        private final SizeBoundedLruCache<?, ?> cache;
+
+        private Metrics(SizeBoundedLruCache<?, ?> cache, String cacheName) {
+            super(cache, cacheName, List.<Tag>of());
+            this.cache = cache;
+        }
+
+        @Override
+        protected Long size() {
+            return (long) cache.stats().entryCount();
+        }
+
+        @Override
+        protected long hitCount() {
+            return cache.hits.sum();
+        }
+
+        @Override
+        protected Long missCount() {
+            return cache.misses.sum();
+        }
+
+        @Override
+        protected Long evictionCount() {
+            return cache.evictions.sum();
+        }
+
+        @Override
+        protected long putCount() {
+            return cache.puts.sum();
+        }
+
+        @Override
+        protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+            Gauge.builder("cache.resident.bytes", cache, c -> c.stats().residentBytes())
+                    .tags(getTagsWithCacheName())
+                    .baseUnit("bytes")
+                    .description("Total weight of values currently held by the cache")
+                    .register(registry);
+            Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRatio())
+                    .tags(getTagsWithCacheName())
+                    .register(registry);
+        }
+    }
+}
@@ -5,11 +5,27 @@ import com.nimbly.phshoesbackend.commons.core.repository.SuppressionRepository;
 import com.nimbly.phshoesbackend.commons.core.security.EmailCrypto;
 import com.nimbly.phshoesbackend.notification.core.ses.SesWebhookController;
 import com.nimbly.phshoesbackend.notification.core.ses.SesWebhookProcessor;
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.execution.NotificationExecutor;
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
+import com.nimbly.phshoesbackend.notification.core.idempotency.IdempotencyGuard;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationDomainShapingProps;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.DomainShaper;
+import com.nimbly.phshoesbackend.notification.core.schedule.ScheduledNotificationService;
 import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationTransportChain;
+import com.nimbly.phshoesbackend.notification.core.service.impl.DomainShapedNotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.impl.ParallelBatchComposer;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
+import com.nimbly.phshoesbackend.notification.core.template.RenderedTemplateCache;
 import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
 import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EncodedAttachmentCache;
 import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
@@ -17,7 +33,11 @@ import org.springframework.boot.test.context.runner.ApplicationContextRunner;
 import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class CoreNotificationAutoConfigurationTest {
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
@@ -39,7 +59,158 @@ class CoreNotificationAutoConfigurationTest {
             assertThat(context).hasSingleBean(RawMimeBuilder.class);
             assertThat(context).hasSingleBean(EmailCompositionService.class);
             assertThat(context).hasSingleBean(NotificationService.class);
+            assertThat(context).hasSingleBean(NotificationTransportChain.class);
             assertThat(context).hasSingleBean(SesWebhookProcessor.class);
+            assertThat(context).hasSingleBean(EncodedAttachmentCache.class);
+            assertThat(context).hasSingleBean(LocalTemplateEngine.class);
+            assertThat(context).hasSingleBean(RenderedTemplateCache.class);
+            assertThat(context).hasSingleBean(ParallelBatchComposer.class);
+            assertThat(context).doesNotHaveBean(IdempotencyGuard.class);
+            assertThat(context).doesNotHaveBean(NotificationExecutor.class);
+        });
+    }
+
+    @Test
+    void sendsThroughFallbackWhenPrimaryTransportFails() {
+        // Arrange
+        EmailTransportService primary = mock(EmailTransportService.class);
+        EmailTransportService fallback = mock(EmailTransportService.class);
+        when(primary.canSend(any())).thenReturn(true);
+        when(fallback.canSend(any())).thenReturn(true);
+        when(primary.send(any())).thenThrow(
+                new NotificationSendException("SES unavailable", null, NotificationSendException.Reason.TRANSIENT));
+        when(fallback.send(any())).thenReturn(SendResult.builder().provider("smtp").build());
+        ApplicationContextRunner runner = contextRunner
+                .withPropertyValues("notification.transport=ses", "notification.failover.fallbacks=smtp",
+                        "notification.retry.enabled=false", "notification.templates.enabled=false")
+                .withBean(EmailTransportService.class, () -> primary)
+                .withBean(NamedEmailTransport.class, () -> new NamedEmailTransport("smtp", fallback));
+
+        // Act + Assert
+        runner.run(context -> {
+            SendResult result = context.getBean(NotificationService.class).sendEmailVerification(EmailRequest.builder()
+                    .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                    .subject("Verify")
+                    .textBody("Hello")
+                    .build());
+            assertThat(result.getProvider()).isEqualTo("smtp");
+        });
+    }
+
+    @Test
+    void routesOnlyToWeightedTransportsWhenRoutingIsEnabled() {
+        // Arrange
+        EmailTransportService primary = mock(EmailTransportService.class);
+        EmailTransportService smtp = mock(EmailTransportService.class);
+        when(smtp.canSend(any())).thenReturn(true);
+        when(smtp.send(any())).thenReturn(SendResult.builder().provider("smtp").build());
+        ApplicationContextRunner runner = contextRunner
+                .withPropertyValues("notification.transport=ses", "notification.routing.enabled=true",
+                        "notification.routing.weights.smtp=1", "notification.templates.enabled=false")
+                .withBean(EmailTransportService.class, () -> primary)
+                .withBean(NamedEmailTransport.class, () -> new NamedEmailTransport("smtp", smtp));
+
+        // Act + Assert
+        runner.run(context -> {
+            SendResult result = context.getBean(NotificationService.class).sendEmailVerification(EmailRequest.builder()
+                    .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                    .subject("Verify")
+                    .textBody("Hello")
+                    .build());
+            assertThat(result.getProvider()).isEqualTo("smtp");
+            verify(primary, never()).send(any());
+        });
+    }
+
+    @Test
+    void schedulesSendsThroughNotificationServiceWhenEnabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withBean(EmailTransportService.class, () -> mock(EmailTransportService.class))
+                .withPropertyValues("notification.schedule.enabled=true", "notification.schedule.tick=50ms");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(ScheduledNotificationService.class);
+            assertThat(context.getBean(ScheduledNotificationService.class).pending()).isZero();
+        });
+    }
+
+    @Test
+    void bindsPerDomainLimitsWhenDomainShapingIsEnabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withBean(EmailTransportService.class, () -> mock(EmailTransportService.class))
+                .withPropertyValues("notification.domain-shaping.enabled=true",
+                        "notification.domain-shaping.domains[gmail.com].rate=5");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(DomainShaper.class);
+            assertThat(context.getBean(NotificationDomainShapingProps.class).getDomains().get("gmail.com").getRate())
+                    .isEqualTo(5);
+        });
+    }
+
+    @Test
+    void shapesDomainsBeforeSendsTakeALaneSlot() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withBean(EmailTransportService.class, () -> mock(EmailTransportService.class))
+                .withPropertyValues("notification.domain-shaping.enabled=true", "notification.dispatch.enabled=true");
+
+        // Act + Assert
+        runner.run(context -> assertThat(context.getBean(NotificationService.class))
+                .isInstanceOf(DomainShapedNotificationService.class));
+    }
+
+    @Test
+    void guardsSendsByRequestIdOnlyWhenIdempotencyIsEnabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner.withPropertyValues("notification.idempotency.enabled=true");
+
+        // Act + Assert
+        runner.run(context -> assertThat(context).hasSingleBean(IdempotencyGuard.class));
+    }
+
+    @Test
+    void createsVirtualThreadExecutorWhenEnabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withPropertyValues("notification.execution.virtual-threads=true",
+                        "notification.execution.max-concurrency=64");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(NotificationExecutor.class);
+            assertThat(context.getBean(NotificationExecutor.class).submit(() -> Thread.currentThread().isVirtual()).join())
+                    .isTrue();
+        });
+    }
+
+    @Test
+    void skipsAttachmentCacheWhenDisabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withPropertyValues("notification.email.attachment-cache.enabled=false");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).doesNotHaveBean(EncodedAttachmentCache.class);
+            assertThat(context).hasSingleBean(RawMimeBuilder.class);
+        });
+    }
+
+    @Test
+    void skipsLocalTemplatesWhenDisabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withPropertyValues("notification.templates.enabled=false");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).doesNotHaveBean(LocalTemplateEngine.class);
+            assertThat(context).hasSingleBean(EmailCompositionService.class);
         });
     }
 
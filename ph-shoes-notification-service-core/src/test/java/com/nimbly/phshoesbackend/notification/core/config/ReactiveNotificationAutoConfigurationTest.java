@@ -0,0 +1,44 @@
+package com.nimbly.phshoesbackend.notification.core.config;
+
+import com.nimbly.phshoesbackend.notification.core.reactive.ReactiveNotificationService;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import reactor.core.publisher.Flux;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReactiveNotificationAutoConfigurationTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(ReactiveNotificationAutoConfiguration.class));
+
+    @Test
+    void createsReactiveServiceWhenNotificationServicePresent() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withBean(NotificationService.class, () -> mock(NotificationService.class));
+
+        // Act + Assert
+        runner.run(context -> assertThat(context).hasSingleBean(ReactiveNotificationService.class));
+    }
+
+    @Test
+    void skipsReactiveServiceWithoutNotificationService() {
+        // Act + Assert
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(ReactiveNotificationService.class));
+    }
+
+    @Test
+    void skipsReactiveServiceWithoutReactor() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withClassLoader(new FilteredClassLoader(Flux.class))
+                .withBean(NotificationService.class, () -> mock(NotificationService.class));
+
+        // Act + Assert
+        runner.run(context -> assertThat(context).doesNotHaveBean(ReactiveNotificationService.class));
+    }
+}
@@ -0,0 +1,67 @@
+package com.nimbly.phshoesbackend.notification.core.execution;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load test for the execution mode: {@code sends} blocking sends, each parked for {@value #ROUND_TRIP_MILLIS} ms
+ * like an SES or SMTP round trip, submitted at once and awaited. {@code virtual} uses
+ * {@link NotificationExecutor#virtualThreads}; {@code platform} uses the same executor over a fixed pool of
+ * {@code sends} platform threads, i.e. what sizing a platform pool for that fan-out would take. Pool creation is
+ * part of the trial setup, so the platform numbers exclude the cost of starting its threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xss512k")
+public class NotificationExecutorBenchmark {
+
+    static final long ROUND_TRIP_MILLIS = 20;
+
+    @Param({"virtual", "platform"})
+    public String threads;
+
+    @Param({"1000", "10000"})
+    public int sends;
+
+    private NotificationExecutor executor;
+
+    @Setup
+    public void setUp() {
+        executor = "virtual".equals(threads)
+                ? NotificationExecutor.virtualThreads(sends, Duration.ofSeconds(30))
+                : new NotificationExecutor(Executors.newFixedThreadPool(sends), sends, Duration.ofSeconds(30));
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.close();
+    }
+
+    @Benchmark
+    public int fanOut() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[sends];
+        for (int i = 0; i < sends; i++) {
+            futures[i] = executor.submit(() -> {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(ROUND_TRIP_MILLIS));
+                return Boolean.TRUE;
+            });
+        }
+        CompletableFuture.allOf(futures).join();
+        return futures.length;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(NotificationExecutorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
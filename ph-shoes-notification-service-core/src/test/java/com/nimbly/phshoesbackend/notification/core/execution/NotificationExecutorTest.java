@@ -0,0 +1,75 @@
+package com.nimbly.phshoesbackend.notification.core.execution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationExecutorTest {
+
+    @Test
+    void runsTasksOnVirtualThreads() {
+        // Arrange
+        try (NotificationExecutor executor = NotificationExecutor.virtualThreads(4, Duration.ofSeconds(1))) {
+
+            // Act
+            boolean virtual = executor.submit(() -> Thread.currentThread().isVirtual()).join();
+
+            // Assert
+            assertThat(virtual).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsWhenConcurrencyLimitIsReachedAndRecoversAfterCompletion() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        try (NotificationExecutor executor = NotificationExecutor.virtualThreads(2, Duration.ofMillis(50))) {
+            executor.bindTo(registry);
+            CompletableFuture<String> first = executor.submit(() -> await(release));
+            CompletableFuture<String> second = executor.submit(() -> await(release));
+
+            // Act + Assert
+            assertThat(registry.get(NotificationExecutor.IN_FLIGHT_METRIC).gauge().value()).isEqualTo(2);
+            assertThatThrownBy(() -> executor.submit(() -> "third"))
+                    .isInstanceOf(RejectedExecutionException.class);
+
+            release.countDown();
+            assertThat(first.join()).isEqualTo("done");
+            assertThat(second.join()).isEqualTo("done");
+            assertThat(executor.submit(() -> "fourth").join()).isEqualTo("fourth");
+            assertThat(executor.inFlight()).isZero();
+        }
+    }
+
+    @Test
+    void completesExceptionallyAndReleasesSlotWhenTaskFails() {
+        // Arrange
+        try (NotificationExecutor executor = NotificationExecutor.virtualThreads(1, Duration.ofMillis(50))) {
+            IllegalStateException failure = new IllegalStateException("smtp down");
+
+            // Act
+            CompletableFuture<Object> result = executor.submit(() -> { throw failure; });
+
+            // Assert
+            assertThat(result).failsWithin(Duration.ofSeconds(1)).withThrowableOfType(Exception.class).withCause(failure);
+            assertThat(executor.submit(() -> "next").join()).isEqualTo("next");
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
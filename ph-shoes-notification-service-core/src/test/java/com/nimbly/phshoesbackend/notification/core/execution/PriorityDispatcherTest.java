@@ -0,0 +1,131 @@
+package com.nimbly.phshoesbackend.notification.core.execution;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailPriority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriorityDispatcherTest {
+
+    @Test
+    void highPriorityGoesOutBeforeQueuedBulk() {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        try (PriorityDispatcher dispatcher = PriorityDispatcher.virtualThreads(1, 100, PriorityDispatcher.defaultWeights())) {
+            dispatcher.submit(EmailPriority.BULK, () -> await(release));
+            List<CompletableFuture<Boolean>> sends = new ArrayList<>();
+            for (int i = 0; i < 5; i++) sends.add(dispatcher.submit(EmailPriority.BULK, () -> order.add("bulk")));
+            sends.add(dispatcher.submit(EmailPriority.HIGH, () -> order.add("high")));
+
+            // Act
+            release.countDown();
+            sends.forEach(CompletableFuture::join);
+
+            // Assert
+            assertThat(order).containsExactly("high", "bulk", "bulk", "bulk", "bulk", "bulk");
+        }
+    }
+
+    @Test
+    void bulkKeepsItsWeightedShareUnderHighPriorityLoad() {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        Map<EmailPriority, Integer> weights = Map.of(EmailPriority.HIGH, 3, EmailPriority.NORMAL, 2, EmailPriority.BULK, 1);
+        try (PriorityDispatcher dispatcher = PriorityDispatcher.virtualThreads(1, 100, weights)) {
+            dispatcher.submit(EmailPriority.NORMAL, () -> await(release));
+            List<CompletableFuture<Boolean>> sends = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                sends.add(dispatcher.submit(EmailPriority.HIGH, () -> order.add("high")));
+                sends.add(dispatcher.submit(EmailPriority.BULK, () -> order.add("bulk")));
+            }
+
+            // Act
+            release.countDown();
+            sends.forEach(CompletableFuture::join);
+
+            // Assert
+            assertThat(order.subList(0, 8)).containsExactly("high", "high", "bulk", "high", "high", "high", "bulk", "high");
+        }
+    }
+
+    @Test
+    void rejectsWhenLaneIsFullAndExportsLaneMetrics() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CountDownLatch release = new CountDownLatch(1);
+        try (PriorityDispatcher dispatcher = PriorityDispatcher.virtualThreads(1, 1, PriorityDispatcher.defaultWeights())) {
+            dispatcher.bindTo(registry);
+            CompletableFuture<String> running = dispatcher.submit(EmailPriority.BULK, () -> await(release));
+            CompletableFuture<String> queued = dispatcher.submit(EmailPriority.BULK, () -> "queued");
+
+            // Act + Assert
+            assertThatThrownBy(() -> dispatcher.submit(EmailPriority.BULK, () -> "overflow"))
+                    .isInstanceOf(RejectedExecutionException.class);
+            assertThat(registry.get(PriorityDispatcher.QUEUE_DEPTH_METRIC).tag("lane", "bulk").gauge().value()).isEqualTo(1);
+            assertThat(registry.get(PriorityDispatcher.REJECTED_METRIC).tag("lane", "bulk").counter().count()).isEqualTo(1);
+            assertThat(dispatcher.submit(EmailPriority.HIGH, () -> "other lane")).isNotNull();
+
+            release.countDown();
+            assertThat(running.join()).isEqualTo("done");
+            assertThat(queued.join()).isEqualTo("queued");
+            assertThat(registry.get(PriorityDispatcher.WAIT_METRIC).tag("lane", "bulk").timer().count()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void failsQueuedTasksTheExecutorRefuses() {
+        // Arrange
+        PriorityDispatcher dispatcher = new PriorityDispatcher(task -> {
+            throw new RejectedExecutionException("shut down");
+        }, 1, 10, PriorityDispatcher.defaultWeights());
+
+        // Act
+        CompletableFuture<String> send = dispatcher.submit(EmailPriority.HIGH, () -> "sent");
+
+        // Assert
+        assertThatThrownBy(send::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(dispatcher.running()).isZero();
+        assertThat(dispatcher.queueDepth(EmailPriority.HIGH)).isZero();
+    }
+
+    @Test
+    void asyncTaskHoldsItsSlotUntilItsFutureCompletes() throws InterruptedException {
+        // Arrange
+        CompletableFuture<String> inFlight = new CompletableFuture<>();
+        try (PriorityDispatcher dispatcher = PriorityDispatcher.virtualThreads(1, 10, PriorityDispatcher.defaultWeights())) {
+            CompletableFuture<String> first = dispatcher.submitAsync(EmailPriority.HIGH, () -> inFlight);
+            CompletableFuture<String> second = dispatcher.submit(EmailPriority.HIGH, () -> "second");
+
+            // Act
+            Thread.sleep(50);
+            boolean secondRanEarly = second.isDone();
+            inFlight.complete("first");
+
+            // Assert
+            assertThat(secondRanEarly).isFalse();
+            assertThat(first.join()).isEqualTo("first");
+            assertThat(second.join()).isEqualTo("second");
+        }
+    }
+
+    private static String await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "done";
+    }
+}
@@ -0,0 +1,91 @@
+package com.nimbly.phshoesbackend.notification.core.failover;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<String> transitions = new ArrayList<>();
+    private final CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.5, Duration.ofSeconds(10), 1,
+            (from, to) -> transitions.add(from + "->" + to), now::get);
+
+    @Test
+    void opensOnceFailureRateReachesThresholdOverTheWindow() {
+        // Arrange
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        // Act
+        boolean openBelowMinimumCalls = breaker.state() == CircuitBreaker.State.OPEN;
+        breaker.onFailure();
+
+        // Assert
+        assertThat(openBelowMinimumCalls).isFalse();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(transitions).containsExactly("CLOSED->OPEN");
+    }
+
+    @Test
+    void oldOutcomesSlideOutOfTheWindow() {
+        // Arrange
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onSuccess();
+        breaker.onSuccess();
+
+        // Act
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        // Assert
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void halfOpenProbeClosesOnSuccessAndReopensOnFailure() {
+        // Arrange
+        for (int i = 0; i < 4; i++) breaker.onFailure();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // Act
+        boolean probe = breaker.tryAcquire();
+        boolean secondProbe = breaker.tryAcquire();
+        breaker.onFailure();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.tryAcquire();
+        breaker.onSuccess();
+
+        // Assert
+        assertThat(probe).isTrue();
+        assertThat(secondProbe).isFalse();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(transitions).containsExactly(
+                "CLOSED->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->OPEN", "OPEN->HALF_OPEN", "HALF_OPEN->CLOSED");
+    }
+
+    @Test
+    void releasedProbeLetsAnotherOneThrough() {
+        // Arrange
+        for (int i = 0; i < 4; i++) breaker.onFailure();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        breaker.tryAcquire();
+
+        // Act
+        boolean whileProbing = breaker.tryAcquire();
+        breaker.release();
+
+        // Assert
+        assertThat(whileProbing).isFalse();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+}
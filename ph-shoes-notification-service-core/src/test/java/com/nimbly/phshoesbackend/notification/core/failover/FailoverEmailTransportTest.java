@@ -0,0 +1,138 @@
+package com.nimbly.phshoesbackend.notification.core.failover;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FailoverEmailTransportTest {
+
+    private final EmailTransportService ses = mock(EmailTransportService.class);
+    private final EmailTransportService smtp = mock(EmailTransportService.class);
+    private final ComposedEmail email = mock(ComposedEmail.class);
+    private final FailoverEmailTransport transport = new FailoverEmailTransport(
+            List.of(new NamedEmailTransport("ses", ses), new NamedEmailTransport("smtp", smtp)),
+            new FailoverEmailTransport.BreakerSettings(4, 2, 0.5, Duration.ofMinutes(1), 1));
+
+    @BeforeEach
+    void bothTransportsCanSendRenderedEmails() {
+        when(ses.canSend(any())).thenReturn(true);
+        when(smtp.canSend(any())).thenReturn(true);
+    }
+
+    @Test
+    void failsOverAndSkipsTheOpenTransport() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        transport.bindTo(registry);
+        when(ses.send(email)).thenThrow(transient_());
+        when(smtp.send(email)).thenReturn(SendResult.builder().provider("smtp").build());
+
+        // Act
+        for (int i = 0; i < 3; i++) transport.send(email);
+
+        // Assert
+        verify(ses, times(2)).send(email);
+        verify(smtp, times(3)).send(email);
+        assertThat(transport.state("ses")).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(registry.get(FailoverEmailTransport.SENDS_METRIC).tag("transport", "smtp").counter().count()).isEqualTo(3);
+        assertThat(registry.get(FailoverEmailTransport.STATE_METRIC).tag("transport", "ses").gauge().value()).isEqualTo(2);
+        assertThat(registry.get(FailoverEmailTransport.TRANSITIONS_METRIC).tag("transport", "ses").tag("to", "open")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void permanentFailuresNeitherFailOverNorTripTheBreaker() {
+        // Arrange
+        when(ses.send(email)).thenThrow(new NotificationSendException("bad address", null, NotificationSendException.Reason.PERMANENT));
+
+        // Act + Assert
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> transport.send(email)).hasMessage("bad address");
+        }
+        verify(smtp, never()).send(email);
+        assertThat(transport.state("ses")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void asyncSendFailsOverToNextTransport() {
+        // Arrange
+        when(ses.sendAsync(email)).thenReturn(CompletableFuture.failedFuture(transient_()));
+        when(smtp.sendAsync(email)).thenReturn(CompletableFuture.completedFuture(SendResult.builder().provider("smtp").build()));
+
+        // Act
+        SendResult result = transport.sendAsync(email).join();
+
+        // Assert
+        assertThat(result.getProvider()).isEqualTo("smtp");
+    }
+
+    @Test
+    void batchWithNoAcceptedEntryFailsOver() {
+        // Arrange
+        when(ses.sendBatch(List.of(email))).thenReturn(List.of(SendResult.builder().status(SendResult.FAILED).build()));
+        when(smtp.sendBatch(List.of(email))).thenReturn(List.of(SendResult.builder().status(SendResult.SUCCESS).build()));
+
+        // Act
+        List<SendResult> results = transport.sendBatch(List.of(email));
+
+        // Assert
+        assertThat(results).allMatch(SendResult::isAccepted);
+    }
+
+    @Test
+    void providerTemplateIsNeverFailedOverToATransportThatCannotRenderIt() {
+        // Arrange
+        when(ses.send(email)).thenThrow(transient_());
+        when(smtp.canSend(email)).thenReturn(false);
+
+        // Act + Assert
+        assertThatThrownBy(() -> transport.send(email)).hasMessage("SES unavailable");
+        verify(smtp, never()).send(email);
+        when(ses.canSend(email)).thenReturn(false);
+        assertThatThrownBy(() -> transport.send(email)).isInstanceOfSatisfying(NotificationSendException.class,
+                e -> assertThat(e.getReason()).isEqualTo(NotificationSendException.Reason.PERMANENT));
+    }
+
+    @Test
+    void errorDuringHalfOpenProbeGivesThePermitBack() {
+        // Arrange
+        FailoverEmailTransport quickReopen = new FailoverEmailTransport(
+                List.of(new NamedEmailTransport("ses", ses), new NamedEmailTransport("smtp", smtp)),
+                new FailoverEmailTransport.BreakerSettings(4, 2, 0.5, Duration.ZERO, 1));
+        when(smtp.send(email)).thenReturn(SendResult.builder().provider("smtp").build());
+        when(ses.send(email)).thenThrow(transient_(), transient_()).thenThrow(new AssertionError("boom"))
+                .thenReturn(SendResult.builder().provider("ses").build());
+        quickReopen.send(email);
+        quickReopen.send(email);
+
+        // Act
+        assertThatThrownBy(() -> quickReopen.send(email)).isInstanceOf(AssertionError.class);
+        SendResult result = quickReopen.send(email);
+
+        // Assert
+        assertThat(result.getProvider()).isEqualTo("ses");
+        assertThat(quickReopen.state("ses")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static NotificationSendException transient_() {
+        return new NotificationSendException("SES unavailable", null, NotificationSendException.Reason.TRANSIENT);
+    }
+}
@@ -0,0 +1,88 @@
+package com.nimbly.phshoesbackend.notification.core.idempotency;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyGuardTest {
+
+    private final IdempotencyGuard guard = new IdempotencyGuard(new InMemoryIdempotencyStore(16), Duration.ofMinutes(5));
+
+    @Test
+    void repeatedKeyReturnsOriginalResult() {
+        // Arrange
+        AtomicInteger sends = new AtomicInteger();
+
+        // Act
+        SendResult first = guard.call("key-1", () -> result("msg-" + sends.incrementAndGet()));
+        SendResult second = guard.call("key-1", () -> result("msg-" + sends.incrementAndGet()));
+
+        // Assert
+        assertThat(second).isSameAs(first);
+        assertThat(sends).hasValue(1);
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneSend() {
+        // Arrange
+        AtomicInteger sends = new AtomicInteger();
+        CompletableFuture<SendResult> pending = new CompletableFuture<>();
+
+        // Act
+        CompletableFuture<SendResult> first = guard.execute("key-1", () -> {
+            sends.incrementAndGet();
+            return pending;
+        });
+        CompletableFuture<SendResult> second = guard.execute("key-1", () -> {
+            sends.incrementAndGet();
+            return CompletableFuture.completedFuture(result("other"));
+        });
+        pending.complete(result("msg-1"));
+
+        // Assert
+        assertThat(sends).hasValue(1);
+        assertThat(first.join().getMessageId()).isEqualTo("msg-1");
+        assertThat(second.join().getMessageId()).isEqualTo("msg-1");
+    }
+
+    @Test
+    void failedSendIsNotRemembered() {
+        // Arrange
+        AtomicInteger sends = new AtomicInteger();
+
+        // Act
+        assertThatThrownBy(() -> guard.call("key-1", () -> {
+            sends.incrementAndGet();
+            throw new NotificationSendException("boom");
+        })).isInstanceOf(NotificationSendException.class);
+        SendResult retried = guard.call("key-1", () -> result("msg-" + sends.incrementAndGet()));
+
+        // Assert
+        assertThat(retried.getMessageId()).isEqualTo("msg-2");
+    }
+
+    @Test
+    void requestsWithoutKeyAreAlwaysSent() {
+        // Arrange
+        AtomicInteger sends = new AtomicInteger();
+
+        // Act
+        guard.call(null, () -> result("msg-" + sends.incrementAndGet()));
+        guard.call(null, () -> result("msg-" + sends.incrementAndGet()));
+
+        // Assert
+        assertThat(sends).hasValue(2);
+    }
+
+    private static SendResult result(String messageId) {
+        return SendResult.builder().messageId(messageId).provider("test").acceptedAt(Instant.now()).build();
+    }
+}
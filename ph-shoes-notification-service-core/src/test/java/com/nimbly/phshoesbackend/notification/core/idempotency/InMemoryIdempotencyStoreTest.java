@@ -0,0 +1,70 @@
+package com.nimbly.phshoesbackend.notification.core.idempotency;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryIdempotencyStoreTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now.get());
+        }
+    };
+
+    @Test
+    void entryExpiresAfterTtl() {
+        // Arrange
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(8, clock);
+        store.put("key-1", result("msg-1"), Duration.ofSeconds(10));
+
+        // Act
+        boolean presentBefore = store.get("key-1").isPresent();
+        now.addAndGet(10_000);
+        boolean presentAfter = store.get("key-1").isPresent();
+
+        // Assert
+        assertThat(presentBefore).isTrue();
+        assertThat(presentAfter).isFalse();
+        assertThat(store.size()).isZero();
+    }
+
+    @Test
+    void oldestEntryIsDroppedPastMaxEntries() {
+        // Arrange
+        InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(2, clock);
+
+        // Act
+        store.put("key-1", result("msg-1"), Duration.ofMinutes(1));
+        store.put("key-2", result("msg-2"), Duration.ofMinutes(1));
+        store.put("key-3", result("msg-3"), Duration.ofMinutes(1));
+
+        // Assert
+        assertThat(store.get("key-1")).isEmpty();
+        assertThat(store.get("key-3")).map(SendResult::getMessageId).contains("msg-3");
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    private static SendResult result(String messageId) {
+        return SendResult.builder().messageId(messageId).provider("test").build();
+    }
+}
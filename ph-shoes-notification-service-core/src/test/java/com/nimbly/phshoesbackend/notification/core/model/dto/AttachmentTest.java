@@ -0,0 +1,51 @@
+package com.nimbly.phshoesbackend.notification.core.model.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttachmentTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void streamingSourceTakesPrecedenceOverContent() throws Exception {
+        // Arrange
+        Attachment attachment = Attachment.builder()
+                .filename("terms.pdf")
+                .mimeType("application/pdf")
+                .content("old".getBytes(StandardCharsets.UTF_8))
+                .source(() -> new ByteArrayInputStream("new".getBytes(StandardCharsets.UTF_8)))
+                .build();
+
+        // Act
+        byte[] body;
+        try (InputStream in = attachment.openStream()) {
+            body = in.readAllBytes();
+        }
+
+        // Assert
+        assertThat(new String(body, StandardCharsets.UTF_8)).isEqualTo("new");
+        assertThat(attachment.contentLength()).isEqualTo(-1);
+    }
+
+    @Test
+    void ignoresFileSourcesInJsonPayloads() throws Exception {
+        // Arrange
+        String json = """
+                {"filename":"x.txt","mimeType":"text/plain","path":"/etc/passwd","source":"/etc/passwd","content":"aGVsbG8="}
+                """;
+
+        // Act
+        Attachment attachment = objectMapper.readValue(json, Attachment.class);
+
+        // Assert
+        assertThat(attachment.getSource()).isNull();
+        assertThat(new String(attachment.getContent(), StandardCharsets.UTF_8)).isEqualTo("hello");
+        assertThat(objectMapper.writeValueAsString(attachment)).doesNotContain("source");
+    }
+}
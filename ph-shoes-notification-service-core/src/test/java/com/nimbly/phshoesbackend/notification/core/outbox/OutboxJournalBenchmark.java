@@ -0,0 +1,66 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append latency of the outbox journal under load: {@value #THREADS} threads append {@code payloadBytes}-byte
+ * records back to back, each completed right away so segments keep rolling and compacting. Every append waits
+ * for its group-commit fsync, so the sample distribution shows how far one force is shared; run it on the disk
+ * the outbox will use, since tmpfs makes fsync free.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(OutboxJournalBenchmark.THREADS)
+public class OutboxJournalBenchmark {
+
+    static final int THREADS = 16;
+
+    @Param({"256", "4096"})
+    public int payloadBytes;
+
+    private Path directory;
+    private OutboxJournal journal;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("outbox-bench");
+        journal = OutboxJournal.open(directory, 64 << 20);
+        payload = new byte[payloadBytes];
+        Arrays.fill(payload, (byte) 'x');
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) Files.delete(path);
+        }
+    }
+
+    @Benchmark
+    public long append() {
+        long sequence = journal.append(payload);
+        journal.complete(sequence);
+        return sequence;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(OutboxJournalBenchmark.class.getSimpleName()).build()).run();
+    }
+}
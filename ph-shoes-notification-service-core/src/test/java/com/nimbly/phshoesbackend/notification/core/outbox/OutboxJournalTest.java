@@ -0,0 +1,154 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OutboxJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysOnlyUnfinishedEntriesAfterReopen() throws Exception {
+        // Arrange
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096)) {
+            long first = journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            journal.complete(first);
+        }
+
+        // Act
+        try (OutboxJournal reopened = OutboxJournal.open(directory, 4096)) {
+
+            // Assert
+            assertThat(reopened.unfinished()).extracting(entry -> text(entry.payload())).containsExactly("second");
+            assertThat(reopened.unfinished()).isEmpty();
+            assertThat(reopened.append(bytes("third"))).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void batchAppendWaitsForASingleFlush() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        List<byte[]> payloads = IntStream.range(0, 100).mapToObj(i -> bytes("entry-" + i)).toList();
+        try (OutboxJournal journal = OutboxJournal.open(directory, 1 << 20)) {
+            journal.bindTo(registry);
+
+            // Act
+            long[] sequences = journal.appendAll(payloads);
+
+            // Assert
+            assertThat(sequences).containsExactly(LongStream.range(0, 100).toArray());
+            assertThat(journal.pending()).isEqualTo(100);
+            assertThat(registry.get(OutboxJournal.FSYNC_METRIC).timer().count()).isEqualTo(1);
+            assertThat(registry.get(OutboxJournal.APPEND_METRIC).timer().count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void rollsSegmentsAndDeletesThemOnceCompleted() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        try (OutboxJournal journal = OutboxJournal.open(directory, 64)) {
+            journal.bindTo(registry);
+            List<Long> sequences = IntStream.range(0, 10).mapToObj(i -> journal.append(bytes("entry-" + i))).toList();
+            int rolled = journal.segments();
+
+            // Act
+            sequences.forEach(journal::complete);
+
+            // Assert
+            assertThat(rolled).isGreaterThan(2);
+            assertThat(journal.segments()).isEqualTo(1);
+            assertThat(journal.pending()).isZero();
+            assertThat(segmentFiles()).hasSize(1);
+            assertThat(registry.get(OutboxJournal.APPEND_METRIC).timer().count()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    void ignoresTornTailOnReplay() throws Exception {
+        // Arrange
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096)) {
+            journal.append(bytes("intact"));
+            journal.append(bytes("torn"));
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segmentFiles().get(0).toFile(), "rw")) {
+            int tornPayload = 2 * JournalSegment.HEADER + "intact".length();
+            file.seek(tornPayload);
+            file.write('X');
+        }
+
+        // Act
+        try (OutboxJournal reopened = OutboxJournal.open(directory, 4096)) {
+            reopened.append(bytes("after"));
+
+            // Assert
+            assertThat(reopened.unfinished()).extracting(entry -> text(entry.payload())).containsExactly("intact");
+        }
+        try (OutboxJournal again = OutboxJournal.open(directory, 4096)) {
+            assertThat(again.unfinished()).extracting(entry -> text(entry.payload())).containsExactly("intact", "after");
+        }
+    }
+
+    @Test
+    void concurrentAppendsGetDistinctSequences() throws Exception {
+        // Arrange
+        Set<Long> sequences = ConcurrentHashMap.newKeySet();
+        try (OutboxJournal journal = OutboxJournal.open(directory, 1 << 20);
+             ExecutorService executor = Executors.newFixedThreadPool(8)) {
+
+            // Act
+            for (int i = 0; i < 800; i++) executor.execute(() -> sequences.add(journal.append(bytes("payload"))));
+            executor.shutdown();
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+
+            // Assert
+            assertThat(sequences).hasSize(800);
+            assertThat(journal.pending()).isEqualTo(800);
+        }
+    }
+
+    @Test
+    void rejectsRecordsLargerThanASegment() throws Exception {
+        // Arrange
+        try (OutboxJournal journal = OutboxJournal.open(directory, 64)) {
+
+            // Act + Assert
+            assertThatThrownBy(() -> journal.append(new byte[64])).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,205 @@
+package com.nimbly.phshoesbackend.notification.core.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationOutboxProps;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxNotificationServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final NotificationService delegate = mock(NotificationService.class);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void acknowledgesOnceJournaledAndSendsInBackground() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.sendEmailVerification(any())).thenAnswer(invocation -> {
+            release.await();
+            return SendResult.builder().provider("ses").messageId("m-1").build();
+        });
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props(2, Duration.ofSeconds(1))).start()) {
+
+            // Act
+            SendResult result = outbox.sendEmailVerification(request("user@ph-shoes.app"));
+
+            // Assert
+            assertThat(result.getStatus()).isEqualTo(SendResult.QUEUED);
+            assertThat(result.isAccepted()).isTrue();
+            assertThat(journal.pending()).isEqualTo(1);
+            release.countDown();
+            verify(delegate, timeout(1000)).sendEmailVerification(any());
+            awaitBacklog(outbox);
+            assertThat(journal.pending()).isZero();
+        }
+    }
+
+    @Test
+    void sendsEntriesLeftUnfinishedByThePreviousRun() throws Exception {
+        // Arrange
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096)) {
+            journal.append(mapper.writeValueAsBytes(request("replayed@ph-shoes.app")));
+        }
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").build());
+
+        // Act
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props(1, Duration.ofSeconds(1))).start()) {
+
+            // Assert
+            verify(delegate, timeout(1000)).sendEmailVerification(request("replayed@ph-shoes.app"));
+            awaitBacklog(outbox);
+        }
+    }
+
+    @Test
+    void resendsTransientFailuresAfterRetryDelay() throws Exception {
+        // Arrange
+        when(delegate.sendEmailVerification(any()))
+                .thenThrow(new NotificationSendException("connection reset", null, NotificationSendException.Reason.TRANSIENT))
+                .thenReturn(SendResult.builder().provider("ses").build());
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props(1, Duration.ofMillis(10))).start()) {
+
+            // Act
+            outbox.sendEmailVerification(request("user@ph-shoes.app"));
+
+            // Assert
+            verify(delegate, timeout(1000).times(2)).sendEmailVerification(any());
+            awaitBacklog(outbox);
+        }
+    }
+
+    @Test
+    void journalsABatchAndAcknowledgesEveryEntry() throws Exception {
+        // Arrange
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").build());
+        when(delegate.sendBatch(anyList())).thenAnswer(invocation -> accepted(invocation.getArgument(0)));
+        List<EmailRequest> batch = List.of(request("a@ph-shoes.app"), request("b@ph-shoes.app"), request("c@ph-shoes.app"));
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props(1, Duration.ofSeconds(1))).start()) {
+
+            // Act
+            List<SendResult> results = outbox.sendBatch(batch);
+
+            // Assert
+            assertThat(results).extracting(SendResult::getMessageId).containsExactly("0", "1", "2");
+            assertThat(results).allMatch(result -> SendResult.QUEUED.equals(result.getStatus()));
+            awaitBacklog(outbox);
+        }
+    }
+
+    @Test
+    void drainsQueuedEntriesThroughOneBatchSend() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.sendEmailVerification(any())).thenAnswer(invocation -> {
+            release.await();
+            return SendResult.builder().provider("ses").build();
+        });
+        when(delegate.sendBatch(anyList())).thenAnswer(invocation -> accepted(invocation.getArgument(0)));
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props(1, Duration.ofSeconds(1))).start()) {
+            outbox.sendEmailVerification(request("first@ph-shoes.app"));
+            verify(delegate, timeout(1000)).sendEmailVerification(any());
+
+            // Act
+            outbox.sendBatch(List.of(request("a@ph-shoes.app"), request("b@ph-shoes.app"), request("c@ph-shoes.app")));
+            release.countDown();
+
+            // Assert
+            verify(delegate, timeout(1000)).sendBatch(argThat(requests -> requests.size() == 3));
+            awaitBacklog(outbox);
+        }
+    }
+
+    @Test
+    void dropsAnEntryAfterMaxAttempts() throws Exception {
+        // Arrange
+        when(delegate.sendEmailVerification(any()))
+                .thenThrow(new NotificationSendException("connection reset", null, NotificationSendException.Reason.TRANSIENT));
+        NotificationOutboxProps props = props(1, Duration.ofMillis(10));
+        props.setMaxAttempts(3);
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props).start()) {
+
+            // Act
+            outbox.sendEmailVerification(request("user@ph-shoes.app"));
+
+            // Assert
+            verify(delegate, timeout(1000).times(3)).sendEmailVerification(any());
+            awaitBacklog(outbox);
+            Thread.sleep(50);
+            verify(delegate, times(3)).sendEmailVerification(any());
+        }
+    }
+
+    @Test
+    void sendsRequestsTooLargeForTheJournalStraightThrough() throws Exception {
+        // Arrange
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").messageId("m-1").build());
+        EmailRequest large = request("user@ph-shoes.app").toBuilder().textBody("x".repeat(8192)).build();
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096);
+             OutboxNotificationService outbox = new OutboxNotificationService(delegate, journal, mapper, props(1, Duration.ofSeconds(1))).start()) {
+
+            // Act
+            SendResult single = outbox.sendEmailVerification(large);
+            List<SendResult> batch = outbox.sendBatch(List.of(large));
+
+            // Assert
+            assertThat(single.getMessageId()).isEqualTo("m-1");
+            assertThat(batch).extracting(SendResult::getMessageId).containsExactly("m-1");
+            assertThat(journal.pending()).isZero();
+        }
+    }
+
+    private static NotificationOutboxProps props(int dispatchers, Duration retryDelay) {
+        NotificationOutboxProps props = new NotificationOutboxProps();
+        props.setDispatchers(dispatchers);
+        props.setRetryDelay(retryDelay);
+        return props;
+    }
+
+    private static List<SendResult> accepted(List<EmailRequest> requests) {
+        return requests.stream().map(req -> SendResult.builder().provider("ses").status(SendResult.SUCCESS).build()).toList();
+    }
+
+    private static void awaitBacklog(OutboxNotificationService outbox) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (outbox.backlog() > 0 && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(outbox.backlog()).isZero();
+    }
+
+    private static EmailRequest request(String to) {
+        return EmailRequest.builder()
+                .to(EmailAddress.builder().address(to).build())
+                .subject("Verify")
+                .textBody("Hello")
+                .build();
+    }
+}
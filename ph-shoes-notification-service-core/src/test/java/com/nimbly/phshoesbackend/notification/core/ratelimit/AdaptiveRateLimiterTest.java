@@ -0,0 +1,111 @@
+package com.nimbly.phshoesbackend.notification.core.ratelimit;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class AdaptiveRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private AdaptiveRateLimiter limiter(double initialRate, Duration maxWait) {
+        return new AdaptiveRateLimiter(initialRate, 1, 20, 1, 0.5, Duration.ofSeconds(1), maxWait, now::get);
+    }
+
+    @Test
+    void raisesRateAdditivelyOnSuccess() {
+        // Arrange
+        AdaptiveRateLimiter limiter = limiter(10, Duration.ofSeconds(1));
+
+        // Act
+        limiter.onSuccess(10);
+
+        // Assert
+        assertThat(limiter.rate()).isCloseTo(11, within(0.05));
+    }
+
+    @Test
+    void cutsRateOncePerCooldownOnThrottling() {
+        // Arrange
+        AdaptiveRateLimiter limiter = limiter(16, Duration.ofSeconds(1));
+
+        // Act
+        limiter.onThrottled();
+        limiter.onThrottled();
+        double afterBurst = limiter.rate();
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        limiter.onThrottled();
+
+        // Assert
+        assertThat(afterBurst).isEqualTo(8);
+        assertThat(limiter.rate()).isEqualTo(4);
+    }
+
+    @Test
+    void neverDropsBelowMinRateOrClimbsAboveMaxRate() {
+        // Arrange
+        AdaptiveRateLimiter limiter = limiter(2, Duration.ofSeconds(1));
+
+        // Act
+        limiter.onThrottled();
+        double floor = limiter.rate();
+        limiter.onSuccess(10_000);
+
+        // Assert
+        assertThat(floor).isEqualTo(1);
+        assertThat(limiter.rate()).isEqualTo(20);
+    }
+
+    @Test
+    void rejectsWhenReservationWaitExceedsMaxWait() {
+        // Arrange
+        AdaptiveRateLimiter limiter = limiter(10, Duration.ZERO);
+        limiter.acquire(1);
+
+        // Act / Assert
+        assertThatThrownBy(() -> limiter.acquire(1))
+                .isInstanceOf(NotificationSendException.class)
+                .satisfies(e -> assertThat(((NotificationSendException) e).isThrottled()).isTrue());
+    }
+
+    @Test
+    void throttledSendFeedsBackIntoRateAndMetrics() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AdaptiveRateLimiter limiter = limiter(10, Duration.ofSeconds(1));
+        limiter.bindTo(registry);
+
+        // Act
+        assertThatThrownBy(() -> limiter.execute(() -> {
+            throw new NotificationSendException("slow down", null, NotificationSendException.Reason.THROTTLED);
+        })).isInstanceOf(NotificationSendException.class);
+
+        // Assert
+        assertThat(limiter.rate()).isEqualTo(5);
+        assertThat(registry.get(AdaptiveRateLimiter.THROTTLED_METRIC).counter().count()).isEqualTo(1);
+        assertThat(registry.get(AdaptiveRateLimiter.RATE_METRIC).gauge().value()).isEqualTo(5);
+        assertThat(registry.get(AdaptiveRateLimiter.WAIT_METRIC).timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void asyncAcquireCompletesAfterReservedSlot() {
+        // Arrange
+        AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(100, 1, 100, 1, 0.5, Duration.ZERO, Duration.ofSeconds(1));
+        limiter.acquire(1);
+
+        // Act
+        long start = System.nanoTime();
+        limiter.acquireAsync(1).join();
+        long waited = System.nanoTime() - start;
+
+        // Assert
+        assertThat(waited).isGreaterThanOrEqualTo(Duration.ofMillis(5).toNanos());
+    }
+}
@@ -0,0 +1,76 @@
+package com.nimbly.phshoesbackend.notification.core.ratelimit;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DomainShaperTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private DomainShaper shaper(Map<String, DomainShaper.Limits> overrides) {
+        return new DomainShaper(new DomainShaper.Limits(2, 10, 3), overrides, Duration.ZERO, Duration.ofMinutes(1), now::get);
+    }
+
+    @Test
+    void allowsTheBurstThenThrottlesOnlyTheBusyDomain() {
+        // Arrange
+        DomainShaper shaper = shaper(Map.of());
+        for (int i = 0; i < 3; i++) shaper.acquire(List.of("gmail.com")).close();
+
+        // Act + Assert
+        assertThatThrownBy(() -> shaper.acquire(List.of("gmail.com")))
+                .isInstanceOf(NotificationSendException.class)
+                .satisfies(e -> assertThat(((NotificationSendException) e).isThrottled()).isTrue());
+        shaper.acquire(List.of("yahoo.com")).close();
+        now.addAndGet(Duration.ofMillis(100).toNanos());
+        shaper.acquire(List.of("gmail.com")).close();
+    }
+
+    @Test
+    void capsSendsInFlightPerDomainUsingOverrides() {
+        // Arrange
+        DomainShaper shaper = shaper(Map.of("Gmail.com", new DomainShaper.Limits(1, 1_000, 100)));
+        DomainShaper.Lease first = shaper.acquire(List.of("gmail.com"));
+
+        // Act + Assert
+        assertThatThrownBy(() -> shaper.acquire(List.of("gmail.com"))).isInstanceOf(NotificationSendException.class);
+        try (DomainShaper.Lease other = shaper.acquire(List.of("yahoo.com"))) {
+            assertThat(shaper.domains()).isEqualTo(2);
+        }
+        first.close();
+        shaper.acquire(List.of("gmail.com")).close();
+    }
+
+    @Test
+    void evictsOnlyDomainsIdleWithNothingInFlight() {
+        // Arrange
+        DomainShaper shaper = shaper(Map.of());
+        shaper.acquire(List.of("idle.example")).close();
+        DomainShaper.Lease busy = shaper.acquire(List.of("busy.example"));
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+
+        // Act
+        int evicted = shaper.sweep();
+
+        // Assert
+        assertThat(evicted).isEqualTo(1);
+        assertThat(shaper.domains()).isEqualTo(1);
+        busy.close();
+    }
+
+    @Test
+    void extractsLowerCasedDomains() {
+        // Act + Assert
+        assertThat(DomainShaper.domainOf("Someone@GMail.com")).isEqualTo("gmail.com");
+        assertThat(DomainShaper.domainOf("no-domain@")).isNull();
+        assertThat(DomainShaper.domainOf("plain")).isNull();
+    }
+}
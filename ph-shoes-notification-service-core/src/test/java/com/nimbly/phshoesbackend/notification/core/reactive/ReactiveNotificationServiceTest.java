@@ -0,0 +1,129 @@
+package com.nimbly.phshoesbackend.notification.core.reactive;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveNotificationServiceTest {
+
+    /**
+     * Completes each send only when the test says so, and tracks how many are in flight.
+     */
+    private static final class ManualNotificationService implements NotificationService {
+        final Map<String, CompletableFuture<SendResult>> pending = new ConcurrentHashMap<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        @Override
+        public SendResult sendEmailVerification(EmailRequest req) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<SendResult> sendEmailVerificationAsync(EmailRequest req) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            CompletableFuture<SendResult> future = new CompletableFuture<>();
+            pending.put(req.getRequestIdHint(), future);
+            return future.whenComplete((r, e) -> inFlight.decrementAndGet());
+        }
+
+        void complete(String id) {
+            pending.get(id).complete(SendResult.builder().messageId("msg-" + id).provider("test").build());
+        }
+
+        void fail(String id) {
+            pending.get(id).completeExceptionally(new NotificationSendException("rejected " + id));
+        }
+    }
+
+    @Test
+    void emitsInRequestOrderWithBoundedConcurrency() {
+        // Arrange
+        ManualNotificationService service = new ManualNotificationService();
+        ReactiveNotificationService reactive = new ReactiveNotificationService(service, 2);
+
+        // Act + Assert
+        StepVerifier.create(reactive.send(requests("a", "b", "c")))
+                .then(() -> assertThat(service.pending).containsOnlyKeys("a", "b"))
+                .then(() -> service.complete("b"))
+                .expectNoEvent(Duration.ofMillis(20))
+                .then(() -> service.complete("a"))
+                .assertNext(result -> assertThat(result.getMessageId()).isEqualTo("msg-a"))
+                .assertNext(result -> assertThat(result.getMessageId()).isEqualTo("msg-b"))
+                .then(() -> service.complete("c"))
+                .assertNext(result -> assertThat(result.getRequestId()).isEqualTo("c"))
+                .verifyComplete();
+        assertThat(service.maxInFlight).hasValue(2);
+    }
+
+    @Test
+    void emitsInCompletionOrderWhenUnordered() {
+        // Arrange
+        ManualNotificationService service = new ManualNotificationService();
+        ReactiveNotificationService reactive = new ReactiveNotificationService(service, 4);
+
+        // Act + Assert
+        StepVerifier.create(reactive.sendUnordered(requests("a", "b")))
+                .then(() -> service.complete("b"))
+                .assertNext(result -> assertThat(result.getRequestId()).isEqualTo("b"))
+                .then(() -> service.complete("a"))
+                .assertNext(result -> assertThat(result.getRequestId()).isEqualTo("a"))
+                .verifyComplete();
+    }
+
+    @Test
+    void signalsFailuresPerElementWithoutEndingTheStream() {
+        // Arrange
+        ManualNotificationService service = new ManualNotificationService();
+        ReactiveNotificationService reactive = new ReactiveNotificationService(service, 4);
+
+        // Act + Assert
+        StepVerifier.create(reactive.send(requests("a", "b")))
+                .then(() -> service.fail("a"))
+                .then(() -> service.complete("b"))
+                .assertNext(result -> {
+                    assertThat(result.isAccepted()).isFalse();
+                    assertThat(result.getRequestId()).isEqualTo("a");
+                    assertThat(result.getError()).isEqualTo("rejected a");
+                })
+                .assertNext(result -> assertThat(result.isAccepted()).isTrue())
+                .verifyComplete();
+    }
+
+    @Test
+    void pullsFromSourceOnlyAsDownstreamDemands() {
+        // Arrange
+        ManualNotificationService service = new ManualNotificationService();
+        ReactiveNotificationService reactive = new ReactiveNotificationService(service, 2);
+        AtomicInteger pulled = new AtomicInteger();
+        Flux<EmailRequest> source = Flux.range(0, 1000)
+                .map(i -> EmailRequest.builder().requestIdHint(String.valueOf(i)).build())
+                .doOnNext(r -> pulled.incrementAndGet());
+
+        // Act + Assert
+        StepVerifier.create(reactive.send(source), 1)
+                .then(() -> service.complete("0"))
+                .assertNext(result -> assertThat(result.getRequestId()).isEqualTo("0"))
+                .then(() -> service.complete("1"))
+                .then(() -> service.pending.keySet().forEach(service::complete))
+                .then(() -> assertThat(pulled.get()).isLessThanOrEqualTo(4))
+                .thenCancel()
+                .verify();
+    }
+
+    private static Flux<EmailRequest> requests(String... ids) {
+        return Flux.fromArray(ids).map(id -> EmailRequest.builder().requestIdHint(id).build());
+    }
+}
@@ -0,0 +1,121 @@
+package com.nimbly.phshoesbackend.notification.core.retry;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RetryExecutorTest {
+
+    private static final Duration BASE = Duration.ofMillis(1);
+    private static final Duration MAX = Duration.ofMillis(5);
+
+    @Test
+    void retriesTransientFailuresUntilSuccess() {
+        // Arrange
+        RetryExecutor retryExecutor = new RetryExecutor(3, BASE, MAX, new RetryBudget(0.2, 10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        String result = retryExecutor.execute(() -> {
+            if (attempts.incrementAndGet() < 3) throw failure(NotificationSendException.Reason.TRANSIENT);
+            return "sent";
+        });
+
+        // Assert
+        assertThat(result).isEqualTo("sent");
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryPermanentFailures() {
+        // Arrange
+        RetryExecutor retryExecutor = new RetryExecutor(3, BASE, MAX, new RetryBudget(0.2, 10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act + Assert
+        assertThatThrownBy(() -> retryExecutor.execute(() -> {
+            attempts.incrementAndGet();
+            throw failure(NotificationSendException.Reason.PERMANENT);
+        })).isInstanceOf(NotificationSendException.class);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void stopsRetryingWhenBudgetIsSpent() {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RetryExecutor retryExecutor = new RetryExecutor(5, BASE, MAX, new RetryBudget(0, 2));
+        retryExecutor.bindTo(registry);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        assertThatThrownBy(() -> retryExecutor.execute(() -> {
+            attempts.incrementAndGet();
+            throw failure(NotificationSendException.Reason.THROTTLED);
+        })).isInstanceOf(NotificationSendException.class);
+
+        // Assert
+        assertThat(attempts).hasValue(3);
+        assertThat(registry.get(RetryExecutor.RETRIES_METRIC).counter().count()).isEqualTo(2);
+        assertThat(registry.get(RetryExecutor.EXHAUSTED_METRIC).counter().count()).isEqualTo(1);
+        assertThat(registry.get(RetryExecutor.BUDGET_METRIC).gauge().value()).isZero();
+    }
+
+    @Test
+    void retriesAsyncSendsWithoutBlocking() {
+        // Arrange
+        RetryExecutor retryExecutor = new RetryExecutor(3, BASE, MAX, new RetryBudget(0.2, 10));
+        AtomicInteger attempts = new AtomicInteger();
+
+        // Act
+        CompletableFuture<String> result = retryExecutor.executeAsync(() -> attempts.incrementAndGet() == 1
+                ? CompletableFuture.failedFuture(failure(NotificationSendException.Reason.THROTTLED))
+                : CompletableFuture.completedFuture("sent"));
+
+        // Assert
+        assertThat(result.join()).isEqualTo("sent");
+        assertThat(attempts).hasValue(2);
+    }
+
+    @Test
+    void jitteredDelayStaysBetweenBaseAndCap() {
+        // Arrange
+        RetryExecutor retryExecutor = new RetryExecutor(3, BASE, MAX, new RetryBudget(0.2, 10));
+        long delay = BASE.toNanos();
+
+        // Act + Assert
+        for (int i = 0; i < 100; i++) {
+            delay = retryExecutor.nextDelay(delay);
+            assertThat(delay).isBetween(BASE.toNanos(), MAX.toNanos());
+        }
+    }
+
+    @Test
+    void budgetRefillsFromFirstAttempts() {
+        // Arrange
+        RetryBudget budget = new RetryBudget(0.5, 1);
+        budget.tryWithdraw();
+
+        // Act
+        budget.deposit();
+        boolean afterOne = budget.tryWithdraw();
+        budget.deposit();
+        budget.deposit();
+        boolean afterTwo = budget.tryWithdraw();
+
+        // Assert
+        assertThat(afterOne).isFalse();
+        assertThat(afterTwo).isTrue();
+    }
+
+    private static NotificationSendException failure(NotificationSendException.Reason reason) {
+        return new NotificationSendException("failed", null, reason);
+    }
+}
@@ -0,0 +1,154 @@
+package com.nimbly.phshoesbackend.notification.core.routing;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WeightedTransportRouterTest {
+
+    private final EmailTransportService ses = mock(EmailTransportService.class);
+    private final EmailTransportService smtp = mock(EmailTransportService.class);
+    private final ComposedEmail email = mock(ComposedEmail.class);
+
+    @BeforeEach
+    void bothTransportsCanSend() {
+        when(ses.canSend(any())).thenReturn(true);
+        when(smtp.canSend(any())).thenReturn(true);
+    }
+
+    @Test
+    void splitsByWeightWhileBackendsAreEquallyHealthy() {
+        // Arrange
+        WeightedTransportRouter router = router(10);
+
+        // Act
+        int sesFirst = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (router.choose()[0] == 0) sesFirst++;
+        }
+
+        // Assert
+        assertThat(sesFirst).isBetween(7_000, 8_000);
+    }
+
+    @Test
+    void failingBackendIsRetriedElsewhereAndThenAvoided() {
+        // Arrange
+        WeightedTransportRouter router = router(1e12);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        router.bindTo(registry);
+        when(ses.send(email)).thenThrow(new NotificationSendException("throttled", null, NotificationSendException.Reason.THROTTLED));
+        when(smtp.send(email)).thenReturn(SendResult.builder().provider("smtp").build());
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            assertThat(router.send(email).getProvider()).isEqualTo("smtp");
+        }
+
+        // Assert
+        assertThat(router.cost("ses")).isGreaterThan(router.cost("smtp"));
+        assertThat(registry.get(WeightedTransportRouter.SENDS_METRIC).tag("transport", "ses").counter().count()).isEqualTo(1);
+        assertThat(registry.get(WeightedTransportRouter.ERROR_RATE_METRIC).tag("transport", "ses").gauge().value()).isEqualTo(0.2);
+    }
+
+    @Test
+    void permanentFailuresAreNotRetriedElsewhere() {
+        // Arrange
+        WeightedTransportRouter router = new WeightedTransportRouter(
+                List.of(new WeightedTransportRouter.Route("ses", ses, 1)), 0.2, 10);
+        when(ses.send(email)).thenThrow(new NotificationSendException("bad address", null, NotificationSendException.Reason.PERMANENT));
+
+        // Act + Assert
+        assertThatThrownBy(() -> router.send(email)).hasMessage("bad address");
+        verify(smtp, never()).send(email);
+    }
+
+    @Test
+    void asyncSendRetriesOnTheOtherCandidate() {
+        // Arrange
+        WeightedTransportRouter router = router(10);
+        when(ses.sendAsync(email)).thenReturn(CompletableFuture.failedFuture(
+                new NotificationSendException("down", null, NotificationSendException.Reason.TRANSIENT)));
+        when(smtp.sendAsync(email)).thenReturn(CompletableFuture.failedFuture(
+                new NotificationSendException("down", null, NotificationSendException.Reason.TRANSIENT)));
+
+        // Act + Assert
+        assertThatThrownBy(() -> router.sendAsync(email).join()).hasCauseInstanceOf(NotificationSendException.class);
+        verify(ses).sendAsync(email);
+        verify(smtp).sendAsync(email);
+    }
+
+    @Test
+    void routesOnlyToTransportsThatCanSendTheEmail() {
+        // Arrange
+        WeightedTransportRouter router = router(10);
+        ComposedEmail templated = mock(ComposedEmail.class);
+        when(ses.canSend(templated)).thenReturn(false);
+        when(smtp.send(templated)).thenReturn(SendResult.builder().provider("smtp").build());
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            assertThat(router.send(templated).getProvider()).isEqualTo("smtp");
+        }
+
+        // Assert
+        verify(ses, never()).send(templated);
+        assertThat(router.canSend(templated)).isTrue();
+    }
+
+    @Test
+    void failsPermanentlyWhenNoTransportCanSendTheEmail() {
+        // Arrange
+        WeightedTransportRouter router = router(10);
+        when(ses.canSend(email)).thenReturn(false);
+        when(smtp.canSend(email)).thenReturn(false);
+
+        // Act + Assert
+        assertThat(router.canSend(email)).isFalse();
+        assertThatThrownBy(() -> router.send(email))
+                .isInstanceOfSatisfying(NotificationSendException.class,
+                        e -> assertThat(e.getReason()).isEqualTo(NotificationSendException.Reason.PERMANENT));
+        verify(ses, never()).send(email);
+        verify(smtp, never()).send(email);
+    }
+
+    @Test
+    void permanentFailuresDoNotRaiseTheErrorRate() {
+        // Arrange
+        WeightedTransportRouter router = router(10);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        router.bindTo(registry);
+        when(ses.send(email)).thenThrow(new NotificationSendException("bad address", null, NotificationSendException.Reason.PERMANENT));
+        when(smtp.send(email)).thenThrow(new NotificationSendException("bad address", null, NotificationSendException.Reason.PERMANENT));
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> router.send(email)).isInstanceOf(NotificationSendException.class);
+        }
+
+        // Assert
+        assertThat(registry.get(WeightedTransportRouter.ERROR_RATE_METRIC).tag("transport", "ses").gauge().value()).isZero();
+        assertThat(registry.get(WeightedTransportRouter.ERROR_RATE_METRIC).tag("transport", "smtp").gauge().value()).isZero();
+    }
+
+    private WeightedTransportRouter router(double errorPenalty) {
+        return new WeightedTransportRouter(List.of(
+                new WeightedTransportRouter.Route("ses", ses, 3),
+                new WeightedTransportRouter.Route("smtp", smtp, 1)), 0.2, errorPenalty);
+    }
+}
@@ -0,0 +1,206 @@
+package com.nimbly.phshoesbackend.notification.core.schedule;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationScheduleProps;
+import com.nimbly.phshoesbackend.notification.core.outbox.OutboxJournal;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScheduledNotificationServiceTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final NotificationService delegate = mock(NotificationService.class);
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sendsOnlyOnceTheScheduledTimeHasCome() throws Exception {
+        // Arrange
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").build());
+        try (ScheduledNotificationService scheduler = new ScheduledNotificationService(delegate, null, mapper, props(), clock::get).start()) {
+
+            // Act
+            SendResult result = scheduler.schedule(request("later@ph-shoes.app"), Instant.ofEpochMilli(clock.get() + 3_600_000));
+            clock.addAndGet(3_599_000);
+            int early = scheduler.fireDue();
+            clock.addAndGet(1_000);
+            int due = scheduler.fireDue();
+
+            // Assert
+            assertThat(result.getStatus()).isEqualTo(SendResult.QUEUED);
+            assertThat(early).isZero();
+            assertThat(due).isEqualTo(1);
+            verify(delegate, timeout(1000)).sendEmailVerification(request("later@ph-shoes.app"));
+        }
+    }
+
+    @Test
+    void cancelledSendsAreDroppedFromTheJournal() throws Exception {
+        // Arrange
+        try (ScheduledNotificationService scheduler = new ScheduledNotificationService(delegate,
+                OutboxJournal.open(directory, 4096), mapper, props(), clock::get).start()) {
+            long id = Long.parseLong(scheduler.schedule(request("cancel@ph-shoes.app"),
+                    Instant.ofEpochMilli(clock.get() + 60_000)).getMessageId());
+
+            // Act
+            boolean cancelled = scheduler.cancel(id);
+            clock.addAndGet(120_000);
+            scheduler.fireDue();
+
+            // Assert
+            assertThat(cancelled).isTrue();
+            assertThat(scheduler.pending()).isZero();
+            verify(delegate, after(200).never()).sendEmailVerification(any());
+        }
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096)) {
+            assertThat(journal.unfinished()).isEmpty();
+        }
+    }
+
+    @Test
+    void restoresPendingSendsAfterRestart() throws Exception {
+        // Arrange
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").build());
+        try (ScheduledNotificationService scheduler = new ScheduledNotificationService(delegate,
+                OutboxJournal.open(directory, 4096), mapper, props(), clock::get).start()) {
+            scheduler.schedule(request("restock@ph-shoes.app"), Instant.ofEpochMilli(clock.get() + 30_000));
+        }
+        clock.addAndGet(60_000);
+
+        // Act
+        try (ScheduledNotificationService restarted = new ScheduledNotificationService(delegate,
+                OutboxJournal.open(directory, 4096), mapper, props(), clock::get).start()) {
+            int pendingAfterReplay = restarted.pending();
+            clock.addAndGet(100);
+            restarted.fireDue();
+
+            // Assert
+            assertThat(pendingAfterReplay).isEqualTo(1);
+            verify(delegate, timeout(1000)).sendEmailVerification(request("restock@ph-shoes.app"));
+        }
+    }
+
+    @Test
+    void idsStillCancelAfterRestartAndAreNotReusedForTheNextSend() throws Exception {
+        // Arrange
+        long id;
+        try (ScheduledNotificationService scheduler = new ScheduledNotificationService(delegate,
+                OutboxJournal.open(directory, 4096), mapper, props(), clock::get).start()) {
+            id = Long.parseLong(scheduler.schedule(request("restart@ph-shoes.app"),
+                    Instant.ofEpochMilli(clock.get() + 60_000)).getMessageId());
+        }
+
+        // Act
+        try (ScheduledNotificationService restarted = new ScheduledNotificationService(delegate,
+                OutboxJournal.open(directory, 4096), mapper, props(), clock::get).start()) {
+            boolean cancelled = restarted.cancel(id);
+            long next = Long.parseLong(restarted.schedule(request("next@ph-shoes.app"),
+                    Instant.ofEpochMilli(clock.get() + 60_000)).getMessageId());
+            boolean staleCancelled = restarted.cancel(id);
+
+            // Assert
+            assertThat(cancelled).isTrue();
+            assertThat(next).isNotEqualTo(id);
+            assertThat(staleCancelled).isFalse();
+            assertThat(restarted.pending()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void replayKeepsTheNewerEntryWhenACompletedOneReusedItsSlot() throws Exception {
+        // Arrange: slot 0 held an entry whose complete was lost, then was reused by generation 1
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").build());
+        try (OutboxJournal journal = OutboxJournal.open(directory, 4096)) {
+            journal.append(record(clock.get(), 0L, request("stale@ph-shoes.app")));
+            journal.append(record(clock.get(), 1L << 32, request("live@ph-shoes.app")));
+        }
+
+        // Act
+        try (ScheduledNotificationService scheduler = new ScheduledNotificationService(delegate,
+                OutboxJournal.open(directory, 4096), mapper, props(), clock::get).start()) {
+            int pendingAfterReplay = scheduler.pending();
+            clock.addAndGet(100);
+            scheduler.fireDue();
+
+            // Assert
+            assertThat(pendingAfterReplay).isEqualTo(1);
+            verify(delegate, timeout(1000)).sendEmailVerification(request("live@ph-shoes.app"));
+            verify(delegate, after(200).never()).sendEmailVerification(request("stale@ph-shoes.app"));
+        }
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() throws Exception {
+        // Arrange
+        NotificationScheduleProps props = props();
+        props.setMaxAttempts(2);
+        props.setRetryDelay(Duration.ofSeconds(1));
+        when(delegate.sendEmailVerification(any())).thenThrow(new NotificationSendException("slow down", null,
+                NotificationSendException.Reason.THROTTLED));
+        try (ScheduledNotificationService scheduler = new ScheduledNotificationService(delegate, null, mapper, props, clock::get).start()) {
+            scheduler.schedule(request("retry@ph-shoes.app"), Instant.ofEpochMilli(clock.get()));
+
+            // Act
+            clock.addAndGet(100);
+            scheduler.fireDue();
+            verify(delegate, timeout(1000)).sendEmailVerification(any());
+            awaitPending(scheduler, 1);
+            clock.addAndGet(1_100);
+            scheduler.fireDue();
+
+            // Assert
+            verify(delegate, timeout(1000).times(2)).sendEmailVerification(any());
+            awaitPending(scheduler, 0);
+            clock.addAndGet(60_000);
+            assertThat(scheduler.fireDue()).isZero();
+            verify(delegate, after(200).times(2)).sendEmailVerification(any());
+        }
+    }
+
+    private byte[] record(long sendAt, long id, EmailRequest request) throws Exception {
+        byte[] json = mapper.writeValueAsBytes(request);
+        return ByteBuffer.allocate(2 * Long.BYTES + json.length).putLong(sendAt).putLong(id).put(json).array();
+    }
+
+    private static void awaitPending(ScheduledNotificationService scheduler, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(1).toNanos();
+        while (scheduler.pending() != expected && System.nanoTime() < deadline) Thread.sleep(5);
+        assertThat(scheduler.pending()).isEqualTo(expected);
+    }
+
+    private static NotificationScheduleProps props() {
+        NotificationScheduleProps props = new NotificationScheduleProps();
+        props.setTick(Duration.ofMillis(100));
+        props.setSenders(1);
+        return props;
+    }
+
+    private static EmailRequest request(String to) {
+        return EmailRequest.builder()
+                .to(EmailAddress.builder().address(to).build())
+                .subject("Back in stock")
+                .textBody("Hello")
+                .build();
+    }
+}
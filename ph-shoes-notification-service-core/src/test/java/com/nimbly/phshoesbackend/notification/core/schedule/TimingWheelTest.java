@@ -0,0 +1,75 @@
+package com.nimbly.phshoesbackend.notification.core.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEachEntryOnTheTickItIsDueAcrossLevels() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(10, 2, 3, 0);
+        wheel.schedule(25, "level0");
+        wheel.schedule(170, "level1");
+        wheel.schedule(430, "level2");
+        wheel.schedule(5_000, "beyond-range");
+        List<String> fired = new ArrayList<>();
+
+        // Act + Assert
+        wheel.advanceTo(20, fired::add);
+        assertThat(fired).isEmpty();
+        wheel.advanceTo(30, fired::add);
+        assertThat(fired).containsExactly("level0");
+        wheel.advanceTo(169, fired::add);
+        assertThat(fired).containsExactly("level0");
+        wheel.advanceTo(170, fired::add);
+        wheel.advanceTo(429, fired::add);
+        assertThat(fired).containsExactly("level0", "level1");
+        wheel.advanceTo(430, fired::add);
+        wheel.advanceTo(4_999, fired::add);
+        assertThat(fired).containsExactly("level0", "level1", "level2");
+        wheel.advanceTo(5_000, fired::add);
+        assertThat(fired).containsExactly("level0", "level1", "level2", "beyond-range");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void cancelledEntriesNeverFire() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 2, 0);
+        TimingWheel.Timeout<String> cancelled = wheel.schedule(500, "cancelled");
+        wheel.schedule(500, "kept");
+        List<String> fired = new ArrayList<>();
+
+        // Act
+        boolean first = wheel.cancel(cancelled);
+        boolean second = wheel.cancel(cancelled);
+        wheel.advanceTo(1_000, fired::add);
+
+        // Assert
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(fired).containsExactly("kept");
+    }
+
+    @Test
+    void overdueEntriesFireOnTheNextTickInDeadlineOrder() {
+        // Arrange
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 4, 1_000_000);
+        wheel.schedule(5_000, "overdue");
+        wheel.schedule(1_000_250, "later");
+        wheel.schedule(1_000_050, "sooner");
+        List<String> fired = new ArrayList<>();
+
+        // Act
+        int firedCount = wheel.advanceTo(1_000_300, fired::add);
+
+        // Assert
+        assertThat(firedCount).isEqualTo(3);
+        assertThat(fired).containsExactly("overdue", "sooner", "later");
+    }
+}
@@ -1,5 +1,8 @@
 package com.nimbly.phshoesbackend.notification.core.service.impl;
 
+import com.nimbly.phshoesbackend.notification.core.execution.NotificationExecutor;
+import com.nimbly.phshoesbackend.notification.core.idempotency.IdempotencyGuard;
+import com.nimbly.phshoesbackend.notification.core.idempotency.InMemoryIdempotencyStore;
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
@@ -8,10 +11,14 @@ import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionServi
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class CoreNotificationServiceImplTest {
@@ -51,4 +58,117 @@ class CoreNotificationServiceImplTest {
         verify(compositionService).compose(request);
         verify(transportService).send(composedEmail);
     }
+
+    @Test
+    void composesAndSendsEmailAsync() {
+        // Arrange
+        EmailCompositionService compositionService = mock(EmailCompositionService.class);
+        EmailTransportService transportService = mock(EmailTransportService.class);
+        CoreNotificationServiceImpl service = new CoreNotificationServiceImpl(compositionService, transportService);
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .build();
+        ComposedEmail composedEmail = new ComposedEmail(
+                request,
+                "raw",
+                "no-reply@ph-shoes.app",
+                List.of("user@ph-shoes.app"),
+                List.of(),
+                List.of(),
+                "Verify",
+                null
+        );
+        CompletableFuture<SendResult> pending = new CompletableFuture<>();
+        when(compositionService.compose(request)).thenReturn(composedEmail);
+        when(transportService.sendAsync(composedEmail)).thenReturn(pending);
+
+        // Act
+        CompletableFuture<SendResult> result = service.sendEmailVerificationAsync(request);
+
+        // Assert
+        assertThat(result).isSameAs(pending);
+        verify(transportService, never()).send(any());
+    }
+
+    @Test
+    void sendsAsyncOnExecutorThreadWhenConfigured() {
+        // Arrange
+        EmailCompositionService compositionService = mock(EmailCompositionService.class);
+        EmailTransportService transportService = mock(EmailTransportService.class);
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .build();
+        ComposedEmail composedEmail = new ComposedEmail(
+                request, "raw", "no-reply@ph-shoes.app", List.of("user@ph-shoes.app"), List.of(), List.of(), "Verify", null);
+        AtomicBoolean sentOnVirtualThread = new AtomicBoolean();
+        when(compositionService.compose(request)).thenReturn(composedEmail);
+        when(transportService.send(composedEmail)).thenAnswer(invocation -> {
+            sentOnVirtualThread.set(Thread.currentThread().isVirtual());
+            return SendResult.builder().messageId("vt-1").provider("smtp").build();
+        });
+
+        try (NotificationExecutor executor = NotificationExecutor.virtualThreads(4, Duration.ofSeconds(1))) {
+            CoreNotificationServiceImpl service = new CoreNotificationServiceImpl(compositionService, transportService, executor);
+
+            // Act
+            SendResult result = service.sendEmailVerificationAsync(request).join();
+
+            // Assert
+            assertThat(result.getMessageId()).isEqualTo("vt-1");
+            assertThat(sentOnVirtualThread).isTrue();
+            verify(transportService, never()).sendAsync(any());
+        }
+    }
+
+    @Test
+    void composesBatchAndSendsItInOneTransportCall() {
+        // Arrange
+        EmailCompositionService compositionService = mock(EmailCompositionService.class);
+        EmailTransportService transportService = mock(EmailTransportService.class);
+        CoreNotificationServiceImpl service = new CoreNotificationServiceImpl(compositionService, transportService);
+        EmailRequest good = EmailRequest.builder().subject("A").build();
+        EmailRequest bad = EmailRequest.builder().subject("B").build();
+        ComposedEmail composed = new ComposedEmail(good, "raw", "no-reply@ph-shoes.app", List.of(), List.of(), List.of(), "A", null);
+        when(compositionService.compose(good)).thenReturn(composed);
+        when(compositionService.compose(bad)).thenThrow(new IllegalArgumentException("no recipients"));
+        when(transportService.sendBatch(List.of(composed)))
+                .thenReturn(List.of(SendResult.builder().messageId("id-a").status(SendResult.SUCCESS).build()));
+
+        // Act
+        List<SendResult> results = service.sendBatch(List.of(bad, good));
+
+        // Assert
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0).isAccepted()).isFalse();
+        assertThat(results.get(0).getError()).isEqualTo("no recipients");
+        assertThat(results.get(1).getMessageId()).isEqualTo("id-a");
+        verify(transportService, never()).send(any());
+    }
+
+    @Test
+    void batchSendsRepeatedKeyOnceAndReplaysItLater() {
+        // Arrange
+        EmailCompositionService compositionService = mock(EmailCompositionService.class);
+        EmailTransportService transportService = mock(EmailTransportService.class);
+        IdempotencyGuard guard = new IdempotencyGuard(new InMemoryIdempotencyStore(16), Duration.ofMinutes(5));
+        CoreNotificationServiceImpl service = new CoreNotificationServiceImpl(compositionService, transportService, null, guard);
+        EmailRequest first = EmailRequest.builder().subject("A").requestIdHint("req-1").build();
+        EmailRequest retry = EmailRequest.builder().subject("A").requestIdHint("req-1").build();
+        ComposedEmail composed = new ComposedEmail(first, "raw", "no-reply@ph-shoes.app", List.of(), List.of(), List.of(), "A", null);
+        when(compositionService.compose(first)).thenReturn(composed);
+        when(transportService.sendBatch(List.of(composed)))
+                .thenReturn(List.of(SendResult.builder().messageId("id-a").status(SendResult.SUCCESS).build()));
+
+        // Act
+        List<SendResult> results = service.sendBatch(List.of(first, retry));
+        SendResult later = service.sendEmailVerification(retry);
+
+        // Assert
+        assertThat(results).extracting(SendResult::getMessageId).containsExactly("id-a", "id-a");
+        assertThat(later.getMessageId()).isEqualTo("id-a");
+        verify(transportService).sendBatch(List.of(composed));
+        verify(transportService, never()).send(any());
+    }
 }
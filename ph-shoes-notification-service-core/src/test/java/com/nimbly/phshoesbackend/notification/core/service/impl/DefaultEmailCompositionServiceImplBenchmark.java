@@ -0,0 +1,74 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Templated verification send as seen by SesV2EmailTransport: {@code templatePath} reads only the fields the
+ * SES Template content needs, {@code eagerRender} additionally forces the raw MIME that compose() used to
+ * build unconditionally.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DefaultEmailCompositionServiceImplBenchmark {
+
+    private DefaultEmailCompositionServiceImpl composer;
+    private EmailRequest request;
+
+    @Setup
+    public void setUp() {
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("PH Shoes <no-reply@ph-shoes.app>");
+        props.setSubjectPrefix("[PH]");
+        props.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
+        EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
+        composer = new DefaultEmailCompositionServiceImpl(props, new EmailSubjectFormatter(), addressFormatter,
+                new RawMimeBuilder(props, addressFormatter));
+        request = EmailRequest.builder()
+                .to(EmailAddress.builder().name("Juan Dela Cruz").address("juan@example.com").build())
+                .subject("Verify your email")
+                .templateId("verify-email")
+                .templateVar("name", "Juan")
+                .templateVar("link", "https://ph-shoes.app/verify?token=abc123")
+                .textBody("Hi Juan, verify your email: https://ph-shoes.app/verify?token=abc123")
+                .htmlBody("<p>Hi Juan, <a href=\"https://ph-shoes.app/verify?token=abc123\">verify</a></p>")
+                .build();
+    }
+
+    @Benchmark
+    public void templatePath(Blackhole bh) {
+        ComposedEmail email = composer.compose(request);
+        bh.consume(email.getTo());
+        bh.consume(email.getFrom());
+        bh.consume(email.getRequest().getTemplateVars());
+    }
+
+    @Benchmark
+    public void eagerRender(Blackhole bh) {
+        ComposedEmail email = composer.compose(request);
+        bh.consume(email.getTo());
+        bh.consume(email.getFrom());
+        bh.consume(email.getRequest().getTemplateVars());
+        bh.consume(email.getRawMimeBytes());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(DefaultEmailCompositionServiceImplBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -4,12 +4,21 @@ import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.template.CompiledTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.EmailTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
 import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
 import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
 import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
 import org.junit.jupiter.api.Test;
 
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
 
 class DefaultEmailCompositionServiceImplTest {
     @Test
@@ -18,6 +27,7 @@ class DefaultEmailCompositionServiceImplTest {
         NotificationEmailProps props = new NotificationEmailProps();
         props.setFrom("no-reply@ph-shoes.app");
         props.setSubjectPrefix("[PH]");
+        props.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
         EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
         EmailSubjectFormatter subjectFormatter = new EmailSubjectFormatter();
         RawMimeBuilder rawMimeBuilder = new RawMimeBuilder(props, addressFormatter);
@@ -41,6 +51,106 @@ class DefaultEmailCompositionServiceImplTest {
         assertThat(composed.getSubject()).isEqualTo("[PH] Verify");
         assertThat(composed.getFrom()).isEqualTo("support@ph-shoes.app");
         assertThat(composed.getTo()).containsExactly("user@ph-shoes.app");
+        assertThat(composed.getHeaders()).containsExactly(entry("List-Unsubscribe", "<mailto:unsubscribe@ph-shoes.app>"));
         assertThat(composed.getRawMime()).contains("Subject: [PH] Verify");
+        assertThat(composed.getRawMime()).contains("List-Unsubscribe: <mailto:unsubscribe@ph-shoes.app>\r\n");
+    }
+
+    @Test
+    void rendersRawMimeLazilyAndOnlyOnce() {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("no-reply@ph-shoes.app");
+        EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
+        RawMimeBuilder rawMimeBuilder = spy(new RawMimeBuilder(props, addressFormatter));
+        DefaultEmailCompositionServiceImpl composer = new DefaultEmailCompositionServiceImpl(
+                props,
+                new EmailSubjectFormatter(),
+                addressFormatter,
+                rawMimeBuilder
+        );
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .templateId("verify-email")
+                .build();
+
+        // Act
+        ComposedEmail composed = composer.compose(request);
+
+        // Assert
+        assertThat(composed.isRawMimeMaterialized()).isFalse();
+        verify(rawMimeBuilder, never()).buildBytes(any(EmailRequest.class), anyString(), any());
+
+        byte[] first = composed.getRawMimeBytes();
+        byte[] second = composed.getRawMimeBytes();
+
+        assertThat(second).isSameAs(first);
+        assertThat(composed.isRawMimeMaterialized()).isTrue();
+        verify(rawMimeBuilder, times(1)).buildBytes(request, "Verify", null);
+    }
+
+    @Test
+    void rendersLocalTemplateIntoRawMime() {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("no-reply@ph-shoes.app");
+        props.setSubjectPrefix("[PH]");
+        EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
+        LocalTemplateEngine templates = mock(LocalTemplateEngine.class);
+        when(templates.find("verify-email")).thenReturn(Optional.of(new EmailTemplate(
+                "verify-email",
+                CompiledTemplate.compile("verify-email.subject", "Verify, {{name}}", false),
+                CompiledTemplate.compile("verify-email.txt", "Code: {{code}}", false),
+                CompiledTemplate.compile("verify-email.html", "<p>Code: <b>{{code}}</b></p>", true))));
+        DefaultEmailCompositionServiceImpl composer = new DefaultEmailCompositionServiceImpl(
+                props,
+                new EmailSubjectFormatter(),
+                addressFormatter,
+                new RawMimeBuilder(props, addressFormatter),
+                templates
+        );
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .templateId("verify-email")
+                .templateVar("name", "Juan")
+                .templateVar("code", "<123>")
+                .textBody("ignored")
+                .build();
+
+        // Act
+        ComposedEmail composed = composer.compose(request);
+
+        // Assert
+        assertThat(composed.isTemplateRendered()).isTrue();
+        assertThat(composed.getSubject()).isEqualTo("[PH] Verify, Juan");
+        assertThat(composed.getRawMime())
+                .contains("Subject: [PH] Verify, Juan\r\n")
+                .contains("Content-Type: text/plain; charset=UTF-8\r\n\r\nCode: <123>\r\n")
+                .contains("Content-Type: text/html; charset=UTF-8\r\n\r\n<p>Code: <b>&lt;123&gt;</b></p>\r\n")
+                .doesNotContain("ignored");
+    }
+
+    @Test
+    void leavesUnknownTemplateIdToTheProvider() {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
+        LocalTemplateEngine templates = mock(LocalTemplateEngine.class);
+        when(templates.find("ses-template")).thenReturn(Optional.empty());
+        DefaultEmailCompositionServiceImpl composer = new DefaultEmailCompositionServiceImpl(
+                props, new EmailSubjectFormatter(), addressFormatter, new RawMimeBuilder(props, addressFormatter), templates);
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .templateId("ses-template")
+                .build();
+
+        // Act
+        ComposedEmail composed = composer.compose(request);
+
+        // Assert
+        assertThat(composed.isTemplateRendered()).isFalse();
+        assertThat(composed.getSubject()).isEqualTo("Verify");
     }
 }
@@ -0,0 +1,100 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.DomainShaper;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DomainShapedNotificationServiceTest {
+
+    private final NotificationService delegate = mock(NotificationService.class);
+    private final DomainShaper shaper = new DomainShaper(new DomainShaper.Limits(4, 0.001, 2), Map.of(),
+            Duration.ZERO, Duration.ofMinutes(10));
+    private final DomainShapedNotificationService service = new DomainShapedNotificationService(delegate, shaper);
+
+    @Test
+    void holdsBackOnlyRecipientsOfTheExhaustedDomain() {
+        // Arrange
+        when(delegate.sendEmailVerification(any())).thenReturn(SendResult.builder().provider("ses").build());
+        service.sendEmailVerification(request("a@gmail.com"));
+        service.sendEmailVerification(request("b@gmail.com"));
+
+        // Act
+        SendResult other = service.sendEmailVerification(request("c@yahoo.com"));
+
+        // Assert
+        assertThat(other.getProvider()).isEqualTo("ses");
+        assertThatThrownBy(() -> service.sendEmailVerification(request("d@GMAIL.com")))
+                .isInstanceOf(NotificationSendException.class);
+    }
+
+    @Test
+    void throttlesOnlyTheEntriesPastTheDomainBurst() {
+        // Arrange
+        when(delegate.sendBatch(anyList())).thenAnswer(invocation -> accepted(invocation.getArgument(0)));
+        List<EmailRequest> batch = List.of(request("a@gmail.com"), request("b@gmail.com"), request("c@gmail.com"),
+                request("d@yahoo.com"));
+
+        // Act
+        List<SendResult> results = service.sendBatch(batch);
+
+        // Assert
+        assertThat(results).extracting(SendResult::getStatus)
+                .containsExactly(SendResult.SUCCESS, SendResult.SUCCESS, SendResult.THROTTLED, SendResult.SUCCESS);
+        assertThat(shaper.domains()).isEqualTo(2);
+    }
+
+    @Test
+    void spreadsABatchLargerThanTheBurstOverTime() {
+        // Arrange
+        DomainShaper paced = new DomainShaper(new DomainShaper.Limits(4, 100, 5), Map.of(), Duration.ofSeconds(5),
+                Duration.ofMinutes(10));
+        List<Long> sentAt = new CopyOnWriteArrayList<>();
+        when(delegate.sendBatch(anyList())).thenAnswer(invocation -> {
+            sentAt.add(System.nanoTime());
+            return accepted(invocation.getArgument(0));
+        });
+        List<EmailRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) batch.add(request("user" + i + "@gmail.com"));
+
+        // Act
+        List<SendResult> results = new DomainShapedNotificationService(delegate, paced).sendBatch(batch);
+
+        // Assert
+        assertThat(results).hasSize(20).allMatch(SendResult::isAccepted);
+        verify(delegate, times(4)).sendBatch(argThat(chunk -> chunk.size() == 5));
+        // Three chunks past the burst at 100/s: at least 5 x 10ms apart each.
+        assertThat(Duration.ofNanos(sentAt.get(3) - sentAt.get(0))).isGreaterThanOrEqualTo(Duration.ofMillis(140));
+    }
+
+    private static List<SendResult> accepted(List<EmailRequest> requests) {
+        return requests.stream().map(req -> SendResult.builder().provider("ses").status(SendResult.SUCCESS).build()).toList();
+    }
+
+    private static EmailRequest request(String to) {
+        return EmailRequest.builder()
+                .to(EmailAddress.builder().address(to).build())
+                .subject("Sale")
+                .textBody("Hello")
+                .build();
+    }
+}
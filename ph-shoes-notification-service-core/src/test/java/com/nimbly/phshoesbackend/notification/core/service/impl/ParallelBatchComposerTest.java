@@ -0,0 +1,110 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelBatchComposerTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void emitsInInputOrderOnCallingThreadAcrossWindows() {
+        // Arrange
+        ParallelBatchComposer composer = new ParallelBatchComposer(pool, 16, true);
+        List<Integer> inputs = IntStream.range(0, 200).boxed().toList();
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        List<String> emitted = new ArrayList<>();
+        Thread caller = Thread.currentThread();
+        AtomicInteger foreignSinkCalls = new AtomicInteger();
+
+        // Act
+        composer.composeAll(inputs, i -> {
+            workers.add(Thread.currentThread());
+            sleepMicros(ThreadLocalRandom.current().nextInt(500));
+            return email("msg-" + i);
+        }, email -> {
+            if (Thread.currentThread() != caller) foreignSinkCalls.incrementAndGet();
+            assertThat(email.isRawMimeMaterialized()).isTrue();
+            emitted.add(email.getSubject());
+        });
+
+        // Assert
+        assertThat(emitted).containsExactlyElementsOf(inputs.stream().map(i -> "msg-" + i).toList());
+        assertThat(foreignSinkCalls).hasValue(0);
+        assertThat(workers).doesNotContain(caller);
+    }
+
+    @Test
+    void readsAtMostTwoWindowsAhead() {
+        // Arrange
+        ParallelBatchComposer composer = new ParallelBatchComposer(pool, 10, false);
+        AtomicInteger read = new AtomicInteger();
+        Iterable<Integer> inputs = () -> IntStream.range(0, 100).peek(i -> read.incrementAndGet()).iterator();
+        List<Integer> readAtEmit = new ArrayList<>();
+        AtomicInteger emitted = new AtomicInteger();
+
+        // Act
+        composer.composeAll(inputs, i -> email("msg-" + i), email -> {
+            emitted.incrementAndGet();
+            readAtEmit.add(read.get() - emitted.get());
+        });
+
+        // Assert
+        assertThat(emitted).hasValue(100);
+        assertThat(readAtEmit).allSatisfy(ahead -> assertThat(ahead).isLessThan(20));
+    }
+
+    @Test
+    void rethrowsFirstFailureAndStopsReading() {
+        // Arrange
+        ParallelBatchComposer composer = new ParallelBatchComposer(pool, 10, false);
+        AtomicInteger read = new AtomicInteger();
+        Iterable<Integer> inputs = () -> IntStream.range(0, 1000).peek(i -> read.incrementAndGet()).iterator();
+        List<String> emitted = new ArrayList<>();
+
+        // Act + Assert
+        assertThatThrownBy(() -> composer.composeAll(inputs, i -> {
+            if (i == 25) throw new IllegalStateException("boom");
+            return email("msg-" + i);
+        }, email -> emitted.add(email.getSubject())))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("boom");
+        assertThat(emitted).hasSize(20);
+        assertThat(read.get()).isLessThanOrEqualTo(30);
+    }
+
+    private static ComposedEmail email(String subject) {
+        return ComposedEmail.lazy(EmailRequest.builder().subject(subject).build(),
+                () -> subject.getBytes(StandardCharsets.UTF_8), "from@ph-shoes.app", List.of(), List.of(), List.of(),
+                subject, Map.of());
+    }
+
+    private static void sleepMicros(int micros) {
+        try {
+            Thread.sleep(0, micros * 1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
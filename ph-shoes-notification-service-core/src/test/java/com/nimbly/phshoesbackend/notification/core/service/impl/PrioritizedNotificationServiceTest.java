@@ -0,0 +1,125 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.execution.PriorityDispatcher;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailPriority;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PrioritizedNotificationServiceTest {
+
+    private final NotificationService delegate = mock(NotificationService.class);
+    private final PriorityDispatcher dispatcher = mock(PriorityDispatcher.class);
+    private final PrioritizedNotificationService service = new PrioritizedNotificationService(delegate, dispatcher);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void splitsBatchIntoOneTaskPerLane() {
+        // Arrange
+        EmailRequest bulk = request(EmailPriority.BULK);
+        EmailRequest high = request(EmailPriority.HIGH);
+        EmailRequest normal = request(null);
+        when(delegate.sendBatch(List.of(bulk, bulk))).thenReturn(List.of(
+                SendResult.builder().messageId("bulk-1").build(), SendResult.builder().messageId("bulk-2").build()));
+        when(delegate.sendBatch(List.of(high))).thenReturn(List.of(SendResult.builder().messageId("high").build()));
+        when(delegate.sendBatch(List.of(normal))).thenReturn(List.of(SendResult.builder().messageId("normal").build()));
+        when(dispatcher.submit(any(), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(1)).get()));
+
+        // Act
+        List<SendResult> results = service.sendBatch(List.of(bulk, high, normal, bulk));
+
+        // Assert
+        assertThat(results).extracting(SendResult::getMessageId).containsExactly("bulk-1", "high", "normal", "bulk-2");
+        verify(dispatcher).submit(eq(EmailPriority.HIGH), any());
+        verify(dispatcher).submit(eq(EmailPriority.NORMAL), any());
+        verify(dispatcher).submit(eq(EmailPriority.BULK), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failsOnlyTheEntriesOfALaneThatRejectedItsPart() {
+        // Arrange
+        EmailRequest bulk = request(EmailPriority.BULK);
+        EmailRequest high = request(EmailPriority.HIGH);
+        when(delegate.sendBatch(List.of(high))).thenReturn(List.of(SendResult.builder().messageId("high").build()));
+        when(dispatcher.submit(eq(EmailPriority.HIGH), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(1)).get()));
+        when(dispatcher.submit(eq(EmailPriority.BULK), any())).thenThrow(new RejectedExecutionException("bulk lane full: 1 queued"));
+
+        // Act
+        List<SendResult> results = service.sendBatch(List.of(bulk, high));
+
+        // Assert
+        assertThat(results.get(0).isAccepted()).isFalse();
+        assertThat(results.get(0).getError()).contains("bulk lane full");
+        assertThat(results.get(1).getMessageId()).isEqualTo("high");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void singleSendWithoutPriorityGoesInTheHighLane() {
+        // Arrange
+        EmailRequest request = request(null);
+        when(delegate.sendEmailVerification(request)).thenReturn(SendResult.builder().provider("ses").build());
+        when(dispatcher.submit(eq(EmailPriority.HIGH), any()))
+                .thenAnswer(invocation -> CompletableFuture.completedFuture(((Supplier<?>) invocation.getArgument(1)).get()));
+
+        // Act
+        SendResult result = service.sendEmailVerification(request);
+
+        // Assert
+        assertThat(result.getProvider()).isEqualTo("ses");
+        verify(dispatcher).submit(eq(EmailPriority.HIGH), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void asyncSendSubmitsTheDelegatesAsyncSend() {
+        // Arrange
+        EmailRequest request = request(EmailPriority.NORMAL);
+        when(delegate.sendEmailVerificationAsync(request))
+                .thenReturn(CompletableFuture.completedFuture(SendResult.builder().provider("ses").build()));
+        when(dispatcher.submitAsync(eq(EmailPriority.NORMAL), any()))
+                .thenAnswer(invocation -> ((Supplier<CompletableFuture<?>>) invocation.getArgument(1)).get());
+
+        // Act
+        SendResult result = service.sendEmailVerificationAsync(request).join();
+
+        // Assert
+        assertThat(result.getProvider()).isEqualTo("ses");
+        verify(delegate).sendEmailVerificationAsync(request);
+        verify(delegate, never()).sendEmailVerification(any());
+    }
+
+    @Test
+    void reportsFullLaneAsSendFailure() {
+        // Arrange
+        when(dispatcher.submit(any(), any())).thenThrow(new RejectedExecutionException("bulk lane full: 1 queued"));
+
+        // Act + Assert
+        assertThatThrownBy(() -> service.sendEmailVerification(request(EmailPriority.BULK)))
+                .isInstanceOf(NotificationSendException.class)
+                .hasMessageContaining("bulk lane full");
+    }
+
+    private static EmailRequest request(EmailPriority priority) {
+        return EmailRequest.builder().subject("Sale").priority(priority).build();
+    }
+}
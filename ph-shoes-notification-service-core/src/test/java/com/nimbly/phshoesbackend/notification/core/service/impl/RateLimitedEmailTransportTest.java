@@ -0,0 +1,89 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.ratelimit.AdaptiveRateLimiter;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RateLimitedEmailTransportTest {
+
+    private final AdaptiveRateLimiter limiter =
+            new AdaptiveRateLimiter(1000, 1, 1000, 1, 0.5, Duration.ofMinutes(1), Duration.ofSeconds(1));
+    private final EmailTransportService delegate = mock(EmailTransportService.class);
+    private final RateLimitedEmailTransport transport = new RateLimitedEmailTransport(delegate, limiter);
+    private final ComposedEmail email = mock(ComposedEmail.class);
+
+    @Test
+    void throttledSendCutsRate() {
+        // Arrange
+        when(delegate.send(email)).thenThrow(
+                new NotificationSendException("slow down", null, NotificationSendException.Reason.THROTTLED));
+
+        // Act
+        assertThatThrownBy(() -> transport.send(email)).isInstanceOf(NotificationSendException.class);
+
+        // Assert
+        assertThat(limiter.rate()).isEqualTo(500);
+    }
+
+    @Test
+    void otherFailuresLeaveRateAlone() {
+        // Arrange
+        when(delegate.sendAsync(email)).thenReturn(CompletableFuture.failedFuture(new NotificationSendException("bad address")));
+
+        // Act
+        CompletableFuture<SendResult> result = transport.sendAsync(email);
+
+        // Assert
+        assertThat(result).isCompletedExceptionally();
+        assertThat(limiter.rate()).isEqualTo(1000);
+    }
+
+    @Test
+    void throttledBatchEntriesCutRate() {
+        // Arrange
+        when(delegate.sendBatch(List.of(email, email))).thenReturn(List.of(
+                SendResult.builder().status(SendResult.SUCCESS).build(),
+                SendResult.builder().status(SendResult.THROTTLED).build()));
+
+        // Act
+        List<SendResult> results = transport.sendBatch(List.of(email, email));
+
+        // Assert
+        assertThat(results).hasSize(2);
+        assertThat(limiter.rate()).isEqualTo(500);
+    }
+
+    @Test
+    void largeBatchTakesPermitsPerChunk() {
+        // Arrange
+        when(delegate.sendBatch(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream()
+                .map(ignored -> SendResult.builder().status(SendResult.SUCCESS).build())
+                .toList());
+        List<ComposedEmail> batch = Collections.nCopies(120, email);
+
+        // Act
+        List<SendResult> results = transport.sendBatch(batch);
+
+        // Assert
+        assertThat(results).hasSize(120);
+        verify(delegate, times(2)).sendBatch(argThat(chunk -> chunk.size() == RateLimitedEmailTransport.MAX_CHUNK));
+        verify(delegate).sendBatch(argThat(chunk -> chunk.size() == 20));
+    }
+}
@@ -0,0 +1,95 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryBudget;
+import com.nimbly.phshoesbackend.notification.core.retry.RetryExecutor;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RetryingEmailTransportTest {
+
+    private final RetryExecutor retryExecutor =
+            new RetryExecutor(3, Duration.ofMillis(1), Duration.ofMillis(5), new RetryBudget(0.2, 10));
+    private final EmailTransportService delegate = mock(EmailTransportService.class);
+    private final RetryingEmailTransport transport = new RetryingEmailTransport(delegate, retryExecutor);
+
+    @Test
+    void retriesWithTheSameComposedBytes() {
+        // Arrange
+        AtomicInteger renders = new AtomicInteger();
+        ComposedEmail email = ComposedEmail.lazy(EmailRequest.builder().build(),
+                () -> {
+                    renders.incrementAndGet();
+                    return new byte[]{1};
+                },
+                "no-reply@ph-shoes.app", List.of("user@ph-shoes.app"), List.of(), List.of(), "Verify", null);
+        AtomicInteger attempts = new AtomicInteger();
+        when(delegate.send(email)).thenAnswer(invocation -> {
+            email.getRawMimeBytes();
+            if (attempts.incrementAndGet() == 1) {
+                throw new NotificationSendException("timeout", null, NotificationSendException.Reason.TRANSIENT);
+            }
+            return SendResult.builder().messageId("id-1").build();
+        });
+
+        // Act
+        SendResult result = transport.send(email);
+
+        // Assert
+        assertThat(result.getMessageId()).isEqualTo("id-1");
+        assertThat(attempts).hasValue(2);
+        assertThat(renders).hasValue(1);
+    }
+
+    @Test
+    void resendsOnlyThrottledBatchEntries() {
+        // Arrange
+        ComposedEmail first = mock(ComposedEmail.class);
+        ComposedEmail second = mock(ComposedEmail.class);
+        when(delegate.sendBatch(List.of(first, second))).thenReturn(List.of(
+                SendResult.builder().messageId("id-1").status(SendResult.SUCCESS).build(),
+                SendResult.builder().status(SendResult.THROTTLED).build()));
+        when(delegate.sendBatch(List.of(second))).thenReturn(List.of(
+                SendResult.builder().messageId("id-2").status(SendResult.SUCCESS).build()));
+
+        // Act
+        List<SendResult> results = transport.sendBatch(List.of(first, second));
+
+        // Assert
+        assertThat(results).extracting(SendResult::getMessageId).containsExactly("id-1", "id-2");
+        verify(delegate, times(1)).sendBatch(List.of(second));
+    }
+
+    @Test
+    void resendsTransientBatchFailuresButNotPermanentOnes() {
+        // Arrange
+        ComposedEmail first = mock(ComposedEmail.class);
+        ComposedEmail second = mock(ComposedEmail.class);
+        when(delegate.sendBatch(List.of(first, second))).thenReturn(List.of(
+                SendResult.failed(null, new NotificationSendException("timeout", null, NotificationSendException.Reason.TRANSIENT)),
+                SendResult.failed(null, new NotificationSendException("bad address", null, NotificationSendException.Reason.PERMANENT))));
+        when(delegate.sendBatch(List.of(first))).thenReturn(List.of(
+                SendResult.builder().messageId("id-1").status(SendResult.SUCCESS).build()));
+
+        // Act
+        List<SendResult> results = transport.sendBatch(List.of(first, second));
+
+        // Assert
+        assertThat(results.get(0).getMessageId()).isEqualTo("id-1");
+        assertThat(results.get(1).getStatus()).isEqualTo(SendResult.FAILED);
+        verify(delegate, times(1)).sendBatch(List.of(first));
+    }
+}
@@ -0,0 +1,135 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.MergeRecipient;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTemplateProps;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
+import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.MimeOutputBuffer;
+import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fan-out of one price-drop email to {@value #RECIPIENTS} recipients, reported per recipient:
+ * {@code perRecipient} composes {@code recipient.applyTo(shared)} for each one (the pre-merge approach),
+ * {@code spliced} composes from a {@link SplicedMailMerge} and materialises each message, and
+ * {@code splicedToSink} streams each message into a reused buffer, as a transport writing to a socket would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SplicedMailMergeBenchmark {
+
+    static final int RECIPIENTS = 1000;
+
+    @Param({"0", "65536"})
+    public int attachmentBytes;
+
+    private Path templateDir;
+    private DefaultEmailCompositionServiceImpl composer;
+    private EmailRequest shared;
+    private List<MergeRecipient> recipients;
+    private MimeOutputBuffer sink;
+
+    @Setup
+    public void setUp() throws IOException {
+        templateDir = Files.createTempDirectory("merge-bench-templates");
+        Files.writeString(templateDir.resolve("price-drop.subject"), "{{name}}, {{item}} just dropped to {{price}}");
+        Files.writeString(templateDir.resolve("price-drop.txt"), ("Hi {{name}},\n\n{{item}} is now {{price}}. "
+                + "Sizes are limited, so grab yours before the drop ends.\n").repeat(4));
+        Files.writeString(templateDir.resolve("price-drop.html"), ("<p>Hi {{name}},</p><p><b>{{item}}</b> is now "
+                + "<b>{{price}}</b>. Sizes are limited, so grab yours before the drop ends.</p>").repeat(8));
+
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("PH Shoes <no-reply@ph-shoes.app>");
+        props.setSubjectPrefix("[PH]");
+        props.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
+        NotificationTemplateProps templateProps = new NotificationTemplateProps();
+        templateProps.setLocation(templateDir.toUri().toString());
+        LocalTemplateEngine templates = new LocalTemplateEngine(new DefaultResourceLoader(), templateProps);
+        templates.loadAll();
+        EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
+        composer = new DefaultEmailCompositionServiceImpl(props, new EmailSubjectFormatter(), addressFormatter,
+                new RawMimeBuilder(props, addressFormatter), templates);
+
+        EmailRequest.EmailRequestBuilder builder = EmailRequest.builder()
+                .templateId("price-drop")
+                .templateVar("item", "Air Max 90 \"Infrared\"");
+        if (attachmentBytes > 0) {
+            byte[] content = new byte[attachmentBytes];
+            new Random(42).nextBytes(content);
+            builder.attachment(Attachment.builder().filename("lookbook.pdf").mimeType("application/pdf").content(content).build());
+        }
+        shared = builder.build();
+
+        recipients = new ArrayList<>(RECIPIENTS);
+        for (int i = 0; i < RECIPIENTS; i++) {
+            recipients.add(MergeRecipient.builder()
+                    .to(EmailAddress.builder().name("Customer " + i).address("customer" + i + "@example.com").build())
+                    .var("name", "Customer " + i)
+                    .var("price", "₱" + (4000 + i))
+                    .build());
+        }
+        sink = new MimeOutputBuffer(256 * 1024);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(templateDir)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(templateDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void perRecipient(Blackhole bh) {
+        for (MergeRecipient recipient : recipients) {
+            bh.consume(composer.compose(recipient.applyTo(shared)).getRawMimeBytes());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void spliced(Blackhole bh) {
+        SplicedMailMerge merge = (SplicedMailMerge) composer.prepareMerge(shared);
+        for (MergeRecipient recipient : recipients) {
+            bh.consume(merge.compose(recipient).getRawMimeBytes());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECIPIENTS)
+    public void splicedToSink(Blackhole bh) throws IOException {
+        SplicedMailMerge merge = (SplicedMailMerge) composer.prepareMerge(shared);
+        for (MergeRecipient recipient : recipients) {
+            sink.reset();
+            merge.writeTo(recipient, sink);
+            bh.consume(sink.size());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SplicedMailMergeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,173 @@
+package com.nimbly.phshoesbackend.notification.core.service.impl;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.MergeRecipient;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.service.MailMerge;
+import com.nimbly.phshoesbackend.notification.core.template.CompiledTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.EmailTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
+import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SplicedMailMergeTest {
+
+    private final NotificationEmailProps props = props();
+    private final LocalTemplateEngine templates = templates();
+    private final DefaultEmailCompositionServiceImpl composer = new DefaultEmailCompositionServiceImpl(
+            props,
+            new EmailSubjectFormatter(),
+            new EmailAddressFormatter(),
+            new RawMimeBuilder(props, new EmailAddressFormatter()),
+            templates
+    );
+
+    @Test
+    void splicesSameMessageAsComposingEachRecipient() {
+        // Arrange
+        EmailRequest shared = EmailRequest.builder()
+                .templateId("price-drop")
+                .templateVar("item", "Air Max <90>")
+                .templateVar("name", "there")
+                .cc(EmailAddress.builder().address("audit@ph-shoes.app").build())
+                .tag("campaign", "drop-42")
+                .build();
+        List<MergeRecipient> recipients = List.of(
+                MergeRecipient.builder().to(EmailAddress.builder().name("Juan").address("juan@example.com").build())
+                        .var("name", "Juan").var("price", "₱5,495").build(),
+                MergeRecipient.builder().to(EmailAddress.builder().address("maria@example.com").build())
+                        .var("price", "₱4,995 & free shipping").build());
+
+        // Act
+        MailMerge merge = composer.prepareMerge(shared);
+
+        // Assert
+        assertThat(merge).isInstanceOf(SplicedMailMerge.class);
+        for (MergeRecipient recipient : recipients) {
+            ComposedEmail spliced = merge.compose(recipient);
+            ComposedEmail expected = composer.compose(recipient.applyTo(shared));
+            assertThat(spliced.getTo()).isEqualTo(expected.getTo());
+            assertThat(spliced.getCc()).isEqualTo(expected.getCc());
+            assertThat(spliced.getSubject()).isEqualTo(expected.getSubject());
+            assertThat(spliced.getTags()).isEqualTo(expected.getTags());
+            assertThat(spliced.isTemplateRendered()).isTrue();
+            assertThat(normalized(spliced.getRawMime())).isEqualTo(normalized(expected.getRawMime()));
+        }
+        assertThat(merge.compose(recipients.get(0)).getSubject()).isEqualTo("[PH] Juan, Air Max <90> dropped to ₱5,495");
+        assertThat(merge.compose(recipients.get(1)).getRawMime()).contains("<b>₱4,995 &amp; free shipping</b>");
+    }
+
+    @Test
+    void recipientVarsCannotAddHeadersThroughTheSubject() {
+        // Arrange
+        EmailRequest shared = EmailRequest.builder()
+                .templateId("price-drop")
+                .templateVar("item", "Air Max 90")
+                .build();
+        MergeRecipient recipient = MergeRecipient.builder()
+                .to(EmailAddress.builder().address("juan@example.com").build())
+                .var("name", "Juan\r\nBcc: everyone@example.com")
+                .var("price", "₱5,495")
+                .build();
+
+        // Act
+        ComposedEmail spliced = composer.prepareMerge(shared).compose(recipient);
+        ComposedEmail composed = composer.compose(recipient.applyTo(shared));
+
+        // Assert
+        assertThat(spliced.getSubject()).doesNotContain("\r", "\n");
+        assertThat(headers(spliced.getRawMime())).doesNotContain("\r\nBcc:");
+        assertThat(headers(composed.getRawMime())).doesNotContain("\r\nBcc:");
+        assertThat(normalized(spliced.getRawMime())).isEqualTo(normalized(composed.getRawMime()));
+    }
+
+    @Test
+    void sharesEncodedAttachmentsAcrossRecipients() throws Exception {
+        // Arrange
+        EmailRequest shared = EmailRequest.builder()
+                .subject("Your size chart")
+                .textBody("See attached.")
+                .attachment(Attachment.builder().filename("chart.txt").mimeType("text/plain")
+                        .content("US 9 = EU 42.5".getBytes(StandardCharsets.UTF_8)).build())
+                .build();
+        MergeRecipient recipient = MergeRecipient.builder()
+                .to(EmailAddress.builder().address("juan@example.com").build())
+                .build();
+        SplicedMailMerge merge = (SplicedMailMerge) composer.prepareMerge(shared);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+
+        // Act
+        ComposedEmail composed = merge.compose(recipient);
+        merge.writeTo(recipient, streamed);
+
+        // Assert
+        assertThat(merge.getSkeleton().fieldNames()).isEmpty();
+        assertThat(normalized(composed.getRawMime()))
+                .isEqualTo(normalized(composer.compose(recipient.applyTo(shared)).getRawMime()));
+        assertThat(streamed.toByteArray()).isEqualTo(composed.getRawMimeBytes());
+        assertThat(composed.getRawMime()).contains("To: juan@example.com\r\n").contains("VVMgOSA9IEVVIDQyLjU=");
+    }
+
+    @Test
+    void composesEachRecipientForProviderTemplates() {
+        // Arrange
+        EmailRequest shared = EmailRequest.builder()
+                .subject("Verify")
+                .templateId("ses-only")
+                .templateVar("brand", "PH Shoes")
+                .build();
+        MergeRecipient recipient = MergeRecipient.builder()
+                .to(EmailAddress.builder().address("juan@example.com").build())
+                .var("code", "123456")
+                .build();
+
+        // Act
+        ComposedEmail composed = composer.prepareMerge(shared).compose(recipient);
+
+        // Assert
+        assertThat(composed.getTo()).containsExactly("juan@example.com");
+        assertThat(composed.getRequest().getTemplateVars()).containsEntry("brand", "PH Shoes").containsEntry("code", "123456");
+        assertThat(composed.isTemplateRendered()).isFalse();
+    }
+
+    private static String normalized(String mime) {
+        return mime.replaceAll("=_[0-9a-f]{16}_[0-9a-f]+", "B");
+    }
+
+    private static NotificationEmailProps props() {
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("PH Shoes <no-reply@ph-shoes.app>");
+        props.setSubjectPrefix("[PH]");
+        props.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
+        return props;
+    }
+
+    private static String headers(String mime) {
+        return mime.substring(0, mime.indexOf("\r\n\r\n"));
+    }
+
+    private static LocalTemplateEngine templates() {
+        LocalTemplateEngine templates = mock(LocalTemplateEngine.class);
+        when(templates.find("price-drop")).thenReturn(Optional.of(new EmailTemplate(
+                "price-drop",
+                CompiledTemplate.compile("price-drop.subject", "{{name}}, {{item}} dropped to {{price}}", false),
+                CompiledTemplate.compile("price-drop.txt", "Hi {{name}}, {{item}} is now {{price}}.", false),
+                CompiledTemplate.compile("price-drop.html", "<p>Hi {{name}}, {{item}} is now <b>{{price}}</b></p>", true))));
+        when(templates.find("ses-only")).thenReturn(Optional.empty());
+        return templates;
+    }
+}
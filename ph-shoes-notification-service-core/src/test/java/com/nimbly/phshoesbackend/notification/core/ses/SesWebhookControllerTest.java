@@ -1,5 +1,6 @@
 package com.nimbly.phshoesbackend.notification.core.ses;
 
+import com.nimbly.phshoesbackend.notification.core.execution.NotificationExecutor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,12 +9,20 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,10 +41,14 @@ class SesWebhookControllerTest {
 
     @Test
     void forwardsPayloadToProcessor() throws Exception {
-        mockMvc.perform(post("/internal/webhooks/ses")
+        MvcResult result = mockMvc.perform(post("/internal/webhooks/ses")
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("x-amz-sns-message-type", "Notification")
                         .content("{\"Type\":\"Notification\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isNoContent());
 
         verify(sesWebhookProcessor).process("{\"Type\":\"Notification\"}", "Notification");
@@ -49,4 +62,48 @@ class SesWebhookControllerTest {
         mockMvc.perform(post("/internal/webhooks/ses"))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void processesOnExecutorWhenConfigured() throws Exception {
+        AtomicBoolean virtual = new AtomicBoolean();
+        doAnswer(invocation -> {
+            virtual.set(Thread.currentThread().isVirtual());
+            return null;
+        }).when(sesWebhookProcessor).process("{}", "Notification");
+
+        try (NotificationExecutor executor = NotificationExecutor.virtualThreads(4, Duration.ofSeconds(1))) {
+            MockMvc asyncMvc = MockMvcBuilders
+                    .standaloneSetup(new SesWebhookController(sesWebhookProcessor, executor))
+                    .build();
+
+            MvcResult result = asyncMvc.perform(post("/internal/webhooks/ses")
+                            .header("x-amz-sns-message-type", "Notification")
+                            .content("{}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            asyncMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isNoContent());
+        }
+        assertThat(virtual).isTrue();
+    }
+
+    @Test
+    void surfacesProcessorErrorsFromExecutor() throws Exception {
+        doThrow(new ResponseStatusException(HttpStatus.BAD_REQUEST, "bad"))
+                .when(sesWebhookProcessor).process("{}", null);
+
+        try (NotificationExecutor executor = NotificationExecutor.virtualThreads(4, Duration.ofSeconds(1))) {
+            MockMvc asyncMvc = MockMvcBuilders
+                    .standaloneSetup(new SesWebhookController(sesWebhookProcessor, executor))
+                    .build();
+
+            MvcResult result = asyncMvc.perform(post("/internal/webhooks/ses").content("{}"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+
+            asyncMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isBadRequest());
+        }
+    }
 }
@@ -0,0 +1,71 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+import com.nimbly.phshoesbackend.notification.core.util.MimeOutputBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompiledTemplateTest {
+    @Test
+    void substitutesVariablesBetweenLiterals() {
+        // Arrange
+        CompiledTemplate template = CompiledTemplate.compile("verify.txt", "Hi {{ name }}, code {{code}}.", false);
+
+        // Act
+        String rendered = template.render(Map.of("name", "Juan", "code", 123456));
+
+        // Assert
+        assertThat(rendered).isEqualTo("Hi Juan, code 123456.");
+        assertThat(template.literalBytes()).isEqualTo("Hi , code .".length());
+    }
+
+    @Test
+    void escapesDoubleBracesInHtmlOnly() {
+        // Arrange
+        CompiledTemplate html = CompiledTemplate.compile("t.html", "<p>{{name}}</p>{{{link}}}", true);
+        CompiledTemplate text = CompiledTemplate.compile("t.txt", "{{name}}", false);
+        Map<String, Object> vars = Map.of("name", "<b>Tom & \"Jerry\"</b>", "link", "<a href=\"x\">x</a>");
+
+        // Act
+        String renderedHtml = html.render(vars);
+        String renderedText = text.render(vars);
+
+        // Assert
+        assertThat(renderedHtml).isEqualTo("<p>&lt;b&gt;Tom &amp; &quot;Jerry&quot;&lt;/b&gt;</p><a href=\"x\">x</a>");
+        assertThat(renderedText).isEqualTo("<b>Tom & \"Jerry\"</b>");
+    }
+
+    @Test
+    void rendersMissingVariablesAsEmptyAndKeepsUnterminatedTags() {
+        // Arrange
+        CompiledTemplate template = CompiledTemplate.compile("t.txt", "a{{missing}}b {{}} c {{open", false);
+
+        // Act
+        String rendered = template.render(null);
+
+        // Assert
+        assertThat(rendered).isEqualTo("ab {{}} c {{open");
+    }
+
+    @Test
+    void rendersSameBytesIntoAnyOutputStream() throws Exception {
+        // Arrange
+        CompiledTemplate template = CompiledTemplate.compile("t.html", "<p>Salamat {{name}} 👟</p>", true);
+        Map<String, Object> vars = Map.of("name", "José <3");
+        MimeOutputBuffer buffer = new MimeOutputBuffer();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        // Act
+        template.render(vars, buffer);
+        template.render(vars, stream);
+
+        // Assert
+        assertThat(buffer.toByteArray()).isEqualTo(stream.toByteArray());
+        assertThat(new String(stream.toByteArray(), StandardCharsets.UTF_8))
+                .isEqualTo("<p>Salamat José &lt;3 👟</p>");
+    }
+}
@@ -0,0 +1,113 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTemplateProps;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalTemplateEngineTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void loadsTemplatesFoundAtStartup() throws Exception {
+        // Arrange
+        Files.writeString(dir.resolve("verify-email.subject"), "Verify {{name}}\n");
+        Files.writeString(dir.resolve("verify-email.txt"), "Hi {{name}}");
+        Files.writeString(dir.resolve("verify-email.html"), "<p>Hi {{name}}</p>");
+        Files.writeString(dir.resolve("welcome.txt"), "Welcome");
+        LocalTemplateEngine engine = engine(Duration.ZERO);
+
+        // Act
+        int loaded = engine.loadAll();
+        EmailTemplate template = engine.find("verify-email").orElseThrow();
+
+        // Assert
+        assertThat(loaded).isEqualTo(2);
+        assertThat(template.subject().render(Map.of("name", "PH"))).isEqualTo("Verify PH");
+        assertThat(template.text().render(Map.of("name", "PH"))).isEqualTo("Hi PH");
+        assertThat(template.html().render(Map.of("name", "<PH>"))).isEqualTo("<p>Hi &lt;PH&gt;</p>");
+        assertThat(engine.find("welcome").orElseThrow().html()).isNull();
+    }
+
+    @Test
+    void loadsNothingFromAMissingLocation() {
+        // Arrange
+        LocalTemplateEngine defaultEngine = new LocalTemplateEngine(new DefaultResourceLoader(), new NotificationTemplateProps());
+        NotificationTemplateProps props = new NotificationTemplateProps();
+        props.setLocation(dir.resolve("missing").toUri().toString());
+        LocalTemplateEngine configuredEngine = new LocalTemplateEngine(new DefaultResourceLoader(), props);
+
+        // Act + Assert
+        assertThat(defaultEngine.loadAll()).isZero();
+        assertThat(configuredEngine.loadAll()).isZero();
+        assertThat(configuredEngine.find("verify")).isEmpty();
+    }
+
+    @Test
+    void returnsEmptyForUnknownOrUnsafeIds() throws Exception {
+        // Arrange
+        Files.writeString(dir.resolve("verify.txt"), "Hi");
+        LocalTemplateEngine engine = engine(Duration.ZERO);
+
+        // Act + Assert
+        assertThat(engine.find("ses-only-template")).isEmpty();
+        assertThat(engine.find("../verify")).isEmpty();
+        assertThat(engine.find("/etc/passwd")).isEmpty();
+        assertThat(engine.find(null)).isEmpty();
+        assertThat(engine.find("verify")).isPresent();
+    }
+
+    @Test
+    void reloadsChangedTemplates() throws Exception {
+        // Arrange
+        Path text = dir.resolve("promo.txt");
+        Files.writeString(text, "Sale {{pct}}%");
+        LocalTemplateEngine engine = engine(Duration.ofNanos(1));
+        engine.loadAll();
+        EmailTemplate before = engine.find("promo").orElseThrow();
+
+        // Act
+        Files.writeString(text, "Mega sale {{pct}}%");
+        Files.setLastModifiedTime(text, FileTime.from(Instant.now().plusSeconds(10)));
+        Thread.sleep(1);
+        EmailTemplate after = engine.find("promo").orElseThrow();
+
+        // Assert
+        assertThat(before.text().render(Map.of("pct", 50))).isEqualTo("Sale 50%");
+        assertThat(after.text().render(Map.of("pct", 50))).isEqualTo("Mega sale 50%");
+    }
+
+    @Test
+    void keepsTemplatesWhenReloadDisabled() throws Exception {
+        // Arrange
+        Path text = dir.resolve("promo.txt");
+        Files.writeString(text, "Sale");
+        LocalTemplateEngine engine = engine(Duration.ZERO);
+        engine.loadAll();
+
+        // Act
+        Files.writeString(text, "Changed");
+        Files.setLastModifiedTime(text, FileTime.from(Instant.now().plusSeconds(10)));
+
+        // Assert
+        assertThat(engine.find("promo").orElseThrow().text().render(Map.of())).isEqualTo("Sale");
+    }
+
+    private LocalTemplateEngine engine(Duration reloadInterval) {
+        NotificationTemplateProps props = new NotificationTemplateProps();
+        props.setLocation(dir.toUri().toString());
+        props.setReloadInterval(reloadInterval);
+        return new LocalTemplateEngine(new DefaultResourceLoader(), props);
+    }
+}
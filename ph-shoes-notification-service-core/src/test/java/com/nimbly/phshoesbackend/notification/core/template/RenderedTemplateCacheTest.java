@@ -0,0 +1,95 @@
+package com.nimbly.phshoesbackend.notification.core.template;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderedTemplateCacheTest {
+    @Test
+    void reusesRenderForSameTemplateAndVariablesInAnyOrder() {
+        // Arrange
+        RenderedTemplateCache cache = new RenderedTemplateCache(1024 * 1024, 64 * 1024);
+        EmailTemplate template = template("promo", "Sale {{pct}}% on {{item}}");
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("pct", 30);
+        first.put("item", "Kobe 6");
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("item", "Kobe 6");
+        second.put("pct", "30");
+
+        // Act
+        RenderedTemplateCache.RenderedBodies a = cache.render(template, first);
+        RenderedTemplateCache.RenderedBodies b = cache.render(template, second);
+
+        // Assert
+        assertThat(new String(a.text(), StandardCharsets.UTF_8)).isEqualTo("Sale 30% on Kobe 6");
+        assertThat(a.html()).isNull();
+        assertThat(b).isSameAs(a);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void missesOnDifferentVariablesOrReloadedTemplate() {
+        // Arrange
+        RenderedTemplateCache cache = new RenderedTemplateCache(1024 * 1024, 64 * 1024);
+        EmailTemplate template = template("promo", "Sale {{pct}}%");
+        EmailTemplate reloaded = template("promo", "Mega sale {{pct}}%");
+
+        // Act
+        cache.render(template, Map.of("pct", 30));
+        cache.render(template, Map.of("pct", 40));
+        RenderedTemplateCache.RenderedBodies fresh = cache.render(reloaded, Map.of("pct", 30));
+
+        // Assert
+        assertThat(new String(fresh.text(), StandardCharsets.UTF_8)).isEqualTo("Mega sale 30%");
+        assertThat(cache.stats().hitCount()).isZero();
+        assertThat(cache.stats().missCount()).isEqualTo(3);
+    }
+
+    @Test
+    void skipsOversizedRendersAndEvictsToStayWithinBudget() {
+        // Arrange
+        RenderedTemplateCache cache = new RenderedTemplateCache(32, 16);
+        EmailTemplate template = template("t", "{{v}}");
+
+        // Act
+        cache.render(template, Map.of("v", "x".repeat(17)));
+        cache.render(template, Map.of("v", "a".repeat(16)));
+        cache.render(template, Map.of("v", "b".repeat(16)));
+        cache.render(template, Map.of("v", "c".repeat(16)));
+
+        // Assert
+        assertThat(cache.stats().entryCount()).isEqualTo(2);
+        assertThat(cache.stats().residentBytes()).isEqualTo(32);
+        assertThat(cache.stats().evictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void publishesCacheMetrics() {
+        // Arrange
+        RenderedTemplateCache cache = new RenderedTemplateCache(1024, 1024);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        EmailTemplate template = template("t", "{{v}}");
+
+        // Act
+        cache.render(template, Map.of("v", "1"));
+        cache.render(template, Map.of("v", "1"));
+
+        // Assert
+        assertThat(registry.get("cache.gets").tag("cache", RenderedTemplateCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("cache.resident.bytes").tag("cache", RenderedTemplateCache.CACHE_NAME)
+                .gauge().value()).isEqualTo(1);
+    }
+
+    private static EmailTemplate template(String id, String text) {
+        return new EmailTemplate(id, null, CompiledTemplate.compile(id + ".txt", text, false), null);
+    }
+}
@@ -0,0 +1,42 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AwsEndpointsTest {
+
+    @Test
+    void normalizeEndpointAddsDefaultPortForLocalhost() {
+        // Act
+        URI uri = AwsEndpoints.normalizeEndpoint("localhost");
+
+        // Assert
+        assertThat(uri).isNotNull();
+        assertThat(uri.getHost()).isEqualTo("localhost");
+        assertThat(uri.getPort()).isEqualTo(4566);
+    }
+
+    @Test
+    void normalizeEndpointKeepsAnExplicitSchemeAndPort() {
+        // Act
+        URI uri = AwsEndpoints.normalizeEndpoint("http://localhost:9324");
+
+        // Assert
+        assertThat(uri).isEqualTo(URI.create("http://localhost:9324"));
+    }
+
+    @Test
+    void normalizeEndpointReturnsNullForBlankInput() {
+        // Act + Assert
+        assertThat(AwsEndpoints.normalizeEndpoint(" ")).isNull();
+    }
+
+    @Test
+    void regionNamePrefersTheConfiguredRegion() {
+        // Act + Assert
+        assertThat(AwsEndpoints.regionName("us-east-1")).isEqualTo("us-east-1");
+    }
+}
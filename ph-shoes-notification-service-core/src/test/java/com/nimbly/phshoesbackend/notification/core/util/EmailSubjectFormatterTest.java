@@ -43,4 +43,16 @@ class EmailSubjectFormatterTest {
         // Assert
         assertThat(result).isEqualTo("[PH] Verify Email");
     }
+
+    @Test
+    void foldsLineBreaksIntoSpaces() {
+        // Arrange
+        String subject = "Hi Juan\r\nBcc: everyone@example.com";
+
+        // Act
+        String result = formatter.withPrefix(subject, "[PH]");
+
+        // Assert
+        assertThat(result).isEqualTo("[PH] Hi Juan  Bcc: everyone@example.com");
+    }
 }
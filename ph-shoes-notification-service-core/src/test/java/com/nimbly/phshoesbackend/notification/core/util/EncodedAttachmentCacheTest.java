@@ -0,0 +1,84 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncodedAttachmentCacheTest {
+    @Test
+    void reusesEncodedBodyForIdenticalContent() throws Exception {
+        // Arrange
+        EncodedAttachmentCache cache = new EncodedAttachmentCache(1024 * 1024, 64 * 1024);
+        byte[] content = "size chart".repeat(100).getBytes(StandardCharsets.UTF_8);
+        Attachment first = Attachment.builder().filename("a.png").mimeType("image/png").content(content).build();
+        Attachment second = Attachment.builder().filename("b.png").mimeType("image/png").content(content.clone()).build();
+
+        // Act
+        String a = encode(cache, first);
+        String b = encode(cache, second);
+
+        // Assert
+        assertThat(a).isEqualTo(Base64.getMimeEncoder().encodeToString(content));
+        assertThat(b).isEqualTo(a);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(1);
+        assertThat(cache.stats().residentBytes()).isEqualTo(MimeBase64.encodedLength(content.length));
+    }
+
+    @Test
+    void keysFileSourcesOnPathSizeAndModificationTime(@TempDir Path dir) throws Exception {
+        // Arrange
+        EncodedAttachmentCache cache = new EncodedAttachmentCache(1024 * 1024, 64 * 1024);
+        Path file = Files.writeString(dir.resolve("terms.pdf"), "terms v1");
+        Attachment attachment = Attachment.builder().filename("terms.pdf").mimeType("application/pdf").path(file).build();
+
+        // Act
+        String first = encode(cache, attachment);
+        String second = encode(cache, attachment);
+        Files.writeString(file, "terms v2");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(10)));
+        String changed = encode(cache, attachment);
+
+        // Assert
+        assertThat(first).isEqualTo(second).isEqualTo("dGVybXMgdjE=");
+        assertThat(changed).isEqualTo("dGVybXMgdjI=");
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bypassesCacheForOversizedOrUnknownLengthContent() throws Exception {
+        // Arrange
+        EncodedAttachmentCache cache = new EncodedAttachmentCache(1024 * 1024, 8);
+        Attachment oversized = Attachment.builder().filename("a").mimeType("text/plain")
+                .content("0123456789".getBytes(StandardCharsets.UTF_8)).build();
+        Attachment streamed = Attachment.builder().filename("b").mimeType("text/plain")
+                .source(() -> new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8))).build();
+
+        // Act
+        String big = encode(cache, oversized);
+        String stream = encode(cache, streamed);
+
+        // Assert
+        assertThat(big).isEqualTo("MDEyMzQ1Njc4OQ==");
+        assertThat(stream).isEqualTo("aGVsbG8=");
+        assertThat(cache.stats().hitCount() + cache.stats().missCount()).isZero();
+    }
+
+    private static String encode(EncodedAttachmentCache cache, Attachment attachment) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.encode(attachment, out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,81 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeBase64Test {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void wrapsLinesAt76CharactersAcrossChunkBoundaries() throws Exception {
+        // Arrange
+        byte[] content = randomBytes(MimeBase64.CHUNK_SIZE * 3 + 17);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        MimeBase64.encode(content, out);
+
+        // Assert
+        String encoded = out.toString(StandardCharsets.US_ASCII);
+        assertThat(encoded).isEqualTo(Base64.getMimeEncoder().encodeToString(content));
+        assertThat(encoded.split("\r\n")).allSatisfy(line -> assertThat(line.length()).isLessThanOrEqualTo(76));
+        assertThat((long) encoded.length()).isEqualTo(MimeBase64.encodedLength(content.length));
+    }
+
+    @Test
+    void encodesPathAndMappedSourcesLikeInMemoryContent() throws Exception {
+        // Arrange
+        byte[] content = randomBytes(100_000);
+        Path file = Files.write(tempDir.resolve("catalog.pdf"), content);
+        Attachment inMemory = Attachment.builder().filename("a.pdf").mimeType("application/pdf").content(content).build();
+        Attachment fromPath = Attachment.builder().filename("a.pdf").mimeType("application/pdf").path(file).build();
+        Attachment fromMapped = Attachment.builder().filename("a.pdf").mimeType("application/pdf")
+                .mapped(ByteBuffer.wrap(content)).build();
+
+        // Act
+        String expected = encode(inMemory);
+
+        // Assert
+        assertThat(encode(fromPath)).isEqualTo(expected);
+        assertThat(encode(fromMapped)).isEqualTo(expected);
+        assertThat(encode(fromMapped)).as("mapped source can be re-read").isEqualTo(expected);
+        assertThat(fromPath.contentLength()).isEqualTo(content.length);
+    }
+
+    @Test
+    void writesNothingForEmptyContent() throws Exception {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        MimeBase64.encode(new byte[0], out);
+
+        // Assert
+        assertThat(out.size()).isZero();
+        assertThat(MimeBase64.encodedLength(0)).isZero();
+    }
+
+    private static String encode(Attachment attachment) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MimeBase64.encode(attachment, out);
+        return out.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(7).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,40 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeBoundaryGeneratorTest {
+    @Test
+    void generatesDistinctTokensThatCannotAppearInEncodedBodies() {
+        // Arrange
+        MimeBoundaryGenerator generator = new MimeBoundaryGenerator();
+        Set<String> tokens = new HashSet<>();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            tokens.add(generator.next());
+        }
+
+        // Assert
+        assertThat(tokens).hasSize(10_000);
+        assertThat(tokens).allSatisfy(token -> assertThat(token).startsWith("=_").matches("=_[0-9a-f]{16}_[0-9a-f]+"));
+    }
+
+    @Test
+    void generatorsUseDifferentPrefixes() {
+        // Arrange
+        MimeBoundaryGenerator first = new MimeBoundaryGenerator();
+        MimeBoundaryGenerator second = new MimeBoundaryGenerator();
+
+        // Act
+        String a = first.next();
+        String b = second.next();
+
+        // Assert
+        assertThat(a).isNotEqualTo(b);
+    }
+}
@@ -0,0 +1,53 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MimeOutputBufferTest {
+    @Test
+    void encodesUtf8LikeStringGetBytes() {
+        // Arrange
+        String text = "ascii é ñ € 👟 broken \uD800 end";
+        MimeOutputBuffer buffer = new MimeOutputBuffer(4);
+
+        // Act
+        buffer.writeUtf8(text);
+
+        // Assert
+        assertThat(buffer.toByteArray()).isEqualTo(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void sharesBackingArrayWhenExactlyFull() {
+        // Arrange
+        MimeOutputBuffer buffer = new MimeOutputBuffer(16);
+        buffer.write("0123456789abcdef".getBytes(StandardCharsets.US_ASCII), 0, 16);
+
+        // Act
+        byte[] first = buffer.toByteArray();
+        byte[] second = buffer.toByteArray();
+
+        // Assert
+        assertThat(first).isSameAs(second);
+        assertThat(first).hasSize(16);
+    }
+
+    @Test
+    void exposesReadOnlyByteBufferView() {
+        // Arrange
+        MimeOutputBuffer buffer = new MimeOutputBuffer();
+        buffer.writeUtf8("hello");
+
+        // Act
+        ByteBuffer view = buffer.toByteBuffer();
+
+        // Assert
+        assertThat(view.isReadOnly()).isTrue();
+        assertThat(view.remaining()).isEqualTo(5);
+        assertThat(StandardCharsets.UTF_8.decode(view).toString()).isEqualTo("hello");
+    }
+}
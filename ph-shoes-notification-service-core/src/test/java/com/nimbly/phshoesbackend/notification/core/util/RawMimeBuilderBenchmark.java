@@ -0,0 +1,95 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the String render path (what transports used to do: build, then re-encode) with the byte and
+ * streaming paths. Run with {@code -prof gc} to see the per-send allocation difference.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RawMimeBuilderBenchmark {
+
+    @Param({"0", "65536", "1048576"})
+    public int attachmentBytes;
+
+    private RawMimeBuilder builder;
+    private EmailRequest request;
+
+    @Setup
+    public void setUp() {
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("PH Shoes <no-reply@ph-shoes.app>");
+        props.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
+        props.setListUnsubscribePost("List-Unsubscribe=One-Click");
+        builder = new RawMimeBuilder(props, new EmailAddressFormatter());
+
+        EmailRequest.EmailRequestBuilder req = EmailRequest.builder()
+                .to(EmailAddress.builder().name("Juan Dela Cruz").address("juan@example.com").build())
+                .subject("Verify your email")
+                .textBody("Hi Juan, verify your email: https://ph-shoes.app/verify?token=abc123".repeat(4))
+                .htmlBody("<p>Hi Juan, <a href=\"https://ph-shoes.app/verify?token=abc123\">verify</a></p>".repeat(8));
+        if (attachmentBytes > 0) {
+            byte[] content = new byte[attachmentBytes];
+            new Random(42).nextBytes(content);
+            req.attachment(Attachment.builder().filename("invoice.pdf").mimeType("application/pdf").content(content).build());
+        }
+        request = req.build();
+    }
+
+    @Benchmark
+    public byte[] stringThenBytes() {
+        return builder.build(request, "[PH] Verify your email").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] buildBytes() {
+        return builder.buildBytes(request, "[PH] Verify your email");
+    }
+
+    @Benchmark
+    public void streamToSink(Blackhole bh) throws IOException {
+        builder.writeTo(request, "[PH] Verify your email", new BlackholeOutputStream(bh));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RawMimeBuilderBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static final class BlackholeOutputStream extends OutputStream {
+        private final Blackhole bh;
+
+        private BlackholeOutputStream(Blackhole bh) {
+            this.bh = bh;
+        }
+
+        @Override
+        public void write(int b) {
+            bh.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bh.consume(b);
+            bh.consume(len);
+        }
+    }
+}
@@ -4,8 +4,12 @@ import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.template.CompiledTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.EmailTemplate;
+import com.nimbly.phshoesbackend.notification.core.template.RenderedTemplateCache;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -62,4 +66,123 @@ class RawMimeBuilderTest {
         assertThat(mime).contains("Content-Type: multipart/mixed");
         assertThat(mime).contains("aGVsbG8=");
     }
+
+    @Test
+    void streamsUtf8EncodedMessageIntoCallerSink() throws Exception {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("no-reply@ph-shoes.app");
+        RawMimeBuilder builder = new RawMimeBuilder(props, new EmailAddressFormatter());
+        Attachment attachment = Attachment.builder()
+                .filename("file.txt")
+                .mimeType("text/plain")
+                .content("hello".getBytes(StandardCharsets.UTF_8))
+                .build();
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().name("José").address("jose@ph-shoes.app").build())
+                .subject("Verify")
+                .htmlBody("<p>Salamat \uD83D\uDC5F</p>")
+                .attachment(attachment)
+                .build();
+        ByteArrayOutputStream sink = new ByteArrayOutputStream();
+
+        // Act
+        builder.writeTo(request, "Bestätigen", sink);
+
+        // Assert
+        String mime = sink.toString(StandardCharsets.UTF_8);
+        assertThat(mime).contains("To: José <jose@ph-shoes.app>");
+        assertThat(mime).contains("Subject: Bestätigen");
+        assertThat(mime).contains("<p>Salamat \uD83D\uDC5F</p>");
+        assertThat(mime).contains("aGVsbG8=");
+        assertThat(mime).endsWith("--\r\n");
+    }
+
+    @Test
+    void buildBytesMatchesStringRendering() {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("no-reply@ph-shoes.app");
+        RawMimeBuilder builder = new RawMimeBuilder(props, new EmailAddressFormatter());
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .textBody("Maligayang pagdating, ñ")
+                .build();
+
+        // Act
+        byte[] bytes = builder.buildBytes(request, "Verify");
+
+        // Assert
+        String mime = new String(bytes, StandardCharsets.UTF_8);
+        assertThat(mime).startsWith("From: no-reply@ph-shoes.app\r\nTo: user@ph-shoes.app\r\nSubject: Verify\r\n");
+        assertThat(mime).contains("Maligayang pagdating, ñ\r\n\r\n");
+    }
+
+    @Test
+    void reusesSenderHeadersButKeepsPerMessageFieldsAndBoundaries() {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("no-reply@ph-shoes.app");
+        props.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
+        RawMimeBuilder builder = new RawMimeBuilder(props, new EmailAddressFormatter());
+        EmailRequest first = EmailRequest.builder()
+                .to(EmailAddress.builder().address("a@ph-shoes.app").build())
+                .textBody("hello")
+                .build();
+        EmailRequest second = EmailRequest.builder()
+                .to(EmailAddress.builder().address("b@ph-shoes.app").build())
+                .header("List-Unsubscribe", "<https://ph-shoes.app/u/b>")
+                .textBody("hello")
+                .build();
+
+        // Act
+        String firstMime = builder.build(first, "One");
+        String secondMime = builder.build(second, "Two");
+
+        // Assert
+        assertThat(firstMime).startsWith("From: no-reply@ph-shoes.app\r\nTo: a@ph-shoes.app\r\nSubject: One\r\n"
+                + "MIME-Version: 1.0\r\nList-Unsubscribe: <mailto:unsubscribe@ph-shoes.app>\r\n");
+        assertThat(secondMime).startsWith("From: no-reply@ph-shoes.app\r\nTo: b@ph-shoes.app\r\nSubject: Two\r\n"
+                + "MIME-Version: 1.0\r\nList-Unsubscribe: <https://ph-shoes.app/u/b>\r\n");
+        assertThat(boundary(firstMime)).isNotEqualTo(boundary(secondMime));
+        assertThat(firstMime).endsWith("--" + boundary(firstMime) + "--\r\n");
+    }
+
+    @Test
+    void rendersSameBodiesWithAndWithoutRenderCache() {
+        // Arrange
+        NotificationEmailProps props = new NotificationEmailProps();
+        props.setFrom("no-reply@ph-shoes.app");
+        RenderedTemplateCache renderCache = new RenderedTemplateCache(1024 * 1024, 64 * 1024);
+        RawMimeBuilder cached = new RawMimeBuilder(props, new EmailAddressFormatter(), null, renderCache);
+        RawMimeBuilder uncached = new RawMimeBuilder(props, new EmailAddressFormatter());
+        EmailTemplate template = new EmailTemplate("drop", null,
+                CompiledTemplate.compile("drop.txt", "{{item}} is now {{price}}", false),
+                CompiledTemplate.compile("drop.html", "<b>{{item}}</b> is now {{price}}", true));
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("a@ph-shoes.app").build())
+                .templateVar("item", "Air Max <90>")
+                .templateVar("price", "₱5,495")
+                .build();
+
+        // Act
+        String withCache = new String(cached.buildBytes(request, "Price drop", template), StandardCharsets.UTF_8);
+        String again = new String(cached.buildBytes(request, "Price drop", template), StandardCharsets.UTF_8);
+        String withoutCache = new String(uncached.buildBytes(request, "Price drop", template), StandardCharsets.UTF_8);
+
+        // Assert
+        assertThat(body(withCache)).isEqualTo(body(withoutCache)).isEqualTo(body(again));
+        assertThat(withCache).contains("<b>Air Max &lt;90&gt;</b> is now ₱5,495");
+        assertThat(renderCache.stats().hitCount()).isEqualTo(1);
+    }
+
+    private static String body(String mime) {
+        return mime.substring(mime.indexOf("Content-Type: text/plain")).replace(boundary(mime), "B");
+    }
+
+    private static String boundary(String mime) {
+        int start = mime.indexOf("boundary=\"") + "boundary=\"".length();
+        return mime.substring(start, mime.indexOf('"', start));
+    }
 }
@@ -0,0 +1,61 @@
+package com.nimbly.phshoesbackend.notification.core.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SizeBoundedLruCacheTest {
+    @Test
+    void evictsLeastRecentlyUsedEntriesWhenWeightExceeded() {
+        // Arrange
+        SizeBoundedLruCache<String, byte[]> cache = new SizeBoundedLruCache<>(10, v -> v.length);
+        cache.put("a", new byte[4]);
+        cache.put("b", new byte[4]);
+        cache.get("a");
+
+        // Act
+        cache.put("c", new byte[4]);
+
+        // Assert
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("c")).isNotNull();
+        SizeBoundedLruCache.Stats stats = cache.stats();
+        assertThat(stats.residentBytes()).isEqualTo(8);
+        assertThat(stats.evictionCount()).isEqualTo(1);
+        assertThat(stats.entryCount()).isEqualTo(2);
+    }
+
+    @Test
+    void skipsValuesHeavierThanTheWholeCache() {
+        // Arrange
+        SizeBoundedLruCache<String, byte[]> cache = new SizeBoundedLruCache<>(10, v -> v.length);
+
+        // Act
+        cache.put("big", new byte[11]);
+
+        // Assert
+        assertThat(cache.get("big")).isNull();
+        assertThat(cache.stats().residentBytes()).isZero();
+    }
+
+    @Test
+    void reportsHitRatioAndRegistersMeters() {
+        // Arrange
+        SizeBoundedLruCache<String, byte[]> cache = new SizeBoundedLruCache<>(100, v -> v.length);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry, "test");
+
+        // Act
+        cache.computeIfAbsent("k", k -> new byte[3]);
+        cache.computeIfAbsent("k", k -> new byte[3]);
+        cache.computeIfAbsent("k", k -> new byte[3]);
+
+        // Assert
+        assertThat(cache.stats().hitRatio()).isEqualTo(2d / 3);
+        assertThat(registry.get("cache.gets").tag("cache", "test").tag("result", "hit").functionCounter().count())
+                .isEqualTo(2d);
+        assertThat(registry.get("cache.resident.bytes").tag("cache", "test").gauge().value()).isEqualTo(3d);
+    }
+}
@@ -0,0 +1,14 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+/**
+ * Processes ring entries for one {@link RingStage}, in sequence order, on the stage's thread.
+ */
+@FunctionalInterface
+public interface EventHandler<E> {
+
+    /**
+     * @param endOfBatch true for the last entry the stage picked up in this pass, so handlers that batch
+     *                   (e.g. bulk sends) know when to flush
+     */
+    void onEvent(E event, long sequence, boolean endOfBatch);
+}
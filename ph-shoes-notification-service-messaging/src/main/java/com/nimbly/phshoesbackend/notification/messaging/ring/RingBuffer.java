@@ -0,0 +1,118 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer ring of pre-allocated, reused entries, in the style of the LMAX Disruptor. Producers
+ * claim a sequence with a CAS on the claim cursor, fill the entry at {@code sequence & mask} and publish it;
+ * consumers ({@link RingStage}s) track their own sequence and never take a lock. A slot is reused only once
+ * every gating sequence (the last stage's) has moved past it.
+ * <p>
+ * Publication is tracked per slot, so a producer that claimed later may publish first; consumers only advance
+ * over the contiguous published prefix.
+ */
+public final class RingBuffer<E> {
+
+    private final Object[] entries;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final AtomicLongArray published;
+    private final WaitStrategy waitStrategy;
+    private volatile AtomicLong[] gating = new AtomicLong[0];
+    private volatile long gatingCache = -1;
+
+    public RingBuffer(int capacity, Supplier<E> factory, WaitStrategy waitStrategy) {
+        if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.entries = new Object[capacity];
+        for (int i = 0; i < capacity; i++) entries[i] = factory.get();
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) published.set(i, -1);
+        this.waitStrategy = waitStrategy;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Makes producers wait for {@code sequence} before reusing a slot it has not yet passed.
+     */
+    public synchronized void addGatingSequence(AtomicLong sequence) {
+        AtomicLong[] current = gating;
+        AtomicLong[] next = new AtomicLong[current.length + 1];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[current.length] = sequence;
+        gating = next;
+    }
+
+    /**
+     * Claims the next sequence, or returns {@code -1} when the ring is full.
+     */
+    public long tryClaim() {
+        while (true) {
+            long current = claimed.get();
+            long next = current + 1;
+            long wrapPoint = next - entries.length;
+            if (wrapPoint > gatingCache) {
+                long slowest = minimumGatingSequence(current);
+                gatingCache = slowest;
+                if (wrapPoint > slowest) return -1;
+            }
+            if (claimed.compareAndSet(current, next)) return next;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) sequence & mask];
+    }
+
+    public void publish(long sequence) {
+        published.set((int) sequence & mask, sequence);
+        waitStrategy.signalAll();
+    }
+
+    public boolean isPublished(long sequence) {
+        return published.getAcquire((int) sequence & mask) == sequence;
+    }
+
+    /**
+     * Highest sequence in {@code [lower, upper]} such that every sequence from {@code lower} up to it is
+     * published, or {@code lower - 1} when {@code lower} itself is not.
+     */
+    public long highestPublished(long lower, long upper) {
+        for (long sequence = lower; sequence <= upper; sequence++) {
+            if (!isPublished(sequence)) return sequence - 1;
+        }
+        return upper;
+    }
+
+    /**
+     * Highest sequence claimed by a producer, published or not.
+     */
+    public long claimedCursor() {
+        return claimed.get();
+    }
+
+    /**
+     * Slots free for producers right now.
+     */
+    public long remainingCapacity() {
+        return entries.length - (claimed.get() - minimumGatingSequence(claimed.get()));
+    }
+
+    WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    private long minimumGatingSequence(long fallback) {
+        long minimum = fallback;
+        for (AtomicLong sequence : gating) minimum = Math.min(minimum, sequence.get());
+        return minimum;
+    }
+}
@@ -0,0 +1,318 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import com.nimbly.phshoesbackend.notification.messaging.ring.config.NotificationRingProps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process dispatch queue over a {@link RingBuffer}. Callers {@link #enqueue} requests from any thread; a
+ * composition stage composes each entry in place, and a transport stage that follows it drains whatever is
+ * composed, up to {@code maxBatch}, into one {@link EmailTransportService#sendBatch} call. At most
+ * {@code transportConcurrency} batches are in flight; when they all are, the transport stage stops draining and
+ * the ring fills up, at which point {@link FullPolicy} decides what {@code enqueue} does.
+ * <p>
+ * Every future completes with a {@link SendResult}, the way a batch entry does: check
+ * {@link SendResult#isAccepted()}. Metrics: {@code notification.ring.remaining},
+ * {@code notification.ring.full} (tagged by policy) and {@code notification.ring.batch-size}.
+ */
+@Slf4j
+public class RingDispatchQueue implements SmartLifecycle, MeterBinder {
+
+    public static final String REMAINING_METRIC = "notification.ring.remaining";
+    public static final String FULL_METRIC = "notification.ring.full";
+    public static final String BATCH_METRIC = "notification.ring.batch-size";
+
+    private static final long MAX_BLOCK_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long NOT_ABANDONED = Long.MIN_VALUE;
+
+    public enum FullPolicy {
+        /** Wait for a free slot. */
+        BLOCK,
+        /** Give up at once with a {@code THROTTLED} result. */
+        DROP,
+        /** Compose and send on the calling thread, bypassing the ring but not the in-flight cap. */
+        CALLER_RUNS
+    }
+
+    private final EmailCompositionService composer;
+    private final EmailTransportService transport;
+    private final NotificationRingProps props;
+    private final RingBuffer<Slot> ring;
+    private final RingStage<Slot> composeStage;
+    private final RingStage<Slot> transportStage;
+    private final Semaphore inFlight;
+    private final List<ComposedEmail> batchEmails = new ArrayList<>();
+    private final List<CompletableFuture<SendResult>> batchFutures = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private ExecutorService senders;
+    private volatile boolean running;
+    private volatile long abandonedThrough = NOT_ABANDONED;
+    private boolean stopped;
+    private volatile Counter full;
+    private volatile DistributionSummary batchSize;
+
+    public RingDispatchQueue(EmailCompositionService composer,
+                             EmailTransportService transport,
+                             NotificationRingProps props) {
+        this.composer = composer;
+        this.transport = transport;
+        this.props = props;
+        this.ring = new RingBuffer<>(powerOfTwo(props.getCapacity()), Slot::new, WaitStrategy.of(props.getWaitStrategy()));
+        this.composeStage = new RingStage<>("compose", ring, null, this::compose, props.getMaxBatch());
+        this.transportStage = new RingStage<>("transport", ring, composeStage, this::transport, props.getMaxBatch());
+        this.ring.addGatingSequence(transportStage.sequence());
+        this.inFlight = new Semaphore(Math.max(1, props.getTransportConcurrency()));
+    }
+
+    /**
+     * Queues {@code request}; the future completes once its batch has been sent.
+     */
+    public CompletableFuture<SendResult> enqueue(EmailRequest request) {
+        if (!running) return CompletableFuture.completedFuture(SendResult.failed(null,
+                new NotificationSendException("Ring dispatch queue is not running")));
+        long sequence = ring.tryClaim();
+        if (sequence < 0) {
+            increment(full);
+            switch (props.getFullPolicy()) {
+                case DROP -> {
+                    return CompletableFuture.completedFuture(SendResult.builder()
+                            .status(SendResult.THROTTLED)
+                            .error("Ring dispatch queue is full")
+                            .build());
+                }
+                case CALLER_RUNS -> {
+                    inFlight.acquireUninterruptibly();
+                    try {
+                        return CompletableFuture.completedFuture(sendNow(request));
+                    } finally {
+                        inFlight.release();
+                    }
+                }
+                case BLOCK -> sequence = claimBlocking();
+            }
+            if (sequence < 0) return CompletableFuture.completedFuture(SendResult.failed(null,
+                    new NotificationSendException("Ring dispatch queue stopped while waiting for a slot")));
+        }
+        Slot slot = ring.get(sequence);
+        CompletableFuture<SendResult> future = new CompletableFuture<>();
+        slot.request = request;
+        slot.future = future;
+        ring.publish(sequence);
+        // Claimed after stop() swept the ring: nothing will ever send it.
+        long abandoned = abandonedThrough;
+        if (abandoned != NOT_ABANDONED && sequence > abandoned) future.complete(stoppedResult());
+        return future;
+    }
+
+    /**
+     * Requests enqueued but not yet handed to the transport.
+     */
+    public long backlog() {
+        return ring.claimedCursor() - transportStage.sequence().get();
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running || stopped) return;
+        senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-ring-send-", 0).factory());
+        for (RingStage<Slot> stage : List.of(composeStage, transportStage)) {
+            threads.add(Thread.ofPlatform().name("notification-ring-" + stage.name()).daemon().start(stage));
+        }
+        running = true;
+        log.info("ring.started capacity={} waitStrategy={} fullPolicy={}",
+                ring.capacity(), props.getWaitStrategy(), props.getFullPolicy());
+    }
+
+    /**
+     * Stops accepting, then waits up to {@code drainTimeout} for queued requests to be sent. Anything still
+     * queued after that completes as failed, including requests a producer published while the ring was being
+     * swept: the sweep waits for every claimed slot to be published and repeats until no new slot was claimed.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        stopped = true;
+        long deadline = System.nanoTime() + props.getDrainTimeout().toNanos();
+        while (backlog() > 0 && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(MAX_BLOCK_PARK_NANOS);
+        }
+        composeStage.halt();
+        transportStage.halt();
+        for (Thread thread : threads) {
+            try {
+                thread.join(TimeUnit.NANOSECONDS.toMillis(Math.max(0, deadline - System.nanoTime())) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        threads.clear();
+        senders.shutdown();
+        try {
+            senders.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long abandoned = 0;
+        long from = transportStage.sequence().get() + 1;
+        long through;
+        do {
+            through = ring.claimedCursor();
+            for (long sequence = from; sequence <= through; sequence++) {
+                while (!ring.isPublished(sequence)) Thread.onSpinWait();
+                Slot slot = ring.get(sequence);
+                if (slot.future != null && slot.future.complete(stoppedResult())) abandoned++;
+            }
+            from = through + 1;
+            abandonedThrough = through;
+        } while (ring.claimedCursor() != through);
+        log.info("ring.stopped abandoned={}", abandoned);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(REMAINING_METRIC, ring, RingBuffer::remainingCapacity)
+                .description("Free slots in the in-process dispatch ring")
+                .register(registry);
+        full = Counter.builder(FULL_METRIC)
+                .tag("policy", props.getFullPolicy().name().toLowerCase())
+                .description("Enqueues that found the ring full")
+                .register(registry);
+        batchSize = DistributionSummary.builder(BATCH_METRIC)
+                .description("Emails per transport batch drained from the ring")
+                .register(registry);
+    }
+
+    private long claimBlocking() {
+        long parkNanos = 1_000;
+        long sequence;
+        while ((sequence = ring.tryClaim()) < 0) {
+            if (!running) return -1;
+            LockSupport.parkNanos(parkNanos);
+            parkNanos = Math.min(parkNanos * 2, MAX_BLOCK_PARK_NANOS);
+        }
+        return sequence;
+    }
+
+    private SendResult sendNow(EmailRequest request) {
+        try {
+            return transport.send(composer.compose(request)).toBuilder().status(SendResult.SUCCESS).build();
+        } catch (RuntimeException e) {
+            return SendResult.failed(null, e);
+        }
+    }
+
+    private void compose(Slot slot, long sequence, boolean endOfBatch) {
+        try {
+            slot.composed = composer.compose(slot.request);
+        } catch (RuntimeException e) {
+            slot.error = e;
+        }
+    }
+
+    private void transport(Slot slot, long sequence, boolean endOfBatch) {
+        if (slot.error != null) {
+            slot.future.complete(SendResult.failed(null, slot.error));
+        } else {
+            batchEmails.add(slot.composed);
+            batchFutures.add(slot.future);
+        }
+        slot.clear();
+        if (endOfBatch && !batchEmails.isEmpty()) flush();
+    }
+
+    /**
+     * Copies the batch out of the ring so its slots can be reused while it sends.
+     */
+    private void flush() {
+        List<ComposedEmail> emails = List.copyOf(batchEmails);
+        List<CompletableFuture<SendResult>> futures = List.copyOf(batchFutures);
+        batchEmails.clear();
+        batchFutures.clear();
+        if (batchSize != null) batchSize.record(emails.size());
+        inFlight.acquireUninterruptibly();
+        try {
+            senders.execute(() -> {
+                try {
+                    send(emails, futures);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            futures.forEach(future -> future.complete(SendResult.failed(null, e)));
+        }
+    }
+
+    private void send(List<ComposedEmail> emails, List<CompletableFuture<SendResult>> futures) {
+        List<SendResult> results;
+        try {
+            results = transport.sendBatch(emails);
+        } catch (RuntimeException e) {
+            log.warn("ring.batch.failed size={} error={}", emails.size(), e.getMessage());
+            futures.forEach(future -> future.complete(SendResult.failed(null, e)));
+            return;
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).complete(i < results.size() ? results.get(i)
+                    : SendResult.failed(null, new NotificationSendException("Transport returned no result")));
+        }
+    }
+
+    private static SendResult stoppedResult() {
+        return SendResult.failed(null, new NotificationSendException("Ring dispatch queue stopped"));
+    }
+
+    private static int powerOfTwo(int capacity) {
+        return capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) counter.increment();
+    }
+
+    /**
+     * A reusable ring entry; the producer fills it, the compose stage adds the composed email and the transport
+     * stage clears it once the entry is copied into a batch.
+     */
+    static final class Slot {
+        EmailRequest request;
+        ComposedEmail composed;
+        RuntimeException error;
+        CompletableFuture<SendResult> future;
+
+        void clear() {
+            request = null;
+            composed = null;
+            error = null;
+            future = null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * One consumer of a {@link RingBuffer}, run on its own thread. A stage waits until entries are available (published
+ * ones for the first stage, ones the upstream stage has finished for later stages), hands everything available,
+ * up to {@code maxBatch} entries, to its handler in one pass and then advances its sequence once.
+ */
+@Slf4j
+public final class RingStage<E> implements Runnable {
+
+    private final String name;
+    private final RingBuffer<E> ring;
+    private final EventHandler<E> handler;
+    private final int maxBatch;
+    private final LongSupplier available;
+    private final AtomicLong sequence = new AtomicLong(-1);
+    private volatile boolean running = true;
+    private long next;
+
+    /**
+     * @param upstream the stage this one follows, or {@code null} to consume straight from producers
+     */
+    public RingStage(String name, RingBuffer<E> ring, RingStage<E> upstream, EventHandler<E> handler, int maxBatch) {
+        this.name = name;
+        this.ring = ring;
+        this.handler = handler;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.available = upstream == null
+                ? () -> ring.highestPublished(next, ring.claimedCursor())
+                : upstream.sequence::get;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Last sequence this stage has finished with.
+     */
+    public AtomicLong sequence() {
+        return sequence;
+    }
+
+    public void halt() {
+        running = false;
+        ring.waitStrategy().signalAll();
+    }
+
+    @Override
+    public void run() {
+        next = sequence.get() + 1;
+        while (running) {
+            long reached = ring.waitStrategy().waitFor(next, available, () -> running);
+            if (reached < next) continue;
+            long end = Math.min(reached, next + maxBatch - 1);
+            for (long current = next; current <= end; current++) {
+                try {
+                    handler.onEvent(ring.get(current), current, current == end);
+                } catch (RuntimeException e) {
+                    log.error("ring.stage.failed stage={} sequence={} error={}", name, current, e.getMessage(), e);
+                }
+            }
+            sequence.set(end);
+            ring.waitStrategy().signalAll();
+            next = end + 1;
+        }
+    }
+}
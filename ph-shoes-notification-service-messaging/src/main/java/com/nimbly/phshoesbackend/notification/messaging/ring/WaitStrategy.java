@@ -0,0 +1,140 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * How a {@link RingStage} waits for work: trading CPU for wake-up latency, from spinning on a core to sleeping
+ * on a condition until a producer signals.
+ */
+public interface WaitStrategy {
+
+    enum Type { BUSY_SPIN, YIELDING, SLEEPING, BLOCKING }
+
+    /**
+     * Waits until {@code available} reaches {@code sequence}; returns what it reached, or {@code sequence - 1}
+     * once {@code running} turns false.
+     */
+    long waitFor(long sequence, LongSupplier available, BooleanSupplier running);
+
+    /**
+     * Called after every publish and stage advance.
+     */
+    default void signalAll() {
+    }
+
+    static WaitStrategy of(Type type) {
+        return switch (type) {
+            case BUSY_SPIN -> busySpin();
+            case YIELDING -> yielding();
+            case SLEEPING -> sleeping();
+            case BLOCKING -> blocking();
+        };
+    }
+
+    /**
+     * Lowest latency; burns a core per stage.
+     */
+    static WaitStrategy busySpin() {
+        return (sequence, available, running) -> {
+            long reached;
+            while ((reached = available.getAsLong()) < sequence) {
+                if (!running.getAsBoolean()) return sequence - 1;
+                Thread.onSpinWait();
+            }
+            return reached;
+        };
+    }
+
+    /**
+     * Spins briefly, then yields the core to other threads between checks.
+     */
+    static WaitStrategy yielding() {
+        return (sequence, available, running) -> {
+            int spins = 100;
+            long reached;
+            while ((reached = available.getAsLong()) < sequence) {
+                if (!running.getAsBoolean()) return sequence - 1;
+                if (spins > 0) {
+                    spins--;
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            return reached;
+        };
+    }
+
+    /**
+     * Spins, yields, then parks for short intervals; near-idle CPU at the cost of up to ~100µs of latency.
+     */
+    static WaitStrategy sleeping() {
+        return (sequence, available, running) -> {
+            int tries = 200;
+            long reached;
+            while ((reached = available.getAsLong()) < sequence) {
+                if (!running.getAsBoolean()) return sequence - 1;
+                if (tries > 100) {
+                    tries--;
+                    Thread.onSpinWait();
+                } else if (tries > 0) {
+                    tries--;
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+                }
+            }
+            return reached;
+        };
+    }
+
+    /**
+     * Sleeps on a condition that publishers signal; no CPU while idle, a lock round trip per wake-up.
+     */
+    static WaitStrategy blocking() {
+        return new WaitStrategy() {
+            private final ReentrantLock lock = new ReentrantLock();
+            private final Condition published = lock.newCondition();
+            private final AtomicInteger waiters = new AtomicInteger();
+
+            @Override
+            public long waitFor(long sequence, LongSupplier available, BooleanSupplier running) {
+                long reached = available.getAsLong();
+                if (reached >= sequence) return reached;
+                waiters.incrementAndGet();
+                lock.lock();
+                try {
+                    while ((reached = available.getAsLong()) < sequence) {
+                        if (!running.getAsBoolean()) return sequence - 1;
+                        // timed, so a signal racing the check above costs at most a millisecond
+                        published.await(1, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return sequence - 1;
+                } finally {
+                    lock.unlock();
+                    waiters.decrementAndGet();
+                }
+                return reached;
+            }
+
+            @Override
+            public void signalAll() {
+                if (waiters.get() == 0) return;
+                lock.lock();
+                try {
+                    published.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,49 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring.config;
+
+import com.nimbly.phshoesbackend.notification.messaging.ring.RingDispatchQueue;
+import com.nimbly.phshoesbackend.notification.messaging.ring.WaitStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * In-process dispatch queue: a pre-allocated ring that callers enqueue requests into, drained by a composition
+ * stage and then a transport stage, without a broker in between.
+ */
+@ConfigurationProperties(prefix = "notification.ring")
+@Data
+public class NotificationRingProps {
+    private boolean enabled = false;
+
+    /**
+     * Slots in the ring; rounded up to a power of two.
+     */
+    private int capacity = 4096;
+
+    /**
+     * How idle stages wait: BUSY_SPIN and YIELDING keep a core busy per stage for the lowest latency,
+     * SLEEPING and BLOCKING leave the CPU idle.
+     */
+    private WaitStrategy.Type waitStrategy = WaitStrategy.Type.BLOCKING;
+
+    /**
+     * What {@code enqueue} does when every slot is taken.
+     */
+    private RingDispatchQueue.FullPolicy fullPolicy = RingDispatchQueue.FullPolicy.BLOCK;
+
+    /**
+     * Most entries a stage drains per pass, and so the largest batch handed to the transport.
+     */
+    private int maxBatch = 50;
+
+    /**
+     * Transport batches in flight at once.
+     */
+    private int transportConcurrency = 8;
+
+    /**
+     * How long stopping waits for queued requests to be sent.
+     */
+    private Duration drainTimeout = Duration.ofSeconds(30);
+}
@@ -0,0 +1,36 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring.config;
+
+import com.nimbly.phshoesbackend.notification.core.config.CoreNotificationAutoConfiguration;
+import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationTransportChain;
+import com.nimbly.phshoesbackend.notification.messaging.ring.RingDispatchQueue;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration(after = CoreNotificationAutoConfiguration.class)
+@ConditionalOnProperty(prefix = "notification.ring", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(NotificationRingProps.class)
+public class RingDispatchAutoConfiguration {
+
+    /**
+     * Batches go out through the same transport chain as the notification service, so ring sends share its
+     * rate limiter, retries and failover instead of bypassing them.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean({EmailCompositionService.class, NotificationTransportChain.class})
+    public RingDispatchQueue ringDispatchQueue(EmailCompositionService emailCompositionService,
+                                               NotificationTransportChain transportChain,
+                                               NotificationRingProps props,
+                                               ObjectProvider<MeterRegistry> meterRegistry) {
+        RingDispatchQueue queue = new RingDispatchQueue(emailCompositionService, transportChain.transport(), props);
+        meterRegistry.ifAvailable(queue::bindTo);
+        return queue;
+    }
+}
@@ -0,0 +1,258 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.messaging.sqs.config.NotificationSqsProps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-polls an SQS queue of JSON {@link EmailRequest}s with {@code pollers} concurrent loops. Each loop receives
+ * up to 10 messages, hands them to {@link NotificationService#sendBatch} in one call and deletes the accepted
+ * ones with a single {@code DeleteMessageBatch}. Messages whose send failed permanently (not
+ * {@linkplain SendResult#isRetryable() retryable}) are deleted in the same call, since redelivery cannot change
+ * the outcome. Messages that failed retryably or could not be parsed are left alone, so they come back after
+ * the visibility timeout and the queue's redrive policy eventually parks them in a dead-letter queue.
+ * <p>
+ * While a batch is sending, its visibility timeout is extended every half period. Metrics:
+ * {@code notification.sqs.received}, {@code notification.sqs.deleted}, {@code notification.sqs.rejected},
+ * {@code notification.sqs.failed} and {@code notification.sqs.visibility-extended}.
+ */
+@Slf4j
+public class SqsNotificationConsumer implements SmartLifecycle, MeterBinder {
+
+    public static final String RECEIVED_METRIC = "notification.sqs.received";
+    public static final String DELETED_METRIC = "notification.sqs.deleted";
+    public static final String REJECTED_METRIC = "notification.sqs.rejected";
+    public static final String FAILED_METRIC = "notification.sqs.failed";
+    public static final String EXTENDED_METRIC = "notification.sqs.visibility-extended";
+
+    private static final long ERROR_BACKOFF_MILLIS = 1000;
+
+    private final SqsClient sqs;
+    private final NotificationService notificationService;
+    private final ObjectMapper mapper;
+    private final NotificationSqsProps props;
+    private final List<Thread> pollers = new ArrayList<>();
+    private ScheduledExecutorService heartbeats;
+    private volatile boolean running;
+    private volatile Counter received;
+    private volatile Counter deleted;
+    private volatile Counter rejected;
+    private volatile Counter failed;
+    private volatile Counter extended;
+
+    public SqsNotificationConsumer(SqsClient sqs,
+                                   NotificationService notificationService,
+                                   ObjectMapper mapper,
+                                   NotificationSqsProps props) {
+        if (props.getQueueUrl() == null || props.getQueueUrl().isBlank()) {
+            throw new IllegalArgumentException("notification.sqs.queue-url is required");
+        }
+        this.sqs = sqs;
+        this.notificationService = notificationService;
+        this.mapper = mapper;
+        this.props = props;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        heartbeats = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("notification-sqs-visibility").daemon().factory());
+        for (int i = 0; i < props.getPollers(); i++) {
+            pollers.add(Thread.ofVirtual().name("notification-sqs-", i).start(this::pollLoop));
+        }
+        log.info("sqs.consumer.started queue={} pollers={}", props.getQueueUrl(), props.getPollers());
+    }
+
+    /**
+     * Stops receiving; batches already handed to the notification service finish first.
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        pollers.forEach(Thread::interrupt);
+        for (Thread poller : pollers) {
+            try {
+                poller.join(props.getVisibilityTimeout().toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        pollers.clear();
+        heartbeats.shutdownNow();
+        log.info("sqs.consumer.stopped queue={}", props.getQueueUrl());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Receives one batch and processes it; returns how many messages were received.
+     */
+    public int pollOnce() {
+        List<Message> messages = sqs.receiveMessage(ReceiveMessageRequest.builder()
+                .queueUrl(props.getQueueUrl())
+                .maxNumberOfMessages(Math.min(10, Math.max(1, props.getBatchSize())))
+                .waitTimeSeconds((int) Math.min(20, props.getWaitTime().toSeconds()))
+                .visibilityTimeout(visibilitySeconds())
+                .build()).messages();
+        if (messages.isEmpty()) return 0;
+        increment(received, messages.size());
+        process(messages);
+        return messages.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        received = Counter.builder(RECEIVED_METRIC).description("SQS messages received").register(registry);
+        deleted = Counter.builder(DELETED_METRIC)
+                .description("SQS messages deleted after being sent or permanently rejected")
+                .register(registry);
+        rejected = Counter.builder(REJECTED_METRIC)
+                .description("SQS messages deleted because their send failed permanently")
+                .register(registry);
+        failed = Counter.builder(FAILED_METRIC)
+                .description("SQS messages left on the queue because they could not be read or sent")
+                .register(registry);
+        extended = Counter.builder(EXTENDED_METRIC)
+                .description("Visibility timeout extensions for slow batches")
+                .register(registry);
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                pollOnce();
+            } catch (RuntimeException e) {
+                if (!running) return;
+                if (e instanceof SdkException) {
+                    log.warn("sqs.receive.failed queue={} error={}", props.getQueueUrl(), e.getMessage());
+                } else {
+                    log.error("sqs.batch.failed queue={} error={}", props.getQueueUrl(), e.getMessage(), e);
+                }
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(List<Message> messages) {
+        List<Message> sendable = new ArrayList<>(messages.size());
+        List<EmailRequest> requests = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                requests.add(mapper.readValue(message.body(), EmailRequest.class));
+                sendable.add(message);
+            } catch (IOException e) {
+                log.error("sqs.message.unreadable messageId={} error={}", message.messageId(), e.getMessage());
+                increment(failed, 1);
+            }
+        }
+        if (sendable.isEmpty()) return;
+
+        List<SendResult> results;
+        ScheduledFuture<?> heartbeat = scheduleHeartbeat(sendable);
+        try {
+            results = notificationService.sendBatch(requests);
+        } finally {
+            if (heartbeat != null) heartbeat.cancel(false);
+        }
+
+        List<DeleteMessageBatchRequestEntry> deletes = new ArrayList<>(sendable.size());
+        for (int i = 0; i < sendable.size(); i++) {
+            SendResult result = i < results.size() ? results.get(i) : null;
+            if (result != null && (result.isAccepted() || !result.isRetryable())) {
+                if (!result.isAccepted()) {
+                    log.warn("sqs.send.rejected messageId={} status={} error={}", sendable.get(i).messageId(),
+                            result.getStatus(), result.getError());
+                    increment(rejected, 1);
+                }
+                deletes.add(DeleteMessageBatchRequestEntry.builder()
+                        .id(Integer.toString(i))
+                        .receiptHandle(sendable.get(i).receiptHandle())
+                        .build());
+            } else {
+                log.warn("sqs.send.failed messageId={} status={} error={}", sendable.get(i).messageId(),
+                        result == null ? null : result.getStatus(), result == null ? null : result.getError());
+                increment(failed, 1);
+            }
+        }
+        if (deletes.isEmpty()) return;
+        DeleteMessageBatchResponse response = sqs.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                .queueUrl(props.getQueueUrl())
+                .entries(deletes)
+                .build());
+        for (BatchResultErrorEntry error : response.failed()) {
+            log.warn("sqs.delete.failed id={} code={} error={}", error.id(), error.code(), error.message());
+        }
+        increment(deleted, response.successful().size());
+    }
+
+    private ScheduledFuture<?> scheduleHeartbeat(List<Message> messages) {
+        ScheduledExecutorService scheduler = heartbeats;
+        if (scheduler == null || scheduler.isShutdown()) return null;
+        long period = Math.max(1, props.getVisibilityTimeout().toMillis() / 2);
+        return scheduler.scheduleAtFixedRate(() -> extendVisibility(messages), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void extendVisibility(List<Message> messages) {
+        List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                    .id(Integer.toString(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .visibilityTimeout(visibilitySeconds())
+                    .build());
+        }
+        try {
+            sqs.changeMessageVisibilityBatch(ChangeMessageVisibilityBatchRequest.builder()
+                    .queueUrl(props.getQueueUrl())
+                    .entries(entries)
+                    .build());
+            increment(extended, 1);
+        } catch (SdkException e) {
+            log.warn("sqs.visibility.extend.failed queue={} error={}", props.getQueueUrl(), e.getMessage());
+        }
+    }
+
+    private int visibilitySeconds() {
+        return (int) Math.max(1, props.getVisibilityTimeout().toSeconds());
+    }
+
+    private static void increment(Counter counter, int amount) {
+        if (counter != null) counter.increment(amount);
+    }
+}
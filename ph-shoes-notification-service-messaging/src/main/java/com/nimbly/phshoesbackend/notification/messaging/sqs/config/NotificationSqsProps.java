@@ -0,0 +1,44 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Queue consumer that lets producers hand off {@code EmailRequest}s as SQS messages (JSON bodies) instead of
+ * calling the service synchronously.
+ */
+@ConfigurationProperties(prefix = "notification.sqs")
+@Data
+public class NotificationSqsProps {
+    private boolean enabled = false;
+    private String queueUrl;
+    private String region;
+
+    /**
+     * Local stand-in such as ElasticMQ ({@code localhost:9324}) or LocalStack; uses test credentials when set.
+     */
+    private String endpoint;
+
+    /**
+     * Concurrent long-poll loops, each handling one batch at a time.
+     */
+    private int pollers = 4;
+
+    /**
+     * Messages per receive, at most 10.
+     */
+    private int batchSize = 10;
+
+    /**
+     * Long-poll wait per receive, at most 20 seconds.
+     */
+    private Duration waitTime = Duration.ofSeconds(20);
+
+    /**
+     * Visibility timeout requested on receive. While a batch is still sending, it is extended by this much
+     * every half period, so slow sends are not redelivered to another poller.
+     */
+    private Duration visibilityTimeout = Duration.ofSeconds(30);
+}
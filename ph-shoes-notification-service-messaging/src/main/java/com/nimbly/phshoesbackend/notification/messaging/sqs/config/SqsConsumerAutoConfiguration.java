@@ -0,0 +1,70 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.config.CoreNotificationAutoConfiguration;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.core.util.AwsEndpoints;
+import com.nimbly.phshoesbackend.notification.messaging.sqs.SqsNotificationConsumer;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.SqsClientBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+
+@Slf4j
+@AutoConfiguration(after = CoreNotificationAutoConfiguration.class)
+@ConditionalOnProperty(prefix = "notification.sqs", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(NotificationSqsProps.class)
+public class SqsConsumerAutoConfiguration {
+
+    /**
+     * Each poller holds a connection for its long poll, and deletes and visibility extensions need their own.
+     */
+    @Bean
+    @ConditionalOnMissingBean(SqsClient.class)
+    public SqsClient sqsClient(NotificationSqsProps props) {
+        SqsClientBuilder builder = SqsClient.builder()
+                .httpClient(ApacheHttpClient.builder()
+                        .maxConnections(props.getPollers() * 2 + 2)
+                        .connectionTimeout(Duration.ofSeconds(2))
+                        .socketTimeout(props.getWaitTime().plusSeconds(5))
+                        .build())
+                .region(Region.of(AwsEndpoints.regionName(props.getRegion())))
+                .credentialsProvider(DefaultCredentialsProvider.create());
+        URI endpoint = AwsEndpoints.normalizeEndpoint(props.getEndpoint());
+        if (endpoint != null) {
+            builder = builder
+                    .endpointOverride(endpoint)
+                    .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")));
+        }
+        log.info("[SQS] region={} endpoint={}", AwsEndpoints.regionName(props.getRegion()), endpoint == null ? "(aws)" : endpoint);
+        return builder.build();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnBean(NotificationService.class)
+    public SqsNotificationConsumer sqsNotificationConsumer(SqsClient sqsClient,
+                                                           NotificationService notificationService,
+                                                           ObjectMapper objectMapper,
+                                                           NotificationSqsProps props,
+                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        SqsNotificationConsumer consumer = new SqsNotificationConsumer(sqsClient, notificationService, objectMapper, props);
+        meterRegistry.ifAvailable(consumer::bindTo);
+        return consumer;
+    }
+}
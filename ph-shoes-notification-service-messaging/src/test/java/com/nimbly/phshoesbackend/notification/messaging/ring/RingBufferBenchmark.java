@@ -0,0 +1,101 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hand-off throughput of the ring against an {@link ArrayBlockingQueue} of the same capacity, in the shape the
+ * dispatch queue uses: {@value #PRODUCERS} producers offering without blocking and one consumer draining up to
+ * {@value #BATCH} entries per pass. Producer scores count offers, including ones refused because the buffer was
+ * full; compare the {@code handedOver} counters, which count entries the consumer actually received.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RingBufferBenchmark {
+
+    static final int PRODUCERS = 4;
+    static final int BATCH = 64;
+    static final int CAPACITY = 4096;
+
+    @State(Scope.Group)
+    public static class Ring {
+        final RingBuffer<long[]> ring = new RingBuffer<>(CAPACITY, () -> new long[1], WaitStrategy.busySpin());
+        final AtomicLong consumed = new AtomicLong(-1);
+
+        @Setup
+        public void setUp() {
+            ring.addGatingSequence(consumed);
+        }
+    }
+
+    @State(Scope.Group)
+    public static class Queue {
+        final ArrayBlockingQueue<long[]> queue = new ArrayBlockingQueue<>(CAPACITY);
+        final long[] entry = {1};
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Drain {
+        final List<long[]> batch = new ArrayList<>(BATCH);
+        public long handedOver;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            handedOver = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(PRODUCERS)
+    public boolean ringOffer(Ring state) {
+        long sequence = state.ring.tryClaim();
+        if (sequence < 0) return false;
+        state.ring.get(sequence)[0] = sequence;
+        state.ring.publish(sequence);
+        return true;
+    }
+
+    @Benchmark
+    @Group("ring")
+    public void ringDrain(Ring state, Drain drain, Blackhole blackhole) {
+        long next = state.consumed.get() + 1;
+        long end = state.ring.highestPublished(next, Math.min(state.ring.claimedCursor(), next + BATCH - 1));
+        for (long sequence = next; sequence <= end; sequence++) blackhole.consume(state.ring.get(sequence)[0]);
+        state.consumed.set(end);
+        drain.handedOver += end - next + 1;
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    @GroupThreads(PRODUCERS)
+    public boolean queueOffer(Queue state) {
+        return state.queue.offer(state.entry);
+    }
+
+    @Benchmark
+    @Group("arrayBlockingQueue")
+    public void queueDrain(Queue state, Drain drain, Blackhole blackhole) {
+        int drained = state.queue.drainTo(drain.batch, BATCH);
+        for (long[] entry : drain.batch) blackhole.consume(entry[0]);
+        drain.batch.clear();
+        drain.handedOver += drained;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RingBufferBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,57 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RingBufferTest {
+
+    @Test
+    void refusesToClaimPastTheSlowestGatingSequence() {
+        // Arrange
+        RingBuffer<long[]> ring = new RingBuffer<>(4, () -> new long[1], WaitStrategy.busySpin());
+        AtomicLong consumer = new AtomicLong(-1);
+        ring.addGatingSequence(consumer);
+        for (int i = 0; i < 4; i++) ring.publish(ring.tryClaim());
+
+        // Act
+        long whileFull = ring.tryClaim();
+        consumer.set(0);
+        long afterConsume = ring.tryClaim();
+
+        // Assert
+        assertThat(whileFull).isEqualTo(-1);
+        assertThat(afterConsume).isEqualTo(4);
+        assertThat(ring.get(4)).isSameAs(ring.get(0));
+    }
+
+    @Test
+    void consumersOnlyAdvanceOverTheContiguousPublishedPrefix() {
+        // Arrange
+        RingBuffer<long[]> ring = new RingBuffer<>(8, () -> new long[1], WaitStrategy.busySpin());
+        long first = ring.tryClaim();
+        long second = ring.tryClaim();
+        long third = ring.tryClaim();
+
+        // Act
+        ring.publish(second);
+        ring.publish(third);
+        long beforeFirst = ring.highestPublished(0, ring.claimedCursor());
+        ring.publish(first);
+        long afterFirst = ring.highestPublished(0, ring.claimedCursor());
+
+        // Assert
+        assertThat(beforeFirst).isEqualTo(-1);
+        assertThat(afterFirst).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsCapacitiesThatAreNotPowersOfTwo() {
+        // Act + Assert
+        assertThatThrownBy(() -> new RingBuffer<>(6, Object::new, WaitStrategy.busySpin()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,154 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import com.nimbly.phshoesbackend.notification.messaging.ring.config.NotificationRingProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RingDispatchQueueTest {
+
+    private final EmailCompositionService composer = mock(EmailCompositionService.class);
+    private final EmailTransportService transport = mock(EmailTransportService.class);
+
+    @Test
+    void composesAndSendsEveryRequestThroughBatchedTransportCalls() {
+        // Arrange
+        when(composer.compose(any())).thenAnswer(invocation -> mock(ComposedEmail.class));
+        List<Integer> batchSizes = new ArrayList<>();
+        when(transport.sendBatch(anyList())).thenAnswer(invocation -> {
+            List<?> emails = invocation.getArgument(0);
+            synchronized (batchSizes) {
+                batchSizes.add(emails.size());
+            }
+            return emails.stream().map(email -> SendResult.builder().status(SendResult.SUCCESS).build()).toList();
+        });
+        RingDispatchQueue queue = new RingDispatchQueue(composer, transport, props(RingDispatchQueue.FullPolicy.BLOCK));
+        queue.start();
+
+        // Act
+        List<CompletableFuture<SendResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) futures.add(queue.enqueue(request(i)));
+        List<SendResult> results = futures.stream().map(CompletableFuture::join).toList();
+        queue.stop();
+
+        // Assert
+        assertThat(results).hasSize(500).allMatch(SendResult::isAccepted);
+        assertThat(batchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(500);
+        assertThat(batchSizes).allMatch(size -> size <= 16);
+        assertThat(queue.backlog()).isZero();
+    }
+
+    @Test
+    void appliesTheFullPolicyOnceEverySlotIsTaken() throws Exception {
+        // Arrange
+        CountDownLatch release = new CountDownLatch(1);
+        when(composer.compose(any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return mock(ComposedEmail.class);
+        });
+        when(transport.send(any())).thenReturn(SendResult.builder().provider("ses").build());
+        when(transport.sendBatch(anyList())).thenAnswer(invocation -> ((List<?>) invocation.getArgument(0)).stream()
+                .map(email -> SendResult.builder().status(SendResult.SUCCESS).build()).toList());
+        RingDispatchQueue dropping = new RingDispatchQueue(composer, transport, props(RingDispatchQueue.FullPolicy.DROP));
+        RingDispatchQueue callerRuns = new RingDispatchQueue(composer, transport, props(RingDispatchQueue.FullPolicy.CALLER_RUNS));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        callerRuns.bindTo(registry);
+        dropping.start();
+        callerRuns.start();
+
+        // Act
+        for (int i = 0; i < 64; i++) {
+            dropping.enqueue(request(i));
+            callerRuns.enqueue(request(i));
+        }
+        CompletableFuture<SendResult> dropped = dropping.enqueue(request(99));
+        CompletableFuture<SendResult> ranHere = CompletableFuture.supplyAsync(() -> callerRuns.enqueue(request(99)).join());
+        awaitFull(registry);
+        release.countDown();
+
+        // Assert
+        assertThat(dropped.join().isThrottled()).isTrue();
+        assertThat(ranHere.get(5, TimeUnit.SECONDS).getProvider()).isEqualTo("ses");
+        dropping.stop();
+        callerRuns.stop();
+        assertThat(dropping.backlog()).isZero();
+    }
+
+    @Test
+    void callerRunsSendsWaitForAnInFlightSlot() throws Exception {
+        // Arrange
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(composer.compose(any())).thenAnswer(invocation -> mock(ComposedEmail.class));
+        when(transport.send(any())).thenReturn(SendResult.builder().provider("ses").build());
+        when(transport.sendBatch(anyList())).thenAnswer(invocation -> {
+            sending.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return ((List<?>) invocation.getArgument(0)).stream()
+                    .map(email -> SendResult.builder().status(SendResult.SUCCESS).build()).toList();
+        });
+        NotificationRingProps props = props(RingDispatchQueue.FullPolicy.CALLER_RUNS);
+        props.setTransportConcurrency(1);
+        RingDispatchQueue queue = new RingDispatchQueue(composer, transport, props);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        queue.bindTo(registry);
+        queue.start();
+
+        // Act
+        queue.enqueue(request(0));
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            while (registry.get(RingDispatchQueue.FULL_METRIC).counter().count() == 0) queue.enqueue(request(0));
+        });
+        awaitFull(registry);
+        Thread.sleep(100);
+        verify(transport, never()).send(any());
+        release.countDown();
+
+        // Assert
+        producer.get(5, TimeUnit.SECONDS);
+        verify(transport).send(any());
+        queue.stop();
+        assertThat(queue.backlog()).isZero();
+    }
+
+    private static void awaitFull(SimpleMeterRegistry registry) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (registry.get(RingDispatchQueue.FULL_METRIC).counter().count() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static NotificationRingProps props(RingDispatchQueue.FullPolicy policy) {
+        NotificationRingProps props = new NotificationRingProps();
+        props.setCapacity(64);
+        props.setMaxBatch(16);
+        props.setFullPolicy(policy);
+        props.setDrainTimeout(Duration.ofSeconds(5));
+        return props;
+    }
+
+    private static EmailRequest request(int i) {
+        return EmailRequest.builder().to(EmailAddress.builder().address("user" + i + "@example.com").build()).subject("hi").textBody("hello").build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.nimbly.phshoesbackend.notification.messaging.ring.config;
+
+import com.nimbly.phshoesbackend.notification.core.service.EmailCompositionService;
+import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationTransportChain;
+import com.nimbly.phshoesbackend.notification.messaging.ring.RingDispatchQueue;
+import com.nimbly.phshoesbackend.notification.messaging.ring.WaitStrategy;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class RingDispatchAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(RingDispatchAutoConfiguration.class))
+            .withBean(EmailCompositionService.class, () -> mock(EmailCompositionService.class))
+            .withBean(NotificationTransportChain.class,
+                    () -> new NotificationTransportChain(mock(EmailTransportService.class)));
+
+    @Test
+    void startsRingWithConfiguredPoliciesWhenEnabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner.withPropertyValues("notification.ring.enabled=true",
+                "notification.ring.wait-strategy=sleeping", "notification.ring.full-policy=caller-runs");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(RingDispatchQueue.class);
+            assertThat(context.getBean(RingDispatchQueue.class).isRunning()).isTrue();
+            NotificationRingProps props = context.getBean(NotificationRingProps.class);
+            assertThat(props.getWaitStrategy()).isEqualTo(WaitStrategy.Type.SLEEPING);
+            assertThat(props.getFullPolicy()).isEqualTo(RingDispatchQueue.FullPolicy.CALLER_RUNS);
+        });
+    }
+
+    @Test
+    void staysOffByDefault() {
+        // Act + Assert
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(RingDispatchQueue.class));
+    }
+}
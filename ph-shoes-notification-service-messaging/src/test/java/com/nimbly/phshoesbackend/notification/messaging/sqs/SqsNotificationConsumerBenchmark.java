@@ -0,0 +1,136 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.messaging.sqs.config.NotificationSqsProps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticmq.rest.sqs.SQSRestServer;
+import org.elasticmq.rest.sqs.SQSRestServerBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drain throughput of the consumer against a local SQS stand-in: each invocation seeds {@value #MESSAGES}
+ * messages and times how long {@code pollers} loops take to receive, send and delete all of them. Sends park
+ * for {@value #SEND_MILLIS} ms per batch like a provider round trip. By default the trial starts an embedded
+ * ElasticMQ server in the benchmark JVM (the test-scoped {@code elasticmq-rest-sqs}), so its request handling
+ * competes with the consumer for CPU; point {@code -Dsqs.endpoint} at an external ElasticMQ or LocalStack to
+ * keep them apart. Messages per second is {@value #MESSAGES} divided by the score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SqsNotificationConsumerBenchmark {
+
+    static final int MESSAGES = 2000;
+    static final long SEND_MILLIS = 20;
+
+    @Param({"1", "4", "16"})
+    public int pollers;
+
+    private SQSRestServer server;
+    private SqsClient sqs;
+    private String queueUrl;
+    private SqsNotificationConsumer consumer;
+    private Counter deleted;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() {
+        String endpoint = System.getProperty("sqs.endpoint");
+        if (endpoint == null) {
+            server = SQSRestServerBuilder.withDynamicPort().withInterface("localhost").start();
+            endpoint = "http://localhost:" + server.waitUntilStarted().localAddress().getPort();
+        }
+        sqs = SqsClient.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.AP_SOUTHEAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+    }
+
+    @Setup(Level.Invocation)
+    public void seed() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        queueUrl = sqs.createQueue(request -> request.queueName("bench-" + UUID.randomUUID())).queueUrl();
+        String body = mapper.writeValueAsString(EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .textBody("Hello")
+                .build());
+        for (int i = 0; i < MESSAGES; i += 10) {
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                entries.add(SendMessageBatchRequestEntry.builder().id(Integer.toString(j)).messageBody(body).build());
+            }
+            sqs.sendMessageBatch(request -> request.queueUrl(queueUrl).entries(entries));
+        }
+
+        NotificationSqsProps props = new NotificationSqsProps();
+        props.setQueueUrl(queueUrl);
+        props.setPollers(pollers);
+        props.setWaitTime(Duration.ofSeconds(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        consumer = new SqsNotificationConsumer(sqs, new ParkingNotificationService(), mapper, props);
+        consumer.bindTo(registry);
+        deleted = registry.get(SqsNotificationConsumer.DELETED_METRIC).counter();
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownInvocation() {
+        consumer.stop();
+        sqs.deleteQueue(request -> request.queueUrl(queueUrl));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        sqs.close();
+        if (server != null) server.stopAndWait();
+    }
+
+    @Benchmark
+    public double drain() {
+        consumer.start();
+        while (deleted.count() < MESSAGES) LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        return deleted.count();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SqsNotificationConsumerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    static final class ParkingNotificationService implements NotificationService {
+        @Override
+        public SendResult sendEmailVerification(EmailRequest req) {
+            return SendResult.builder().build();
+        }
+
+        @Override
+        public List<SendResult> sendBatch(List<EmailRequest> requests) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(SEND_MILLIS));
+            return Collections.nCopies(requests.size(), SendResult.builder().status(SendResult.SUCCESS).build());
+        }
+    }
+}
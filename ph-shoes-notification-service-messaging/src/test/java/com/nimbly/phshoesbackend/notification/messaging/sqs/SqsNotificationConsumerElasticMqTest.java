@@ -0,0 +1,129 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.messaging.sqs.config.NotificationSqsProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.elasticmq.rest.sqs.SQSRestServer;
+import org.elasticmq.rest.sqs.SQSRestServerBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.QueueAttributeName;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the consumer against an in-process ElasticMQ server, so receive, batch delete and visibility handling go
+ * through a real SQS wire protocol rather than a mocked client.
+ */
+class SqsNotificationConsumerElasticMqTest {
+
+    private static SQSRestServer server;
+    private static SqsClient sqs;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startElasticMq() {
+        server = SQSRestServerBuilder.withDynamicPort().withInterface("localhost").start();
+        int port = server.waitUntilStarted().localAddress().getPort();
+        sqs = SqsClient.builder()
+                .endpointOverride(URI.create("http://localhost:" + port))
+                .region(Region.AP_SOUTHEAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")))
+                .build();
+    }
+
+    @AfterAll
+    static void stopElasticMq() {
+        sqs.close();
+        server.stopAndWait();
+    }
+
+    @Test
+    void drainsTheQueueAndLeavesUnreadableMessagesOnIt() throws Exception {
+        // Arrange
+        String queueUrl = sqs.createQueue(request -> request.queueName("notifications-drain")).queueUrl();
+        String body = mapper.writeValueAsString(EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .textBody("Hello")
+                .build());
+        for (int batch = 0; batch < 3; batch++) {
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                entries.add(SendMessageBatchRequestEntry.builder().id(Integer.toString(i)).messageBody(body).build());
+            }
+            sqs.sendMessageBatch(request -> request.queueUrl(queueUrl).entries(entries));
+        }
+        sqs.sendMessage(request -> request.queueUrl(queueUrl).messageBody("not json"));
+        RecordingNotificationService notificationService = new RecordingNotificationService();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsNotificationConsumer consumer = new SqsNotificationConsumer(sqs, notificationService, mapper, props(queueUrl));
+        consumer.bindTo(registry);
+
+        // Act
+        consumer.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get(SqsNotificationConsumer.DELETED_METRIC).counter().count() < 30 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        consumer.stop();
+
+        // Assert
+        Map<QueueAttributeName, String> attributes = sqs.getQueueAttributes(request -> request.queueUrl(queueUrl)
+                .attributeNames(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES,
+                        QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)).attributes();
+        assertThat(registry.get(SqsNotificationConsumer.DELETED_METRIC).counter().count()).isEqualTo(30);
+        assertThat(notificationService.sent).hasSize(30);
+        assertThat(notificationService.batchSizes).allSatisfy(size -> assertThat(size).isBetween(1, 10));
+        assertThat(Integer.parseInt(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES))
+                + Integer.parseInt(attributes.get(QueueAttributeName.APPROXIMATE_NUMBER_OF_MESSAGES_NOT_VISIBLE)))
+                .isEqualTo(1);
+    }
+
+    private static NotificationSqsProps props(String queueUrl) {
+        NotificationSqsProps props = new NotificationSqsProps();
+        props.setQueueUrl(queueUrl);
+        props.setPollers(2);
+        props.setWaitTime(Duration.ofSeconds(1));
+        props.setVisibilityTimeout(Duration.ofSeconds(30));
+        return props;
+    }
+
+    static final class RecordingNotificationService implements NotificationService {
+        final List<EmailRequest> sent = new CopyOnWriteArrayList<>();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+        @Override
+        public SendResult sendEmailVerification(EmailRequest req) {
+            sent.add(req);
+            return SendResult.builder().build();
+        }
+
+        @Override
+        public List<SendResult> sendBatch(List<EmailRequest> requests) {
+            sent.addAll(requests);
+            batchSizes.add(requests.size());
+            return Collections.nCopies(requests.size(), SendResult.builder().status(SendResult.SUCCESS).build());
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.messaging.sqs.config.NotificationSqsProps;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResultEntry;
+import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqsNotificationConsumerTest {
+
+    private static final String QUEUE_URL = "http://localhost:9324/000000000000/notifications";
+
+    private final SqsClient sqs = mock(SqsClient.class);
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void sendsBatchAndDeletesOnlyAcceptedMessages() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsNotificationConsumer consumer = consumer(Duration.ofSeconds(30));
+        consumer.bindTo(registry);
+        when(sqs.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(ReceiveMessageResponse.builder()
+                .messages(message("m-1", "a@ph-shoes.app"), message("m-2", "b@ph-shoes.app"),
+                        Message.builder().messageId("m-3").receiptHandle("r-m-3").body("not json").build())
+                .build());
+        when(notificationService.sendBatch(anyList())).thenReturn(List.of(
+                SendResult.builder().status(SendResult.SUCCESS).build(),
+                SendResult.builder().status(SendResult.THROTTLED).build()));
+        when(sqs.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(DeleteMessageBatchResponse.builder()
+                .successful(DeleteMessageBatchResultEntry.builder().id("0").build())
+                .build());
+
+        // Act
+        int received = consumer.pollOnce();
+
+        // Assert
+        ArgumentCaptor<ReceiveMessageRequest> receive = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqs).receiveMessage(receive.capture());
+        assertThat(receive.getValue().maxNumberOfMessages()).isEqualTo(10);
+        assertThat(receive.getValue().waitTimeSeconds()).isEqualTo(20);
+        ArgumentCaptor<DeleteMessageBatchRequest> delete = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqs).deleteMessageBatch(delete.capture());
+        assertThat(delete.getValue().entries()).singleElement()
+                .satisfies(entry -> assertThat(entry.receiptHandle()).isEqualTo("r-m-1"));
+        assertThat(received).isEqualTo(3);
+        assertThat(registry.get(SqsNotificationConsumer.DELETED_METRIC).counter().count()).isEqualTo(1);
+        assertThat(registry.get(SqsNotificationConsumer.FAILED_METRIC).counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void deletesAndCountsPermanentlyFailedMessages() throws Exception {
+        // Arrange
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SqsNotificationConsumer consumer = consumer(Duration.ofSeconds(30));
+        consumer.bindTo(registry);
+        when(sqs.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(ReceiveMessageResponse.builder()
+                .messages(message("m-1", "a@ph-shoes.app"), message("m-2", "b@ph-shoes.app"),
+                        message("m-3", "c@ph-shoes.app"))
+                .build());
+        when(notificationService.sendBatch(anyList())).thenReturn(List.of(
+                SendResult.builder().status(SendResult.SUCCESS).build(),
+                SendResult.builder().status("MESSAGE_REJECTED").error("Email address is not verified").build(),
+                SendResult.builder().status(SendResult.TRANSIENT).build()));
+        when(sqs.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(DeleteMessageBatchResponse.builder()
+                .successful(DeleteMessageBatchResultEntry.builder().id("0").build(),
+                        DeleteMessageBatchResultEntry.builder().id("1").build())
+                .build());
+
+        // Act
+        consumer.pollOnce();
+
+        // Assert
+        ArgumentCaptor<DeleteMessageBatchRequest> delete = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqs).deleteMessageBatch(delete.capture());
+        assertThat(delete.getValue().entries()).extracting(entry -> entry.receiptHandle())
+                .containsExactly("r-m-1", "r-m-2");
+        assertThat(registry.get(SqsNotificationConsumer.REJECTED_METRIC).counter().count()).isEqualTo(1);
+        assertThat(registry.get(SqsNotificationConsumer.FAILED_METRIC).counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void extendsVisibilityWhileSlowBatchIsSending() throws Exception {
+        // Arrange
+        SqsNotificationConsumer consumer = consumer(Duration.ofSeconds(1));
+        when(sqs.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(message("m-1", "a@ph-shoes.app")).build())
+                .thenReturn(ReceiveMessageResponse.builder().build());
+        when(sqs.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+        when(sqs.deleteMessageBatch(any(DeleteMessageBatchRequest.class))).thenReturn(DeleteMessageBatchResponse.builder().build());
+        when(notificationService.sendBatch(anyList())).thenAnswer(invocation -> {
+            Thread.sleep(1200);
+            return List.of(SendResult.builder().build());
+        });
+
+        // Act
+        consumer.start();
+        verify(sqs, timeout(3000)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        consumer.stop();
+
+        // Assert
+        ArgumentCaptor<ChangeMessageVisibilityBatchRequest> extend = ArgumentCaptor.forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqs, atLeastOnce()).changeMessageVisibilityBatch(extend.capture());
+        assertThat(extend.getValue().entries()).singleElement()
+                .satisfies(entry -> assertThat(entry.visibilityTimeout()).isEqualTo(1));
+    }
+
+    private SqsNotificationConsumer consumer(Duration visibilityTimeout) {
+        NotificationSqsProps props = new NotificationSqsProps();
+        props.setQueueUrl(QUEUE_URL);
+        props.setPollers(1);
+        props.setVisibilityTimeout(visibilityTimeout);
+        return new SqsNotificationConsumer(sqs, notificationService, mapper, props);
+    }
+
+    private Message message(String id, String to) throws Exception {
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address(to).build())
+                .subject("Verify")
+                .textBody("Hello")
+                .build();
+        return Message.builder().messageId(id).receiptHandle("r-" + id).body(mapper.writeValueAsString(request)).build();
+    }
+}
@@ -0,0 +1,58 @@
+package com.nimbly.phshoesbackend.notification.messaging.sqs.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.messaging.sqs.SqsNotificationConsumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SqsConsumerAutoConfigurationTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(SqsConsumerAutoConfiguration.class))
+            .withBean(NotificationService.class, () -> mock(NotificationService.class))
+            .withBean(ObjectMapper.class, ObjectMapper::new);
+
+    @Test
+    void createsConsumerAgainstLocalEndpointWhenEnabled() {
+        // Arrange
+        ApplicationContextRunner runner = contextRunner
+                .withBean(SqsClient.class, SqsConsumerAutoConfigurationTest::idleQueue)
+                .withPropertyValues("notification.sqs.enabled=true",
+                        "notification.sqs.queue-url=http://localhost:9324/000000000000/notifications");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(SqsNotificationConsumer.class);
+            assertThat(context.getBean(SqsNotificationConsumer.class).isRunning()).isTrue();
+        });
+    }
+
+    @Test
+    void staysOffByDefault() {
+        // Act + Assert
+        contextRunner.run(context -> assertThat(context).doesNotHaveBean(SqsNotificationConsumer.class));
+    }
+
+    private static SqsClient idleQueue() {
+        SqsClient sqs = mock(SqsClient.class);
+        when(sqs.receiveMessage(any(ReceiveMessageRequest.class))).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return ReceiveMessageResponse.builder().build();
+        });
+        return sqs;
+    }
+}
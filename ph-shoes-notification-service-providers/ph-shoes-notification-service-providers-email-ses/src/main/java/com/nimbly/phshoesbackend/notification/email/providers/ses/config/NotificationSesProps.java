@@ -9,4 +9,23 @@ public class NotificationSesProps {
     private String region;
     private String endpoint;
     private String configurationSet;
+    private Async async = new Async();
+
+    /**
+     * Non-blocking transport on {@code SesV2AsyncClient} and the Netty NIO HTTP client. Off by default.
+     */
+    @Data
+    public static class Async {
+        private boolean enabled = false;
+
+        /**
+         * Concurrent SES requests (HTTP connections, or streams when HTTP/2 is negotiated).
+         */
+        private int maxConcurrency = 200;
+
+        /**
+         * Sends allowed to wait for a connection before new ones fail fast.
+         */
+        private int maxPendingConnectionAcquires = 10_000;
+    }
 }
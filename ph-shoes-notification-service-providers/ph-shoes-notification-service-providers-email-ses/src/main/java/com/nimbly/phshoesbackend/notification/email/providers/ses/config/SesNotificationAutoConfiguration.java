@@ -1,12 +1,15 @@
 package com.nimbly.phshoesbackend.notification.email.providers.ses.config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.notification.core.config.ReactiveNotificationAutoConfiguration;
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
-import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
-import com.nimbly.phshoesbackend.notification.email.providers.ses.service.SesNotificationServiceImpl;
+import com.nimbly.phshoesbackend.notification.core.util.AwsEndpoints;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.service.SesV2EmailTransport;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.util.TemplateJsonSerializer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -16,10 +19,14 @@ import org.springframework.context.annotation.Bean;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.client.builder.AwsClientBuilder;
 import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
 import software.amazon.awssdk.http.SdkHttpClient;
 import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.sesv2.SesV2AsyncClient;
 import software.amazon.awssdk.services.sesv2.SesV2Client;
 import software.amazon.awssdk.services.sesv2.SesV2ClientBuilder;
 
@@ -27,7 +34,7 @@ import java.net.URI;
 import java.time.Duration;
 
 @Slf4j
-@AutoConfiguration
+@AutoConfiguration(before = ReactiveNotificationAutoConfiguration.class)
 @ConditionalOnProperty(name = "notification.provider", havingValue = "ses")
 @EnableConfigurationProperties({ NotificationSesProps.class, NotificationSesEmailProps.class })
 public class SesNotificationAutoConfiguration {
@@ -41,32 +48,49 @@ public class SesNotificationAutoConfiguration {
                 .socketTimeout(Duration.ofSeconds(5))
                 .build();
 
+        SesV2ClientBuilder clientBuilder = configure(SesV2Client.builder().httpClient(httpClient), infraProperties);
+        URI endpointUri = AwsEndpoints.normalizeEndpoint(infraProperties.getEndpoint());
+
+        SesV2Client sesClient = clientBuilder.build();
+        log.info("[SES] region={} endpoint={}", AwsEndpoints.regionName(infraProperties.getRegion()), endpointUri == null ? "(aws)" : endpointUri);
+        return sesClient;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SesV2AsyncClient.class)
+    @ConditionalOnProperty(prefix = "notification.ses.async", name = "enabled", havingValue = "true", matchIfMissing = false)
+    public SesV2AsyncClient sesV2AsyncClient(NotificationSesProps infraProperties) {
+        NotificationSesProps.Async async = infraProperties.getAsync();
+        SdkAsyncHttpClient httpClient = NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(async.getMaxConcurrency())
+                .maxPendingConnectionAcquires(async.getMaxPendingConnectionAcquires())
+                .connectionTimeout(Duration.ofSeconds(2))
+                .readTimeout(Duration.ofSeconds(5))
+                .build();
+
+        SesV2AsyncClient sesClient = configure(SesV2AsyncClient.builder().httpClient(httpClient), infraProperties).build();
+        log.info("[SES] async region={} maxConcurrency={}", AwsEndpoints.regionName(infraProperties.getRegion()), async.getMaxConcurrency());
+        return sesClient;
+    }
+
+    private static <B extends AwsClientBuilder<B, ?>> B configure(B builder, NotificationSesProps infraProperties) {
         ClientOverrideConfiguration overrideConfiguration = ClientOverrideConfiguration.builder()
                 .apiCallAttemptTimeout(Duration.ofSeconds(3))
                 .apiCallTimeout(Duration.ofSeconds(10))
                 .build();
 
-        String regionName = (infraProperties.getRegion() != null && !infraProperties.getRegion().isBlank())
-                ? infraProperties.getRegion()
-                : System.getProperty("AWS_REGION",
-                System.getenv().getOrDefault("AWS_REGION", "ap-southeast-1"));
-
-        SesV2ClientBuilder clientBuilder = SesV2Client.builder()
-                .httpClient(httpClient)
+        builder = builder
                 .overrideConfiguration(overrideConfiguration)
-                .region(Region.of(regionName))
+                .region(Region.of(AwsEndpoints.regionName(infraProperties.getRegion())))
                 .credentialsProvider(DefaultCredentialsProvider.create());
 
-        URI endpointUri = normalizeEndpoint(infraProperties.getEndpoint());
+        URI endpointUri = AwsEndpoints.normalizeEndpoint(infraProperties.getEndpoint());
         if (endpointUri != null) {
-            clientBuilder = clientBuilder
+            builder = builder
                     .endpointOverride(endpointUri)
                     .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")));
         }
-
-        SesV2Client sesClient = clientBuilder.build();
-        log.info("[SES] region={} endpoint={}", regionName, endpointUri == null ? "(aws)" : endpointUri);
-        return sesClient;
+        return builder;
     }
 
     @Bean
@@ -75,39 +99,40 @@ public class SesNotificationAutoConfiguration {
         return new TemplateJsonSerializer();
     }
 
+    /**
+     * The SES transport the core notification service sends through, behind its idempotency, rate-limit, retry
+     * and failover layers. Async sends use the {@link SesV2AsyncClient} when one is configured.
+     */
     @Bean
-    @ConditionalOnExpression("'${notification.transport:}'=='ses' or '${notification.transport:}'=='sesv2'")
+    @ConditionalOnExpression("'${notification.transport:sesv2}'=='ses' or '${notification.transport:sesv2}'=='sesv2'")
     @ConditionalOnMissingBean(EmailTransportService.class)
     public EmailTransportService sesV2EmailTransport(SesV2Client sesClient,
+                                                     ObjectProvider<SesV2AsyncClient> asyncClient,
                                                      NotificationSesProps props,
-                                                     TemplateJsonSerializer json) {
-        return new SesV2EmailTransport(sesClient, props, json);
+                                                     TemplateJsonSerializer json,
+                                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        return sesTransport(sesClient, asyncClient, props, json, meterRegistry);
     }
 
     @Bean
-    @ConditionalOnMissingBean(NotificationService.class)
-    public NotificationService notificationService(
-            SesV2Client sesClient,
-            NotificationSesEmailProps emailProperties,
-            NotificationSesProps infraProperties,
-            ObjectMapper objectMapper
-    ) {
-        return new SesNotificationServiceImpl(sesClient, emailProperties, infraProperties, objectMapper);
+    @ConditionalOnExpression("'${notification.failover.fallbacks:}'.contains('ses') or '${notification.routing.weights.ses:}' != ''")
+    public NamedEmailTransport sesNamedTransport(SesV2Client sesClient,
+                                                       ObjectProvider<SesV2AsyncClient> asyncClient,
+                                                       NotificationSesProps props,
+                                                       TemplateJsonSerializer json,
+                                                       ObjectProvider<MeterRegistry> meterRegistry) {
+        return new NamedEmailTransport("ses", sesTransport(sesClient, asyncClient, props, json, meterRegistry));
     }
 
-    private static URI normalizeEndpoint(String rawEndpoint) {
-        if (rawEndpoint == null || rawEndpoint.isBlank()) return null;
-
-        String urlWithScheme = rawEndpoint.matches("^[a-zA-Z]+://.*") ? rawEndpoint : "http://" + rawEndpoint;
-        URI initialUri = URI.create(urlWithScheme);
-
-        boolean needsDefaultPort = initialUri.getPort() == -1
-                && ("localhost".equalsIgnoreCase(initialUri.getHost()) || "localstack".equalsIgnoreCase(initialUri.getHost()));
-
-        if (needsDefaultPort) {
-            urlWithScheme = urlWithScheme.replaceFirst("^(http://[^/:]+)", "$1:4566");
-        }
-
-        return URI.create(urlWithScheme);
+    private static SesV2EmailTransport sesTransport(SesV2Client sesClient,
+                                                    ObjectProvider<SesV2AsyncClient> asyncClient,
+                                                    NotificationSesProps props,
+                                                    TemplateJsonSerializer json,
+                                                    ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+        SesV2AsyncClient async = asyncClient.getIfAvailable();
+        return async != null
+                ? new SesV2EmailTransport(async, props, json, registry)
+                : new SesV2EmailTransport(sesClient, props, json, registry);
     }
 }
@@ -0,0 +1,154 @@
+package com.nimbly.phshoesbackend.notification.email.providers.ses.service;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailContent;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailEntry;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailEntryResult;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailStatus;
+import software.amazon.awssdk.services.sesv2.model.Destination;
+import software.amazon.awssdk.services.sesv2.model.MessageTag;
+import software.amazon.awssdk.services.sesv2.model.ReplacementEmailContent;
+import software.amazon.awssdk.services.sesv2.model.ReplacementTemplate;
+import software.amazon.awssdk.services.sesv2.model.SendBulkEmailRequest;
+import software.amazon.awssdk.services.sesv2.model.SendBulkEmailResponse;
+import software.amazon.awssdk.services.sesv2.model.SesV2Exception;
+import software.amazon.awssdk.services.sesv2.model.Template;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Sends SES template emails through {@code SendBulkEmail}: entries sharing a sender and template go out in calls
+ * of up to {@value #MAX_DESTINATIONS} destinations, each entry carrying its own template data and tags. Results
+ * come back in entry order; an entry SES rejects, or every entry of a call that failed outright, gets a result
+ * that is not {@link SendResult#isAccepted() accepted}.
+ */
+final class SesBulkTemplateSender {
+
+    /**
+     * SES limit on destinations per SendBulkEmail call.
+     */
+    static final int MAX_DESTINATIONS = 50;
+
+    private static final String EMPTY_TEMPLATE_DATA = "{}";
+
+    private final Function<SendBulkEmailRequest, SendBulkEmailResponse> client;
+    private final String configurationSet;
+
+    SesBulkTemplateSender(Function<SendBulkEmailRequest, SendBulkEmailResponse> client, String configurationSet) {
+        this.client = client;
+        this.configurationSet = configurationSet;
+    }
+
+    record Entry(String from, String templateName, Destination destination, String templateData, Map<String, String> tags) {
+    }
+
+    private record GroupKey(String from, String templateName) {
+    }
+
+    List<SendResult> send(List<Entry> entries) {
+        SendResult[] results = new SendResult[entries.size()];
+        Map<GroupKey, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            groups.computeIfAbsent(new GroupKey(entry.from(), entry.templateName()), k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<GroupKey, List<Integer>> group : groups.entrySet()) {
+            List<Integer> positions = group.getValue();
+            for (int start = 0; start < positions.size(); start += MAX_DESTINATIONS) {
+                List<Integer> chunk = positions.subList(start, Math.min(start + MAX_DESTINATIONS, positions.size()));
+                sendChunk(group.getKey(), chunk, entries, results);
+            }
+        }
+        return List.of(results);
+    }
+
+    private void sendChunk(GroupKey key, List<Integer> chunk, List<Entry> entries, SendResult[] results) {
+        List<BulkEmailEntry> bulkEntries = new ArrayList<>(chunk.size());
+        for (int position : chunk) {
+            bulkEntries.add(bulkEntry(entries.get(position)));
+        }
+        SendBulkEmailRequest.Builder request = SendBulkEmailRequest.builder()
+                .fromEmailAddress(key.from())
+                .defaultContent(BulkEmailContent.builder()
+                        .template(Template.builder()
+                                .templateName(key.templateName())
+                                .templateData(EMPTY_TEMPLATE_DATA)
+                                .build())
+                        .build())
+                .bulkEmailEntries(bulkEntries);
+        if (configurationSet != null && !configurationSet.isBlank()) {
+            request.configurationSetName(configurationSet);
+        }
+
+        List<BulkEmailEntryResult> entryResults;
+        try {
+            entryResults = client.apply(request.build()).bulkEmailEntryResults();
+        } catch (RuntimeException e) {
+            String error = errorMessage(e);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            String status = switch (SesErrors.reason(cause)) {
+                case THROTTLED -> SendResult.THROTTLED;
+                case TRANSIENT -> SendResult.TRANSIENT;
+                default -> SendResult.FAILED;
+            };
+            for (int position : chunk) {
+                results[position] = SendResult.builder().provider("ses").status(status).error(error).build();
+            }
+            return;
+        }
+
+        Instant acceptedAt = Instant.now();
+        for (int i = 0; i < chunk.size(); i++) {
+            BulkEmailEntryResult entryResult = i < entryResults.size() ? entryResults.get(i) : null;
+            results[chunk.get(i)] = result(entryResult, acceptedAt);
+        }
+    }
+
+    private static BulkEmailEntry bulkEntry(Entry entry) {
+        BulkEmailEntry.Builder builder = BulkEmailEntry.builder()
+                .destination(entry.destination())
+                .replacementEmailContent(ReplacementEmailContent.builder()
+                        .replacementTemplate(ReplacementTemplate.builder()
+                                .replacementTemplateData(entry.templateData() == null ? EMPTY_TEMPLATE_DATA : entry.templateData())
+                                .build())
+                        .build());
+        if (entry.tags() != null && !entry.tags().isEmpty()) {
+            builder.replacementTags(entry.tags().entrySet().stream()
+                    .map(e -> MessageTag.builder().name(e.getKey()).value(e.getValue()).build())
+                    .toList());
+        }
+        return builder.build();
+    }
+
+    private static SendResult result(BulkEmailEntryResult entryResult, Instant acceptedAt) {
+        if (entryResult == null) {
+            return SendResult.builder().provider("ses").status(SendResult.FAILED).error("No result from SES").build();
+        }
+        boolean accepted = entryResult.status() == BulkEmailStatus.SUCCESS;
+        String status = accepted ? SendResult.SUCCESS
+                : entryResult.status() == BulkEmailStatus.ACCOUNT_THROTTLED ? SendResult.THROTTLED
+                : entryResult.status() == BulkEmailStatus.TRANSIENT_FAILURE ? SendResult.TRANSIENT
+                : entryResult.statusAsString();
+        return SendResult.builder()
+                .messageId(entryResult.messageId())
+                .provider("ses")
+                .acceptedAt(accepted ? acceptedAt : null)
+                .status(status)
+                .error(accepted ? null : entryResult.error())
+                .build();
+    }
+
+    private static String errorMessage(RuntimeException e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof SesV2Exception ses && ses.awsErrorDetails() != null) {
+            return "SES bulk send failed: " + ses.awsErrorDetails().errorMessage();
+        }
+        return "SES bulk send failed: " + cause.getMessage();
+    }
+}
@@ -0,0 +1,39 @@
+package com.nimbly.phshoesbackend.notification.email.providers.ses.service;
+
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.sesv2.model.SesV2Exception;
+import software.amazon.awssdk.services.sesv2.model.TooManyRequestsException;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Maps SES SDK failures onto {@link NotificationSendException}s with a {@link NotificationSendException.Reason}.
+ */
+final class SesErrors {
+
+    private SesErrors() {
+    }
+
+    static NotificationSendException failure(Throwable e) {
+        if (e instanceof CompletionException && e.getCause() != null) e = e.getCause();
+        if (e instanceof NotificationSendException nse) return nse;
+        String message = e instanceof SesV2Exception ses && ses.awsErrorDetails() != null
+                ? ses.awsErrorDetails().errorMessage()
+                : e.getMessage();
+        return new NotificationSendException("SES send failed: " + message, e, reason(e));
+    }
+
+    static NotificationSendException.Reason reason(Throwable e) {
+        if (e instanceof SesV2Exception ses) {
+            if (ses instanceof TooManyRequestsException || ses.isThrottlingException()) {
+                return NotificationSendException.Reason.THROTTLED;
+            }
+            return ses.statusCode() >= 500 || ses.retryable()
+                    ? NotificationSendException.Reason.TRANSIENT
+                    : NotificationSendException.Reason.PERMANENT;
+        }
+        if (e instanceof SdkClientException) return NotificationSendException.Reason.TRANSIENT;
+        return NotificationSendException.Reason.UNKNOWN;
+    }
+}
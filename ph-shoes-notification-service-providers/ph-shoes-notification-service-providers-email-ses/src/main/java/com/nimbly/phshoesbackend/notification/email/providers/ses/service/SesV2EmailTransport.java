@@ -2,84 +2,265 @@ package com.nimbly.phshoesbackend.notification.email.providers.ses.service;
 
 import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.config.NotificationSesProps;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.util.TemplateJsonSerializer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.sesv2.SesV2AsyncClient;
 import software.amazon.awssdk.services.sesv2.SesV2Client;
 import software.amazon.awssdk.services.sesv2.model.*;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Sends through SES v2, picking the cheapest content type the email allows: Template when a templateId is set
+ * and was not rendered locally, Simple for plain text/html without attachments, Raw MIME otherwise.
+ * Each send increments {@code notification.ses.content{type=template|simple|raw}}.
+ */
 public class SesV2EmailTransport implements EmailTransportService {
 
+    static final String CONTENT_METRIC = "notification.ses.content";
+
+    enum ContentType { TEMPLATE, SIMPLE, RAW }
+
     private final SesV2Client sesClient;
+    private final SesV2AsyncClient asyncClient;
     private final NotificationSesProps props;
     private final TemplateJsonSerializer json;
+    private final Map<ContentType, Counter> contentCounters = new EnumMap<>(ContentType.class);
+    private final SesBulkTemplateSender bulkSender;
 
     public SesV2EmailTransport(SesV2Client sesClient, NotificationSesProps props, TemplateJsonSerializer json) {
+        this(sesClient, props, json, Metrics.globalRegistry);
+    }
+
+    public SesV2EmailTransport(SesV2Client sesClient,
+                               NotificationSesProps props,
+                               TemplateJsonSerializer json,
+                               MeterRegistry meterRegistry) {
+        this(sesClient, null, props, json, meterRegistry);
+    }
+
+    /**
+     * Sends through {@code asyncClient}; {@link #send} is a blocking wrapper around {@link #sendAsync}.
+     */
+    public SesV2EmailTransport(SesV2AsyncClient asyncClient,
+                               NotificationSesProps props,
+                               TemplateJsonSerializer json,
+                               MeterRegistry meterRegistry) {
+        this(null, asyncClient, props, json, meterRegistry);
+    }
+
+    private SesV2EmailTransport(SesV2Client sesClient,
+                                SesV2AsyncClient asyncClient,
+                                NotificationSesProps props,
+                                TemplateJsonSerializer json,
+                                MeterRegistry meterRegistry) {
         this.sesClient = sesClient;
+        this.asyncClient = asyncClient;
         this.props = props;
         this.json = json;
+        this.bulkSender = new SesBulkTemplateSender(
+                asyncClient != null ? request -> asyncClient.sendBulkEmail(request).join() : sesClient::sendBulkEmail,
+                props.getConfigurationSet());
+        for (ContentType type : ContentType.values()) {
+            contentCounters.put(type, Counter.builder(CONTENT_METRIC)
+                    .tag("type", type.name().toLowerCase())
+                    .description("SES v2 sends by content type")
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Emails naming an SES-side template go out as {@code Template} content, so every composed email can be sent.
+     */
+    @Override
+    public boolean canSend(ComposedEmail email) {
+        return true;
     }
 
     @Override
     public SendResult send(ComposedEmail email) throws NotificationSendException {
+        if (asyncClient != null) {
+            try {
+                return sendAsync(email).join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof NotificationSendException nse ? nse : failure(e.getCause());
+            }
+        }
         try {
-            boolean hasAttachments = email.getRequest().getAttachments() != null && !email.getRequest().getAttachments().isEmpty();
-            boolean useTemplate = email.getRequest().getTemplateId() != null && !hasAttachments;
-
-            Destination destination = Destination.builder()
-                    .toAddresses(email.getTo() == null ? List.of() : email.getTo())
-                    .ccAddresses(email.getCc() == null ? List.of() : email.getCc())
-                    .bccAddresses(email.getBcc() == null ? List.of() : email.getBcc())
-                    .build();
-
-            EmailContent content = useTemplate
-                    ? EmailContent.builder()
-                    .template(Template.builder()
-                            .templateName(email.getRequest().getTemplateId())
-                            .templateData(json.toJson(email.getRequest().getTemplateVars()))
-                            .build())
-                    .build()
-                    : EmailContent.builder()
-                    .raw(RawMessage.builder().data(SdkBytes.fromUtf8String(email.getRawMime())).build())
-                    .build();
+            ContentType type = contentType(email);
+            SendEmailResponse resp = sesClient.sendEmail(request(type, email));
+            return accepted(type, resp);
+        } catch (Exception e) {
+            throw failure(e);
+        }
+    }
 
-            SendEmailRequest.Builder requestBuilder = SendEmailRequest.builder()
-                    .destination(destination)
-                    .content(content)
-                    .fromEmailAddress(email.getFrom());
+    /**
+     * Non-blocking when built with a {@link SesV2AsyncClient}: the MIME is rendered on the calling thread and
+     * the SES round trip completes on the SDK's event loop.
+     */
+    @Override
+    public CompletableFuture<SendResult> sendAsync(ComposedEmail email) {
+        if (asyncClient == null) return EmailTransportService.super.sendAsync(email);
+        ContentType type;
+        SendEmailRequest request;
+        try {
+            type = contentType(email);
+            request = request(type, email);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(failure(e));
+        }
+        return asyncClient.sendEmail(request).handle((resp, error) -> {
+            if (error != null) {
+                throw failure(error instanceof CompletionException ? error.getCause() : error);
+            }
+            return accepted(type, resp);
+        });
+    }
 
-            String cfg = props.getConfigurationSet();
-            if (cfg != null && !cfg.isBlank()) {
-                requestBuilder = requestBuilder.configurationSetName(cfg);
+    /**
+     * Template emails go out through {@code SendBulkEmail}, up to 50 per call per sender and template; Simple and
+     * Raw emails are sent one by one (concurrently with the async client).
+     */
+    @Override
+    public List<SendResult> sendBatch(List<ComposedEmail> emails) {
+        SendResult[] results = new SendResult[emails.size()];
+        List<SesBulkTemplateSender.Entry> bulkEntries = new ArrayList<>();
+        List<Integer> bulkPositions = new ArrayList<>();
+        Map<Integer, CompletableFuture<SendResult>> singles = new LinkedHashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            ComposedEmail email = emails.get(i);
+            if (contentType(email) == ContentType.TEMPLATE) {
+                bulkEntries.add(new SesBulkTemplateSender.Entry(
+                        email.getFrom(),
+                        email.getRequest().getTemplateId(),
+                        destination(email),
+                        json.toJson(email.getRequest().getTemplateVars()),
+                        email.getTags()));
+                bulkPositions.add(i);
+            } else {
+                singles.put(i, sendAsync(email));
             }
+        }
 
-            Map<String, String> tags = email.getTags();
-            if (tags != null && !tags.isEmpty()) {
-                requestBuilder = requestBuilder.emailTags(
-                        tags.entrySet().stream()
-                                .map(e -> MessageTag.builder().name(e.getKey()).value(e.getValue()).build())
-                                .toList()
-                );
+        if (!bulkEntries.isEmpty()) {
+            List<SendResult> bulkResults = bulkSender.send(bulkEntries);
+            for (int i = 0; i < bulkResults.size(); i++) {
+                SendResult result = bulkResults.get(i);
+                if (result.isAccepted()) contentCounters.get(ContentType.TEMPLATE).increment();
+                results[bulkPositions.get(i)] = result;
             }
+        }
+        singles.forEach((position, future) -> {
+            try {
+                results[position] = future.join().toBuilder().status(SendResult.SUCCESS).build();
+            } catch (CompletionException | NotificationSendException e) {
+                Exception cause = e instanceof CompletionException && e.getCause() instanceof Exception c ? c : e;
+                results[position] = SendResult.failed("ses", cause);
+            }
+        });
+        return List.of(results);
+    }
 
-            SendEmailResponse resp = sesClient.sendEmail(requestBuilder.build());
+    private static Destination destination(ComposedEmail email) {
+        return Destination.builder()
+                .toAddresses(email.getTo() == null ? List.of() : email.getTo())
+                .ccAddresses(email.getCc() == null ? List.of() : email.getCc())
+                .bccAddresses(email.getBcc() == null ? List.of() : email.getBcc())
+                .build();
+    }
 
-            return SendResult.builder()
-                    .messageId(resp.messageId())
-                    .provider("ses")
-                    .acceptedAt(Instant.now())
+    private SendEmailRequest request(ContentType type, ComposedEmail email) {
+        SendEmailRequest.Builder requestBuilder = SendEmailRequest.builder()
+                .destination(destination(email))
+                .content(content(type, email))
+                .fromEmailAddress(email.getFrom());
+
+        String cfg = props.getConfigurationSet();
+        if (cfg != null && !cfg.isBlank()) {
+            requestBuilder = requestBuilder.configurationSetName(cfg);
+        }
+
+        Map<String, String> tags = email.getTags();
+        if (tags != null && !tags.isEmpty()) {
+            requestBuilder = requestBuilder.emailTags(
+                    tags.entrySet().stream()
+                            .map(e -> MessageTag.builder().name(e.getKey()).value(e.getValue()).build())
+                            .toList()
+            );
+        }
+        return requestBuilder.build();
+    }
+
+    private SendResult accepted(ContentType type, SendEmailResponse resp) {
+        contentCounters.get(type).increment();
+        return SendResult.builder()
+                .messageId(resp.messageId())
+                .provider("ses")
+                .acceptedAt(Instant.now())
+                .build();
+    }
+
+    private static NotificationSendException failure(Throwable e) {
+        return SesErrors.failure(e);
+    }
+
+    static ContentType contentType(ComposedEmail email) {
+        EmailRequest request = email.getRequest();
+        boolean hasAttachments = request.getAttachments() != null && !request.getAttachments().isEmpty();
+        if (hasAttachments || email.isTemplateRendered()) return ContentType.RAW;
+        if (request.getTemplateId() != null) return ContentType.TEMPLATE;
+        boolean hasBody = request.getTextBody() != null || request.getHtmlBody() != null;
+        return hasBody ? ContentType.SIMPLE : ContentType.RAW;
+    }
+
+    private EmailContent content(ContentType type, ComposedEmail email) {
+        return switch (type) {
+            case TEMPLATE -> EmailContent.builder()
+                    .template(Template.builder()
+                            .templateName(email.getRequest().getTemplateId())
+                            .templateData(json.toJson(email.getRequest().getTemplateVars()))
+                            .build())
                     .build();
+            case SIMPLE -> EmailContent.builder().simple(simpleMessage(email)).build();
+            case RAW -> EmailContent.builder()
+                    .raw(RawMessage.builder().data(SdkBytes.fromByteArrayUnsafe(email.getRawMimeBytes())).build())
+                    .build();
+        };
+    }
 
-        } catch (SesV2Exception e) {
-            throw new NotificationSendException("SES send failed: " + e.awsErrorDetails().errorMessage(), e);
-        } catch (Exception e) {
-            throw new NotificationSendException("SES send failed: " + e.getMessage(), e);
+    private static Message simpleMessage(ComposedEmail email) {
+        EmailRequest request = email.getRequest();
+        Message.Builder message = Message.builder()
+                .subject(utf8(email.getSubject() == null ? "" : email.getSubject()))
+                .body(Body.builder()
+                        .text(request.getTextBody() == null ? null : utf8(request.getTextBody()))
+                        .html(request.getHtmlBody() == null ? null : utf8(request.getHtmlBody()))
+                        .build());
+        Map<String, String> headers = email.getHeaders();
+        if (headers != null && !headers.isEmpty()) {
+            message.headers(headers.entrySet().stream()
+                    .map(e -> MessageHeader.builder().name(e.getKey()).value(e.getValue()).build())
+                    .toList());
         }
+        return message.build();
+    }
+
+    private static Content utf8(String data) {
+        return Content.builder().data(data).charset("UTF-8").build();
     }
 }
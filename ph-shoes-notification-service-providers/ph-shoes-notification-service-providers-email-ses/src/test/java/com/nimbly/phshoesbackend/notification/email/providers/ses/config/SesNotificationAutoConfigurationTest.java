@@ -1,17 +1,29 @@
 package com.nimbly.phshoesbackend.notification.email.providers.ses.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nimbly.phshoesbackend.commons.core.repository.SuppressionRepository;
+import com.nimbly.phshoesbackend.commons.core.security.EmailCrypto;
+import com.nimbly.phshoesbackend.notification.core.config.CoreNotificationAutoConfiguration;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import com.nimbly.phshoesbackend.notification.core.service.NotificationService;
+import com.nimbly.phshoesbackend.notification.email.providers.ses.service.SesV2EmailTransport;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.util.TemplateJsonSerializer;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
 import org.springframework.boot.test.context.runner.ApplicationContextRunner;
-
-import java.lang.reflect.Method;
-import java.net.URI;
+import software.amazon.awssdk.services.sesv2.SesV2AsyncClient;
+import software.amazon.awssdk.services.sesv2.SesV2Client;
+import software.amazon.awssdk.services.sesv2.model.SendEmailRequest;
+import software.amazon.awssdk.services.sesv2.model.SendEmailResponse;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class SesNotificationAutoConfigurationTest {
     private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
@@ -31,38 +43,53 @@ class SesNotificationAutoConfigurationTest {
         // Act + Assert
         runner.run(context -> {
             assertThat(context).hasSingleBean(TemplateJsonSerializer.class);
-            assertThat(context).hasSingleBean(EmailTransportService.class);
-            assertThat(context).hasSingleBean(NotificationService.class);
+            assertThat(context).getBean(EmailTransportService.class).isInstanceOf(SesV2EmailTransport.class);
+            assertThat(context).doesNotHaveBean(NotificationService.class);
+            assertThat(context).doesNotHaveBean(SesV2AsyncClient.class);
         });
     }
 
     @Test
-    void normalizeEndpointAddsDefaultPortForLocalhost() throws Exception {
+    void createsAsyncClientWhenEnabled() {
         // Arrange
-        Method method = SesNotificationAutoConfiguration.class
-                .getDeclaredMethod("normalizeEndpoint", String.class);
-        method.setAccessible(true);
-
-        // Act
-        URI uri = (URI) method.invoke(null, "localhost");
+        ApplicationContextRunner runner = contextRunner
+                .withPropertyValues("notification.ses.endpoint=localhost", "notification.ses.async.enabled=true");
 
-        // Assert
-        assertThat(uri).isNotNull();
-        assertThat(uri.getHost()).isEqualTo("localhost");
-        assertThat(uri.getPort()).isEqualTo(4566);
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(SesV2AsyncClient.class);
+            assertThat(context).getBean(EmailTransportService.class).isInstanceOf(SesV2EmailTransport.class);
+        });
     }
 
     @Test
-    void normalizeEndpointReturnsNullForBlankInput() throws Exception {
+    void coreNotificationServiceSendsThroughTheSesTransport() {
         // Arrange
-        Method method = SesNotificationAutoConfiguration.class
-                .getDeclaredMethod("normalizeEndpoint", String.class);
-        method.setAccessible(true);
-
-        // Act
-        URI uri = (URI) method.invoke(null, " ");
+        SesV2Client sesClient = mock(SesV2Client.class);
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(SendEmailResponse.builder().messageId("id-1").build());
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(
+                        SesNotificationAutoConfiguration.class, CoreNotificationAutoConfiguration.class))
+                .withBean(ObjectMapper.class, ObjectMapper::new)
+                .withBean(SuppressionRepository.class, () -> mock(SuppressionRepository.class))
+                .withBean(EmailCrypto.class, () -> mock(EmailCrypto.class))
+                .withBean(SesV2Client.class, () -> sesClient)
+                .withPropertyValues(
+                        "notification.provider=ses",
+                        "notification.email.from=no-reply@ph-shoes.app",
+                        "notification.templates.enabled=false");
 
-        // Assert
-        assertThat(uri).isNull();
+        // Act + Assert
+        runner.run(context -> {
+            SendResult result = context.getBean(NotificationService.class).sendEmailVerification(EmailRequest.builder()
+                    .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                    .subject("Verify")
+                    .textBody("Hello")
+                    .build());
+            assertThat(result.getMessageId()).isEqualTo("id-1");
+            assertThat(context).getBean(EmailTransportService.class).isInstanceOf(SesV2EmailTransport.class);
+            verify(sesClient).sendEmail(any(SendEmailRequest.class));
+        });
     }
 }
@@ -0,0 +1,95 @@
+package com.nimbly.phshoesbackend.notification.email.providers.ses.service;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailEntryResult;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailStatus;
+import software.amazon.awssdk.services.sesv2.model.Destination;
+import software.amazon.awssdk.services.sesv2.model.SendBulkEmailRequest;
+import software.amazon.awssdk.services.sesv2.model.SendBulkEmailResponse;
+import software.amazon.awssdk.services.sesv2.model.SesV2Exception;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SesBulkTemplateSenderTest {
+
+    @Test
+    void groupsBySenderAndTemplateInChunksOfFifty() {
+        // Arrange
+        List<SendBulkEmailRequest> calls = new ArrayList<>();
+        SesBulkTemplateSender sender = new SesBulkTemplateSender(request -> {
+            calls.add(request);
+            return SendBulkEmailResponse.builder()
+                    .bulkEmailEntryResults(request.bulkEmailEntries().stream()
+                            .map(entry -> BulkEmailEntryResult.builder()
+                                    .status(BulkEmailStatus.SUCCESS)
+                                    .messageId("id-" + entry.destination().toAddresses().get(0))
+                                    .build())
+                            .toList())
+                    .build();
+        }, "cfg");
+        List<SesBulkTemplateSender.Entry> entries = new ArrayList<>();
+        IntStream.range(0, 120).forEach(i -> entries.add(entry("price-drop", "user" + i)));
+        entries.add(1, entry("welcome", "new-user"));
+
+        // Act
+        List<SendResult> results = sender.send(entries);
+
+        // Assert
+        assertThat(calls).extracting(call -> call.bulkEmailEntries().size()).containsExactly(50, 50, 20, 1);
+        assertThat(calls).extracting(call -> call.defaultContent().template().templateName())
+                .containsExactly("price-drop", "price-drop", "price-drop", "welcome");
+        assertThat(calls.get(0).configurationSetName()).isEqualTo("cfg");
+        assertThat(calls.get(0).bulkEmailEntries().get(0).replacementEmailContent().replacementTemplate().replacementTemplateData())
+                .isEqualTo("{\"name\":\"user0\"}");
+        assertThat(calls.get(0).bulkEmailEntries().get(0).replacementTags()).hasSize(1);
+        assertThat(results).hasSize(121).allSatisfy(result -> assertThat(result.isAccepted()).isTrue());
+        assertThat(results.get(1).getMessageId()).isEqualTo("id-new-user@ph-shoes.app");
+        assertThat(results.get(120).getMessageId()).isEqualTo("id-user119@ph-shoes.app");
+    }
+
+    @Test
+    void mapsPerDestinationStatusesAndWholeCallFailures() {
+        // Arrange
+        SesBulkTemplateSender sender = new SesBulkTemplateSender(request -> {
+            if (request.defaultContent().template().templateName().equals("broken")) {
+                throw SesV2Exception.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder().errorMessage("Template does not exist").build())
+                        .build();
+            }
+            return SendBulkEmailResponse.builder()
+                    .bulkEmailEntryResults(
+                            BulkEmailEntryResult.builder().status(BulkEmailStatus.SUCCESS).messageId("ok-1").build(),
+                            BulkEmailEntryResult.builder().status(BulkEmailStatus.MESSAGE_REJECTED).error("Email address is not verified").build())
+                    .build();
+        }, null);
+
+        // Act
+        List<SendResult> results = sender.send(List.of(
+                entry("price-drop", "a"), entry("broken", "b"), entry("price-drop", "c")));
+
+        // Assert
+        assertThat(results.get(0).isAccepted()).isTrue();
+        assertThat(results.get(0).getMessageId()).isEqualTo("ok-1");
+        assertThat(results.get(1).isAccepted()).isFalse();
+        assertThat(results.get(1).getError()).isEqualTo("SES bulk send failed: Template does not exist");
+        assertThat(results.get(2).isAccepted()).isFalse();
+        assertThat(results.get(2).getStatus()).isEqualTo("MESSAGE_REJECTED");
+        assertThat(results.get(2).getError()).isEqualTo("Email address is not verified");
+    }
+
+    private static SesBulkTemplateSender.Entry entry(String template, String user) {
+        return new SesBulkTemplateSender.Entry(
+                "no-reply@ph-shoes.app",
+                template,
+                Destination.builder().toAddresses(user + "@ph-shoes.app").build(),
+                "{\"name\":\"" + user + "\"}",
+                Map.of("campaign", template));
+    }
+}
@@ -0,0 +1,125 @@
+package com.nimbly.phshoesbackend.notification.email.providers.ses.service;
+
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
+import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
+import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationEmailProps;
+import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTemplateProps;
+import com.nimbly.phshoesbackend.notification.core.service.impl.DefaultEmailCompositionServiceImpl;
+import com.nimbly.phshoesbackend.notification.core.template.LocalTemplateEngine;
+import com.nimbly.phshoesbackend.notification.core.util.EmailAddressFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.EmailSubjectFormatter;
+import com.nimbly.phshoesbackend.notification.core.util.RawMimeBuilder;
+import com.nimbly.phshoesbackend.notification.email.providers.ses.config.NotificationSesProps;
+import com.nimbly.phshoesbackend.notification.email.providers.ses.util.TemplateJsonSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import software.amazon.awssdk.services.sesv2.SesV2Client;
+import software.amazon.awssdk.services.sesv2.model.SendEmailRequest;
+import software.amazon.awssdk.services.sesv2.model.SendEmailResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cost of a templated verification send through {@link SesV2EmailTransport}, up to the SES call:
+ * {@code sesTemplate} serializes templateVars for an SES server-side template, {@code localTemplate} renders
+ * the local compiled template into raw MIME. The SES client is a stub, so network time and SES-side template
+ * rendering (which the local path removes) are not part of the numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SesV2EmailTransportBenchmark {
+
+    private static final SendEmailResponse RESPONSE = SendEmailResponse.builder().messageId("bench").build();
+
+    private Path templateDir;
+    private SesV2EmailTransport transport;
+    private DefaultEmailCompositionServiceImpl sesComposer;
+    private DefaultEmailCompositionServiceImpl localComposer;
+    private EmailRequest request;
+
+    @Setup
+    public void setUp() throws IOException {
+        templateDir = Files.createTempDirectory("ses-bench-templates");
+        Files.writeString(templateDir.resolve("verify-email.subject"), "Verify your email, {{name}}");
+        Files.writeString(templateDir.resolve("verify-email.txt"),
+                "Hi {{name}},\n\nUse this link to verify your email: {{link}}\n\nThis link expires in {{ttl}} minutes.\n");
+        Files.writeString(templateDir.resolve("verify-email.html"),
+                "<html><body><p>Hi {{name}},</p><p><a href=\"{{link}}\">Verify your email</a></p>"
+                        + "<p>This link expires in {{ttl}} minutes.</p></body></html>");
+
+        NotificationEmailProps emailProps = new NotificationEmailProps();
+        emailProps.setFrom("PH Shoes <no-reply@ph-shoes.app>");
+        emailProps.setListUnsubscribe("<mailto:unsubscribe@ph-shoes.app>");
+        EmailAddressFormatter addressFormatter = new EmailAddressFormatter();
+        RawMimeBuilder rawMimeBuilder = new RawMimeBuilder(emailProps, addressFormatter);
+
+        NotificationTemplateProps templateProps = new NotificationTemplateProps();
+        templateProps.setLocation(templateDir.toUri().toString());
+        LocalTemplateEngine templates = new LocalTemplateEngine(new DefaultResourceLoader(), templateProps);
+        templates.loadAll();
+
+        sesComposer = new DefaultEmailCompositionServiceImpl(emailProps, new EmailSubjectFormatter(), addressFormatter,
+                rawMimeBuilder);
+        localComposer = new DefaultEmailCompositionServiceImpl(emailProps, new EmailSubjectFormatter(), addressFormatter,
+                rawMimeBuilder, templates);
+        transport = new SesV2EmailTransport(new StubSesClient(), new NotificationSesProps(), new TemplateJsonSerializer(),
+                new SimpleMeterRegistry());
+        request = EmailRequest.builder()
+                .to(EmailAddress.builder().name("Juan Dela Cruz").address("juan@example.com").build())
+                .templateId("verify-email")
+                .templateVar("name", "Juan")
+                .templateVar("link", "https://ph-shoes.app/verify?token=3f9c2a7be1d04c8f")
+                .templateVar("ttl", 30)
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(templateDir)) {
+            for (Path file : files.toList()) Files.delete(file);
+        }
+        Files.delete(templateDir);
+    }
+
+    @Benchmark
+    public SendResult sesTemplate() {
+        return transport.send(sesComposer.compose(request));
+    }
+
+    @Benchmark
+    public SendResult localTemplate() {
+        return transport.send(localComposer.compose(request));
+    }
+
+    private static final class StubSesClient implements SesV2Client {
+        @Override
+        public SendEmailResponse sendEmail(SendEmailRequest sendEmailRequest) {
+            return RESPONSE;
+        }
+
+        @Override
+        public String serviceName() {
+            return SERVICE_NAME;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SesV2EmailTransportBenchmark.class.getSimpleName()).build()).run();
+    }
+}
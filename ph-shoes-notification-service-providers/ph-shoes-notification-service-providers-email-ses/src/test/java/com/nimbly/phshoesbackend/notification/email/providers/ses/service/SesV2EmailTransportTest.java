@@ -1,21 +1,39 @@
 package com.nimbly.phshoesbackend.notification.email.providers.ses.service;
 
+import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendException;
+import com.nimbly.phshoesbackend.notification.core.model.dto.Attachment;
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailAddress;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.config.NotificationSesProps;
 import com.nimbly.phshoesbackend.notification.email.providers.ses.util.TemplateJsonSerializer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.sesv2.SesV2AsyncClient;
 import software.amazon.awssdk.services.sesv2.SesV2Client;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailEntryResult;
+import software.amazon.awssdk.services.sesv2.model.BulkEmailStatus;
+import software.amazon.awssdk.services.sesv2.model.MessageHeader;
+import software.amazon.awssdk.services.sesv2.model.SendBulkEmailRequest;
+import software.amazon.awssdk.services.sesv2.model.SendBulkEmailResponse;
 import software.amazon.awssdk.services.sesv2.model.SendEmailRequest;
 import software.amazon.awssdk.services.sesv2.model.SendEmailResponse;
+import software.amazon.awssdk.services.sesv2.model.MessageRejectedException;
+import software.amazon.awssdk.services.sesv2.model.SesV2Exception;
+import software.amazon.awssdk.services.sesv2.model.TooManyRequestsException;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -95,4 +113,250 @@ class SesV2EmailTransportTest {
         SendEmailRequest sent = captor.getValue();
         assertThat(sent.content().raw().data().asUtf8String()).isEqualTo("RAW-MIME");
     }
+
+    @Test
+    void sendsSimpleEmailWhenNoTemplateOrAttachments() {
+        // Arrange
+        SesV2Client sesClient = mock(SesV2Client.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                sesClient, new NotificationSesProps(), new TemplateJsonSerializer(), registry);
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .textBody("Hello")
+                .htmlBody("<p>Hello</p>")
+                .build();
+        ComposedEmail email = ComposedEmail.lazy(
+                request,
+                () -> { throw new AssertionError("raw MIME should not be rendered"); },
+                "no-reply@ph-shoes.app",
+                List.of("user@ph-shoes.app"),
+                List.of(),
+                List.of(),
+                "[PH] Verify",
+                Map.of()
+        );
+        email.setHeaders(Map.of("List-Unsubscribe", "<mailto:unsubscribe@ph-shoes.app>"));
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(SendEmailResponse.builder().messageId("simple-1").build());
+
+        // Act
+        SendResult result = transport.send(email);
+
+        // Assert
+        assertThat(result.getMessageId()).isEqualTo("simple-1");
+        ArgumentCaptor<SendEmailRequest> captor = ArgumentCaptor.forClass(SendEmailRequest.class);
+        verify(sesClient).sendEmail(captor.capture());
+        SendEmailRequest sent = captor.getValue();
+        assertThat(sent.content().raw()).isNull();
+        assertThat(sent.content().simple().subject().data()).isEqualTo("[PH] Verify");
+        assertThat(sent.content().simple().body().text().data()).isEqualTo("Hello");
+        assertThat(sent.content().simple().body().html().data()).isEqualTo("<p>Hello</p>");
+        assertThat(sent.content().simple().headers())
+                .extracting(MessageHeader::name, MessageHeader::value)
+                .containsExactly(tuple("List-Unsubscribe", "<mailto:unsubscribe@ph-shoes.app>"));
+        assertThat(registry.get(SesV2EmailTransport.CONTENT_METRIC).tag("type", "simple").counter().count()).isEqualTo(1);
+        assertThat(registry.get(SesV2EmailTransport.CONTENT_METRIC).tag("type", "raw").counter().count()).isZero();
+    }
+
+    @Test
+    void sendsRawEmailWhenAttachmentsPresent() {
+        // Arrange
+        SesV2Client sesClient = mock(SesV2Client.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                sesClient, new NotificationSesProps(), new TemplateJsonSerializer(), registry);
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Receipt")
+                .templateId("receipt")
+                .textBody("Attached")
+                .attachment(Attachment.builder().filename("r.txt").mimeType("text/plain").content(new byte[]{1}).build())
+                .build();
+        ComposedEmail email = new ComposedEmail(
+                request,
+                "RAW-MIME",
+                "no-reply@ph-shoes.app",
+                List.of("user@ph-shoes.app"),
+                List.of(),
+                List.of(),
+                "Receipt",
+                Map.of()
+        );
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(SendEmailResponse.builder().messageId("raw-2").build());
+
+        // Act
+        transport.send(email);
+
+        // Assert
+        ArgumentCaptor<SendEmailRequest> captor = ArgumentCaptor.forClass(SendEmailRequest.class);
+        verify(sesClient).sendEmail(captor.capture());
+        assertThat(captor.getValue().content().raw().data().asUtf8String()).isEqualTo("RAW-MIME");
+        assertThat(registry.get(SesV2EmailTransport.CONTENT_METRIC).tag("type", "raw").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsRawEmailWhenTemplateRenderedLocally() {
+        // Arrange
+        SesV2Client sesClient = mock(SesV2Client.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                sesClient, new NotificationSesProps(), new TemplateJsonSerializer(), registry);
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .templateId("verify-email")
+                .build();
+        ComposedEmail email = new ComposedEmail(
+                request,
+                "RENDERED-MIME",
+                "no-reply@ph-shoes.app",
+                List.of("user@ph-shoes.app"),
+                List.of(),
+                List.of(),
+                "Verify",
+                Map.of()
+        );
+        email.setTemplateRendered(true);
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(SendEmailResponse.builder().messageId("raw-3").build());
+
+        // Act
+        transport.send(email);
+
+        // Assert
+        ArgumentCaptor<SendEmailRequest> captor = ArgumentCaptor.forClass(SendEmailRequest.class);
+        verify(sesClient).sendEmail(captor.capture());
+        assertThat(captor.getValue().content().template()).isNull();
+        assertThat(captor.getValue().content().raw().data().asUtf8String()).isEqualTo("RENDERED-MIME");
+        assertThat(registry.get(SesV2EmailTransport.CONTENT_METRIC).tag("type", "raw").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendsAsyncWithoutBlockingOnAsyncClient() {
+        // Arrange
+        SesV2AsyncClient asyncClient = mock(SesV2AsyncClient.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                asyncClient, new NotificationSesProps(), new TemplateJsonSerializer(), registry);
+        ComposedEmail email = simpleEmail();
+        CompletableFuture<SendEmailResponse> pending = new CompletableFuture<>();
+        when(asyncClient.sendEmail(any(SendEmailRequest.class))).thenReturn(pending);
+
+        // Act
+        CompletableFuture<SendResult> result = transport.sendAsync(email);
+
+        // Assert
+        assertThat(result).isNotDone();
+        pending.complete(SendEmailResponse.builder().messageId("async-1").build());
+        assertThat(result.join().getMessageId()).isEqualTo("async-1");
+        assertThat(registry.get(SesV2EmailTransport.CONTENT_METRIC).tag("type", "simple").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void mapsAsyncFailuresToNotificationSendException() {
+        // Arrange
+        SesV2AsyncClient asyncClient = mock(SesV2AsyncClient.class);
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                asyncClient, new NotificationSesProps(), new TemplateJsonSerializer(), new SimpleMeterRegistry());
+        SesV2Exception throttled = (SesV2Exception) TooManyRequestsException.builder()
+                .statusCode(429)
+                .awsErrorDetails(AwsErrorDetails.builder().errorMessage("Maximum sending rate exceeded.").build())
+                .build();
+        when(asyncClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(throttled));
+
+        // Act + Assert
+        assertThatThrownBy(() -> transport.sendAsync(simpleEmail()).join())
+                .isInstanceOf(CompletionException.class)
+                .cause()
+                .isInstanceOf(NotificationSendException.class)
+                .hasMessage("SES send failed: Maximum sending rate exceeded.")
+                .hasCause(throttled);
+        assertThatThrownBy(() -> transport.send(simpleEmail()))
+                .isInstanceOf(NotificationSendException.class)
+                .hasCause(throttled)
+                .extracting(e -> ((NotificationSendException) e).getReason())
+                .isEqualTo(NotificationSendException.Reason.THROTTLED);
+    }
+
+    @Test
+    void classifiesRejectedRequestsAsPermanent() {
+        // Arrange
+        SesV2Client sesClient = mock(SesV2Client.class);
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                sesClient, new NotificationSesProps(), new TemplateJsonSerializer(), new SimpleMeterRegistry());
+        when(sesClient.sendEmail(any(SendEmailRequest.class))).thenThrow(MessageRejectedException.builder()
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder().errorMessage("Email address is not verified.").build())
+                .build());
+
+        // Act + Assert
+        assertThatThrownBy(() -> transport.send(simpleEmail()))
+                .isInstanceOf(NotificationSendException.class)
+                .extracting(e -> ((NotificationSendException) e).getReason())
+                .isEqualTo(NotificationSendException.Reason.PERMANENT);
+    }
+
+    private static ComposedEmail simpleEmail() {
+        EmailRequest request = EmailRequest.builder()
+                .to(EmailAddress.builder().address("user@ph-shoes.app").build())
+                .subject("Verify")
+                .textBody("Hello")
+                .build();
+        return new ComposedEmail(
+                request,
+                null,
+                "no-reply@ph-shoes.app",
+                List.of("user@ph-shoes.app"),
+                List.of(),
+                List.of(),
+                "Verify",
+                Map.of()
+        );
+    }
+
+    @Test
+    void sendsTemplateBatchInBulkAndOthersSingly() {
+        // Arrange
+        SesV2Client sesClient = mock(SesV2Client.class);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SesV2EmailTransport transport = new SesV2EmailTransport(
+                sesClient, new NotificationSesProps(), new TemplateJsonSerializer(), registry);
+        List<ComposedEmail> emails = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            EmailRequest request = EmailRequest.builder()
+                    .templateId("price-drop")
+                    .templateVar("name", "user" + i)
+                    .to(EmailAddress.builder().address("user" + i + "@ph-shoes.app").build())
+                    .build();
+            emails.add(new ComposedEmail(request, null, "no-reply@ph-shoes.app",
+                    List.of("user" + i + "@ph-shoes.app"), List.of(), List.of(), null, Map.of()));
+        }
+        emails.add(30, simpleEmail());
+        when(sesClient.sendBulkEmail(any(SendBulkEmailRequest.class))).thenAnswer(invocation -> {
+            SendBulkEmailRequest bulk = invocation.getArgument(0);
+            return SendBulkEmailResponse.builder()
+                    .bulkEmailEntryResults(bulk.bulkEmailEntries().stream()
+                            .map(entry -> BulkEmailEntryResult.builder().status(BulkEmailStatus.SUCCESS)
+                                    .messageId("bulk-" + entry.destination().toAddresses().get(0)).build())
+                            .toList())
+                    .build();
+        });
+        when(sesClient.sendEmail(any(SendEmailRequest.class)))
+                .thenReturn(SendEmailResponse.builder().messageId("single-1").build());
+
+        // Act
+        List<SendResult> results = transport.sendBatch(emails);
+
+        // Assert
+        verify(sesClient, times(2)).sendBulkEmail(any(SendBulkEmailRequest.class));
+        verify(sesClient, times(1)).sendEmail(any(SendEmailRequest.class));
+        assertThat(results).hasSize(61).allSatisfy(result -> assertThat(result.isAccepted()).isTrue());
+        assertThat(results.get(29).getMessageId()).isEqualTo("bulk-user29@ph-shoes.app");
+        assertThat(results.get(30).getMessageId()).isEqualTo("single-1");
+        assertThat(results.get(31).getMessageId()).isEqualTo("bulk-user30@ph-shoes.app");
+        assertThat(registry.get(SesV2EmailTransport.CONTENT_METRIC).tag("type", "template").counter().count()).isEqualTo(60);
+    }
 }
@@ -1,10 +1,12 @@
 package com.nimbly.phshoesbackend.notification.email.providers.smtp.config;
 
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
 import com.nimbly.phshoesbackend.notification.core.model.props.NotificationTransportProps;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import com.nimbly.phshoesbackend.notification.email.providers.smtp.service.SmtpEmailTransportServiceImpl;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -15,7 +17,8 @@ import org.springframework.mail.javamail.JavaMailSenderImpl;
 import java.util.Properties;
 @AutoConfiguration
 @EnableConfigurationProperties({ NotificationSmtpProps.class, NotificationTransportProps.class })
-@ConditionalOnProperty(name = "notification.transport", havingValue = "smtp")
+@ConditionalOnExpression("'${notification.transport:}'=='smtp' or '${notification.failover.fallbacks:}'.contains('smtp')"
+        + " or '${notification.routing.weights.smtp:}' != ''")
 public class SmtpTransportAutoConfiguration {
 
     @Bean
@@ -38,9 +41,17 @@ public class SmtpTransportAutoConfiguration {
     }
 
     @Bean
+    @ConditionalOnProperty(name = "notification.transport", havingValue = "smtp")
     @ConditionalOnBean(JavaMailSender.class)
     @ConditionalOnMissingBean(EmailTransportService.class)
     public EmailTransportService smtpEmailTransport(JavaMailSender sender, NotificationTransportProps ignored) {
         return new SmtpEmailTransportServiceImpl(sender);
     }
+
+    @Bean
+    @ConditionalOnExpression("'${notification.failover.fallbacks:}'.contains('smtp') or '${notification.routing.weights.smtp:}' != ''")
+    @ConditionalOnBean(JavaMailSender.class)
+    public NamedEmailTransport smtpNamedTransport(JavaMailSender sender) {
+        return new NamedEmailTransport("smtp", new SmtpEmailTransportServiceImpl(sender));
+    }
 }
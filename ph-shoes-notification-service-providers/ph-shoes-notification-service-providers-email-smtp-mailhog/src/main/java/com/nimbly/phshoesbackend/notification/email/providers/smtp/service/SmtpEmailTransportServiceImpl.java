@@ -4,15 +4,21 @@ import com.nimbly.phshoesbackend.notification.core.exception.NotificationSendExc
 import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
-import jakarta.mail.Session;
+import jakarta.mail.AuthenticationFailedException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.eclipse.angus.mail.util.MailConnectException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.JavaMailSenderImpl;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.time.Instant;
 
 @Slf4j
@@ -33,7 +39,7 @@ public class SmtpEmailTransportServiceImpl implements EmailTransportService {
     @Override
     public SendResult send(ComposedEmail email) throws NotificationSendException {
         try {
-            ByteArrayInputStream in = new ByteArrayInputStream(email.getRawMime().getBytes(StandardCharsets.UTF_8));
+            ByteArrayInputStream in = new ByteArrayInputStream(email.getRawMimeBytes());
             MimeMessage mime = (mailSender instanceof JavaMailSenderImpl jms)
                     ? jms.createMimeMessage(in)
                     : mailSender.createMimeMessage(in);
@@ -47,7 +53,40 @@ public class SmtpEmailTransportServiceImpl implements EmailTransportService {
                     .build();
 
         } catch (Exception e) {
-            throw new NotificationSendException("SMTP send failed: " + e.getMessage(), e);
+            throw new NotificationSendException("SMTP send failed: " + e.getMessage(), e, reason(e));
         }
     }
+
+    /**
+     * 4xx SMTP replies and connection problems are worth retrying; 5xx replies and authentication failures
+     * are not.
+     */
+    static NotificationSendException.Reason reason(Throwable error) {
+        if (error instanceof MailAuthenticationException) return NotificationSendException.Reason.PERMANENT;
+        if (error instanceof MailSendException send && !send.getFailedMessages().isEmpty()) {
+            NotificationSendException.Reason reason = NotificationSendException.Reason.UNKNOWN;
+            for (Exception failure : send.getMessageExceptions()) {
+                reason = reason(failure);
+                if (reason != NotificationSendException.Reason.TRANSIENT) return reason;
+            }
+            return reason;
+        }
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            int code = replyCode(cause);
+            if (code >= 500) return NotificationSendException.Reason.PERMANENT;
+            if (code >= 400) return NotificationSendException.Reason.TRANSIENT;
+            if (cause instanceof AuthenticationFailedException) return NotificationSendException.Reason.PERMANENT;
+            if (cause instanceof IOException || cause instanceof MailConnectException) {
+                return NotificationSendException.Reason.TRANSIENT;
+            }
+        }
+        return NotificationSendException.Reason.UNKNOWN;
+    }
+
+    private static int replyCode(Throwable error) {
+        if (error instanceof SMTPSendFailedException e) return e.getReturnCode();
+        if (error instanceof SMTPAddressFailedException e) return e.getReturnCode();
+        if (error instanceof SMTPSenderFailedException e) return e.getReturnCode();
+        return -1;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.nimbly.phshoesbackend.notification.email.providers.smtp.config;
 
+import com.nimbly.phshoesbackend.notification.core.service.NamedEmailTransport;
 import com.nimbly.phshoesbackend.notification.core.service.EmailTransportService;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.autoconfigure.AutoConfigurations;
@@ -65,4 +66,19 @@ class SmtpTransportAutoConfigurationTest {
         // Act + Assert
         runner.run(context -> assertThat(context).hasSingleBean(EmailTransportService.class));
     }
+
+    @Test
+    void registersSmtpAsFailoverFallbackOnly() {
+        // Arrange
+        ApplicationContextRunner runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(SmtpTransportAutoConfiguration.class))
+                .withPropertyValues("notification.transport=ses", "notification.failover.fallbacks=smtp");
+
+        // Act + Assert
+        runner.run(context -> {
+            assertThat(context).hasSingleBean(NamedEmailTransport.class);
+            assertThat(context.getBean(NamedEmailTransport.class).name()).isEqualTo("smtp");
+            assertThat(context).doesNotHaveBean(EmailTransportService.class);
+        });
+    }
 }
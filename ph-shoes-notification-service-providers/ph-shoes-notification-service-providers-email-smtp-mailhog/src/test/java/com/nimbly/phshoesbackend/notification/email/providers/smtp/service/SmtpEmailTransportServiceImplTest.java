@@ -5,11 +5,16 @@ import com.nimbly.phshoesbackend.notification.core.model.dto.ComposedEmail;
 import com.nimbly.phshoesbackend.notification.core.model.dto.EmailRequest;
 import com.nimbly.phshoesbackend.notification.core.model.dto.SendResult;
 import org.junit.jupiter.api.Test;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import jakarta.mail.MessagingException;
 import jakarta.mail.Session;
 import jakarta.mail.internet.MimeMessage;
 import java.io.InputStream;
+import java.net.SocketTimeoutException;
 import java.util.List;
 import java.util.Properties;
 
@@ -70,4 +75,21 @@ class SmtpEmailTransportServiceImplTest {
                 .isInstanceOf(NotificationSendException.class)
                 .hasMessageContaining("SMTP send failed");
     }
+
+    @Test
+    void classifiesSmtpFailures() {
+        // Arrange
+        Exception busy = new MailSendException("send failed",
+                new SMTPSendFailedException("DATA", 451, "451 try again later", null, null, null, null));
+        Exception rejected = new MailSendException("send failed",
+                new SMTPSendFailedException("DATA", 554, "554 message rejected", null, null, null, null));
+        Exception timeout = new MailSendException("send failed", new MessagingException("read", new SocketTimeoutException("Read timed out")));
+
+        // Act + Assert
+        assertThat(SmtpEmailTransportServiceImpl.reason(busy)).isEqualTo(NotificationSendException.Reason.TRANSIENT);
+        assertThat(SmtpEmailTransportServiceImpl.reason(rejected)).isEqualTo(NotificationSendException.Reason.PERMANENT);
+        assertThat(SmtpEmailTransportServiceImpl.reason(timeout)).isEqualTo(NotificationSendException.Reason.TRANSIENT);
+        assertThat(SmtpEmailTransportServiceImpl.reason(new MailAuthenticationException("bad credentials")))
+                .isEqualTo(NotificationSendException.Reason.PERMANENT);
+    }
 }